@@ -0,0 +1,170 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.lifecycle;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import software.amazon.kinesis.checkpoint.Checkpoint;
+import software.amazon.kinesis.checkpoint.ShardRecordProcessorCheckpointer;
+import software.amazon.kinesis.leases.ShardInfo;
+import software.amazon.kinesis.lifecycle.events.InitializationInput;
+import software.amazon.kinesis.lifecycle.events.LeaseLostInput;
+import software.amazon.kinesis.lifecycle.events.ProcessRecordsInput;
+import software.amazon.kinesis.lifecycle.events.ShardEndedInput;
+import software.amazon.kinesis.lifecycle.events.ShutdownRequestedInput;
+import software.amazon.kinesis.metrics.NullMetricsFactory;
+import software.amazon.kinesis.processor.Checkpointer;
+import software.amazon.kinesis.processor.ShardRecordProcessor;
+import software.amazon.kinesis.retrieval.AggregatorUtil;
+import software.amazon.kinesis.retrieval.BenchmarkRecords;
+import software.amazon.kinesis.retrieval.KinesisClientRecord;
+import software.amazon.kinesis.retrieval.ThrottlingReporter;
+import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
+
+/**
+ * A {@link ProcessTask} delivering a batch to a record processor that only iterates the records. This covers
+ * deaggregation, dropping the records at or below the last checkpoint, tracking the largest permitted checkpoint and
+ * the record metrics. The last checkpoint is in the middle of the batch, so half of the records are dropped.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessTaskBenchmark {
+    private static final String SHARD_ID = "shardId-000000000000";
+
+    @Param({ "1", "100" })
+    private int aggregationFactor;
+
+    @Param({ "100" })
+    private int recordCount;
+
+    @Param({ "256" })
+    private int userRecordSize;
+
+    @Param({ "false", "true" })
+    private boolean deaggregateRecordsLazily;
+
+    private final ShardInfo shardInfo = new ShardInfo(SHARD_ID, "concurrencyToken", Collections.emptySet(),
+            ExtendedSequenceNumber.TRIM_HORIZON);
+    private final ThrottlingReporter throttlingReporter = new ThrottlingReporter(5, SHARD_ID);
+    private final AggregatorUtil aggregatorUtil = new AggregatorUtil();
+    private final IteratingShardRecordProcessor shardRecordProcessor = new IteratingShardRecordProcessor();
+
+    private List<KinesisClientRecord> records;
+    private ExtendedSequenceNumber lastCheckpointValue;
+
+    @Setup
+    public void setup() {
+        records = BenchmarkRecords.records(recordCount, aggregationFactor, userRecordSize, 42);
+        lastCheckpointValue = new ExtendedSequenceNumber(
+                BenchmarkRecords.FIRST_SEQUENCE_NUMBER.add(BigInteger.valueOf(recordCount / 2)).toString());
+    }
+
+    @Benchmark
+    public void processRecords(final Blackhole blackhole) {
+        final ShardRecordProcessorCheckpointer checkpointer = new ShardRecordProcessorCheckpointer(shardInfo,
+                new NoOpCheckpointer());
+        checkpointer.setInitialCheckpointValue(lastCheckpointValue);
+        checkpointer.largestPermittedCheckpointValue(lastCheckpointValue);
+
+        final ProcessRecordsInput processRecordsInput = ProcessRecordsInput.builder()
+                .records(BenchmarkRecords.duplicate(records)).millisBehindLatest(0L).build();
+        shardRecordProcessor.blackhole = blackhole;
+        new ProcessTask(shardInfo, shardRecordProcessor, checkpointer, 0L, true, null, throttlingReporter,
+                processRecordsInput, false, deaggregateRecordsLazily, 0L, aggregatorUtil, new NullMetricsFactory())
+                        .call();
+        blackhole.consume(checkpointer.largestPermittedCheckpointValue());
+    }
+
+    private static class IteratingShardRecordProcessor implements ShardRecordProcessor {
+        private Blackhole blackhole;
+
+        @Override
+        public void initialize(final InitializationInput initializationInput) {
+        }
+
+        @Override
+        public void processRecords(final ProcessRecordsInput processRecordsInput) {
+            for (KinesisClientRecord record : processRecordsInput.records()) {
+                blackhole.consume(record);
+            }
+        }
+
+        @Override
+        public void leaseLost(final LeaseLostInput leaseLostInput) {
+        }
+
+        @Override
+        public void shardEnded(final ShardEndedInput shardEndedInput) {
+        }
+
+        @Override
+        public void shutdownRequested(final ShutdownRequestedInput shutdownRequestedInput) {
+        }
+    }
+
+    private static class NoOpCheckpointer implements Checkpointer {
+        private String operation;
+
+        @Override
+        public void setCheckpoint(final String shardId, final ExtendedSequenceNumber checkpointValue,
+                final String concurrencyToken) {
+        }
+
+        @Override
+        public ExtendedSequenceNumber getCheckpoint(final String shardId) {
+            return null;
+        }
+
+        @Override
+        public Checkpoint getCheckpointObject(final String shardId) {
+            return null;
+        }
+
+        @Override
+        public void prepareCheckpoint(final String shardId, final ExtendedSequenceNumber pendingCheckpoint,
+                final String concurrencyToken) {
+        }
+
+        @Override
+        public void operation(final String operation) {
+            this.operation = operation;
+        }
+
+        @Override
+        public String operation() {
+            return operation;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.metrics;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.amazon.awssdk.services.cloudwatch.model.Dimension;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+/**
+ * Offering metrics to the {@link MetricAccumulatingQueue} of the CloudWatch publisher. The queue is large enough to
+ * hold every key, so after the first offer of each key every offer accumulates into an existing datum, which is what
+ * happens between two publishes. The contended variant offers from several threads, like the ShardConsumers ending
+ * their metrics scopes concurrently.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricAccumulatingQueueBenchmark {
+    @Param({ "1", "100" })
+    private int keyCount;
+
+    private MetricAccumulatingQueue<CloudWatchMetricKey> queue;
+    private CloudWatchMetricKey[] keys;
+    private MetricDatum[] data;
+    private final AtomicInteger nextThreadOffset = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        queue = new MetricAccumulatingQueue<>(keyCount);
+        keys = new CloudWatchMetricKey[keyCount];
+        data = new MetricDatum[keyCount];
+        for (int i = 0; i < keyCount; ++i) {
+            data[i] = MetricDatum.builder().metricName("RecordsProcessed")
+                    .dimensions(Dimension.builder().name("Operation").value("ProcessTask").build(),
+                            Dimension.builder().name("ShardId").value(String.format("shardId-%012d", i)).build())
+                    .unit(StandardUnit.COUNT).timestamp(Instant.now())
+                    .statisticValues(StatisticSet.builder().sum(10.0).minimum(10.0).maximum(10.0).sampleCount(1.0)
+                            .build())
+                    .build();
+            keys[i] = new CloudWatchMetricKey(data[i]);
+        }
+    }
+
+    /**
+     * The position of each thread in the keys, so threads mostly offer different keys.
+     */
+    @State(Scope.Thread)
+    public static class Position {
+        private int index;
+
+        @Setup
+        public void setup(final MetricAccumulatingQueueBenchmark benchmark) {
+            index = benchmark.nextThreadOffset.getAndIncrement();
+        }
+
+        int next(final int keyCount) {
+            index = (index + 1) % keyCount;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public boolean offer(final Position position) {
+        final int index = position.next(keyCount);
+        return queue.offer(keys[index], data[index]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean offerContended(final Position position) {
+        final int index = position.next(keyCount);
+        return queue.offer(keys[index], data[index]);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Deaggregation of a batch of Kinesis records, with and without filtering user records by the hash key range of the
+ * shard. The batch always holds the same number of Kinesis records, so the score scales with the aggregation factor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregatorUtilBenchmark {
+    private static final String STARTING_HASH_KEY = "0";
+    // The lower half of the hash key space, so about half of the user records are dropped.
+    private static final String ENDING_HASH_KEY = BigInteger.ONE.shiftLeft(127).toString();
+
+    @Param({ "1", "10", "100", "1000" })
+    private int aggregationFactor;
+
+    @Param({ "100" })
+    private int recordCount;
+
+    @Param({ "256" })
+    private int userRecordSize;
+
+    @Param({ "false", "true" })
+    private boolean zeroCopyDeaggregation;
+
+    private AggregatorUtil aggregatorUtil;
+    private List<KinesisClientRecord> records;
+
+    @Setup
+    public void setup() {
+        aggregatorUtil = new AggregatorUtil(zeroCopyDeaggregation);
+        records = BenchmarkRecords.records(recordCount, aggregationFactor, userRecordSize, 42);
+    }
+
+    @Benchmark
+    public List<KinesisClientRecord> deaggregate() {
+        return aggregatorUtil.deaggregate(BenchmarkRecords.duplicate(records));
+    }
+
+    @Benchmark
+    public List<KinesisClientRecord> deaggregateWithHashKeyRange() {
+        return aggregatorUtil.deaggregate(BenchmarkRecords.duplicate(records), STARTING_HASH_KEY, ENDING_HASH_KEY);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.protobuf.ByteString;
+
+import software.amazon.kinesis.retrieval.kpl.Messages;
+
+/**
+ * Generates Kinesis records, aggregated the same way the KPL does, for the benchmarks.
+ */
+public final class BenchmarkRecords {
+    /**
+     * A sequence number of the same length as the ones returned by Kinesis.
+     */
+    public static final BigInteger FIRST_SEQUENCE_NUMBER = new BigInteger(
+            "49590338271490256608559692538361571095921575989136588898");
+
+    private BenchmarkRecords() {
+    }
+
+    /**
+     * Generates a batch of records with consecutive sequence numbers.
+     *
+     * @param recordCount
+     *            the number of Kinesis records in the batch
+     * @param aggregationFactor
+     *            the number of user records in each Kinesis record, 1 to skip aggregation
+     * @param userRecordSize
+     *            the size of the data of each user record in bytes
+     * @param seed
+     *            the seed for the random data, partition keys and explicit hash keys
+     * @return the generated records
+     */
+    public static List<KinesisClientRecord> records(final int recordCount, final int aggregationFactor,
+            final int userRecordSize, final long seed) {
+        final Random random = new Random(seed);
+        final List<KinesisClientRecord> records = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; ++i) {
+            final ByteBuffer data = aggregationFactor == 1 ? ByteBuffer.wrap(randomBytes(random, userRecordSize))
+                    : aggregatedRecord(random, aggregationFactor, userRecordSize);
+            records.add(KinesisClientRecord.builder().partitionKey(Long.toHexString(random.nextLong()))
+                    .sequenceNumber(FIRST_SEQUENCE_NUMBER.add(BigInteger.valueOf(i)).toString())
+                    .approximateArrivalTimestamp(Instant.now()).data(data).build());
+        }
+        return records;
+    }
+
+    /**
+     * Copies the records with a duplicate of their data, since deaggregation moves the position of the data.
+     *
+     * @param records
+     *            the records to copy
+     * @return the copied records
+     */
+    public static List<KinesisClientRecord> duplicate(final List<KinesisClientRecord> records) {
+        final List<KinesisClientRecord> duplicates = new ArrayList<>(records.size());
+        for (KinesisClientRecord record : records) {
+            duplicates.add(record.toBuilder().data(record.data().duplicate()).build());
+        }
+        return duplicates;
+    }
+
+    private static ByteBuffer aggregatedRecord(final Random random, final int aggregationFactor,
+            final int userRecordSize) {
+        final Messages.AggregatedRecord.Builder builder = Messages.AggregatedRecord.newBuilder();
+        // Like the KPL, most user records of an aggregate share a few partition keys and explicit hash keys.
+        final int keyCount = Math.max(1, aggregationFactor / 10);
+        for (int i = 0; i < keyCount; ++i) {
+            builder.addPartitionKeyTable(Long.toHexString(random.nextLong()));
+            builder.addExplicitHashKeyTable(new BigInteger(128, random).toString());
+        }
+        for (int i = 0; i < aggregationFactor; ++i) {
+            Messages.Record.Builder record = Messages.Record.newBuilder()
+                    .setData(ByteString.copyFrom(randomBytes(random, userRecordSize)))
+                    .setPartitionKeyIndex(random.nextInt(keyCount));
+            if (random.nextBoolean()) {
+                record.setExplicitHashKeyIndex(random.nextInt(keyCount));
+            }
+            builder.addRecords(record);
+        }
+
+        final byte[] payload = builder.build().toByteArray();
+        final ByteBuffer data = ByteBuffer.allocate(
+                AggregatorUtil.AGGREGATED_RECORD_MAGIC.length + payload.length + 16);
+        data.put(AggregatorUtil.AGGREGATED_RECORD_MAGIC).put(payload).put(md5(payload));
+        data.flip();
+        return data;
+    }
+
+    private static byte[] randomBytes(final Random random, final int size) {
+        final byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] md5(final byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
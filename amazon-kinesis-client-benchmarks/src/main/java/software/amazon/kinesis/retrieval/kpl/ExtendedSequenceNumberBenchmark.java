@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval.kpl;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import software.amazon.kinesis.retrieval.BenchmarkRecords;
+
+/**
+ * Comparisons of extended sequence numbers. The record processing path creates a new extended sequence number for
+ * every user record and compares it to the checkpoints, so comparisons of fresh instances are measured as well as
+ * comparisons of instances that were already compared before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtendedSequenceNumberBenchmark {
+    private String sequenceNumber;
+    private String otherSequenceNumber;
+    private ExtendedSequenceNumber extendedSequenceNumber;
+    private ExtendedSequenceNumber otherExtendedSequenceNumber;
+
+    @Setup
+    public void setup() {
+        sequenceNumber = BenchmarkRecords.FIRST_SEQUENCE_NUMBER.toString();
+        // Only the low digits differ, like consecutive sequence numbers of a shard
+        otherSequenceNumber = BenchmarkRecords.FIRST_SEQUENCE_NUMBER.add(BigInteger.valueOf(1000)).toString();
+        extendedSequenceNumber = new ExtendedSequenceNumber(sequenceNumber, 5L);
+        otherExtendedSequenceNumber = new ExtendedSequenceNumber(otherSequenceNumber, 3L);
+        extendedSequenceNumber.compareTo(otherExtendedSequenceNumber);
+    }
+
+    @Benchmark
+    public int compareToCached() {
+        return extendedSequenceNumber.compareTo(otherExtendedSequenceNumber);
+    }
+
+    @Benchmark
+    public int compareToNew() {
+        return new ExtendedSequenceNumber(sequenceNumber, 5L).compareTo(
+                new ExtendedSequenceNumber(otherSequenceNumber, 3L));
+    }
+
+    @Benchmark
+    public int compareToSentinel() {
+        return new ExtendedSequenceNumber(sequenceNumber, 5L).compareTo(ExtendedSequenceNumber.TRIM_HORIZON);
+    }
+}
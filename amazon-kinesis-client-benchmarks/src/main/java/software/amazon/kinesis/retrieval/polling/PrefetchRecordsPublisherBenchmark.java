@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval.polling;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.kinesis.model.GetRecordsResponse;
+import software.amazon.awssdk.services.kinesis.model.Record;
+import software.amazon.kinesis.common.InitialPositionInStream;
+import software.amazon.kinesis.common.InitialPositionInStreamExtended;
+import software.amazon.kinesis.metrics.NullMetricsFactory;
+import software.amazon.kinesis.retrieval.BenchmarkRecords;
+import software.amazon.kinesis.retrieval.GetRecordsRetrievalStrategy;
+import software.amazon.kinesis.retrieval.RecordsRetrieved;
+import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
+
+/**
+ * Batches flowing through a {@link PrefetchRecordsPublisher}: the prefetch thread enqueues canned GetRecords responses
+ * as fast as the prefetch limits allow, and the benchmark thread receives each batch, acknowledges it and requests
+ * the next one like the ShardConsumer does. The score is the number of batches delivered per millisecond.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrefetchRecordsPublisherBenchmark {
+    private static final String SHARD_ID = "shardId-000000000000";
+    private static final long DELIVERY_TIMEOUT_SECONDS = 10;
+
+    @Param({ "1", "100", "1000" })
+    private int recordsPerBatch;
+
+    @Param({ "3" })
+    private int maxPendingProcessRecordsInput;
+
+    @Param({ "false", "true" })
+    private boolean lockFreePrefetchQueue;
+
+    private PrefetchRecordsPublisher publisher;
+    private final BlockingQueue<RecordsRetrieved> deliveredBatches = new LinkedBlockingQueue<>();
+    private Subscription subscription;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final GetRecordsResponse response = GetRecordsResponse.builder().records(records(recordsPerBatch))
+                .nextShardIterator("nextShardIterator").millisBehindLatest(0L).build();
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        // The record limit makes the prefetch thread wait for the consumer once the queue is full, instead of spinning
+        publisher = new PrefetchRecordsPublisher(maxPendingProcessRecordsInput, Integer.MAX_VALUE,
+                maxPendingProcessRecordsInput * recordsPerBatch, recordsPerBatch,
+                new CannedGetRecordsRetrievalStrategy(response), executorService, 0L, new NullMetricsFactory(),
+                "ProcessTask", SHARD_ID, lockFreePrefetchQueue, null);
+        publisher.start(ExtendedSequenceNumber.LATEST,
+                InitialPositionInStreamExtended.newInitialPosition(InitialPositionInStream.LATEST));
+        deliveredBatches.clear();
+        publisher.subscribe(new Subscriber<RecordsRetrieved>() {
+            @Override
+            public void onSubscribe(final Subscription s) {
+                subscription = s;
+            }
+
+            @Override
+            public void onNext(final RecordsRetrieved recordsRetrieved) {
+                deliveredBatches.add(recordsRetrieved);
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        subscription.request(1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Benchmark
+    public RecordsRetrieved deliverBatch() throws InterruptedException {
+        final RecordsRetrieved recordsRetrieved = deliveredBatches.poll(DELIVERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (recordsRetrieved == null) {
+            throw new IllegalStateException("No batch was delivered within " + DELIVERY_TIMEOUT_SECONDS + " seconds");
+        }
+        publisher.notify(recordsRetrieved::batchUniqueIdentifier);
+        subscription.request(1);
+        return recordsRetrieved;
+    }
+
+    private static List<Record> records(final int count) {
+        final Random random = new Random(42);
+        final List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            final byte[] data = new byte[256];
+            random.nextBytes(data);
+            records.add(Record.builder().partitionKey(Long.toHexString(random.nextLong()))
+                    .sequenceNumber(BenchmarkRecords.FIRST_SEQUENCE_NUMBER.add(BigInteger.valueOf(i)).toString())
+                    .approximateArrivalTimestamp(Instant.now()).data(SdkBytes.fromByteArray(data)).build());
+        }
+        return records;
+    }
+
+    /**
+     * Returns the same response for every call, without calling Kinesis.
+     */
+    private static class CannedGetRecordsRetrievalStrategy implements GetRecordsRetrievalStrategy {
+        private final GetRecordsResponse response;
+        private final KinesisDataFetcher dataFetcher = new KinesisDataFetcher(null, "stream", SHARD_ID, 10000,
+                new NullMetricsFactory(), PollingConfig.DEFAULT_REQUEST_TIMEOUT) {
+            @Override
+            public void initialize(final ExtendedSequenceNumber initialCheckpoint,
+                    final InitialPositionInStreamExtended initialPositionInStream) {
+            }
+        };
+        private volatile boolean isShutdown = false;
+
+        CannedGetRecordsRetrievalStrategy(final GetRecordsResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public GetRecordsResponse getRecords(final int maxRecords) {
+            return response;
+        }
+
+        @Override
+        public void shutdown() {
+            isShutdown = true;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return isShutdown;
+        }
+
+        @Override
+        public KinesisDataFetcher getDataFetcher() {
+            return dataFetcher;
+        }
+    }
+}
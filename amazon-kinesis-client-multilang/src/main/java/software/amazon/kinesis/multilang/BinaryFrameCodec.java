@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import software.amazon.kinesis.multilang.messages.JsonFriendlyRecord;
+import software.amazon.kinesis.multilang.messages.Message;
+import software.amazon.kinesis.multilang.messages.ProcessRecordsMessage;
+
+/**
+ * Encodes and decodes the length prefixed frames exchanged with the child process once both sides agreed on the
+ * {@value #FRAMING} framing while initializing.
+ *
+ * <p>
+ * All integers are unsigned 32 bit big endian values.
+ * </p>
+ *
+ * <pre>
+ * frame   := length payload                       the length of the payload, excluding the length itself
+ * payload := 0x01 message                         any message, as the UTF-8 JSON it would be sent as on a line
+ *          | 0x02 headerLength header record*     a processRecords message
+ * header  := the UTF-8 JSON of the processRecords message, without the data of its records
+ * record  := dataLength data                      the raw data of each record of the header, in the same order;
+ *                                                 a dataLength of 0xFFFFFFFF means the record has no data
+ * </pre>
+ *
+ * <p>
+ * Sending the data of records as raw bytes avoids encoding them to base64, and decoding them again in the child
+ * process.
+ * </p>
+ */
+class BinaryFrameCodec {
+    /**
+     * The name of the framing, used to negotiate it in the initialize message.
+     */
+    static final String FRAMING = "length-prefixed";
+
+    static final byte MESSAGE_FRAME = 0x01;
+    static final byte PROCESS_RECORDS_FRAME = 0x02;
+
+    /**
+     * The maximum length of the frames read from the child process, which only carry its responses and checkpoints,
+     * so that a corrupt length doesn't allocate up to 2 GiB.
+     */
+    static final int MAX_READ_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    private static final int NO_DATA = -1;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper headerMapper;
+
+    /**
+     * Constructor.
+     *
+     * @param objectMapper An object mapper to encode and decode messages.
+     */
+    BinaryFrameCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.headerMapper = objectMapper.copy().addMixIn(JsonFriendlyRecord.class, RecordHeaderMixIn.class);
+    }
+
+    /**
+     * Writes a message as a single frame. The data of records is copied straight from the records to the stream.
+     *
+     * @param output The stream to write to. It isn't flushed.
+     * @param message The message to write.
+     * @return The number of bytes written.
+     * @throws IOException Thrown when encoding the message or writing to the stream fails.
+     */
+    int writeFrame(DataOutputStream output, Message message) throws IOException {
+        if (!(message instanceof ProcessRecordsMessage)) {
+            byte[] json = objectMapper.writeValueAsBytes(message);
+            output.writeInt(1 + json.length);
+            output.writeByte(MESSAGE_FRAME);
+            output.write(json);
+            return 4 + 1 + json.length;
+        }
+
+        List<JsonFriendlyRecord> records = ((ProcessRecordsMessage) message).getRecords();
+        byte[] header = headerMapper.writeValueAsBytes(message);
+        long length = 1 + 4 + header.length;
+        for (JsonFriendlyRecord record : records) {
+            length += 4 + (record.getData() == null ? 0 : record.getData().length);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("A frame of " + length + " bytes exceeds the maximum frame length");
+        }
+        output.writeInt((int) length);
+        output.writeByte(PROCESS_RECORDS_FRAME);
+        output.writeInt(header.length);
+        output.write(header);
+        for (JsonFriendlyRecord record : records) {
+            if (record.getData() == null) {
+                output.writeInt(NO_DATA);
+            } else {
+                output.writeInt(record.getData().length);
+                output.write(record.getData());
+            }
+        }
+        return 4 + (int) length;
+    }
+
+    /**
+     * Reads the next frame from the stream and decodes the message it carries.
+     *
+     * @param input The stream to read from.
+     * @return The message, or null if the stream ended before the start of a frame.
+     * @throws IOException Thrown when reading from the stream fails, the frame is longer than
+     *         {@link #MAX_READ_FRAME_LENGTH}, or the frame can't be decoded.
+     */
+    Message readFrame(DataInputStream input) throws IOException {
+        int length;
+        try {
+            length = input.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 1) {
+            throw new IOException("Invalid frame length " + (length & 0xFFFFFFFFL));
+        }
+        if (length > MAX_READ_FRAME_LENGTH) {
+            throw new IOException("A frame of " + length + " bytes exceeds the maximum frame length of "
+                    + MAX_READ_FRAME_LENGTH + " bytes");
+        }
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+
+        switch (payload[0]) {
+        case MESSAGE_FRAME:
+            return objectMapper.readValue(payload, 1, length - 1, Message.class);
+        case PROCESS_RECORDS_FRAME:
+            return decodeProcessRecords(ByteBuffer.wrap(payload, 1, length - 1));
+        default:
+            throw new IOException("Unknown frame type " + payload[0]);
+        }
+    }
+
+    private Message decodeProcessRecords(ByteBuffer payload) throws IOException {
+        try {
+            int headerLength = payload.getInt();
+            ProcessRecordsMessage message = headerMapper.readValue(payload.array(), payload.position(),
+                    headerLength, ProcessRecordsMessage.class);
+            payload.position(payload.position() + headerLength);
+            for (JsonFriendlyRecord record : message.getRecords()) {
+                int dataLength = payload.getInt();
+                if (dataLength != NO_DATA) {
+                    byte[] data = new byte[dataLength];
+                    payload.get(data);
+                    record.setData(data);
+                }
+            }
+            return message;
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed processRecords frame", e);
+        }
+    }
+
+    /**
+     * Leaves the data of records out of the header of processRecords frames.
+     */
+    private abstract static class RecordHeaderMixIn {
+        @JsonIgnore
+        abstract byte[] getData();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.kinesis.multilang.PooledChildProcess.ShardChannel;
+
+/**
+ * A fixed number of {@link PooledChildProcess}es shared by all the record processors of a
+ * {@link MultiLangRecordProcessorFactory}. Shards are attached to the child process serving the fewest shards, and
+ * child processes are started as they are needed. A child process is stopped once the last shard it serves is
+ * detached.
+ */
+@Slf4j
+class ChildProcessPool {
+    private final ProcessBuilder processBuilder;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executorService;
+
+    private final PooledChildProcess[] childProcesses;
+    private int startedChildProcesses = 0;
+
+    /**
+     * Constructor.
+     *
+     * @param processBuilder Starts the child processes.
+     * @param size The maximum number of child processes.
+     * @param objectMapper The object mapper to encode and decode messages.
+     * @param executorService An executor service to run tasks in.
+     */
+    ChildProcessPool(ProcessBuilder processBuilder, int size, ObjectMapper objectMapper,
+            ExecutorService executorService) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size of the child process pool must be at least 1");
+        }
+        this.processBuilder = processBuilder;
+        this.objectMapper = objectMapper;
+        this.executorService = executorService;
+        this.childProcesses = new PooledChildProcess[size];
+    }
+
+    /**
+     * Attaches a shard to the child process serving the fewest shards, starting a child process if not all of them
+     * are running.
+     *
+     * @param shardId The shard.
+     * @return The channel the shard exchanges messages with its child process over.
+     * @throws IOException If a child process needs to be started, and starting it fails.
+     */
+    synchronized ShardChannel attach(String shardId) throws IOException {
+        int slot = 0;
+        for (int i = 0; i < childProcesses.length; i++) {
+            if (childProcesses[i] == null || !childProcesses[i].isAlive()) {
+                slot = i;
+                break;
+            }
+            if (childProcesses[i].shardCount() < childProcesses[slot].shardCount()) {
+                slot = i;
+            }
+        }
+        if (childProcesses[slot] == null || !childProcesses[slot].isAlive()) {
+            String name = "pooled child process " + startedChildProcesses++;
+            try {
+                childProcesses[slot] = new PooledChildProcess(name, startProcess(), objectMapper, executorService)
+                        .start();
+            } catch (IOException e) {
+                throw new IOException("Failed to start client executable", e);
+            }
+            log.info("Started {}", name);
+        }
+        return childProcesses[slot].attach(shardId);
+    }
+
+    /**
+     * Detaches a shard from its child process, and stops the child process if it doesn't serve any other shard.
+     *
+     * @param shardChannel The channel returned when attaching the shard.
+     */
+    void detach(ShardChannel shardChannel) {
+        PooledChildProcess childProcess = shardChannel.getChildProcess();
+        synchronized (this) {
+            childProcess.detach(shardChannel.getShardId());
+            if (childProcess.shardCount() > 0) {
+                return;
+            }
+            for (int i = 0; i < childProcesses.length; i++) {
+                if (childProcesses[i] == childProcess) {
+                    childProcesses[i] = null;
+                }
+            }
+        }
+        childProcess.stop();
+    }
+
+    /**
+     * The {@link ProcessBuilder} class is final so not easily mocked. We wrap the only interaction we have with it in
+     * this package level method to permit unit testing.
+     *
+     * @return The process started by processBuilder
+     * @throws IOException If the process can't be started.
+     */
+    Process startProcess() throws IOException {
+        return processBuilder.start();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.kinesis.multilang.messages.Message;
+
+/**
+ * Reads the messages written by a {@link PooledChildProcess} to its STDOUT, and dispatches each of them to the shard
+ * named by its shard id tag. Lines that can't be decoded to a tagged message are ignored, like
+ * {@link GetNextMessageTask} does for a child process serving a single shard.
+ */
+@Slf4j
+class DispatchChildSTDOUTTask extends LineReaderTask<Boolean> {
+    private final PooledChildProcess childProcess;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor.
+     *
+     * @param childProcess The child process to dispatch messages for.
+     * @param objectMapper An object mapper for decoding json messages from the input stream.
+     */
+    DispatchChildSTDOUTTask(PooledChildProcess childProcess, ObjectMapper objectMapper) {
+        this.childProcess = childProcess;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected HandleLineResult<Boolean> handleLine(String line) {
+        if (line.trim().isEmpty()) {
+            return new HandleLineResult<Boolean>();
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (node == null || !node.isObject()) {
+                log.info("Skipping unexpected line on STDOUT for {}: {}", getShardId(), line);
+                return new HandleLineResult<Boolean>();
+            }
+            JsonNode shardId = ((ObjectNode) node).remove(MessageWriter.SHARD_ID_TAG);
+            Message message = objectMapper.treeToValue(node, Message.class);
+            if (shardId == null || !shardId.isTextual()) {
+                log.warn("Dropping message without a shard id on STDOUT for {}: {}", getShardId(), line);
+            } else {
+                childProcess.dispatch(shardId.asText(), message);
+            }
+        } catch (IOException e) {
+            log.info("Skipping unexpected line on STDOUT for {}: {}", getShardId(), line);
+        }
+        return new HandleLineResult<Boolean>();
+    }
+
+    @Override
+    protected Boolean returnAfterException(Exception e) {
+        log.info("Encountered exception while reading STDOUT of {}", getShardId(), e);
+        childProcess.outputEnded(e);
+        return false;
+    }
+
+    @Override
+    protected Boolean returnAfterEndOfInput() {
+        childProcess.outputEnded(null);
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.kinesis.multilang.messages.Message;
+
+/**
+ * A {@link MessageReader} for a single shard of a {@link PooledChildProcess}. Instead of reading the STDOUT of the child
+ * process itself, it is handed the messages tagged with its shard id by the {@link DispatchChildSTDOUTTask} of the child
+ * process, so waiting for a message doesn't block a thread.
+ */
+@Slf4j
+class DispatchedMessageReader extends MessageReader {
+    private final String shardId;
+
+    private final Deque<Message> messages = new ArrayDeque<>();
+    private final Deque<CompletableFuture<Message>> pendingReads = new ArrayDeque<>();
+    private Throwable failure;
+
+    /**
+     * Constructor.
+     *
+     * @param shardId The shard we're working on.
+     */
+    DispatchedMessageReader(String shardId) {
+        this.shardId = shardId;
+    }
+
+    @Override
+    synchronized Future<Message> getNextMessageFromSTDOUT() {
+        CompletableFuture<Message> future = new CompletableFuture<>();
+        if (!messages.isEmpty()) {
+            future.complete(messages.poll());
+        } else if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            pendingReads.add(future);
+        }
+        return future;
+    }
+
+    /**
+     * The child process keeps running for other shards, so this only discards the messages that weren't read.
+     */
+    @Override
+    synchronized Future<Boolean> drainSTDOUT() {
+        for (Message message : messages) {
+            log.info("Drained message for shard {}: {}", shardId, message);
+        }
+        messages.clear();
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * Hands a message written by the child process for this shard to the oldest pending read, or keeps it for the next
+     * one.
+     *
+     * @param message The message.
+     */
+    void deliver(Message message) {
+        CompletableFuture<Message> pendingRead;
+        synchronized (this) {
+            pendingRead = pendingReads.poll();
+            if (pendingRead == null) {
+                messages.add(message);
+                return;
+            }
+        }
+        // Completing runs the dependent stages of the read, which mustn't happen while holding the lock.
+        pendingRead.complete(message);
+    }
+
+    /**
+     * Fails all pending and future reads, once the STDOUT of the child process ended.
+     *
+     * @param cause Why no more messages will be delivered.
+     */
+    void fail(Throwable cause) {
+        List<CompletableFuture<Message>> failedReads;
+        synchronized (this) {
+            failure = cause;
+            failedReads = new ArrayList<>(pendingReads);
+            pendingReads.clear();
+        }
+        for (CompletableFuture<Message> pendingRead : failedReads) {
+            pendingRead.completeExceptionally(cause);
+        }
+    }
+}
@@ -15,11 +15,14 @@
 package software.amazon.kinesis.multilang;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
+import lombok.extern.slf4j.Slf4j;
 import software.amazon.kinesis.multilang.messages.Message;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -34,11 +37,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * being present in STDOUT. Lines which cannot be decoded to a Message object are ignored.
  * 
  * {@link #drainSTDOUT()} simply reads all data from the child process's STDOUT until the stream is closed.
+ * 
+ * Once the child process switched to binary framing, see {@link #useBinaryFraming()}, its STDOUT must only contain
+ * length prefixed frames, each carrying a single message.
  */
+@Slf4j
 class MessageReader {
 
     private BufferedReader reader;
 
+    private InputStream stream;
+
+    private DataInputStream frameInput;
+
+    private BinaryFrameCodec frameCodec;
+
+    private boolean readAsText;
+
     private String shardId;
 
     private ObjectMapper objectMapper;
@@ -64,6 +79,10 @@ class MessageReader {
      * @return
      */
     Future<Message> getNextMessageFromSTDOUT() {
+        if (frameCodec != null) {
+            return executorService.submit(this::readNextFrame);
+        }
+        readAsText = true;
         GetNextMessageTask getNextMessageTask = new GetNextMessageTask(objectMapper);
         getNextMessageTask.initialize(reader, shardId);
         return executorService.submit(getNextMessageTask);
@@ -77,11 +96,65 @@ class MessageReader {
      * @return
      */
     Future<Boolean> drainSTDOUT() {
+        if (frameCodec != null) {
+            return this.executorService.submit(this::drainFrames);
+        }
         DrainChildSTDOUTTask drainTask = new DrainChildSTDOUTTask();
         drainTask.initialize(reader, shardId);
         return this.executorService.submit(drainTask);
     }
 
+    /**
+     * @return Whether this reader has access to the raw STDOUT of the child process, which is needed to read binary
+     *         frames.
+     */
+    boolean supportsBinaryFraming() {
+        return this.stream != null;
+    }
+
+    /**
+     * Reads all following messages from length prefixed frames. See {@link BinaryFrameCodec} for the format of the
+     * frames. This must only be called when no message is being read.
+     *
+     * @throws IOException Thrown when the child process wrote to STDOUT after the last message read as text. That
+     *         output may already have been buffered by the text reader, so the frames that follow can't be read.
+     */
+    void useBinaryFraming() throws IOException {
+        if (!supportsBinaryFraming()) {
+            throw new IllegalStateException("Binary framing requires the STDOUT of the child process for shard "
+                    + shardId);
+        }
+        if (readAsText && reader.ready()) {
+            throw new IOException("The child process for shard " + shardId
+                    + " wrote to STDOUT after accepting binary framing");
+        }
+        this.frameInput = new DataInputStream(stream);
+        this.frameCodec = new BinaryFrameCodec(objectMapper);
+    }
+
+    private Message readNextFrame() throws IOException {
+        Message message = frameCodec.readFrame(frameInput);
+        if (message == null) {
+            throw new RuntimeException("Reached end of STDIN of child process for shard " + shardId
+                    + " so won't be able to return a message.");
+        }
+        return message;
+    }
+
+    private Boolean drainFrames() {
+        log.info("Draining STDOUT for {}", shardId);
+        try {
+            Message message;
+            while ((message = frameCodec.readFrame(frameInput)) != null) {
+                log.info("Drained message for shard {}: {}", shardId, message.getClass().getSimpleName());
+            }
+            return true;
+        } catch (IOException e) {
+            log.info("Encountered exception while draining STDOUT of child process for shard {}", shardId, e);
+            return false;
+        }
+    }
+
     /**
      * An initialization method allows us to delay setting the attributes of this class. Some of the attributes,
      * stream and shardId, are not known to the {@link MultiLangRecordProcessorFactory} when it constructs a
@@ -99,9 +172,9 @@ class MessageReader {
             String shardId,
             ObjectMapper objectMapper,
             ExecutorService executorService) {
-        return this.initialize(new BufferedReader(new InputStreamReader(stream)), shardId, objectMapper,
-                executorService);
-
+        this.initialize(new BufferedReader(new InputStreamReader(stream)), shardId, objectMapper, executorService);
+        this.stream = stream;
+        return this;
     }
 
     /**
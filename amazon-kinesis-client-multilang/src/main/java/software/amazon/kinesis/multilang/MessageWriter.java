@@ -14,15 +14,21 @@
  */
 package software.amazon.kinesis.multilang;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.kinesis.lifecycle.events.InitializationInput;
@@ -42,70 +48,184 @@ import software.amazon.kinesis.multilang.messages.ShutdownRequestedMessage;
  */
 @Slf4j
 class MessageWriter {
+    /**
+     * The field that tells a child process serving many shards which shard a message is for.
+     */
+    static final String SHARD_ID_TAG = "shardId";
+
+    private static final int FRAME_BUFFER_SIZE = 64 * 1024;
+
     private BufferedWriter writer;
 
+    private OutputStream stream;
+
+    private DataOutputStream frameOutput;
+
+    private BinaryFrameCodec frameCodec;
+
     private volatile boolean open = true;
 
     private String shardId;
 
     private ObjectMapper objectMapper;
 
+    private ProcessRecordsJsonEncoder processRecordsEncoder;
+
     private ExecutorService executorService;
 
+    private boolean tagShardId = false;
+
+    /**
+     * The last write handed to the executor. Every write is chained after it, so messages reach the subprocess in the
+     * order they were written even though each write runs as its own task.
+     */
+    private CompletableFuture<Boolean> lastWrite = CompletableFuture.completedFuture(true);
+
     /**
      * Use initialize method after construction.
      */
     MessageWriter() {
     }
 
+    /**
+     * Runs the write task on the executor once all previously submitted writes finished, whether or not they
+     * succeeded.
+     *
+     * @param writeTask The task writing a message to the subprocess.
+     * @return A future completed with the result of the write task.
+     */
+    private synchronized Future<Boolean> submitWrite(final Callable<Boolean> writeTask) {
+        lastWrite = lastWrite.handleAsync((previousResult, previousFailure) -> {
+            try {
+                return writeTask.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executorService);
+        return lastWrite;
+    }
+
+    /**
+     * A write of a message to the subprocess, which is run while holding the lock of the writer.
+     */
+    @FunctionalInterface
+    private interface OutputWrite {
+        void write() throws IOException;
+    }
+
+    /**
+     * Submits a write of a message to the subprocess. The writer is marked closed if the write fails.
+     *
+     * @param outputWrite Writes the message, and flushes it.
+     * @param description Describes the message in the error thrown if the writer is closed.
+     * @return
+     */
+    private Future<Boolean> writeToOutput(final OutputWrite outputWrite, final Supplier<String> description) {
+        if (!open) {
+            String errorMessage = "Cannot write " + description.get() + " because writer is closed for shard "
+                    + shardId;
+            log.info(errorMessage);
+            throw new IllegalStateException(errorMessage);
+        }
+        return submitWrite(() -> {
+            try {
+                /*
+                 * If the message size exceeds the size of the buffer, the write won't be guaranteed to be atomic,
+                 * so we synchronize on the writer to avoid interlaced lines from different calls to this method.
+                 */
+                synchronized (writer) {
+                    outputWrite.write();
+                }
+            } catch (IOException e) {
+                open = false;
+            }
+            return open;
+        });
+    }
+
     /**
      * Writes the message then writes the line separator provided by the system. Flushes each message to guarantee it
      * is delivered as soon as possible to the subprocess.
      * 
      * @param message A message to be written to the subprocess.
      * @return
-     * @throws IOException
-     */
-    private Future<Boolean> writeMessageToOutput(final String message) throws IOException {
-        Callable<Boolean> writeMessageToOutputTask = new Callable<Boolean>() {
-            public Boolean call() throws Exception {
-                try {
-                    /*
-                     * If the message size exceeds the size of the buffer, the write won't be guaranteed to be atomic,
-                     * so we synchronize on the writer to avoid interlaced lines from different calls to this method.
-                     */
-                    synchronized (writer) {
-                        writer.write(message, 0, message.length());
-                        writer.write(System.lineSeparator(), 0, System.lineSeparator().length());
-                        writer.flush();
-                    }
-                    log.info("Message size == {} bytes for shard {}", message.getBytes().length, shardId);
-                } catch (IOException e) {
-                    open = false;
-                }
-                return open;
-            }
-        };
+     */
+    private Future<Boolean> writeMessageToOutput(final String message) {
+        return writeToOutput(() -> {
+            writer.write(message, 0, message.length());
+            writer.write(System.lineSeparator(), 0, System.lineSeparator().length());
+            writer.flush();
+            log.info("Message size == {} bytes for shard {}", message.getBytes().length, shardId);
+        }, () -> "message " + message);
+    }
 
-        if (open) {
-            return this.executorService.submit(writeMessageToOutputTask);
-        } else {
-            String errorMessage = "Cannot write message " + message + " because writer is closed for shard " + shardId;
-            log.info(errorMessage);
-            throw new IllegalStateException(errorMessage);
+    /**
+     * Writes the message to the subprocess as a single frame, and flushes it.
+     *
+     * @param message A message to be written to the subprocess.
+     * @return
+     */
+    private Future<Boolean> writeFrameToOutput(final Message message) {
+        return writeToOutput(() -> {
+            int frameSize = frameCodec.writeFrame(frameOutput, message);
+            frameOutput.flush();
+            log.info("Message size == {} bytes for shard {}", frameSize, shardId);
+        }, () -> "message " + message);
+    }
+
+    /**
+     * Streams a processRecords message as JSON to the subprocess, then writes the line separator provided by the
+     * system, and flushes it. Unlike other messages, the message isn't converted to a JSON string first, so the input
+     * must not be changed by anyone else until the write finished; see {@link ProcessRecordsJsonEncoder#snapshot}.
+     *
+     * @param processRecordsInput The records, and associated metadata, to be written to the subprocess.
+     * @param batchId The batch id of the message, or null.
+     * @return
+     */
+    private Future<Boolean> writeProcessRecordsToOutput(final ProcessRecordsInput processRecordsInput,
+            final Long batchId) {
+        return writeToOutput(() -> {
+            processRecordsEncoder.write(writer, processRecordsInput, batchId, tagShardId ? shardId : null);
+            writer.write(System.lineSeparator(), 0, System.lineSeparator().length());
+            writer.flush();
+            log.info("Message with {} records written for shard {}", processRecordsInput.records().size(), shardId);
+        }, () -> ProcessRecordsMessage.ACTION + " message with " + processRecordsInput.records().size() + " records");
+    }
+
+    /**
+     * Writes a {@link ProcessRecordsMessage}, streaming it unless the subprocess switched to binary framing.
+     */
+    private Future<Boolean> writeProcessRecords(ProcessRecordsInput processRecordsInput, Long batchId) {
+        if (frameCodec != null) {
+            ProcessRecordsMessage processRecordsMessage = new ProcessRecordsMessage(processRecordsInput);
+            processRecordsMessage.setBatchId(batchId);
+            return writeMessage(processRecordsMessage);
         }
+        log.info("Writing {} to child process for shard {}", ProcessRecordsMessage.class.getSimpleName(), shardId);
+        return writeProcessRecordsToOutput(ProcessRecordsJsonEncoder.snapshot(processRecordsInput), batchId);
     }
 
     /**
-     * Converts the message to a JSON string and writes it to the subprocess.
+     * Converts the message to a JSON string and writes it to the subprocess, or writes it as a frame once the
+     * subprocess switched to binary framing.
      * 
      * @param message A message to be written to the subprocess.
      * @return
      */
     private Future<Boolean> writeMessage(Message message) {
         log.info("Writing {} to child process for shard {}", message.getClass().getSimpleName(), shardId);
+        if (frameCodec != null) {
+            return writeFrameToOutput(message);
+        }
         try {
-            String jsonText = objectMapper.writeValueAsString(message);
+            String jsonText;
+            if (tagShardId) {
+                ObjectNode taggedMessage = objectMapper.valueToTree(message);
+                taggedMessage.put(SHARD_ID_TAG, shardId);
+                jsonText = objectMapper.writeValueAsString(taggedMessage);
+            } else {
+                jsonText = objectMapper.writeValueAsString(message);
+            }
             return writeMessageToOutput(jsonText);
         } catch (IOException e) {
             String errorMessage =
@@ -126,6 +246,24 @@ class MessageWriter {
         return writeMessage(new InitializeMessage(initializationInput));
     }
 
+    /**
+     * Writes an {@link InitializeMessage} to the subprocess that offers optional protocol features.
+     *
+     * @param initializationInput
+     *            contains information about the shard being initialized
+     * @param framing
+     *            the framing offered to the subprocess, or null
+     * @param processRecordsWindow
+     *            the number of outstanding batches of records offered to the subprocess, or null
+     */
+    Future<Boolean> writeInitializeMessage(InitializationInput initializationInput, String framing,
+            Integer processRecordsWindow) {
+        InitializeMessage initializeMessage = new InitializeMessage(initializationInput);
+        initializeMessage.setFraming(framing);
+        initializeMessage.setProcessRecordsWindow(processRecordsWindow);
+        return writeMessage(initializeMessage);
+    }
+
     /**
      * Writes a {@link ProcessRecordsMessage} message to the subprocess.
      * 
@@ -133,7 +271,19 @@ class MessageWriter {
      *            the records, and associated metadata to be processed.
      */
     Future<Boolean> writeProcessRecordsMessage(ProcessRecordsInput processRecordsInput) {
-        return writeMessage(new ProcessRecordsMessage(processRecordsInput));
+        return writeProcessRecords(processRecordsInput, null);
+    }
+
+    /**
+     * Writes a {@link ProcessRecordsMessage} message to the subprocess, identified by a batch id.
+     *
+     * @param processRecordsInput
+     *            the records, and associated metadata to be processed.
+     * @param batchId
+     *            identifies the batch in the status message of the subprocess
+     */
+    Future<Boolean> writeProcessRecordsMessage(ProcessRecordsInput processRecordsInput, long batchId) {
+        return writeProcessRecords(processRecordsInput, batchId);
     }
 
     /**
@@ -194,6 +344,37 @@ class MessageWriter {
         return this.open;
     }
 
+    /**
+     * Adds the shard id to every message written, for child processes that serve many shards over the same STDIN.
+     *
+     * @return this
+     */
+    MessageWriter tagMessagesWithShardId() {
+        this.tagShardId = true;
+        return this;
+    }
+
+    /**
+     * @return Whether this writer has access to the raw output stream of the subprocess, which is needed to write
+     *         binary frames.
+     */
+    boolean supportsBinaryFraming() {
+        return this.stream != null;
+    }
+
+    /**
+     * Writes all following messages as length prefixed frames. See {@link BinaryFrameCodec} for the format of the
+     * frames. This must only be called when no message is being written.
+     */
+    void useBinaryFraming() {
+        if (!supportsBinaryFraming()) {
+            throw new IllegalStateException("Binary framing requires the output stream of the subprocess for shard "
+                    + shardId);
+        }
+        this.frameOutput = new DataOutputStream(new BufferedOutputStream(stream, FRAME_BUFFER_SIZE));
+        this.frameCodec = new BinaryFrameCodec(objectMapper);
+    }
+
     /**
      * An initialization method allows us to delay setting the attributes of this class. Some of the attributes,
      * stream and shardId, are not known to the {@link MultiLangRecordProcessorFactory} when it constructs a
@@ -211,8 +392,9 @@ class MessageWriter {
             String shardId,
             ObjectMapper objectMapper,
             ExecutorService executorService) {
-        return this.initialize(new BufferedWriter(new OutputStreamWriter(stream)), shardId, objectMapper,
-                executorService);
+        this.initialize(new BufferedWriter(new OutputStreamWriter(stream)), shardId, objectMapper, executorService);
+        this.stream = stream;
+        return this;
     }
 
     /**
@@ -228,6 +410,7 @@ class MessageWriter {
         this.writer = writer;
         this.shardId = shardId;
         this.objectMapper = objectMapper;
+        this.processRecordsEncoder = new ProcessRecordsJsonEncoder(objectMapper);
         this.executorService = executorService;
         return this;
     }
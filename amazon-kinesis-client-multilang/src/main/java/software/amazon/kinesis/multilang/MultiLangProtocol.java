@@ -14,14 +14,23 @@
  */
 package software.amazon.kinesis.multilang;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.kinesis.exceptions.InvalidStateException;
+import software.amazon.kinesis.exceptions.KinesisClientLibDependencyException;
+import software.amazon.kinesis.exceptions.ShutdownException;
+import software.amazon.kinesis.exceptions.ThrottlingException;
 import software.amazon.kinesis.lifecycle.events.InitializationInput;
 import software.amazon.kinesis.lifecycle.events.LeaseLostInput;
 import software.amazon.kinesis.lifecycle.events.ProcessRecordsInput;
@@ -36,6 +45,7 @@ import software.amazon.kinesis.multilang.messages.ShardEndedMessage;
 import software.amazon.kinesis.multilang.messages.ShutdownRequestedMessage;
 import software.amazon.kinesis.multilang.messages.StatusMessage;
 import software.amazon.kinesis.processor.RecordProcessorCheckpointer;
+import software.amazon.kinesis.retrieval.KinesisClientRecord;
 
 /**
  * An implementation of the multi language protocol.
@@ -51,6 +61,14 @@ class MultiLangProtocol {
 
     private MultiLangDaemonConfiguration configuration;
 
+    private int processRecordsWindow = 1;
+    private long lastBatchId = 0;
+    private final Deque<OutstandingBatch> outstandingBatches = new ArrayDeque<>();
+    private RecordProcessorCheckpointer processRecordsCheckpointer;
+    private String lastSequenceNumber;
+    private long lastSubSequenceNumber;
+    private OutstandingBatch awaitedBatch;
+
     /**
      * Constructor.
      *
@@ -80,22 +98,125 @@ class MultiLangProtocol {
         /*
          * Call and response to child process.
          */
-        Future<Boolean> writeFuture = messageWriter.writeInitializeMessage(initializationInput);
-        return waitForStatusMessage(InitializeMessage.ACTION, null, writeFuture);
+        String framing = offerBinaryFraming() ? BinaryFrameCodec.FRAMING : null;
+        Integer offeredProcessRecordsWindow = offeredProcessRecordsWindow();
+        if (framing == null && offeredProcessRecordsWindow == null) {
+            Future<Boolean> writeFuture = messageWriter.writeInitializeMessage(initializationInput);
+            return waitForStatusMessage(InitializeMessage.ACTION, null, writeFuture);
+        }
 
+        Future<Boolean> writeFuture = messageWriter.writeInitializeMessage(initializationInput, framing,
+                offeredProcessRecordsWindow);
+        Optional<StatusMessage> statusMessage = nextStatusMessage(InitializeMessage.ACTION, null);
+        boolean initialized = statusMessage.map(m -> validateStatusMessage(m, InitializeMessage.ACTION)).orElse(false)
+                && writeSucceeded(InitializeMessage.ACTION, writeFuture);
+        if (!initialized) {
+            return false;
+        }
+        if (framing != null && framing.equals(statusMessage.get().getFraming())) {
+            log.info("Switching to {} framing for shard {}", framing, initializationInput.shardId());
+            try {
+                messageReader.useBinaryFraming();
+            } catch (IOException e) {
+                log.error("Failed to switch to {} framing for shard {}", framing, initializationInput.shardId(), e);
+                return false;
+            }
+            messageWriter.useBinaryFraming();
+        }
+        Integer acceptedProcessRecordsWindow = statusMessage.get().getProcessRecordsWindow();
+        if (offeredProcessRecordsWindow != null && acceptedProcessRecordsWindow != null
+                && acceptedProcessRecordsWindow > 1) {
+            processRecordsWindow = Math.min(offeredProcessRecordsWindow, acceptedProcessRecordsWindow);
+            log.info("Sending up to {} batches of records at a time for shard {}", processRecordsWindow,
+                    initializationInput.shardId());
+        }
+        return true;
+    }
+
+    /**
+     * Pipelining is only offered if the configured window allows more than one outstanding batch.
+     */
+    private Integer offeredProcessRecordsWindow() {
+        Integer windowSize = configuration.getProcessRecordsWindowSize();
+        return windowSize != null && windowSize > 1 ? windowSize : null;
+    }
+
+    /**
+     * Binary framing is only offered if it's enabled, and both the reader and the writer have access to the raw
+     * streams of the child process.
+     */
+    private boolean offerBinaryFraming() {
+        return configuration.isBinaryFraming() && messageWriter.supportsBinaryFraming()
+                && messageReader.supportsBinaryFraming();
     }
 
     /**
      * Writes a {@link ProcessRecordsMessage} to the child process's STDIN and waits for the child process to respond
-     * with a {@link StatusMessage} on its STDOUT.
+     * with a {@link StatusMessage} on its STDOUT. If the child process accepted a window of outstanding batches while
+     * initializing, this only waits for the status of the oldest batch once the window is full, and the status of all
+     * outstanding batches is waited for before any other message is written.
      *
      * @param processRecordsInput
      *            The records, and associated metadata, to process.
      * @return Whether or not this operation succeeded.
      */
     boolean processRecords(ProcessRecordsInput processRecordsInput) {
-        Future<Boolean> writeFuture = messageWriter.writeProcessRecordsMessage(processRecordsInput);
-        return waitForStatusMessage(ProcessRecordsMessage.ACTION, processRecordsInput.checkpointer(), writeFuture);
+        if (processRecordsWindow <= 1) {
+            Future<Boolean> writeFuture = messageWriter.writeProcessRecordsMessage(processRecordsInput);
+            return waitForStatusMessage(ProcessRecordsMessage.ACTION, processRecordsInput.checkpointer(), writeFuture);
+        }
+
+        /*
+         * Pipelined: the batch is written, and only once the window is full the status of the oldest batch is waited
+         * on. The child process responds to the batches in the order they were written, so checkpoints it requests
+         * in the meantime are still performed in order.
+         *
+         * The records are copied before they're handed to the writer, since the batch is only written once the
+         * batches before it were written, while the record list may be a view that's only valid on this thread.
+         */
+        processRecordsCheckpointer = processRecordsInput.checkpointer();
+        List<KinesisClientRecord> records = new ArrayList<>(processRecordsInput.records());
+        if (!records.isEmpty()) {
+            KinesisClientRecord lastRecord = records.get(records.size() - 1);
+            lastSequenceNumber = lastRecord.sequenceNumber();
+            lastSubSequenceNumber = lastRecord.subSequenceNumber();
+        }
+        long batchId = ++lastBatchId;
+        outstandingBatches.add(new OutstandingBatch(batchId, lastSequenceNumber, lastSubSequenceNumber,
+                messageWriter.writeProcessRecordsMessage(processRecordsInput.toBuilder().records(records).build(),
+                        batchId)));
+        return awaitOutstandingBatches(processRecordsWindow - 1);
+    }
+
+    /**
+     * Waits for the status of the oldest outstanding batches of records, until at most the given number of batches is
+     * outstanding.
+     *
+     * @param maxOutstandingBatches
+     *            How many batches may remain outstanding.
+     * @return Whether or not the status of every batch waited on was correct.
+     */
+    private boolean awaitOutstandingBatches(int maxOutstandingBatches) {
+        while (outstandingBatches.size() > maxOutstandingBatches) {
+            OutstandingBatch batch = outstandingBatches.poll();
+            awaitedBatch = batch;
+            Optional<StatusMessage> statusMessage;
+            try {
+                statusMessage = nextStatusMessage(ProcessRecordsMessage.ACTION, processRecordsCheckpointer);
+            } finally {
+                awaitedBatch = null;
+            }
+            if (!statusMessage.map(m -> validateStatusMessage(m, ProcessRecordsMessage.ACTION)).orElse(false)
+                    || !writeSucceeded(ProcessRecordsMessage.ACTION, batch.writeFuture)) {
+                return false;
+            }
+            if (!Long.valueOf(batch.batchId).equals(statusMessage.get().getBatchId())) {
+                log.error("Received status for batch {} while waiting for batch {} for shard {}",
+                        statusMessage.get().getBatchId(), batch.batchId, initializationInput.shardId());
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -106,6 +227,9 @@ class MultiLangProtocol {
      * @return true if the message was successfully writtem
      */
     boolean leaseLost(LeaseLostInput leaseLostInput) {
+        if (!awaitOutstandingBatches(0)) {
+            return false;
+        }
         return waitForStatusMessage(LeaseLostMessage.ACTION, null, messageWriter.writeLeaseLossMessage(leaseLostInput));
     }
 
@@ -115,6 +239,9 @@ class MultiLangProtocol {
      * @return
      */
     boolean shardEnded(ShardEndedInput shardEndedInput) {
+        if (!awaitOutstandingBatches(0)) {
+            return false;
+        }
         return waitForStatusMessage(ShardEndedMessage.ACTION, shardEndedInput.checkpointer(),
                 messageWriter.writeShardEndedMessage(shardEndedInput));
     }
@@ -127,6 +254,9 @@ class MultiLangProtocol {
      * @return Whether or not this operation succeeded.
      */
     boolean shutdownRequested(RecordProcessorCheckpointer checkpointer) {
+        if (!awaitOutstandingBatches(0)) {
+            return false;
+        }
         Future<Boolean> writeFuture = messageWriter.writeShutdownRequestedMessage();
         return waitForStatusMessage(ShutdownRequestedMessage.ACTION, checkpointer, writeFuture);
     }
@@ -150,11 +280,22 @@ class MultiLangProtocol {
     private boolean waitForStatusMessage(String action, RecordProcessorCheckpointer checkpointer,
             Future<Boolean> writeFuture) {
         boolean statusWasCorrect = waitForStatusMessage(action, checkpointer);
+        return statusWasCorrect && writeSucceeded(action, writeFuture);
+    }
 
+    /**
+     * Waits for the writing task to finish.
+     *
+     * @param action
+     *            What action was written.
+     * @param writeFuture
+     *            The writing task.
+     * @return Whether or not the message was written and the writer is still open.
+     */
+    private boolean writeSucceeded(String action, Future<Boolean> writeFuture) {
         // Examine whether or not we failed somewhere along the line.
         try {
-            boolean writerIsStillOpen = writeFuture.get();
-            return statusWasCorrect && writerIsStillOpen;
+            return writeFuture.get();
         } catch (InterruptedException e) {
             log.error("Interrupted while writing {} message for shard {}", action, initializationInput.shardId());
             return false;
@@ -174,6 +315,19 @@ class MultiLangProtocol {
      * @return Whether or not this operation succeeded.
      */
     boolean waitForStatusMessage(String action, RecordProcessorCheckpointer checkpointer) {
+        return nextStatusMessage(action, checkpointer).map(m -> validateStatusMessage(m, action)).orElse(false);
+    }
+
+    /**
+     * Reads messages until a status message is received, checkpointing on the way as requested.
+     *
+     * @param action
+     *            What action is being waited on.
+     * @param checkpointer
+     *            the original process records request
+     * @return The status message, or empty if reading a message or responding to a checkpoint failed.
+     */
+    private Optional<StatusMessage> nextStatusMessage(String action, RecordProcessorCheckpointer checkpointer) {
         Optional<StatusMessage> statusMessage = Optional.empty();
         while (!statusMessage.isPresent()) {
             Future<Message> future = this.messageReader.getNextMessageFromSTDOUT();
@@ -182,7 +336,7 @@ class MultiLangProtocol {
                     .orElse(futureMethod(future::get, action));
 
             if (!message.isPresent()) {
-                return false;
+                return Optional.empty();
             }
 
             Optional<Boolean> checkpointFailed = message.filter(m -> m instanceof CheckpointMessage)
@@ -191,12 +345,12 @@ class MultiLangProtocol {
                     .map(checkpointSuccess -> !checkpointSuccess);
 
             if (checkpointFailed.orElse(false)) {
-                return false;
+                return Optional.empty();
             }
 
             statusMessage = message.filter(m -> m instanceof StatusMessage).map(m -> (StatusMessage) m );
         }
-        return this.validateStatusMessage(statusMessage.get(), action);
+        return statusMessage;
     }
 
     private interface FutureMethod<T> {
@@ -250,7 +404,8 @@ class MultiLangProtocol {
     /**
      * Attempts to checkpoint with the provided {@link RecordProcessorCheckpointer} at the sequence number in the
      * provided {@link CheckpointMessage}. If no sequence number is provided, i.e. the sequence number is null, then
-     * this method will call {@link RecordProcessorCheckpointer#checkpoint()}. The method returns a future representing
+     * this method will checkpoint at the last record the child process was given, which is what
+     * {@link RecordProcessorCheckpointer#checkpoint()} does unless batches are pipelined. The method returns a future representing
      * the attempt to write the result of this checkpoint attempt to the child process.
      *
      * @param checkpointMessage A checkpoint message.
@@ -270,7 +425,7 @@ class MultiLangProtocol {
                         checkpointer.checkpoint(sequenceNumber);
                     }
                 } else {
-                    checkpointer.checkpoint();
+                    checkpointProcessedRecords(checkpointer);
                 }
                 return this.messageWriter.writeCheckpointMessageWithError(sequenceNumber, subSequenceNumber, null);
             } else {
@@ -287,6 +442,41 @@ class MultiLangProtocol {
         }
     }
 
+    /**
+     * Checkpoints at the last record the child process was given, when it asks to checkpoint without a sequence
+     * number. While batches are pipelined, the checkpointer already permits checkpointing the records of the batches
+     * written after the one the child process is working on, so the checkpoint is made at the last record of that
+     * batch instead.
+     */
+    private void checkpointProcessedRecords(RecordProcessorCheckpointer checkpointer)
+            throws KinesisClientLibDependencyException, InvalidStateException, ThrottlingException, ShutdownException {
+        if (awaitedBatch == null || outstandingBatches.isEmpty()) {
+            checkpointer.checkpoint();
+        } else if (awaitedBatch.lastSequenceNumber != null) {
+            log.debug("Checkpointing batch {} of shard {} at its last record", awaitedBatch.batchId,
+                    initializationInput.shardId());
+            checkpointer.checkpoint(awaitedBatch.lastSequenceNumber, awaitedBatch.lastSubSequenceNumber);
+        } else {
+            throw new InvalidStateException(String.format("Can't checkpoint batch %d of shard %s without a sequence"
+                    + " number, since no record was written to the child process yet", awaitedBatch.batchId,
+                    initializationInput.shardId()));
+        }
+    }
+
+    /**
+     * A batch of records written to the child process whose status wasn't received yet.
+     */
+    @RequiredArgsConstructor
+    private static class OutstandingBatch {
+        private final long batchId;
+        /**
+         * The sequence number of the last record written up to and including this batch, or null if there's none.
+         */
+        private final String lastSequenceNumber;
+        private final long lastSubSequenceNumber;
+        private final Future<Boolean> writeFuture;
+    }
+
     private String logCheckpointMessage(String sequenceNumber, Long subSequenceNumber) {
         return String.format("Attempting to checkpoint shard %s @ sequence number %s, and sub sequence number %s",
                 initializationInput.shardId(), sequenceNumber, subSequenceNumber);
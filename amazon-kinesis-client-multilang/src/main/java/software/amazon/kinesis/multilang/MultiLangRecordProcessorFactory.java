@@ -40,6 +40,8 @@ public class MultiLangRecordProcessorFactory implements ShardRecordProcessorFact
 
     private final MultiLangDaemonConfiguration configuration;
 
+    private final ChildProcessPool childProcessPool;
+
     /**
      * @param command The command that will do processing for this factory's record processors.
      * @param executorService An executor service to use while processing inputs and outputs of the child process.
@@ -61,11 +63,22 @@ public class MultiLangRecordProcessorFactory implements ShardRecordProcessorFact
         this.executorService = executorService;
         this.objectMapper = objectMapper;
         this.configuration = configuration;
+        Integer childProcessPoolSize = configuration.getChildProcessPoolSize();
+        if (childProcessPoolSize != null && childProcessPoolSize > 0) {
+            this.childProcessPool = new ChildProcessPool(new ProcessBuilder(commandArray), childProcessPoolSize,
+                    objectMapper, executorService);
+        } else {
+            this.childProcessPool = null;
+        }
     }
 
     @Override
     public ShardRecordProcessor shardRecordProcessor() {
         log.debug("Creating new record processor for client executable: {}", command);
+        if (childProcessPool != null) {
+            return new MultiLangShardRecordProcessor(childProcessPool, executorService, this.objectMapper,
+                    this.configuration);
+        }
         /*
          * Giving ProcessBuilder the command as an array of Strings allows users to specify command line arguments.
          */
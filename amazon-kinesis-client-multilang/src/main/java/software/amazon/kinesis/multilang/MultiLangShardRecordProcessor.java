@@ -29,6 +29,7 @@ import software.amazon.kinesis.lifecycle.events.LeaseLostInput;
 import software.amazon.kinesis.lifecycle.events.ProcessRecordsInput;
 import software.amazon.kinesis.lifecycle.events.ShardEndedInput;
 import software.amazon.kinesis.lifecycle.events.ShutdownRequestedInput;
+import software.amazon.kinesis.multilang.PooledChildProcess.ShardChannel;
 import software.amazon.kinesis.multilang.config.MultiLangDaemonConfiguration;
 import software.amazon.kinesis.processor.ShardRecordProcessor;
 
@@ -38,6 +39,9 @@ import software.amazon.kinesis.processor.ShardRecordProcessor;
  * that child process's input and outputs to a {@link MultiLangProtocol} object and calling the appropriate methods on
  * that object when its corresponding {@link #initialize}, {@link #processRecords}, and {@link #shutdown} methods are
  * called.
+ *
+ * If the {@link MultiLangRecordProcessorFactory} has a {@link ChildProcessPool}, the record processor attaches to a
+ * child process of the pool that serves many shards instead of starting its own.
  */
 @Slf4j
 public class MultiLangShardRecordProcessor implements ShardRecordProcessor {
@@ -65,10 +69,17 @@ public class MultiLangShardRecordProcessor implements ShardRecordProcessor {
 
     private MultiLangDaemonConfiguration configuration;
 
+    private ChildProcessPool childProcessPool;
+    private ShardChannel shardChannel;
+
     @Override
     public void initialize(InitializationInput initializationInput) {
         try {
             this.shardId = initializationInput.shardId();
+            if (childProcessPool != null) {
+                attachToPooledChildProcess(initializationInput);
+                return;
+            }
             try {
                 this.process = startProcess();
             } catch (IOException e) {
@@ -99,6 +110,19 @@ public class MultiLangShardRecordProcessor implements ShardRecordProcessor {
         }
     }
 
+    private void attachToPooledChildProcess(InitializationInput initializationInput) throws IOException {
+        shardChannel = childProcessPool.attach(shardId);
+        messageWriter = shardChannel.getMessageWriter();
+        messageReader = shardChannel.getMessageReader();
+
+        protocol = new MultiLangProtocol(messageReader, messageWriter, initializationInput, configuration);
+        if (!protocol.initialize()) {
+            throw new RuntimeException("Failed to initialize child process");
+        }
+
+        initialized = true;
+    }
+
     @Override
     public void processRecords(ProcessRecordsInput processRecordsInput) {
         try {
@@ -186,6 +210,22 @@ public class MultiLangShardRecordProcessor implements ShardRecordProcessor {
                 new DrainChildSTDERRTask(), configuration);
     }
 
+    /**
+     * Constructor of a record processor that attaches to a child process of a pool.
+     *
+     * @param childProcessPool
+     *            The child processes shared by the record processors of the factory.
+     * @param executorService
+     *            An executor
+     * @param objectMapper
+     *            An obejct mapper.
+     */
+    MultiLangShardRecordProcessor(ChildProcessPool childProcessPool, ExecutorService executorService,
+                                  ObjectMapper objectMapper, MultiLangDaemonConfiguration configuration) {
+        this((ProcessBuilder) null, executorService, objectMapper, configuration);
+        this.childProcessPool = childProcessPool;
+    }
+
     /**
      * Note: This constructor has package level access solely for testing purposes.
      * 
@@ -222,6 +262,19 @@ public class MultiLangShardRecordProcessor implements ShardRecordProcessor {
      * drained their streams. Attempts to wait for child process to completely finish before returning.
      */
     private void childProcessShutdownSequence() {
+        if (childProcessPool != null) {
+            /*
+             * The child process keeps serving other shards, so only this shard is detached from it. The pool stops the
+             * child process once it doesn't serve any shard anymore.
+             */
+            if (shardChannel != null) {
+                messageReader.drainSTDOUT();
+                childProcessPool.detach(shardChannel);
+                shardChannel = null;
+            }
+            state = ProcessState.SHUTDOWN;
+            return;
+        }
         try {
             /*
              * Close output stream to the child process. The child process should be reading off its stdin until it
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.kinesis.multilang.messages.Message;
+
+/**
+ * A child process serving many shards. All the shards share the STDIN and STDOUT of the child process: every message
+ * written to the child process is tagged with the shard id it is for, and the child process must tag every message it
+ * writes with the shard id it is about. A single {@link DispatchChildSTDOUTTask} reads the STDOUT of the child process
+ * and dispatches the messages to the {@link DispatchedMessageReader} of each shard.
+ */
+@Slf4j
+class PooledChildProcess {
+    private final String name;
+    private final Process process;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executorService;
+    private final BufferedWriter writer;
+
+    private final Map<String, DispatchedMessageReader> readers = new ConcurrentHashMap<>();
+
+    private Future<Boolean> stdoutDispatchTask;
+    private Future<Boolean> stderrReadTask;
+    private volatile Throwable outputEndedCause;
+    private volatile boolean alive = true;
+
+    /**
+     * Constructor.
+     *
+     * @param name A name for the child process, used in logs.
+     * @param process The child process.
+     * @param objectMapper The object mapper to encode and decode messages.
+     * @param executorService An executor service to run tasks in.
+     */
+    PooledChildProcess(String name, Process process, ObjectMapper objectMapper, ExecutorService executorService) {
+        this.name = name;
+        this.process = process;
+        this.objectMapper = objectMapper;
+        this.executorService = executorService;
+        this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+    }
+
+    /**
+     * Starts reading the STDOUT and STDERR of the child process.
+     *
+     * @return this
+     */
+    PooledChildProcess start() {
+        DispatchChildSTDOUTTask dispatchTask = new DispatchChildSTDOUTTask(this, objectMapper);
+        dispatchTask.initialize(process.getInputStream(), name, "Dispatching STDOUT for " + name);
+        stdoutDispatchTask = executorService.submit(dispatchTask);
+
+        DrainChildSTDERRTask readSTDERRTask = new DrainChildSTDERRTask();
+        readSTDERRTask.initialize(process.getErrorStream(), name, "Reading STDERR for " + name);
+        stderrReadTask = executorService.submit(readSTDERRTask);
+        return this;
+    }
+
+    /**
+     * Starts serving a shard.
+     *
+     * @param shardId The shard.
+     * @return The channel the shard exchanges messages with the child process over.
+     */
+    ShardChannel attach(String shardId) {
+        DispatchedMessageReader messageReader = new DispatchedMessageReader(shardId);
+        if (readers.putIfAbsent(shardId, messageReader) != null) {
+            throw new IllegalStateException("Shard " + shardId + " is already served by " + name);
+        }
+        if (!alive) {
+            messageReader.fail(outputEndedException());
+        }
+        MessageWriter messageWriter = new MessageWriter().initialize(writer, shardId, objectMapper, executorService)
+                .tagMessagesWithShardId();
+        log.info("Shard {} is served by {}", shardId, name);
+        return new ShardChannel(this, shardId, messageWriter, messageReader);
+    }
+
+    /**
+     * Stops serving a shard. Messages the child process writes for it afterwards are dropped.
+     *
+     * @param shardId The shard.
+     */
+    void detach(String shardId) {
+        readers.remove(shardId);
+    }
+
+    /**
+     * @return The number of shards served by the child process.
+     */
+    int shardCount() {
+        return readers.size();
+    }
+
+    /**
+     * @return Whether the STDOUT of the child process is still open.
+     */
+    boolean isAlive() {
+        return alive;
+    }
+
+    void dispatch(String shardId, Message message) {
+        DispatchedMessageReader messageReader = readers.get(shardId);
+        if (messageReader == null) {
+            log.warn("Dropping message from {} for shard {}, which it doesn't serve: {}", name, shardId, message);
+            return;
+        }
+        messageReader.deliver(message);
+    }
+
+    void outputEnded(Throwable cause) {
+        outputEndedCause = cause;
+        alive = false;
+        RuntimeException exception = outputEndedException();
+        readers.values().forEach(messageReader -> messageReader.fail(exception));
+    }
+
+    private RuntimeException outputEndedException() {
+        return new RuntimeException("Reached end of STDOUT of " + name + " so won't be able to return a message.",
+                outputEndedCause);
+    }
+
+    /**
+     * Closes the STDIN of the child process, drains its STDOUT and STDERR, and waits for it to exit. Must only be called
+     * once no shard is served by the child process anymore.
+     */
+    void stop() {
+        log.info("Stopping {}", name);
+        try {
+            synchronized (writer) {
+                writer.close();
+            }
+        } catch (IOException e) {
+            log.error("Encountered exception while trying to close output stream of {}.", name, e);
+        }
+
+        safelyWaitOnFuture(stdoutDispatchTask, "draining STDOUT");
+        safelyWaitOnFuture(stderrReadTask, "draining STDERR");
+
+        safelyCloseInputStream(process.getErrorStream(), "STDERR");
+        safelyCloseInputStream(process.getInputStream(), "STDOUT");
+
+        try {
+            log.info("{} exited with value: {}", name, process.waitFor());
+        } catch (InterruptedException e) {
+            log.error("Interrupted before {} finished exiting. Attempting to kill process.", name);
+            process.destroy();
+        }
+    }
+
+    private void safelyCloseInputStream(InputStream inputStream, String streamName) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.error("Encountered exception while trying to close {} stream of {}.", streamName, name, e);
+        }
+    }
+
+    private void safelyWaitOnFuture(Future<?> future, String whatThisFutureIsDoing) {
+        try {
+            future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Encountered error while {} for {}", whatThisFutureIsDoing, name, e);
+        }
+    }
+
+    /**
+     * The messages of a single shard served by a {@link PooledChildProcess}.
+     */
+    @RequiredArgsConstructor
+    @Getter
+    static class ShardChannel {
+        private final PooledChildProcess childProcess;
+        private final String shardId;
+        private final MessageWriter messageWriter;
+        private final MessageReader messageReader;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import software.amazon.kinesis.lifecycle.events.ProcessRecordsInput;
+import software.amazon.kinesis.multilang.messages.JsonFriendlyRecord;
+import software.amazon.kinesis.multilang.messages.Message;
+import software.amazon.kinesis.multilang.messages.ProcessRecordsMessage;
+import software.amazon.kinesis.retrieval.KinesisClientRecord;
+
+/**
+ * Writes a {@link ProcessRecordsMessage} as JSON straight to the STDIN of the child process, without building the
+ * message, or its JSON text, in memory first. The data of each record is base64 encoded straight from its
+ * {@link ByteBuffer}, instead of being copied to a {@link JsonFriendlyRecord}.
+ *
+ * The JSON has the same fields as a {@link ProcessRecordsMessage} serialized by an {@link ObjectMapper} with the default
+ * configuration.
+ */
+class ProcessRecordsJsonEncoder {
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Constructor.
+     *
+     * @param objectMapper The object mapper whose factory creates the JSON generators.
+     */
+    ProcessRecordsJsonEncoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Copies the record list, and duplicates the data of each record, so the records can still be encoded after the
+     * record processor returned, while the original list or the positions of the buffers are changed by the caller.
+     * The list is iterated once, on the calling thread.
+     *
+     * @param processRecordsInput The records, and associated metadata, to copy.
+     * @return A copy of the input that doesn't share any state that may be changed with the original.
+     */
+    static ProcessRecordsInput snapshot(ProcessRecordsInput processRecordsInput) {
+        List<KinesisClientRecord> records = new ArrayList<>();
+        for (KinesisClientRecord record : processRecordsInput.records()) {
+            records.add(record.data() == null ? record
+                    : record.toBuilder().data(record.data().duplicate()).build());
+        }
+        return processRecordsInput.toBuilder().records(records).build();
+    }
+
+    /**
+     * Writes the message to the writer, without a line separator, and without flushing the writer.
+     *
+     * @param writer The writer to write the message to.
+     * @param processRecordsInput The records, and associated metadata, to write.
+     * @param batchId The batch id of the message, or null.
+     * @param shardId The shard id the message is tagged with, or null.
+     * @throws IOException Thrown when writing to the writer fails.
+     */
+    void write(Writer writer, ProcessRecordsInput processRecordsInput, Long batchId, String shardId)
+            throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+
+            generator.writeStartObject();
+            generator.writeStringField(Message.ACTION_FIELD, ProcessRecordsMessage.ACTION);
+            generator.writeArrayFieldStart(ProcessRecordsMessage.RECORDS_FIELD);
+            for (KinesisClientRecord record : processRecordsInput.records()) {
+                writeRecord(generator, record);
+            }
+            generator.writeEndArray();
+            writeNumberField(generator, ProcessRecordsMessage.MILLIS_BEHIND_LATEST_FIELD,
+                    processRecordsInput.millisBehindLatest());
+            if (batchId != null) {
+                generator.writeNumberField(ProcessRecordsMessage.BATCH_ID_FIELD, batchId);
+            }
+            if (shardId != null) {
+                generator.writeStringField(MessageWriter.SHARD_ID_TAG, shardId);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeRecord(JsonGenerator generator, KinesisClientRecord record) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(JsonFriendlyRecord.DATA_FIELD);
+        if (record.data() == null) {
+            generator.writeNull();
+        } else {
+            ByteBuffer data = record.data().duplicate();
+            if (data.hasArray()) {
+                generator.writeBinary(data.array(), data.arrayOffset() + data.position(), data.remaining());
+            } else {
+                generator.writeBinary(new ByteBufferBackedInputStream(data), data.remaining());
+            }
+        }
+        generator.writeStringField(JsonFriendlyRecord.PARTITION_KEY_FIELD, record.partitionKey());
+        generator.writeStringField(JsonFriendlyRecord.SEQUENCE_NUMBER_FIELD, record.sequenceNumber());
+        writeNumberField(generator, JsonFriendlyRecord.APPROXIMATE_ARRIVAL_TIMESTAMP_FIELD,
+                record.approximateArrivalTimestamp() == null ? null
+                        : record.approximateArrivalTimestamp().toEpochMilli());
+        generator.writeNumberField(JsonFriendlyRecord.SUB_SEQUENCE_NUMBER_FIELD, record.subSequenceNumber());
+        generator.writeStringField(JsonFriendlyRecord.ACTION_FIELD, JsonFriendlyRecord.ACTION);
+        generator.writeEndObject();
+    }
+
+    private void writeNumberField(JsonGenerator generator, String fieldName, Long value) throws IOException {
+        generator.writeFieldName(fieldName);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
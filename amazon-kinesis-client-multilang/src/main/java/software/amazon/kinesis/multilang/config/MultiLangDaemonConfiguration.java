@@ -164,6 +164,23 @@ public class MultiLangDaemonConfiguration {
 
     private long shutdownGraceMillis;
     private Integer timeoutInSeconds;
+    /**
+     * Offers child processes to exchange length prefixed binary frames, which carry the data of records as raw bytes
+     * instead of base64 encoded JSON. Child processes that don't accept the offer keep using lines of JSON.
+     */
+    private boolean binaryFraming;
+    /**
+     * The number of child processes shared by all the shards processed by this worker. Each child process serves many
+     * shards, and every message exchanged with it is tagged with the shard id it is about. Binary framing isn't offered
+     * to pooled child processes. If not set, a child process is started for every shard.
+     */
+    private Integer childProcessPoolSize;
+    /**
+     * The maximum number of batches of records sent to a child process for a shard before waiting for the status of the
+     * oldest one. Child processes that don't accept the offer receive one batch at a time. If not set, every batch waits
+     * for the status of the previous one.
+     */
+    private Integer processRecordsWindowSize;
 
 
     private final BuilderDynaBean kinesisCredentialsProvider;
@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.multilang.messages;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.Getter;
 import lombok.Setter;
 import software.amazon.kinesis.lifecycle.events.InitializationInput;
@@ -35,6 +37,18 @@ public class InitializeMessage extends Message {
     private String shardId;
     private String sequenceNumber;
     private Long subSequenceNumber;
+    /**
+     * The framing the record processor offers to switch to once the client's process has initialized, or null to keep
+     * exchanging messages as lines of JSON.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String framing;
+    /**
+     * The maximum number of batches of records the record processor offers to send before waiting for the status of
+     * the oldest one, or null to wait for the status of every batch before sending the next.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer processRecordsWindow;
 
     /**
      * Default constructor.
@@ -36,10 +36,25 @@ import software.amazon.kinesis.retrieval.KinesisClientRecord;
 @EqualsAndHashCode
 @ToString
 public class JsonFriendlyRecord {
+    /**
+     * The names of the fields of the record, for encoders that write it without an object mapper.
+     */
+    public static final String DATA_FIELD = "data";
+    public static final String PARTITION_KEY_FIELD = "partitionKey";
+    public static final String SEQUENCE_NUMBER_FIELD = "sequenceNumber";
+    public static final String APPROXIMATE_ARRIVAL_TIMESTAMP_FIELD = "approximateArrivalTimestamp";
+    public static final String SUB_SEQUENCE_NUMBER_FIELD = "subSequenceNumber";
+    public static final String ACTION_FIELD = "action";
+
+    @JsonProperty(DATA_FIELD)
     private byte[] data;
+    @JsonProperty(PARTITION_KEY_FIELD)
     private String partitionKey;
+    @JsonProperty(SEQUENCE_NUMBER_FIELD)
     private String sequenceNumber;
+    @JsonProperty(APPROXIMATE_ARRIVAL_TIMESTAMP_FIELD)
     private Long approximateArrivalTimestamp;
+    @JsonProperty(SUB_SEQUENCE_NUMBER_FIELD)
     private Long subSequenceNumber;
 
     public static String ACTION = "record";
@@ -60,7 +75,7 @@ public class JsonFriendlyRecord {
                 approximateArrival, record.subSequenceNumber());
     }
 
-    @JsonProperty
+    @JsonProperty(ACTION_FIELD)
     public String getAction() {
         return ACTION;
     }
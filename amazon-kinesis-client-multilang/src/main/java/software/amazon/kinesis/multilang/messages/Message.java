@@ -22,7 +22,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 /**
  * Abstract class for all messages that are sent to the client's process.
  */
-@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "action")
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = Message.ACTION_FIELD)
 @JsonSubTypes({ 
         @Type(value = CheckpointMessage.class, name = CheckpointMessage.ACTION),
         @Type(value = InitializeMessage.class, name = InitializeMessage.ACTION),
@@ -34,6 +34,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
         @Type(value = ShardEndedMessage.class, name = ShardEndedMessage.ACTION),
 })
 public abstract class Message {
+    /**
+     * The name of the field holding the action of a message, which identifies its type.
+     */
+    public static final String ACTION_FIELD = "action";
 
     private ObjectMapper mapper = new ObjectMapper();
 
@@ -17,6 +17,9 @@ package software.amazon.kinesis.multilang.messages;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import lombok.Getter;
 import lombok.Setter;
 import software.amazon.kinesis.lifecycle.events.ProcessRecordsInput;
@@ -33,11 +36,27 @@ public class ProcessRecordsMessage extends Message {
      */
     public static final String ACTION = "processRecords";
 
+    /**
+     * The names of the fields of the message, for encoders that write it without an object mapper.
+     */
+    public static final String RECORDS_FIELD = "records";
+    public static final String MILLIS_BEHIND_LATEST_FIELD = "millisBehindLatest";
+    public static final String BATCH_ID_FIELD = "batchId";
+
     /**
      * The records that the client's process needs to handle.
      */
+    @JsonProperty(RECORDS_FIELD)
     private List<JsonFriendlyRecord> records;
+    @JsonProperty(MILLIS_BEHIND_LATEST_FIELD)
     private Long millisBehindLatest;
+    /**
+     * Identifies the batch when several batches of records are outstanding, so the client's process can respond to
+     * each of them. Null unless pipelining was agreed on while initializing.
+     */
+    @JsonProperty(BATCH_ID_FIELD)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long batchId;
 
     /**
      * Default constructor.
@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.multilang.messages;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -36,4 +38,31 @@ public class StatusMessage extends Message {
      * The name of the most recently received action.
      */
     private String responseFor;
+    /**
+     * The framing the client's process accepted in response to an initialize message, or null if it keeps exchanging
+     * messages as lines of JSON.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String framing;
+    /**
+     * The batch of records this is a response for, if it is a response to a processRecords message with a batch id.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long batchId;
+    /**
+     * The number of outstanding batches of records the client's process accepted in response to an initialize message,
+     * at most the number offered, or null if it responds to each batch before receiving the next.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer processRecordsWindow;
+
+    /**
+     * Convenience constructor.
+     *
+     * @param responseFor
+     *            the name of the action this is a response for
+     */
+    public StatusMessage(String responseFor) {
+        this(responseFor, null, null, null);
+    }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import software.amazon.kinesis.lifecycle.events.InitializationInput;
+import software.amazon.kinesis.lifecycle.events.ProcessRecordsInput;
+import software.amazon.kinesis.multilang.config.MultiLangDaemonConfiguration;
+import software.amazon.kinesis.multilang.messages.CheckpointMessage;
+import software.amazon.kinesis.multilang.messages.Message;
+import software.amazon.kinesis.multilang.messages.StatusMessage;
+import software.amazon.kinesis.processor.RecordProcessorCheckpointer;
+import software.amazon.kinesis.retrieval.KinesisClientRecord;
+
+public class BinaryFrameCodecTest {
+    private static final String SHARD_ID = "shard-123";
+    private static final byte[] BINARY_DATA = new byte[] { 0, 1, '\n', (byte) 0xFF, 0, 0, 0, 2 };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ExecutorService executorService;
+
+    @Before
+    public void setup() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testChildDecodesRecordsFrame() throws Exception {
+        ByteArrayOutputStream stdin = new ByteArrayOutputStream();
+        MessageWriter messageWriter = new MessageWriter().initialize(stdin, SHARD_ID, objectMapper, executorService);
+        messageWriter.useBinaryFraming();
+
+        assertTrue(messageWriter.writeProcessRecordsMessage(processRecordsInput()).get());
+
+        ReferenceChildCodec child = framedChild(new ByteArrayInputStream(stdin.toByteArray()));
+        ObjectNode message = child.readMessage();
+        assertThat(message.get("action").asText(), equalTo("processRecords"));
+        assertThat(message.get("millisBehindLatest").asLong(), equalTo(5L));
+        JsonNode records = message.get("records");
+        assertThat(records.size(), equalTo(2));
+        assertThat(records.get(0).get("data").binaryValue(), equalTo(BINARY_DATA));
+        assertThat(records.get(0).get("partitionKey").asText(), equalTo("key"));
+        assertThat(records.get(0).get("sequenceNumber").asText(), equalTo("1"));
+        assertThat(records.get(0).get("approximateArrivalTimestamp").asLong(), equalTo(1000L));
+        assertFalse(records.get(1).hasNonNull("data"));
+        assertThat(child.readMessage(), nullValue());
+    }
+
+    @Test
+    public void testDaemonDecodesChildFrames() throws Exception {
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        ReferenceChildCodec child = framedChild(new ByteArrayInputStream(new byte[0]), stdout);
+        child.writeMessage(child.checkpoint("1234"));
+        child.writeMessage(child.status("processRecords"));
+
+        MessageReader messageReader = new MessageReader().initialize(new ByteArrayInputStream(stdout.toByteArray()),
+                SHARD_ID, objectMapper, executorService);
+        messageReader.useBinaryFraming();
+
+        Message checkpoint = messageReader.getNextMessageFromSTDOUT().get();
+        assertThat(checkpoint, instanceOf(CheckpointMessage.class));
+        assertThat(((CheckpointMessage) checkpoint).getSequenceNumber(), equalTo("1234"));
+        Message status = messageReader.getNextMessageFromSTDOUT().get();
+        assertThat(((StatusMessage) status).getResponseFor(), equalTo("processRecords"));
+        assertTrue(messageReader.drainSTDOUT().get());
+    }
+
+    @Test(expected = IOException.class)
+    public void testFrameLongerThanMaximumIsRejected() throws Exception {
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        new DataOutputStream(stdout).writeInt(BinaryFrameCodec.MAX_READ_FRAME_LENGTH + 1);
+
+        new BinaryFrameCodec(objectMapper).readFrame(new DataInputStream(new ByteArrayInputStream(
+                stdout.toByteArray())));
+    }
+
+    @Test(expected = IOException.class)
+    public void testSwitchingFailsWhenTextReaderBufferedOutput() throws Exception {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        ReferenceChildCodec child = framedChild(new ByteArrayInputStream(new byte[0]), frames);
+        child.writeMessage(child.status("processRecords"));
+        // The frame follows the status accepting the framing before it was read
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        stdout.write(objectMapper.writeValueAsBytes(new StatusMessage("initialize")));
+        stdout.write('\n');
+        frames.writeTo(stdout);
+
+        MessageReader messageReader = new MessageReader().initialize(new ByteArrayInputStream(stdout.toByteArray()),
+                SHARD_ID, objectMapper, executorService);
+        assertThat(messageReader.getNextMessageFromSTDOUT().get(), instanceOf(StatusMessage.class));
+
+        messageReader.useBinaryFraming();
+    }
+
+    @Test(timeout = 10000L)
+    public void testProtocolSwitchesToFramesWhenChildAccepts() throws Exception {
+        Child child = startChild(true);
+        RecordProcessorCheckpointer checkpointer = mock(RecordProcessorCheckpointer.class);
+
+        assertTrue(child.protocol.initialize());
+        assertTrue(child.protocol.processRecords(processRecordsInput().toBuilder().checkpointer(checkpointer)
+                .build()));
+
+        verify(checkpointer).checkpoint("1");
+        ObjectNode received = child.task.get(5, TimeUnit.SECONDS);
+        assertThat(received.get("records").get(0).get("data").isBinary(), equalTo(true));
+        assertThat(received.get("records").get(0).get("data").binaryValue(), equalTo(BINARY_DATA));
+    }
+
+    @Test(timeout = 10000L)
+    public void testProtocolKeepsJsonLinesWhenChildDeclines() throws Exception {
+        Child child = startChild(false);
+        RecordProcessorCheckpointer checkpointer = mock(RecordProcessorCheckpointer.class);
+
+        assertTrue(child.protocol.initialize());
+        assertTrue(child.protocol.processRecords(processRecordsInput().toBuilder().checkpointer(checkpointer)
+                .build()));
+
+        verify(checkpointer).checkpoint("1");
+        ObjectNode received = child.task.get(5, TimeUnit.SECONDS);
+        assertThat(received.get("records").get(0).get("data").isTextual(), equalTo(true));
+        assertThat(received.get("records").get(0).get("data").binaryValue(), equalTo(BINARY_DATA));
+    }
+
+    private static ProcessRecordsInput processRecordsInput() {
+        List<KinesisClientRecord> records = Arrays.asList(
+                KinesisClientRecord.builder().data(ByteBuffer.wrap(BINARY_DATA)).partitionKey("key")
+                        .sequenceNumber("1").approximateArrivalTimestamp(Instant.ofEpochMilli(1000L)).build(),
+                KinesisClientRecord.builder().partitionKey("key").sequenceNumber("2").build());
+        return ProcessRecordsInput.builder().records(records).millisBehindLatest(5L).build();
+    }
+
+    private static ReferenceChildCodec framedChild(ByteArrayInputStream stdin) throws IOException {
+        return framedChild(stdin, new ByteArrayOutputStream());
+    }
+
+    private static ReferenceChildCodec framedChild(ByteArrayInputStream stdin, ByteArrayOutputStream stdout)
+            throws IOException {
+        ReferenceChildCodec child = new ReferenceChildCodec(stdin, stdout);
+        ObjectNode initialize = new ObjectMapper().createObjectNode().put("framing", ReferenceChildCodec.FRAMING);
+        child.respondToInitialize(initialize, true);
+        assertTrue(child.isFramed());
+        stdout.reset();
+        return child;
+    }
+
+    /**
+     * Connects a protocol to a child running on a separate thread, which initializes, checkpoints at the first record
+     * of the processRecords message, and returns that message.
+     */
+    private Child startChild(boolean acceptFraming) throws IOException {
+        PipedOutputStream daemonStdout = new PipedOutputStream();
+        PipedInputStream childStdin = new PipedInputStream(daemonStdout);
+        PipedOutputStream childStdout = new PipedOutputStream();
+        PipedInputStream daemonStdin = new PipedInputStream(childStdout);
+
+        MultiLangDaemonConfiguration configuration = mock(MultiLangDaemonConfiguration.class);
+        when(configuration.isBinaryFraming()).thenReturn(true);
+        when(configuration.getTimeoutInSeconds()).thenReturn(null);
+        MessageWriter messageWriter = new MessageWriter().initialize(daemonStdout, SHARD_ID, objectMapper,
+                executorService);
+        MessageReader messageReader = new MessageReader().initialize(daemonStdin, SHARD_ID, objectMapper,
+                executorService);
+
+        Child child = new Child();
+        child.protocol = new MultiLangProtocol(messageReader, messageWriter,
+                InitializationInput.builder().shardId(SHARD_ID).build(), configuration);
+        child.task = executorService.submit(() -> {
+            ReferenceChildCodec codec = new ReferenceChildCodec(childStdin, childStdout);
+            ObjectNode initialize = codec.readMessage();
+            assertThat(initialize.get("framing").asText(), equalTo(ReferenceChildCodec.FRAMING));
+            codec.respondToInitialize(initialize, acceptFraming);
+
+            ObjectNode processRecords = codec.readMessage();
+            codec.writeMessage(codec.checkpoint(processRecords.get("records").get(0).get("sequenceNumber").asText()));
+            ObjectNode checkpointResponse = codec.readMessage();
+            assertThat(checkpointResponse.get("action").asText(), equalTo("checkpoint"));
+            assertFalse(checkpointResponse.hasNonNull("error"));
+            codec.writeMessage(codec.status("processRecords"));
+            childStdout.close();
+            return processRecords;
+        });
+        return child;
+    }
+
+    private static class Child {
+        private MultiLangProtocol protocol;
+        private Future<ObjectNode> task;
+    }
+}
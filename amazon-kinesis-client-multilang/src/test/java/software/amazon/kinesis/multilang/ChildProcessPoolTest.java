@@ -0,0 +1,250 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import software.amazon.kinesis.lifecycle.events.InitializationInput;
+import software.amazon.kinesis.multilang.PooledChildProcess.ShardChannel;
+import software.amazon.kinesis.multilang.config.MultiLangDaemonConfiguration;
+import software.amazon.kinesis.multilang.messages.Message;
+import software.amazon.kinesis.multilang.messages.StatusMessage;
+
+public class ChildProcessPoolTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<FakeChildProcess> startedProcesses = new ArrayList<>();
+    private ExecutorService executorService;
+
+    @Before
+    public void setup() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    @Test(timeout = 10000L)
+    public void testShardsAreAttachedToTheLeastLoadedChildProcess() throws Exception {
+        ChildProcessPool pool = pool(2);
+
+        ShardChannel first = pool.attach("shard-1");
+        ShardChannel second = pool.attach("shard-2");
+        ShardChannel third = pool.attach("shard-3");
+        ShardChannel fourth = pool.attach("shard-4");
+        ShardChannel fifth = pool.attach("shard-5");
+
+        assertThat(startedProcesses.size(), equalTo(2));
+        assertThat(second.getChildProcess(), not(sameInstance(first.getChildProcess())));
+        assertThat(third.getChildProcess(), sameInstance(first.getChildProcess()));
+        assertThat(fourth.getChildProcess(), sameInstance(second.getChildProcess()));
+        assertThat(fifth.getChildProcess(), sameInstance(first.getChildProcess()));
+        assertThat(first.getChildProcess().shardCount(), equalTo(3));
+    }
+
+    @Test(timeout = 10000L)
+    public void testMessagesAreTaggedAndDispatchedByShardId() throws Exception {
+        ChildProcessPool pool = pool(1);
+        ShardChannel first = pool.attach("shard-1");
+        ShardChannel second = pool.attach("shard-2");
+        FakeChildProcess child = startedProcesses.get(0);
+
+        first.getMessageWriter().writeInitializeMessage(InitializationInput.builder().shardId("shard-1").build())
+                .get();
+        second.getMessageWriter().writeShutdownRequestedMessage().get();
+        JsonNode firstMessage = objectMapper.readTree(child.readLine());
+        JsonNode secondMessage = objectMapper.readTree(child.readLine());
+        assertThat(firstMessage.get("action").asText(), equalTo("initialize"));
+        assertThat(firstMessage.get("shardId").asText(), equalTo("shard-1"));
+        assertThat(secondMessage.get("action").asText(), equalTo("shutdownRequested"));
+        assertThat(secondMessage.get("shardId").asText(), equalTo("shard-2"));
+
+        Future<Message> firstResponse = first.getMessageReader().getNextMessageFromSTDOUT();
+        child.writeLine("debugging output");
+        child.writeLine("{\"action\":\"status\",\"responseFor\":\"shutdownRequested\",\"shardId\":\"shard-2\"}");
+        child.writeLine("{\"action\":\"status\",\"responseFor\":\"initialize\",\"shardId\":\"shard-1\"}");
+
+        assertThat(((StatusMessage) firstResponse.get()).getResponseFor(), equalTo("initialize"));
+        Message secondResponse = second.getMessageReader().getNextMessageFromSTDOUT().get();
+        assertThat(((StatusMessage) secondResponse).getResponseFor(), equalTo("shutdownRequested"));
+    }
+
+    @Test(timeout = 10000L)
+    public void testProtocolRunsOverSharedChildProcess() throws Exception {
+        ChildProcessPool pool = pool(1);
+        ShardChannel channel = pool.attach("shard-1");
+        FakeChildProcess child = startedProcesses.get(0);
+        MultiLangDaemonConfiguration configuration = mock(MultiLangDaemonConfiguration.class);
+        when(configuration.isBinaryFraming()).thenReturn(true);
+        when(configuration.getTimeoutInSeconds()).thenReturn(null);
+        MultiLangProtocol protocol = new MultiLangProtocol(channel.getMessageReader(), channel.getMessageWriter(),
+                InitializationInput.builder().shardId("shard-1").build(), configuration);
+
+        Future<Boolean> initialized = executorService.submit(protocol::initialize);
+        JsonNode initialize = objectMapper.readTree(child.readLine());
+        assertFalse(initialize.has("framing"));
+        child.writeLine("{\"action\":\"status\",\"responseFor\":\"initialize\",\"shardId\":\"shard-1\"}");
+
+        assertTrue(initialized.get());
+    }
+
+    @Test(timeout = 10000L)
+    public void testDetachingTheLastShardStopsTheChildProcess() throws Exception {
+        ChildProcessPool pool = pool(1);
+        ShardChannel first = pool.attach("shard-1");
+        ShardChannel second = pool.attach("shard-2");
+        FakeChildProcess child = startedProcesses.get(0);
+
+        pool.detach(first);
+        assertThat(child.exited.getCount(), equalTo(1L));
+
+        Future<?> exit = executorService.submit(() -> {
+            assertThat(child.readLine(), equalTo(null));
+            child.exit();
+            return null;
+        });
+        pool.detach(second);
+        exit.get();
+
+        pool.attach("shard-3");
+        assertThat(startedProcesses.size(), equalTo(2));
+    }
+
+    @Test(timeout = 10000L)
+    public void testEndOfOutputFailsReads() throws Exception {
+        ChildProcessPool pool = pool(1);
+        ShardChannel channel = pool.attach("shard-1");
+        Future<Message> pendingRead = channel.getMessageReader().getNextMessageFromSTDOUT();
+
+        startedProcesses.get(0).exit();
+
+        try {
+            pendingRead.get();
+            fail("Expected the read to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(RuntimeException.class));
+        }
+        ShardChannel replacement = pool.attach("shard-2");
+        assertThat(startedProcesses.size(), equalTo(2));
+        assertThat(replacement.getChildProcess(), not(sameInstance(channel.getChildProcess())));
+    }
+
+    private ChildProcessPool pool(int size) {
+        return new ChildProcessPool(null, size, objectMapper, executorService) {
+            @Override
+            Process startProcess() throws IOException {
+                FakeChildProcess process = new FakeChildProcess();
+                startedProcesses.add(process);
+                return process;
+            }
+        };
+    }
+
+    /**
+     * A child process whose STDIN and STDOUT are driven by the test.
+     */
+    private static class FakeChildProcess extends Process {
+        private final PipedOutputStream stdin = new PipedOutputStream();
+        private final BufferedReader childStdin;
+        private final PipedOutputStream childStdout = new PipedOutputStream();
+        private final PipedInputStream stdout;
+        private final CountDownLatch exited = new CountDownLatch(1);
+
+        FakeChildProcess() throws IOException {
+            childStdin = new BufferedReader(new InputStreamReader(new PipedInputStream(stdin),
+                    StandardCharsets.UTF_8));
+            stdout = new PipedInputStream(childStdout);
+        }
+
+        String readLine() throws IOException {
+            return childStdin.readLine();
+        }
+
+        void writeLine(String line) throws IOException {
+            childStdout.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            childStdout.flush();
+        }
+
+        void exit() throws IOException {
+            childStdout.close();
+            exited.countDown();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return stdin;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return stdout;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            exited.await();
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public void destroy() {
+            exited.countDown();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import software.amazon.kinesis.multilang.messages.Message;
+import software.amazon.kinesis.multilang.messages.StatusMessage;
+
+public class DispatchedMessageReaderTest {
+
+    private final DispatchedMessageReader reader = new DispatchedMessageReader("shard-123");
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testMessagesAreKeptUntilRead() throws Exception {
+        Message message = new StatusMessage("initialize");
+
+        reader.deliver(message);
+
+        assertThat(reader.getNextMessageFromSTDOUT().get(), sameInstance(message));
+    }
+
+    @Test(timeout = 10000)
+    public void testPendingReadIsCompletedWithoutHoldingTheReader() throws Exception {
+        Message first = new StatusMessage("initialize");
+        Message second = new StatusMessage("processRecords");
+        CompletableFuture<Message> pendingRead = (CompletableFuture<Message>) reader.getNextMessageFromSTDOUT();
+        CompletableFuture<Message> readFromCallback = pendingRead.thenApply(message -> {
+            try {
+                // Another thread reading from the reader mustn't wait for the thread completing the read
+                reader.deliver(second);
+                return executorService.submit(() -> reader.getNextMessageFromSTDOUT().get()).get(5,
+                        TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        reader.deliver(first);
+
+        assertThat(pendingRead.get(), sameInstance(first));
+        assertThat(readFromCallback.get(), sameInstance(second));
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedReadIsCompletedWithoutHoldingTheReader() throws Exception {
+        RuntimeException cause = new RuntimeException("STDOUT ended");
+        CompletableFuture<Message> pendingRead = (CompletableFuture<Message>) reader.getNextMessageFromSTDOUT();
+        CompletableFuture<Boolean> drainedFromCallback = pendingRead.handle((message, throwable) -> {
+            try {
+                Future<Boolean> drained = executorService.submit(() -> reader.drainSTDOUT().get());
+                return drained.get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        reader.fail(cause);
+
+        assertThat(drainedFromCallback.get(), equalTo(true));
+        try {
+            reader.getNextMessageFromSTDOUT().get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), sameInstance(cause));
+            return;
+        }
+        throw new AssertionError("Reads after the failure should fail");
+    }
+}
@@ -14,12 +14,18 @@
  */
 package software.amazon.kinesis.multilang;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
@@ -35,7 +41,9 @@ import software.amazon.kinesis.lifecycle.events.ShardEndedInput;
 import software.amazon.kinesis.multilang.MessageWriter;
 import software.amazon.kinesis.multilang.messages.LeaseLostMessage;
 import software.amazon.kinesis.multilang.messages.Message;
+import software.amazon.kinesis.multilang.messages.ProcessRecordsMessage;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import software.amazon.kinesis.lifecycle.events.InitializationInput;
@@ -108,6 +116,106 @@ public class MessageWriterTest {
         verify(this.stream, Mockito.atLeastOnce()).flush();
     }
 
+    @Test
+    public void streamedProcessRecordsMessageMatchesSerializedMessageTest() throws Exception {
+        ByteBuffer direct = ByteBuffer.allocateDirect(4);
+        direct.put("puma".getBytes()).flip();
+        List<KinesisClientRecord> records = Arrays.asList(
+                KinesisClientRecord.builder().data(ByteBuffer.wrap("kitten".getBytes())).partitionKey("some cats")
+                        .sequenceNumber("357234807854789057805").subSequenceNumber(3L)
+                        .approximateArrivalTimestamp(Instant.ofEpochMilli(1000L)).build(),
+                KinesisClientRecord.builder().data(ByteBuffer.wrap("lion".getBytes()).asReadOnlyBuffer()).build(),
+                KinesisClientRecord.builder().data(direct).build(),
+                KinesisClientRecord.builder().build());
+        ProcessRecordsInput processRecordsInput = ProcessRecordsInput.builder().records(records)
+                .millisBehindLatest(42L).build();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ObjectMapper objectMapper = new ObjectMapper();
+        MessageWriter writer = new MessageWriter().initialize(output, shardId, objectMapper,
+                Executors.newCachedThreadPool());
+
+        Assert.assertTrue(writer.writeProcessRecordsMessage(processRecordsInput).get());
+
+        String line = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(line.endsWith(System.lineSeparator()));
+        Assert.assertEquals(4, direct.remaining());
+        Assert.assertEquals(objectMapper.readTree(
+                objectMapper.writeValueAsString(new ProcessRecordsMessage(processRecordsInput))),
+                objectMapper.readTree(line));
+    }
+
+    @Test
+    public void streamedProcessRecordsMessageEncodesRemainingDataTest() throws Exception {
+        ByteBuffer data = ByteBuffer.wrap("big cats".getBytes());
+        data.position(4);
+        ProcessRecordsInput processRecordsInput = ProcessRecordsInput.builder()
+                .records(Arrays.asList(KinesisClientRecord.builder().data(data.slice()).build())).build();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ObjectMapper objectMapper = new ObjectMapper();
+        MessageWriter writer = new MessageWriter().initialize(output, shardId, objectMapper,
+                Executors.newCachedThreadPool()).tagMessagesWithShardId();
+
+        Assert.assertTrue(writer.writeProcessRecordsMessage(processRecordsInput, 7L).get());
+
+        JsonNode message = objectMapper.readTree(output.toByteArray());
+        Assert.assertArrayEquals("cats".getBytes(), message.get("records").get(0).get("data").binaryValue());
+        Assert.assertEquals(7L, message.get("batchId").asLong());
+        Assert.assertEquals(shardId, message.get("shardId").asText());
+    }
+
+    @Test
+    public void streamedProcessRecordsMessageIsNotAffectedByLaterChangesTest() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.submit(() -> {
+            blocked.await();
+            return null;
+        });
+        ByteBuffer data = ByteBuffer.wrap("kitten".getBytes());
+        List<KinesisClientRecord> records = new ArrayList<>(Arrays.asList(
+                KinesisClientRecord.builder().data(data).sequenceNumber("1").build()));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ObjectMapper objectMapper = new ObjectMapper();
+        MessageWriter writer = new MessageWriter().initialize(output, shardId, objectMapper, executor);
+
+        Future<Boolean> write = writer.writeProcessRecordsMessage(ProcessRecordsInput.builder().records(records)
+                .build());
+        data.position(data.limit());
+        records.clear();
+        blocked.countDown();
+
+        Assert.assertTrue(write.get());
+        JsonNode message = objectMapper.readTree(output.toByteArray());
+        Assert.assertEquals(1, message.get("records").size());
+        Assert.assertArrayEquals("kitten".getBytes(), message.get("records").get(0).get("data").binaryValue());
+        executor.shutdown();
+    }
+
+    @Test
+    public void processRecordsMessagesAreWrittenInOrderTest() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ObjectMapper objectMapper = new ObjectMapper();
+        MessageWriter writer = new MessageWriter().initialize(output, shardId, objectMapper,
+                Executors.newCachedThreadPool());
+        ProcessRecordsInput processRecordsInput = ProcessRecordsInput.builder()
+                .records(Arrays.asList(KinesisClientRecord.builder().data(ByteBuffer.wrap(new byte[4096])).build()))
+                .build();
+
+        List<Future<Boolean>> writes = new ArrayList<>();
+        for (long batchId = 1; batchId <= 50; batchId++) {
+            writes.add(writer.writeProcessRecordsMessage(processRecordsInput, batchId));
+        }
+        for (Future<Boolean> write : writes) {
+            Assert.assertTrue(write.get());
+        }
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split(System.lineSeparator());
+        Assert.assertEquals(writes.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            Assert.assertEquals(i + 1, objectMapper.readTree(lines[i]).get("batchId").asLong());
+        }
+    }
+
     @Test
     public void writeShutdownMessageTest() throws IOException, InterruptedException, ExecutionException {
         Future<Boolean> future = this.messageWriter.writeShardEndedMessage(ShardEndedInput.builder().build());
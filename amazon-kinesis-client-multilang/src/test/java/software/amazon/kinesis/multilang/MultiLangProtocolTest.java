@@ -23,11 +23,14 @@ import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -54,6 +57,7 @@ import software.amazon.kinesis.lifecycle.events.LeaseLostInput;
 import software.amazon.kinesis.lifecycle.events.ShardEndedInput;
 import software.amazon.kinesis.multilang.config.MultiLangDaemonConfiguration;
 import software.amazon.kinesis.multilang.messages.CheckpointMessage;
+import software.amazon.kinesis.multilang.messages.InitializeMessage;
 import software.amazon.kinesis.multilang.messages.LeaseLostMessage;
 import software.amazon.kinesis.multilang.messages.Message;
 import software.amazon.kinesis.multilang.messages.ProcessRecordsMessage;
@@ -244,6 +248,98 @@ public class MultiLangProtocolTest {
         assertTrue(protocol.processRecords(ProcessRecordsInput.builder().records(EMPTY_RECORD_LIST).build()));
     }
 
+    private void initializeWithProcessRecordsWindow(int offered, Integer accepted, Message... messages) {
+        when(configuration.getProcessRecordsWindowSize()).thenReturn(offered);
+        when(messageWriter.writeInitializeMessage(any(InitializationInput.class), any(String.class), eq(offered)))
+                .thenReturn(buildFuture(true));
+        List<Message> responses = new ArrayList<>();
+        responses.add(new StatusMessage(InitializeMessage.ACTION, null, null, accepted));
+        responses.addAll(Arrays.asList(messages));
+        when(messageReader.getNextMessageFromSTDOUT()).thenAnswer(buildMessageAnswers(responses));
+        assertThat(protocol.initialize(), equalTo(true));
+    }
+
+    private StatusMessage batchStatus(long batchId) {
+        return new StatusMessage(ProcessRecordsMessage.ACTION, null, batchId, null);
+    }
+
+    @Test
+    public void pipelinedProcessRecordsTest() throws Exception {
+        when(messageWriter.writeProcessRecordsMessage(any(ProcessRecordsInput.class), anyLong()))
+                .thenReturn(buildFuture(true));
+        when(messageWriter.writeCheckpointMessageWithError(anyString(), anyLong(), any(Throwable.class)))
+                .thenReturn(buildFuture(true));
+        when(messageWriter.writeLeaseLossMessage(any(LeaseLostInput.class))).thenReturn(buildFuture(true));
+        initializeWithProcessRecordsWindow(3, 2, batchStatus(1), new CheckpointMessage("123", 0L, null),
+                batchStatus(2), new StatusMessage(LeaseLostMessage.ACTION));
+        ProcessRecordsInput processRecordsInput = ProcessRecordsInput.builder().records(EMPTY_RECORD_LIST)
+                .checkpointer(checkpointer).build();
+
+        assertThat(protocol.processRecords(processRecordsInput), equalTo(true));
+        verify(messageWriter).writeProcessRecordsMessage(processRecordsInput, 1L);
+        verify(messageReader, times(1)).getNextMessageFromSTDOUT();
+
+        assertThat(protocol.processRecords(processRecordsInput), equalTo(true));
+        verify(messageWriter).writeProcessRecordsMessage(processRecordsInput, 2L);
+        verify(messageReader, times(2)).getNextMessageFromSTDOUT();
+        verify(checkpointer, never()).checkpoint("123", 0L);
+
+        assertThat(protocol.leaseLost(LeaseLostInput.builder().build()), equalTo(true));
+        verify(checkpointer).checkpoint("123", 0L);
+        verify(messageReader, times(5)).getNextMessageFromSTDOUT();
+        verify(messageWriter, never()).writeProcessRecordsMessage(any(ProcessRecordsInput.class));
+    }
+
+    private ProcessRecordsInput recordsInput(String sequenceNumber) {
+        return ProcessRecordsInput.builder().checkpointer(checkpointer)
+                .records(Collections.singletonList(KinesisClientRecord.builder().sequenceNumber(sequenceNumber)
+                        .subSequenceNumber(2L).build()))
+                .build();
+    }
+
+    @Test
+    public void pipelinedProcessRecordsWithBareCheckpointTest() throws Exception {
+        when(messageWriter.writeProcessRecordsMessage(any(ProcessRecordsInput.class), anyLong()))
+                .thenReturn(buildFuture(true));
+        when(messageWriter.writeCheckpointMessageWithError(anyString(), anyLong(), any(Throwable.class)))
+                .thenReturn(buildFuture(true));
+        initializeWithProcessRecordsWindow(3, 3, new CheckpointMessage(null, null, null), batchStatus(1),
+                new CheckpointMessage(null, null, null), batchStatus(2));
+
+        assertThat(protocol.processRecords(recordsInput("1")), equalTo(true));
+        assertThat(protocol.processRecords(recordsInput("2")), equalTo(true));
+        assertThat(protocol.processRecords(ProcessRecordsInput.builder().records(EMPTY_RECORD_LIST)
+                .checkpointer(checkpointer).build()), equalTo(true));
+        verify(checkpointer).checkpoint("1", 2L);
+        verify(checkpointer, never()).checkpoint("2", 2L);
+
+        assertThat(protocol.processRecords(recordsInput("4")), equalTo(true));
+        verify(checkpointer).checkpoint("2", 2L);
+        verify(checkpointer, never()).checkpoint();
+    }
+
+    @Test
+    public void pipelinedProcessRecordsWithStatusForWrongBatchTest() {
+        when(messageWriter.writeProcessRecordsMessage(any(ProcessRecordsInput.class), anyLong()))
+                .thenReturn(buildFuture(true));
+        initializeWithProcessRecordsWindow(2, 2, batchStatus(2));
+        ProcessRecordsInput processRecordsInput = ProcessRecordsInput.builder().records(EMPTY_RECORD_LIST).build();
+
+        assertThat(protocol.processRecords(processRecordsInput), equalTo(true));
+        assertThat(protocol.processRecords(processRecordsInput), equalTo(false));
+    }
+
+    @Test
+    public void processRecordsWindowDeclinedTest() {
+        when(messageWriter.writeProcessRecordsMessage(any(ProcessRecordsInput.class))).thenReturn(buildFuture(true));
+        initializeWithProcessRecordsWindow(4, null, new StatusMessage(ProcessRecordsMessage.ACTION));
+
+        assertThat(protocol.processRecords(ProcessRecordsInput.builder().records(EMPTY_RECORD_LIST).build()),
+                equalTo(true));
+        verify(messageWriter, never()).writeProcessRecordsMessage(any(ProcessRecordsInput.class), anyLong());
+        verify(messageReader, times(2)).getNextMessageFromSTDOUT();
+    }
+
     private class MultiLangProtocolForTesting extends MultiLangProtocol {
         /**
          * Constructor.
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.multilang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A reference implementation of the child process side of the multi language protocol, written only against the
+ * description of the wire format, without the classes of the record processor. It shows what a child process in any
+ * language has to do to support the length prefixed framing:
+ *
+ * <ol>
+ * <li>Read the initialize message as a line of JSON. If its framing is "length-prefixed", the record processor offers
+ * to switch to binary frames.</li>
+ * <li>Accept the offer by adding the same framing to the status message for the initialize action, still written as
+ * a line of JSON.</li>
+ * <li>From then on read and write only frames. Frames of processRecords messages carry the data of each record as raw
+ * bytes after the JSON header.</li>
+ * </ol>
+ *
+ * STDIN is read without buffering ahead, so no bytes of the first frame are consumed while reading the initialize
+ * line.
+ */
+class ReferenceChildCodec {
+    static final String FRAMING = "length-prefixed";
+
+    private static final int MESSAGE_FRAME = 0x01;
+    private static final int PROCESS_RECORDS_FRAME = 0x02;
+    private static final int NO_DATA = -1;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DataInputStream stdin;
+    private final DataOutputStream stdout;
+    private boolean framed = false;
+
+    ReferenceChildCodec(InputStream stdin, OutputStream stdout) {
+        this.stdin = new DataInputStream(stdin);
+        this.stdout = new DataOutputStream(stdout);
+    }
+
+    /**
+     * Reads the next message. The data of records is returned as binary nodes when it was received in a frame, and
+     * as base64 text otherwise; {@link JsonNode#binaryValue()} decodes both.
+     *
+     * @return the next message, or null at the end of STDIN
+     */
+    ObjectNode readMessage() throws IOException {
+        if (!framed) {
+            String line;
+            do {
+                line = readLine();
+            } while (line != null && line.trim().isEmpty());
+            return line == null ? null : (ObjectNode) objectMapper.readTree(line);
+        }
+
+        int length;
+        try {
+            length = stdin.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        int type = stdin.readUnsignedByte();
+        if (type == MESSAGE_FRAME) {
+            byte[] json = new byte[length - 1];
+            stdin.readFully(json);
+            return (ObjectNode) objectMapper.readTree(json);
+        }
+        if (type != PROCESS_RECORDS_FRAME) {
+            throw new IOException("Unknown frame type " + type);
+        }
+        byte[] header = new byte[stdin.readInt()];
+        stdin.readFully(header);
+        ObjectNode message = (ObjectNode) objectMapper.readTree(header);
+        for (JsonNode record : message.get("records")) {
+            int dataLength = stdin.readInt();
+            if (dataLength != NO_DATA) {
+                byte[] data = new byte[dataLength];
+                stdin.readFully(data);
+                ((ObjectNode) record).put("data", data);
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Responds to an initialize message, accepting binary framing if it was offered and {@code acceptFraming} is
+     * true.
+     */
+    void respondToInitialize(ObjectNode initializeMessage, boolean acceptFraming) throws IOException {
+        ObjectNode status = status("initialize");
+        boolean offered = FRAMING.equals(initializeMessage.path("framing").asText(null));
+        if (offered && acceptFraming) {
+            status.put("framing", FRAMING);
+        }
+        writeMessage(status);
+        framed = offered && acceptFraming;
+    }
+
+    void writeMessage(ObjectNode message) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(message);
+        if (framed) {
+            stdout.writeInt(1 + json.length);
+            stdout.writeByte(MESSAGE_FRAME);
+            stdout.write(json);
+        } else {
+            stdout.write('\n');
+            stdout.write(json);
+            stdout.write('\n');
+        }
+        stdout.flush();
+    }
+
+    ObjectNode status(String responseFor) {
+        return objectMapper.createObjectNode().put("action", "status").put("responseFor", responseFor);
+    }
+
+    ObjectNode checkpoint(String sequenceNumber) {
+        return objectMapper.createObjectNode().put("action", "checkpoint").put("sequenceNumber", sequenceNumber);
+    }
+
+    boolean isFramed() {
+        return framed;
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = stdin.read()) != '\n') {
+            if (b == -1) {
+                return line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8.name());
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8.name());
+    }
+}
@@ -14,6 +14,9 @@
  */
 package software.amazon.kinesis.checkpoint;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.exceptions.InvalidStateException;
 import software.amazon.kinesis.exceptions.KinesisClientLibDependencyException;
@@ -64,5 +67,14 @@ public class DoesNothingPreparedCheckpointer implements PreparedCheckpointer {
         // This method does nothing
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletionStage<Void> checkpointAsync() {
+        // This method does nothing
+        return CompletableFuture.completedFuture(null);
+    }
+
 }
 
@@ -15,7 +15,6 @@
 
 package software.amazon.kinesis.checkpoint;
 
-import java.math.BigInteger;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -24,6 +23,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import lombok.Data;
 import lombok.experimental.Accessors;
+import software.amazon.kinesis.retrieval.kpl.ParsedSequenceNumber;
 
 /**
  * This supports extracting the shardId from a sequence number.
@@ -63,7 +63,10 @@ public class SequenceNumberValidator {
 
         @Override
         public Optional<SequenceNumberComponents> read(String sequenceNumberString) {
-            BigInteger sequenceNumber = new BigInteger(sequenceNumberString, 10);
+            ParsedSequenceNumber sequenceNumber = ParsedSequenceNumber.tryParse(sequenceNumberString);
+            if (sequenceNumber == null || !sequenceNumber.isSequenceNumber()) {
+                throw new NumberFormatException("Expected a string of digits but received " + sequenceNumberString);
+            }
 
             //
             // If the bit length of the sequence number isn't 186 it's impossible for the version numbers
@@ -92,9 +95,8 @@ public class SequenceNumberValidator {
             return Optional.of(new SequenceNumberComponents(version, shardId));
         }
 
-        private int readOffset(BigInteger sequenceNumber, int offset, long mask) {
-            long value = sequenceNumber.shiftRight(offset).longValue() & mask;
-            return (int) value;
+        private int readOffset(ParsedSequenceNumber sequenceNumber, int offset, long mask) {
+            return (int) sequenceNumber.bits(offset, mask);
         }
     }
 
@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.checkpoint;
 
+import java.util.concurrent.CompletionStage;
+
 import software.amazon.kinesis.exceptions.InvalidStateException;
 import software.amazon.kinesis.exceptions.KinesisClientLibDependencyException;
 import software.amazon.kinesis.exceptions.ShutdownException;
@@ -62,4 +64,13 @@ public class ShardPreparedCheckpointer implements PreparedCheckpointer {
         checkpointer.checkpoint(pendingCheckpointSequenceNumber.sequenceNumber(),
                 pendingCheckpointSequenceNumber.subSequenceNumber());
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletionStage<Void> checkpointAsync() {
+        return checkpointer.checkpointAsync(pendingCheckpointSequenceNumber.sequenceNumber(),
+                pendingCheckpointSequenceNumber.subSequenceNumber());
+    }
 }
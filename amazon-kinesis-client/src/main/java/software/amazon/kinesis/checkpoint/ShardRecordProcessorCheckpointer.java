@@ -14,6 +14,11 @@
  */
 package software.amazon.kinesis.checkpoint;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -48,7 +53,13 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
     // Set to the last value set via checkpoint().
     // Sample use: verify application shutdown() invoked checkpoint() at the end of a shard.
     @Getter @Accessors(fluent = true)
-    private ExtendedSequenceNumber lastCheckpointValue;
+    private volatile ExtendedSequenceNumber lastCheckpointValue;
+    // Set to the last value passed to checkpointAsync() until it's saved. Guarded by checkpointStateLock rather than
+    // this, so that saved checkpoints don't have to wait for the record processor to release this.
+    private ExtendedSequenceNumber unsavedCheckpointValue;
+    // The result of saving unsavedCheckpointValue. Guarded by checkpointStateLock.
+    private CompletableFuture<Void> unsavedCheckpoint;
+    private final Object checkpointStateLock = new Object();
     @Getter @Accessors(fluent = true)
     private ExtendedSequenceNumber largestPermittedCheckpointValue;
     private ExtendedSequenceNumber sequenceNumberAtShardEnd;
@@ -101,7 +112,60 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
     public synchronized void checkpoint(String sequenceNumber, long subSequenceNumber)
         throws KinesisClientLibDependencyException, InvalidStateException, ThrottlingException, ShutdownException,
         IllegalArgumentException {
+        this.advancePosition(validateCheckpoint(sequenceNumber, subSequenceNumber));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The checkpoint is saved without holding the lock of this checkpointer, so the record processor can keep
+     * processing records, and even checkpoint again, while it's saved.
+     * </p>
+     */
+    @Override
+    public synchronized CompletionStage<Void> checkpointAsync() {
+        if (log.isDebugEnabled()) {
+            log.debug("Checkpointing {}, token {} asynchronously at largest permitted value {}", shardInfo.shardId(),
+                    shardInfo.concurrencyToken(), this.largestPermittedCheckpointValue);
+        }
+        return advancePositionAsync(this.largestPermittedCheckpointValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized CompletionStage<Void> checkpointAsync(Record record) {
+        if (record == null) {
+            return failedCheckpoint(new IllegalArgumentException("Could not checkpoint a null record"));
+        }
+        return checkpointAsync(record.sequenceNumber(), 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized CompletionStage<Void> checkpointAsync(String sequenceNumber) {
+        return checkpointAsync(sequenceNumber, 0);
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized CompletionStage<Void> checkpointAsync(String sequenceNumber, long subSequenceNumber) {
+        final ExtendedSequenceNumber newCheckpoint;
+        try {
+            newCheckpoint = validateCheckpoint(sequenceNumber, subSequenceNumber);
+        } catch (IllegalArgumentException e) {
+            return failedCheckpoint(e);
+        }
+        return advancePositionAsync(newCheckpoint);
+    }
+
+    private ExtendedSequenceNumber validateCheckpoint(String sequenceNumber, long subSequenceNumber) {
         if (subSequenceNumber < 0) {
             throw new IllegalArgumentException("Could not checkpoint at invalid, negative subsequence number "
                     + subSequenceNumber);
@@ -112,20 +176,53 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
          * If there is a last checkpoint value, we want to check both the lower and upper bound.
          */
         ExtendedSequenceNumber newCheckpoint = new ExtendedSequenceNumber(sequenceNumber, subSequenceNumber);
-        if ((lastCheckpointValue == null || lastCheckpointValue.compareTo(newCheckpoint) <= 0)
+        ExtendedSequenceNumber lastCheckpoint = lastRequestedCheckpointValue();
+        if ((lastCheckpoint == null || lastCheckpoint.compareTo(newCheckpoint) <= 0)
                 && newCheckpoint.compareTo(largestPermittedCheckpointValue) <= 0) {
 
             if (log.isDebugEnabled()) {
                 log.debug("Checkpointing {}, token {} at specific extended sequence number {}", shardInfo.shardId(),
                         shardInfo.concurrencyToken(), newCheckpoint);
             }
-            this.advancePosition(newCheckpoint);
+            return newCheckpoint;
         } else {
             throw new IllegalArgumentException(String.format(
                     "Could not checkpoint at extended sequence number %s as it did not fall into acceptable range "
                     + "between the last checkpoint %s and the greatest extended sequence number passed to this "
                     + "record processor %s",
-                    newCheckpoint, this.lastCheckpointValue, this.largestPermittedCheckpointValue));
+                    newCheckpoint, lastCheckpoint, this.largestPermittedCheckpointValue));
+        }
+    }
+
+    /**
+     * Waits for the last checkpoint made through checkpointAsync() to be saved, if it wasn't saved yet. A failure to
+     * save it isn't thrown, since it was already reported to the record processor through the returned stage.
+     *
+     * <p>
+     * Sample use: make sure a checkpoint made asynchronously at the end of a shard is taken into account.
+     * </p>
+     */
+    public void awaitUnsavedCheckpoint() {
+        final CompletableFuture<Void> checkpoint;
+        synchronized (checkpointStateLock) {
+            checkpoint = unsavedCheckpoint;
+        }
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            checkpoint.join();
+        } catch (CompletionException | CancellationException e) {
+            log.debug("Unsaved checkpoint of {} failed", shardInfo.shardId(), e);
+        }
+    }
+
+    /**
+     * @return the last checkpoint that was made, which may not be saved yet
+     */
+    private ExtendedSequenceNumber lastRequestedCheckpointValue() {
+        synchronized (checkpointStateLock) {
+            return unsavedCheckpointValue != null ? unsavedCheckpointValue : lastCheckpointValue;
         }
     }
 
@@ -184,7 +281,8 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
          * If there is a last checkpoint value, we want to check both the lower and upper bound.
          */
         ExtendedSequenceNumber pendingCheckpoint = new ExtendedSequenceNumber(sequenceNumber, subSequenceNumber);
-        if ((lastCheckpointValue == null || lastCheckpointValue.compareTo(pendingCheckpoint) <= 0)
+        ExtendedSequenceNumber lastCheckpoint = lastRequestedCheckpointValue();
+        if ((lastCheckpoint == null || lastCheckpoint.compareTo(pendingCheckpoint) <= 0)
                 && pendingCheckpoint.compareTo(largestPermittedCheckpointValue) <= 0) {
 
             if (log.isDebugEnabled()) {
@@ -197,7 +295,7 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
                     "Could not prepare checkpoint at extended sequence number %s as it did not fall into acceptable "
                             + "range between the last checkpoint %s and the greatest extended sequence number passed "
                             + "to this record processor %s",
-                    pendingCheckpoint, this.lastCheckpointValue, this.largestPermittedCheckpointValue));
+                    pendingCheckpoint, lastCheckpoint, this.largestPermittedCheckpointValue));
         }
     }
 
@@ -241,13 +339,8 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
 
     void advancePosition(ExtendedSequenceNumber extendedSequenceNumber)
         throws KinesisClientLibDependencyException, InvalidStateException, ThrottlingException, ShutdownException {
-        ExtendedSequenceNumber checkpointToRecord = extendedSequenceNumber;
-        if (sequenceNumberAtShardEnd != null && sequenceNumberAtShardEnd.equals(extendedSequenceNumber)) {
-            // If we are about to checkpoint the very last sequence number for this shard, we might as well
-            // just checkpoint at SHARD_END
-            checkpointToRecord = ExtendedSequenceNumber.SHARD_END;
-        }
-        
+        ExtendedSequenceNumber checkpointToRecord = checkpointToRecord(extendedSequenceNumber);
+
         // Don't checkpoint a value we already successfully checkpointed
         if (extendedSequenceNumber != null && !extendedSequenceNumber.equals(lastCheckpointValue)) {
             try {
@@ -255,8 +348,11 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
                     log.debug("Setting {}, token {} checkpoint to {}", shardInfo.shardId(),
                             shardInfo.concurrencyToken(), checkpointToRecord);
                 }
-                checkpointer.setCheckpoint(shardInfo.shardId(), checkpointToRecord, shardInfo.concurrencyToken());
-                lastCheckpointValue = checkpointToRecord;
+                checkpointer.setCheckpoint(shardInfo.leaseKey(), checkpointToRecord, shardInfo.concurrencyToken());
+                synchronized (checkpointStateLock) {
+                    lastCheckpointValue = checkpointToRecord;
+                    unsavedCheckpointValue = null;
+                }
             } catch (ThrottlingException | ShutdownException | InvalidStateException
                     | KinesisClientLibDependencyException e) {
                 throw e;
@@ -267,6 +363,73 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
         }
     }
 
+    private CompletableFuture<Void> advancePositionAsync(ExtendedSequenceNumber extendedSequenceNumber) {
+        final ExtendedSequenceNumber checkpointToRecord = checkpointToRecord(extendedSequenceNumber);
+
+        // Don't checkpoint a value we already successfully checkpointed
+        if (extendedSequenceNumber == null || extendedSequenceNumber.equals(lastCheckpointValue)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Setting {}, token {} checkpoint to {} asynchronously", shardInfo.shardId(),
+                    shardInfo.concurrencyToken(), checkpointToRecord);
+        }
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        synchronized (checkpointStateLock) {
+            unsavedCheckpointValue = checkpointToRecord;
+            unsavedCheckpoint = result;
+        }
+
+        checkpointer.setCheckpointAsync(shardInfo.leaseKey(), checkpointToRecord, shardInfo.concurrencyToken())
+                .whenComplete((ignored, throwable) -> {
+                    synchronized (checkpointStateLock) {
+                        // A checkpoint made in the meantime replaces this one
+                        if (checkpointToRecord.equals(unsavedCheckpointValue)) {
+                            unsavedCheckpointValue = null;
+                            unsavedCheckpoint = null;
+                            if (throwable == null) {
+                                lastCheckpointValue = checkpointToRecord;
+                            }
+                        }
+                    }
+                    if (throwable == null) {
+                        result.complete(null);
+                    } else {
+                        result.completeExceptionally(translateCheckpointException(throwable));
+                    }
+                });
+        return result;
+    }
+
+    private ExtendedSequenceNumber checkpointToRecord(ExtendedSequenceNumber extendedSequenceNumber) {
+        if (sequenceNumberAtShardEnd != null && sequenceNumberAtShardEnd.equals(extendedSequenceNumber)) {
+            // If we are about to checkpoint the very last sequence number for this shard, we might as well
+            // just checkpoint at SHARD_END
+            return ExtendedSequenceNumber.SHARD_END;
+        }
+        return extendedSequenceNumber;
+    }
+
+    private static Throwable translateCheckpointException(Throwable throwable) {
+        final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof ThrottlingException || cause instanceof ShutdownException
+                || cause instanceof InvalidStateException || cause instanceof KinesisClientLibDependencyException
+                || !(cause instanceof Exception)) {
+            return cause;
+        }
+        if (cause instanceof KinesisClientLibException) {
+            log.warn("Caught exception setting checkpoint.", cause);
+        }
+        return new KinesisClientLibDependencyException("Caught exception while checkpointing", (Exception) cause);
+    }
+
+    private static CompletableFuture<Void> failedCheckpoint(Throwable throwable) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
     /**
      * This method stores the given sequenceNumber as a pending checkpoint in the lease table without overwriting the
      * current checkpoint, then returns a PreparedCheckpointer that is ready to checkpoint at the given sequence number.
@@ -308,7 +471,7 @@ public class ShardRecordProcessorCheckpointer implements RecordProcessorCheckpoi
         }
 
         try {
-            checkpointer.prepareCheckpoint(shardInfo.shardId(), newPrepareCheckpoint, shardInfo.concurrencyToken());
+            checkpointer.prepareCheckpoint(shardInfo.leaseKey(), newPrepareCheckpoint, shardInfo.concurrencyToken());
         } catch (ThrottlingException | ShutdownException | InvalidStateException
                 | KinesisClientLibDependencyException e) {
             throw e;
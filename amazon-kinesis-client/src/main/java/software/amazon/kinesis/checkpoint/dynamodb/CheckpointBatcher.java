@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package software.amazon.kinesis.checkpoint.dynamodb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.kinesis.annotations.KinesisClientInternalApi;
+import software.amazon.kinesis.exceptions.KinesisClientLibException;
+import software.amazon.kinesis.leases.Lease;
+import software.amazon.kinesis.leases.LeaseCoordinator;
+import software.amazon.kinesis.leases.exceptions.DependencyException;
+import software.amazon.kinesis.leases.exceptions.InvalidStateException;
+import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
+import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
+
+/**
+ * Saves the checkpoints of the shards held by a worker in the background, coalescing them into batches.
+ *
+ * <p>
+ * Only the latest checkpoint of every shard is kept until the end of the batch window, and the checkpoints it
+ * superseded complete along with it. The checkpoints are then saved with transactional updates of up to
+ * {@code maxBatchSize} leases each. If a transaction fails the checkpoints of its batch are saved one by one, which
+ * finds out which of the leases were lost. Batches are saved by a single thread, so the checkpoints of a shard are
+ * never saved out of order.
+ * </p>
+ */
+@Slf4j
+@KinesisClientInternalApi
+class CheckpointBatcher {
+    private static final long IDLE_THREAD_KEEP_ALIVE_MILLIS = 60_000L;
+
+    private final DynamoDBCheckpointer checkpointer;
+    private final LeaseCoordinator leaseCoordinator;
+    private final long batchWindowMillis;
+    private final int maxBatchSize;
+    private final ScheduledThreadPoolExecutor executor;
+
+    // Checkpoints waiting for the end of the batch window, guarded by this
+    private final Map<String, PendingCheckpoint> pendingCheckpoints = new HashMap<>();
+    // The latest checkpoint of every shard that wasn't saved yet, guarded by this
+    private final Map<String, CompletableFuture<Void>> unsavedCheckpoints = new HashMap<>();
+    private boolean flushScheduled = false;
+
+    /**
+     * @param checkpointer
+     *            saves the checkpoints that can't be saved in a transaction
+     * @param leaseCoordinator
+     *            holds the leases of the shards
+     * @param batchWindowMillis
+     *            time checkpoints are coalesced for before being saved, 0 to save them as soon as the checkpoints
+     *            saved before are
+     * @param maxBatchSize
+     *            maximum number of checkpoints saved in a transaction
+     */
+    CheckpointBatcher(@NonNull final DynamoDBCheckpointer checkpointer,
+            @NonNull final LeaseCoordinator leaseCoordinator, final long batchWindowMillis, final int maxBatchSize) {
+        if (batchWindowMillis < 0) {
+            throw new IllegalArgumentException("batchWindowMillis can't be negative, got " + batchWindowMillis);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1, got " + maxBatchSize);
+        }
+        this.checkpointer = checkpointer;
+        this.leaseCoordinator = leaseCoordinator;
+        this.batchWindowMillis = batchWindowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.executor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("CheckpointBatcher-%04d").setDaemon(true).build());
+        this.executor.setKeepAliveTime(IDLE_THREAD_KEEP_ALIVE_MILLIS, TimeUnit.MILLISECONDS);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a checkpoint to be saved at the end of the batch window, replacing the queued checkpoint of the shard.
+     *
+     * @return a future that completes once the checkpoint, or a later one of the same shard, was saved
+     */
+    synchronized CompletableFuture<Void> checkpoint(@NonNull final String shardId,
+            @NonNull final ExtendedSequenceNumber checkpoint, @NonNull final UUID concurrencyToken) {
+        final PendingCheckpoint pendingCheckpoint = new PendingCheckpoint(shardId, checkpoint, concurrencyToken);
+        final PendingCheckpoint superseded = pendingCheckpoints.put(shardId, pendingCheckpoint);
+        if (superseded != null) {
+            pendingCheckpoint.future.whenComplete((result, throwable) -> {
+                if (throwable == null) {
+                    superseded.future.complete(null);
+                } else {
+                    superseded.future.completeExceptionally(throwable);
+                }
+            });
+        }
+        unsavedCheckpoints.put(shardId, pendingCheckpoint.future);
+        pendingCheckpoint.future.whenComplete((result, throwable) -> saved(shardId, pendingCheckpoint.future));
+        if (!flushScheduled) {
+            flushScheduled = true;
+            executor.schedule(this::flushCheckpoints, batchWindowMillis, TimeUnit.MILLISECONDS);
+        }
+        return pendingCheckpoint.future;
+    }
+
+    /**
+     * Saves the queued checkpoint of the shard without waiting for the end of the batch window.
+     *
+     * @return a future that completes once the latest checkpoint of the shard was saved, or null if all its
+     *         checkpoints were already saved
+     */
+    synchronized CompletableFuture<Void> flush(@NonNull final String shardId) {
+        if (pendingCheckpoints.containsKey(shardId)) {
+            executor.execute(this::flushCheckpoints);
+        }
+        return unsavedCheckpoints.get(shardId);
+    }
+
+    private synchronized void saved(final String shardId, final CompletableFuture<Void> future) {
+        unsavedCheckpoints.remove(shardId, future);
+    }
+
+    private void flushCheckpoints() {
+        final List<PendingCheckpoint> checkpoints;
+        synchronized (this) {
+            checkpoints = new ArrayList<>(pendingCheckpoints.values());
+            pendingCheckpoints.clear();
+            flushScheduled = false;
+        }
+        for (List<PendingCheckpoint> batch : Lists.partition(checkpoints, maxBatchSize)) {
+            try {
+                save(batch);
+            } catch (RuntimeException e) {
+                log.error("Caught exception while saving a batch of {} checkpoints", batch.size(), e);
+                for (PendingCheckpoint pendingCheckpoint : batch) {
+                    pendingCheckpoint.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void save(final List<PendingCheckpoint> batch) {
+        final List<PendingCheckpoint> batched = new ArrayList<>(batch.size());
+        final List<Lease> leases = new ArrayList<>(batch.size());
+        final List<PendingCheckpoint> oneByOne = new ArrayList<>();
+        for (PendingCheckpoint pendingCheckpoint : batch) {
+            final Lease lease = leaseCoordinator.getCurrentlyHeldLease(pendingCheckpoint.shardId);
+            if (lease == null) {
+                // Saved on its own to fail the same way a checkpoint that isn't batched does
+                oneByOne.add(pendingCheckpoint);
+                continue;
+            }
+            lease.checkpoint(pendingCheckpoint.checkpoint);
+            lease.pendingCheckpoint(null);
+            lease.ownerSwitchesSinceCheckpoint(0L);
+            lease.concurrencyToken(pendingCheckpoint.concurrencyToken);
+            batched.add(pendingCheckpoint);
+            leases.add(lease);
+        }
+
+        if (leases.size() > 1 && saveInTransaction(leases)) {
+            for (PendingCheckpoint pendingCheckpoint : batched) {
+                pendingCheckpoint.future.complete(null);
+            }
+        } else {
+            oneByOne.addAll(batched);
+        }
+
+        for (PendingCheckpoint pendingCheckpoint : oneByOne) {
+            try {
+                checkpointer.writeCheckpoint(pendingCheckpoint.shardId, pendingCheckpoint.checkpoint,
+                        pendingCheckpoint.concurrencyToken);
+                pendingCheckpoint.future.complete(null);
+            } catch (KinesisClientLibException e) {
+                pendingCheckpoint.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private boolean saveInTransaction(final List<Lease> leases) {
+        try {
+            if (leaseCoordinator.updateLeases(leases, checkpointer.operation())) {
+                log.debug("Saved {} checkpoints in a transaction", leases.size());
+                return true;
+            }
+            log.debug("Could not save {} checkpoints in a transaction, saving them one by one", leases.size());
+        } catch (DependencyException | InvalidStateException | ProvisionedThroughputException e) {
+            log.info("Could not save {} checkpoints in a transaction, saving them one by one", leases.size(), e);
+        }
+        return false;
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingCheckpoint {
+        private final String shardId;
+        private final ExtendedSequenceNumber checkpoint;
+        private final UUID concurrencyToken;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+    }
+}
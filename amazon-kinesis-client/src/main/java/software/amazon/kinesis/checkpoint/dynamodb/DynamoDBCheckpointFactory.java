@@ -16,6 +16,7 @@
 package software.amazon.kinesis.checkpoint.dynamodb;
 
 import lombok.Data;
+import lombok.experimental.Accessors;
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.checkpoint.CheckpointFactory;
 import software.amazon.kinesis.leases.LeaseCoordinator;
@@ -26,12 +27,23 @@ import software.amazon.kinesis.processor.Checkpointer;
  *
  */
 @Data
+@Accessors(fluent = true)
 @KinesisClientInternalApi
 public class DynamoDBCheckpointFactory implements CheckpointFactory {
+    /**
+     * Time the checkpoints of the shards held by a worker are coalesced for before they're saved together. Only the
+     * latest checkpoint of every shard is saved, and the checkpoints are written with transactional updates of
+     * several leases each, so workers holding many shards that checkpoint often make far fewer writes to DynamoDB.
+     * Checkpoint calls wait until their checkpoint was saved, which takes up to this long.
+     *
+     * <p>Default value: 0, which saves every checkpoint as soon as it's made</p>
+     */
+    private long checkpointBatchWindowMillis = 0L;
+
     @Override
     public Checkpointer createCheckpointer(final LeaseCoordinator leaseLeaseCoordinator,
                                            final LeaseRefresher leaseRefresher) {
-        return new DynamoDBCheckpointer(leaseLeaseCoordinator, leaseRefresher);
+        return new DynamoDBCheckpointer(leaseLeaseCoordinator, leaseRefresher, checkpointBatchWindowMillis);
     }
 
 }
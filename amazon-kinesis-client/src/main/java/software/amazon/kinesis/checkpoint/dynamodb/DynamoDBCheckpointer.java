@@ -17,11 +17,12 @@ package software.amazon.kinesis.checkpoint.dynamodb;
 
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import com.google.common.annotations.VisibleForTesting;
 
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.checkpoint.Checkpoint;
@@ -33,6 +34,7 @@ import software.amazon.kinesis.exceptions.internal.KinesisClientLibIOException;
 import software.amazon.kinesis.leases.Lease;
 import software.amazon.kinesis.leases.LeaseCoordinator;
 import software.amazon.kinesis.leases.LeaseRefresher;
+import software.amazon.kinesis.leases.dynamodb.DynamoDBLeaseRefresher;
 import software.amazon.kinesis.leases.exceptions.DependencyException;
 import software.amazon.kinesis.leases.exceptions.InvalidStateException;
 import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
@@ -42,7 +44,6 @@ import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
 /**
  *
  */
-@RequiredArgsConstructor
 @Slf4j
 @KinesisClientInternalApi
 public class DynamoDBCheckpointer implements Checkpointer {
@@ -50,14 +51,69 @@ public class DynamoDBCheckpointer implements Checkpointer {
     private final LeaseCoordinator leaseCoordinator;
     @NonNull
     private final LeaseRefresher leaseRefresher;
+    private final CheckpointBatcher checkpointBatcher;
+    private final boolean batchCheckpoints;
 
     private String operation;
 
+    public DynamoDBCheckpointer(@NonNull final LeaseCoordinator leaseCoordinator,
+            @NonNull final LeaseRefresher leaseRefresher) {
+        this(leaseCoordinator, leaseRefresher, 0L);
+    }
+
+    /**
+     * @param leaseCoordinator
+     *            holds the leases of the shards
+     * @param leaseRefresher
+     *            reads the checkpoints of the shards
+     * @param checkpointBatchWindowMillis
+     *            time the checkpoints of the shards are coalesced for before they're saved together, 0 to save every
+     *            checkpoint as soon as it's made
+     */
+    public DynamoDBCheckpointer(@NonNull final LeaseCoordinator leaseCoordinator,
+            @NonNull final LeaseRefresher leaseRefresher, final long checkpointBatchWindowMillis) {
+        if (checkpointBatchWindowMillis > 0 && leaseRefresher instanceof DynamoDBLeaseRefresher
+                && !((DynamoDBLeaseRefresher) leaseRefresher).supportsTransactionalUpdates()) {
+            throw new IllegalArgumentException(
+                    "checkpointBatchWindowMillis must be 0 when the lease serializer doesn't support transactional "
+                            + "updates");
+        }
+        this.leaseCoordinator = leaseCoordinator;
+        this.leaseRefresher = leaseRefresher;
+        this.batchCheckpoints = checkpointBatchWindowMillis > 0;
+        this.checkpointBatcher = new CheckpointBatcher(this, leaseCoordinator,
+                Math.max(checkpointBatchWindowMillis, 0L), DynamoDBLeaseRefresher.MAX_TRANSACTION_ITEMS);
+    }
+
     @Override
     public void setCheckpoint(final String shardId, final ExtendedSequenceNumber checkpointValue,
             final String concurrencyToken) throws KinesisClientLibException {
+        if (batchCheckpoints) {
+            awaitCheckpoint(shardId, setCheckpointAsync(shardId, checkpointValue, concurrencyToken));
+            return;
+        }
+        awaitUnsavedCheckpoint(shardId);
+        writeCheckpoint(shardId, checkpointValue, UUID.fromString(concurrencyToken));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The checkpoint is saved by a background thread, along with the checkpoints of other shards made in the meantime.
+     * If a checkpoint batch window is configured, the checkpoints are saved at the end of the window.
+     * </p>
+     */
+    @Override
+    public CompletableFuture<Void> setCheckpointAsync(final String shardId,
+            final ExtendedSequenceNumber checkpointValue, final String concurrencyToken) {
+        return checkpointBatcher.checkpoint(shardId, checkpointValue, UUID.fromString(concurrencyToken));
+    }
+
+    void writeCheckpoint(final String shardId, final ExtendedSequenceNumber checkpointValue,
+            final UUID concurrencyToken) throws KinesisClientLibException {
         try {
-            boolean wasSuccessful = setCheckpoint(shardId, checkpointValue, UUID.fromString(concurrencyToken));
+            boolean wasSuccessful = setCheckpoint(shardId, checkpointValue, concurrencyToken);
             if (!wasSuccessful) {
                 throw new ShutdownException("Can't update checkpoint - instance doesn't hold the lease for this shard");
             }
@@ -72,6 +128,26 @@ public class DynamoDBCheckpointer implements Checkpointer {
         }
     }
 
+    private static void awaitCheckpoint(final String shardId, final CompletableFuture<Void> future)
+            throws KinesisClientLibException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KinesisClientLibDependencyException(
+                    "Interrupted while saving checkpoint for shardId " + shardId, e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof KinesisClientLibException) {
+                throw (KinesisClientLibException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new KinesisClientLibDependencyException("Unable to save checkpoint for shardId " + shardId, e);
+        }
+    }
+
     @Override
     public ExtendedSequenceNumber getCheckpoint(final String shardId) throws KinesisClientLibException {
         try {
@@ -99,6 +175,8 @@ public class DynamoDBCheckpointer implements Checkpointer {
     @Override
     public void prepareCheckpoint(final String shardId, final ExtendedSequenceNumber pendingCheckpoint,
             final String concurrencyToken) throws KinesisClientLibException {
+        // Saving a checkpoint clears the pending checkpoint, so the checkpoints made before have to be saved first
+        awaitUnsavedCheckpoint(shardId);
         try {
             boolean wasSuccessful =
                     prepareCheckpoint(shardId, pendingCheckpoint, UUID.fromString(concurrencyToken));
@@ -117,6 +195,27 @@ public class DynamoDBCheckpointer implements Checkpointer {
         }
     }
 
+    /**
+     * Waits for the checkpoint of the shard that is being saved in the background, so that the checkpoint isn't saved
+     * after a later update of the lease.
+     */
+    private void awaitUnsavedCheckpoint(final String shardId) throws KinesisClientLibException {
+        final CompletableFuture<Void> unsavedCheckpoint = checkpointBatcher.flush(shardId);
+        if (unsavedCheckpoint == null) {
+            return;
+        }
+        try {
+            unsavedCheckpoint.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KinesisClientLibDependencyException(
+                    "Interrupted while saving checkpoint for shardId " + shardId, e);
+        } catch (ExecutionException e) {
+            // The failure was reported to the caller of the checkpoint, the next update finds out if the lease was lost
+            log.debug("Unsaved checkpoint for shard {} failed", shardId, e);
+        }
+    }
+
     @VisibleForTesting
     public boolean setCheckpoint(String shardId, ExtendedSequenceNumber checkpoint, UUID concurrencyToken)
             throws DependencyException, InvalidStateException, ProvisionedThroughputException {
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.common;
+
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * Identifies one of the streams processed by a Scheduler running in multi-stream mode, and where to start processing
+ * its shards that don't have a checkpoint yet.
+ */
+@Data
+@Accessors(fluent = true)
+public class StreamConfig {
+    /**
+     * The name of the stream to process records from.
+     */
+    @NonNull
+    private final String streamName;
+
+    /**
+     * The location in the shards of the stream from which to start fetching records when there is no checkpoint for
+     * the shard.
+     */
+    @NonNull
+    private final InitialPositionInStreamExtended initialPositionInStreamExtended;
+}
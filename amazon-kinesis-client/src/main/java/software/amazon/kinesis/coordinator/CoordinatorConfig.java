@@ -67,6 +67,21 @@ public class CoordinatorConfig {
      */
     private long shardConsumerDispatchPollIntervalMillis = 1000L;
 
+    /**
+     * Whether the Scheduler dispatches shard consumers when something happened instead of only at a fixed interval.
+     *
+     * <p>
+     * When enabled, the Scheduler wakes up as soon as a task of a shard consumer completed, the end of a shard was
+     * reached, a shutdown was requested or the held leases changed, and only drives the shard consumers affected by
+     * it. Shard consumers move through their states without waiting for the next poll, and idle shard consumers aren't
+     * touched on every loop. All shard consumers are still dispatched every
+     * {@link #shardConsumerDispatchPollIntervalMillis} for the health checks and for retrying failed tasks.
+     * </p>
+     *
+     * <p>Default value: false</p>
+     */
+    private boolean eventDrivenShardConsumerDispatch = false;
+
     /**
      * Shard prioritization strategy.
      *
@@ -26,6 +26,10 @@ import java.util.concurrent.ExecutorService;
 @NoArgsConstructor
 class DiagnosticEventFactory {
     ExecutorStateEvent executorStateEvent(ExecutorService executorService, LeaseCoordinator leaseCoordinator) {
+        if (executorService instanceof VirtualThreadExecutorService) {
+            return new VirtualThreadExecutorStateEvent((VirtualThreadExecutorService) executorService,
+                    leaseCoordinator);
+        }
         return new ExecutorStateEvent(executorService, leaseCoordinator);
     }
 
@@ -16,8 +16,12 @@
 package software.amazon.kinesis.coordinator;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
@@ -26,6 +30,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -39,6 +44,7 @@ import lombok.extern.slf4j.Slf4j;
 import software.amazon.kinesis.checkpoint.CheckpointConfig;
 import software.amazon.kinesis.checkpoint.ShardRecordProcessorCheckpointer;
 import software.amazon.kinesis.common.InitialPositionInStreamExtended;
+import software.amazon.kinesis.common.StreamConfig;
 import software.amazon.kinesis.leases.Lease;
 import software.amazon.kinesis.leases.LeaseCoordinator;
 import software.amazon.kinesis.leases.LeaseManagementConfig;
@@ -101,6 +107,8 @@ public class Scheduler implements Runnable {
     // private final GetRecordsRetrievalStrategy getRecordsRetrievalStrategy;
     private final LeaseCoordinator leaseCoordinator;
     private final ShardSyncTaskManager shardSyncTaskManager;
+    // The shard syncs of the streams of a multi-stream Scheduler by stream name, empty when processing a single stream
+    private final Map<String, ShardSyncTaskManager> streamShardSyncTaskManagers;
     private final ShardPrioritization shardPrioritization;
     private final boolean cleanupLeasesUponShardCompletion;
     private final boolean skipShardSyncAtWorkerInitializationIfLeasesExist;
@@ -118,6 +126,13 @@ public class Scheduler implements Runnable {
     private final boolean ignoreUnexpetedChildShards;
     private final AggregatorUtil aggregatorUtil;
     private final HierarchicalShardSyncer hierarchicalShardSyncer;
+    private final boolean eventDrivenShardConsumerDispatch;
+
+    // Wakes up the worker loop when dispatching shard consumers is event driven.
+    @Getter(AccessLevel.NONE)
+    private final ShardConsumerDispatchSignal shardConsumerDispatchSignal = new ShardConsumerDispatchSignal();
+    @Getter(AccessLevel.NONE)
+    private long nextFullShardConsumerDispatchMillis = 0L;
 
     // Holds consumers for shards the worker is currently tracking. Key is shard
     // info, value is ShardConsumer.
@@ -171,8 +186,16 @@ public class Scheduler implements Runnable {
         this.applicationName = this.coordinatorConfig.applicationName();
         this.maxInitializationAttempts = this.coordinatorConfig.maxInitializationAttempts();
         this.metricsFactory = this.metricsConfig.metricsFactory();
-        this.leaseCoordinator = this.leaseManagementConfig.leaseManagementFactory()
-                .createLeaseCoordinator(this.metricsFactory);
+        if (this.retrievalConfig.isMultiStream()
+                && !this.leaseManagementConfig.leaseManagementFactory().supportsMultiStream()) {
+            throw new IllegalArgumentException("The LeaseManagementFactory "
+                    + this.leaseManagementConfig.leaseManagementFactory().getClass().getName()
+                    + " doesn't support processing several streams");
+        }
+        this.leaseCoordinator = this.retrievalConfig.isMultiStream()
+                ? this.leaseManagementConfig.leaseManagementFactory()
+                        .createLeaseCoordinator(this.metricsFactory, this.retrievalConfig.streamConfigs())
+                : this.leaseManagementConfig.leaseManagementFactory().createLeaseCoordinator(this.metricsFactory);
         this.leaseRefresher = this.leaseCoordinator.leaseRefresher();
 
         //
@@ -190,8 +213,14 @@ public class Scheduler implements Runnable {
         this.diagnosticEventFactory = diagnosticEventFactory;
         this.diagnosticEventHandler = new DiagnosticEventLogger();
 
-        this.shardSyncTaskManager = this.leaseManagementConfig.leaseManagementFactory()
-                .createShardSyncTaskManager(this.metricsFactory);
+        if (this.retrievalConfig.isMultiStream()) {
+            this.shardSyncTaskManager = null;
+            this.streamShardSyncTaskManagers = createStreamShardSyncTaskManagers();
+        } else {
+            this.shardSyncTaskManager = this.leaseManagementConfig.leaseManagementFactory()
+                    .createShardSyncTaskManager(this.metricsFactory);
+            this.streamShardSyncTaskManagers = Collections.emptyMap();
+        }
         this.shardPrioritization = this.coordinatorConfig.shardPrioritization();
         this.cleanupLeasesUponShardCompletion = this.leaseManagementConfig.cleanupLeasesUponShardCompletion();
         this.skipShardSyncAtWorkerInitializationIfLeasesExist =
@@ -216,10 +245,26 @@ public class Scheduler implements Runnable {
         this.streamName = this.retrievalConfig.streamName();
         this.listShardsBackoffTimeMillis = this.retrievalConfig.listShardsBackoffTimeInMillis();
         this.maxListShardsRetryAttempts = this.retrievalConfig.maxListShardsRetryAttempts();
-        this.shardDetector = this.shardSyncTaskManager.shardDetector();
+        this.shardDetector = this.shardSyncTaskManager == null ? null : this.shardSyncTaskManager.shardDetector();
         this.ignoreUnexpetedChildShards = this.leaseManagementConfig.ignoreUnexpectedChildShards();
         this.aggregatorUtil = this.lifecycleConfig.aggregatorUtil();
         this.hierarchicalShardSyncer = leaseManagementConfig.hierarchicalShardSyncer();
+        this.eventDrivenShardConsumerDispatch = this.coordinatorConfig.eventDrivenShardConsumerDispatch();
+        if (this.eventDrivenShardConsumerDispatch) {
+            this.leaseCoordinator.addLeaseAssignmentChangeListener(shardConsumerDispatchSignal::assignmentsChanged);
+        }
+    }
+
+    private Map<String, ShardSyncTaskManager> createStreamShardSyncTaskManagers() {
+        final Map<String, ShardSyncTaskManager> managers = new LinkedHashMap<>();
+        for (StreamConfig streamConfig : this.retrievalConfig.streamConfigs()) {
+            if (managers.containsKey(streamConfig.streamName())) {
+                throw new IllegalArgumentException("Stream " + streamConfig.streamName() + " is configured twice");
+            }
+            managers.put(streamConfig.streamName(), this.leaseManagementConfig.leaseManagementFactory()
+                    .createShardSyncTaskManager(this.metricsFactory, streamConfig));
+        }
+        return Collections.unmodifiableMap(managers);
     }
 
     /**
@@ -263,7 +308,9 @@ public class Scheduler implements Runnable {
                     leaseCoordinator.initialize();
 
                     TaskResult result = null;
-                    if (!skipShardSyncAtWorkerInitializationIfLeasesExist || leaseRefresher.isLeaseTableEmpty()) {
+                    if (retrievalConfig.isMultiStream()) {
+                        result = syncStreamShardsAndLeases();
+                    } else if (!skipShardSyncAtWorkerInitializationIfLeasesExist || leaseRefresher.isLeaseTableEmpty()) {
                         log.info("Syncing Kinesis shard info");
                         ShardSyncTask shardSyncTask = new ShardSyncTask(shardDetector, leaseRefresher, initialPosition,
                                 cleanupLeasesUponShardCompletion, ignoreUnexpetedChildShards, 0L, hierarchicalShardSyncer,
@@ -305,33 +352,43 @@ public class Scheduler implements Runnable {
         }
     }
 
+    /**
+     * Syncs the shards of every stream of a multi-stream Scheduler with their leases, stopping at the first failure.
+     *
+     * @return the result of the failed shard sync, or null if all of them succeeded
+     */
+    private TaskResult syncStreamShardsAndLeases() throws LeasingException {
+        for (Map.Entry<String, ShardSyncTaskManager> entry : streamShardSyncTaskManagers.entrySet()) {
+            final ShardSyncTaskManager streamShardSyncTaskManager = entry.getValue();
+            if (skipShardSyncAtWorkerInitializationIfLeasesExist
+                    && !streamShardSyncTaskManager.leaseRefresher().isLeaseTableEmpty()) {
+                log.info("Skipping shard sync of stream {} per configuration setting (and it has leases)",
+                        entry.getKey());
+                continue;
+            }
+            log.info("Syncing Kinesis shard info of stream {}", entry.getKey());
+            ShardSyncTask shardSyncTask = new ShardSyncTask(streamShardSyncTaskManager.shardDetector(),
+                    streamShardSyncTaskManager.leaseRefresher(), streamShardSyncTaskManager.initialPositionInStream(),
+                    cleanupLeasesUponShardCompletion, ignoreUnexpetedChildShards, 0L, hierarchicalShardSyncer,
+                    metricsFactory);
+            TaskResult result = new MetricsCollectingTaskDecorator(shardSyncTask, metricsFactory).call();
+            if (result.getException() != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
     @VisibleForTesting
     void runProcessLoop() {
         try {
-            boolean foundCompletedShard = false;
-            Set<ShardInfo> assignedShards = new HashSet<>();
-            for (ShardInfo shardInfo : getShardInfoForAssignments()) {
-                ShardConsumer shardConsumer = createOrGetShardConsumer(shardInfo,
-                        processorConfig.shardRecordProcessorFactory());
-
-                if (shardConsumer.isShutdown() && shardConsumer.shutdownReason().equals(ShutdownReason.SHARD_END)) {
-                    foundCompletedShard = true;
-                } else {
-                    shardConsumer.executeLifecycle();
-                }
-                assignedShards.add(shardInfo);
-            }
-
-            if (foundCompletedShard) {
-                shardSyncTaskManager.syncShardAndLeaseInfo();
+            if (eventDrivenShardConsumerDispatch) {
+                runEventDrivenDispatch();
+            } else {
+                dispatchShardConsumers(null);
+                slog.info("Sleeping ...");
+                Thread.sleep(shardConsumerDispatchPollIntervalMillis);
             }
-
-            // clean up shard consumers for unassigned shards
-            cleanupShardConsumers(assignedShards);
-
-            logExecutorState();
-            slog.info("Sleeping ...");
-            Thread.sleep(shardConsumerDispatchPollIntervalMillis);
         } catch (Exception e) {
             log.error("Worker.run caught exception, sleeping for {} milli seconds!",
                     String.valueOf(shardConsumerDispatchPollIntervalMillis), e);
@@ -344,6 +401,65 @@ public class Scheduler implements Runnable {
         slog.resetInfoLogging();
     }
 
+    /**
+     * Waits until shard consumers can make progress or the held leases changed, and dispatches the affected shard
+     * consumers. All shard consumers are dispatched once every shardConsumerDispatchPollIntervalMillis, which runs
+     * their health checks and retries their failed tasks.
+     */
+    private void runEventDrivenDispatch() throws InterruptedException {
+        final long millisUntilFullDispatch = nextFullShardConsumerDispatchMillis - System.currentTimeMillis();
+        if (millisUntilFullDispatch > 0) {
+            final Set<ShardInfo> changedShardInfos = shardConsumerDispatchSignal.await(millisUntilFullDispatch);
+            if (System.currentTimeMillis() < nextFullShardConsumerDispatchMillis) {
+                dispatchShardConsumers(changedShardInfos);
+                return;
+            }
+        }
+        // A full dispatch covers everything that was signalled so far
+        shardConsumerDispatchSignal.drain();
+        nextFullShardConsumerDispatchMillis = System.currentTimeMillis() + shardConsumerDispatchPollIntervalMillis;
+        dispatchShardConsumers(null);
+    }
+
+    /**
+     * Drives the shard consumers of the assigned shards forward, and shuts down the ones of shards that are no longer
+     * assigned.
+     *
+     * @param changedShardInfos
+     *            the shards whose consumers were signalled, only these and new shard consumers are dispatched; null to
+     *            dispatch all shard consumers
+     */
+    private void dispatchShardConsumers(final Set<ShardInfo> changedShardInfos) {
+        // The completed shards by stream, null standing for the stream of a single stream Scheduler
+        Map<String, Set<String>> completedShardIdsByStream = new HashMap<>();
+        Set<ShardInfo> assignedShards = new HashSet<>();
+        for (ShardInfo shardInfo : getShardInfoForAssignments()) {
+            assignedShards.add(shardInfo);
+            if (changedShardInfos != null && !changedShardInfos.contains(shardInfo)
+                    && shardInfoShardConsumerMap.containsKey(shardInfo)) {
+                continue;
+            }
+            ShardConsumer shardConsumer = createOrGetShardConsumer(shardInfo,
+                    processorConfig.shardRecordProcessorFactory());
+
+            if (shardConsumer.isShutdown() && shardConsumer.shutdownReason().equals(ShutdownReason.SHARD_END)) {
+                completedShardIdsByStream.computeIfAbsent(shardInfo.streamName(), streamName -> new HashSet<>())
+                        .add(shardInfo.shardId());
+            } else {
+                shardConsumer.executeLifecycle();
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> completedShardIds : completedShardIdsByStream.entrySet()) {
+            shardSyncTaskManager(completedShardIds.getKey()).syncShardAndLeaseInfo(completedShardIds.getValue());
+        }
+
+        // clean up shard consumers for unassigned shards
+        cleanupShardConsumers(assignedShards);
+
+        logExecutorState();
+    }
+
     /**
      * Returns whether worker can shutdown immediately. Note that this method is called from Worker's {{@link #run()}
      * method before every loop run, so method must do minimum amount of work to not impact shard processing timings.
@@ -512,6 +628,8 @@ public class Scheduler implements Runnable {
             // Lost leases will force Worker to begin shutdown process for all shard consumers in
             // Worker.run().
             leaseCoordinator.stop();
+            // Stopping the lease coordinator drops all the held leases
+            shardConsumerDispatchSignal.assignmentsChanged();
             workerStateChangeListener.onWorkerStateChange(WorkerStateChangeListener.WorkerState.SHUT_DOWN);
         }
     }
@@ -523,7 +641,8 @@ public class Scheduler implements Runnable {
     private void finalShutdown() {
         log.info("Starting worker's final shutdown.");
 
-        if (executorService instanceof SchedulerCoordinatorFactory.SchedulerThreadPoolExecutor) {
+        if (executorService instanceof SchedulerCoordinatorFactory.SchedulerThreadPoolExecutor
+                || executorService instanceof VirtualThreadExecutorService) {
             // This should interrupt all active record processor tasks.
             executorService.shutdownNow();
         }
@@ -533,8 +652,30 @@ public class Scheduler implements Runnable {
         shutdownComplete = true;
     }
 
+    private ShardSyncTaskManager shardSyncTaskManager(final String streamName) {
+        return streamName == null ? shardSyncTaskManager : streamShardSyncTaskManagers.get(streamName);
+    }
+
+    private void dropLeaseOfUnprocessedStream(final ShardInfo shardInfo) {
+        final Lease lease = leaseCoordinator.getCurrentlyHeldLease(shardInfo.leaseKey());
+        if (lease != null) {
+            log.info("Dropping lease {} of a stream that isn't processed by this worker", shardInfo.leaseKey());
+            leaseCoordinator.dropLease(lease);
+        }
+    }
+
     private List<ShardInfo> getShardInfoForAssignments() {
         List<ShardInfo> assignedStreamShards = leaseCoordinator.getCurrentAssignments();
+        if (assignedStreamShards.stream().anyMatch(shardInfo -> shardSyncTaskManager(shardInfo.streamName()) == null)) {
+            // The lease coordinator only takes the leases of the configured streams, but the leases held before a
+            // restart with other streams are renewed until they're dropped
+            assignedStreamShards.stream()
+                    .filter(shardInfo -> shardSyncTaskManager(shardInfo.streamName()) == null)
+                    .forEach(this::dropLeaseOfUnprocessedStream);
+            assignedStreamShards = assignedStreamShards.stream()
+                    .filter(shardInfo -> shardSyncTaskManager(shardInfo.streamName()) != null)
+                    .collect(Collectors.toList());
+        }
         List<ShardInfo> prioritizedShards = shardPrioritization.prioritize(assignedStreamShards);
 
         if ((prioritizedShards != null) && (!prioritizedShards.isEmpty())) {
@@ -545,7 +686,7 @@ public class Scheduler implements Runnable {
                     if (!firstItem) {
                         builder.append(", ");
                     }
-                    builder.append(shardInfo.shardId());
+                    builder.append(shardInfo.leaseKey());
                     firstItem = false;
                 }
                 slog.info("Current stream shard assignments: " + builder.toString());
@@ -575,6 +716,9 @@ public class Scheduler implements Runnable {
         if ((consumer == null)
                 || (consumer.isShutdown() && consumer.shutdownReason().equals(ShutdownReason.LEASE_LOST))) {
             consumer = buildConsumer(shardInfo, shardRecordProcessorFactory);
+            if (eventDrivenShardConsumerDispatch) {
+                consumer.lifecycleEventListener(() -> shardConsumerDispatchSignal.shardConsumerChanged(shardInfo));
+            }
             shardInfoShardConsumerMap.put(shardInfo, consumer);
             slog.infoForce("Created new shardConsumer for : " + shardInfo);
         }
@@ -586,9 +730,26 @@ public class Scheduler implements Runnable {
         RecordsPublisher cache = retrievalConfig.retrievalFactory().createGetRecordsCache(shardInfo, metricsFactory);
         ShardRecordProcessorCheckpointer checkpointer = coordinatorConfig.coordinatorFactory().createRecordProcessorCheckpointer(shardInfo,
                         checkpoint);
+        // Shards of a multi-stream Scheduler use the shard detector, the leases and the initial position of their stream
+        final String consumerStreamName;
+        final LeaseRefresher consumerLeaseRefresher;
+        final InitialPositionInStreamExtended consumerInitialPosition;
+        final ShardDetector consumerShardDetector;
+        if (shardInfo.streamName() == null) {
+            consumerStreamName = streamName;
+            consumerLeaseRefresher = leaseRefresher;
+            consumerInitialPosition = initialPosition;
+            consumerShardDetector = shardDetector;
+        } else {
+            final ShardSyncTaskManager streamShardSyncTaskManager = shardSyncTaskManager(shardInfo.streamName());
+            consumerStreamName = shardInfo.streamName();
+            consumerLeaseRefresher = streamShardSyncTaskManager.leaseRefresher();
+            consumerInitialPosition = streamShardSyncTaskManager.initialPositionInStream();
+            consumerShardDetector = streamShardSyncTaskManager.shardDetector();
+        }
         ShardConsumerArgument argument = new ShardConsumerArgument(shardInfo,
-                streamName,
-                leaseRefresher,
+                consumerStreamName,
+                consumerLeaseRefresher,
                 executorService,
                 cache,
                 shardRecordProcessorFactory.shardRecordProcessor(),
@@ -600,13 +761,16 @@ public class Scheduler implements Runnable {
                 listShardsBackoffTimeMillis,
                 maxListShardsRetryAttempts,
                 processorConfig.callProcessRecordsEvenForEmptyRecordList(),
+                processorConfig.deaggregateRecordsLazily(),
                 shardConsumerDispatchPollIntervalMillis,
-                initialPosition,
+                consumerInitialPosition,
                 cleanupLeasesUponShardCompletion,
                 ignoreUnexpetedChildShards,
-                shardDetector,
+                leaseManagementConfig.incrementalShardSync(),
+                consumerShardDetector,
                 aggregatorUtil,
                 hierarchicalShardSyncer,
+                leaseCoordinator.leaseThroughputTracker(),
                 metricsFactory);
         return new ShardConsumer(cache, executorService, shardInfo, lifecycleConfig.logWarningForTaskAfterMillis(),
                 argument, lifecycleConfig.taskExecutionListener(),lifecycleConfig.readTimeoutsToIgnoreBeforeWarning());
@@ -654,6 +818,9 @@ public class Scheduler implements Runnable {
         ExecutorStateEvent executorStateEvent = diagnosticEventFactory.executorStateEvent(executorService,
                 leaseCoordinator);
         executorStateEvent.accept(diagnosticEventHandler);
+        if (executorStateEvent instanceof VirtualThreadExecutorStateEvent) {
+            ((VirtualThreadExecutorStateEvent) executorStateEvent).emitMetrics(metricsFactory);
+        }
     }
 
     /**
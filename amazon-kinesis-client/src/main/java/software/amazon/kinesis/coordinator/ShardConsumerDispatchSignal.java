@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.coordinator;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import software.amazon.kinesis.leases.ShardInfo;
+
+/**
+ * Wakes up the {@link Scheduler} loop when it's running with event driven dispatch, and collects the shards whose
+ * consumers need to be driven forward.
+ *
+ * <p>
+ * Shard consumers signal the shard they belong to whenever a task completed or a shutdown was requested, the lease
+ * coordinator signals when the held leases may have changed. Signals received while the loop is busy are kept until
+ * the next call of {@link #await(long)}, so none of them get lost.
+ * </p>
+ */
+class ShardConsumerDispatchSignal {
+    private Set<ShardInfo> changedShardInfos = new HashSet<>();
+    private boolean assignmentsChanged = false;
+
+    /**
+     * Signals that the consumer of the given shard can make progress.
+     *
+     * @param shardInfo
+     *            the shard of the consumer
+     */
+    synchronized void shardConsumerChanged(final ShardInfo shardInfo) {
+        changedShardInfos.add(shardInfo);
+        this.notifyAll();
+    }
+
+    /**
+     * Signals that the leases held by this worker may have changed.
+     */
+    synchronized void assignmentsChanged() {
+        assignmentsChanged = true;
+        this.notifyAll();
+    }
+
+    /**
+     * Waits until a signal arrives or the timeout elapses, and returns the shards whose consumers were signalled.
+     *
+     * @param timeoutMillis
+     *            the maximum time to wait
+     * @return the signalled shards, empty if the timeout elapsed or only the assignments changed
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    synchronized Set<ShardInfo> await(final long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (!assignmentsChanged && changedShardInfos.isEmpty() && remaining > 0) {
+            this.wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return drain();
+    }
+
+    /**
+     * Discards all the signals received so far and returns the signalled shards.
+     *
+     * @return the signalled shards
+     */
+    synchronized Set<ShardInfo> drain() {
+        assignmentsChanged = false;
+        if (changedShardInfos.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Set<ShardInfo> drained = changedShardInfos;
+        changedShardInfos = new HashSet<>();
+        return drained;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.coordinator;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link CoordinatorFactory} that runs the tasks of the Scheduler on virtual threads, instead of on a pool of
+ * platform threads that grows with the number of shards.
+ *
+ * <p>
+ * Virtual threads require Java 21 or later at runtime. On earlier versions the executor of
+ * {@link SchedulerCoordinatorFactory} is used instead.
+ * </p>
+ *
+ * <p>
+ * The virtual threads are run by the carrier thread pool of the JVM, which is bounded by the system properties
+ * {@code jdk.virtualThreadScheduler.parallelism} (the number of processors by default) and
+ * {@code jdk.virtualThreadScheduler.maxPoolSize} (256 by default). They can be set through
+ * {@link #carrierParallelism} and {@link #maxCarrierPoolSize}, which only takes effect if no virtual thread was
+ * started in the JVM before, and doesn't override system properties that are already set.
+ * </p>
+ *
+ * <p>
+ * Record processors that block while holding a monitor pin their carrier thread. The state of the executor, including
+ * the tasks blocked on a monitor and the time tasks waited to be started, is logged with the executor state of the
+ * Scheduler. Run with {@code -Djdk.tracePinnedThreads=short} to find the code that pins carrier threads.
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@Accessors(fluent = true)
+@Slf4j
+public class VirtualThreadCoordinatorFactory extends SchedulerCoordinatorFactory {
+    private static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+    private static final String MAX_POOL_SIZE_PROPERTY = "jdk.virtualThreadScheduler.maxPoolSize";
+    private static final String THREAD_NAME_PREFIX = "ShardRecordProcessor-";
+
+    /**
+     * The number of carrier threads running virtual threads.
+     *
+     * <p>Default value: null, which keeps the default of the JVM</p>
+     */
+    private Integer carrierParallelism = null;
+
+    /**
+     * The maximum number of carrier threads, including the ones temporarily added to compensate for blocked ones.
+     *
+     * <p>Default value: null, which keeps the default of the JVM</p>
+     */
+    private Integer maxCarrierPoolSize = null;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExecutorService createExecutorService() {
+        final ThreadFactory threadFactory = virtualThreadFactory();
+        if (threadFactory == null) {
+            log.warn("Virtual threads aren't supported by this JVM, using platform threads instead.");
+            return super.createExecutorService();
+        }
+        return new VirtualThreadExecutorService(threadFactory);
+    }
+
+    private ThreadFactory virtualThreadFactory() {
+        final Class<?> builderClass;
+        try {
+            builderClass = Class.forName("java.lang.Thread$Builder");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        configureCarrierPool();
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, THREAD_NAME_PREFIX, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            log.warn("Unable to create a factory of virtual threads.", e);
+            return null;
+        }
+    }
+
+    private void configureCarrierPool() {
+        setPropertyIfAbsent(PARALLELISM_PROPERTY, carrierParallelism);
+        setPropertyIfAbsent(MAX_POOL_SIZE_PROPERTY, maxCarrierPoolSize);
+    }
+
+    private static void setPropertyIfAbsent(final String property, final Integer value) {
+        if (value == null) {
+            return;
+        }
+        final String existing = System.getProperty(property);
+        if (existing != null) {
+            log.warn("{} is already set to {}, ignoring the configured value of {}.", property, existing, value);
+            return;
+        }
+        System.setProperty(property, String.valueOf(value));
+    }
+}
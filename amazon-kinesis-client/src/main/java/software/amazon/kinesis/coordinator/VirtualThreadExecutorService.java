@@ -0,0 +1,193 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.coordinator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.NonNull;
+
+/**
+ * An executor that starts a new thread for every task, meant to be used with a factory of virtual threads.
+ *
+ * <p>
+ * Virtual threads are cheap to create and to block, so the tasks of the Scheduler, most of which block on a record
+ * processor, a queue or a sleep, don't need a pool of platform threads sized to the number of shards. The virtual
+ * threads are run by the small pool of carrier threads of the JVM. A virtual thread that blocks while holding a
+ * monitor, or that waits to enter one, keeps its carrier thread pinned, and tasks wait for a free carrier once all of
+ * them are pinned. The executor keeps track of the time tasks wait to be started and of the threads blocked on a
+ * monitor, which are logged through {@link VirtualThreadExecutorStateEvent} and emitted as metrics by the Scheduler.
+ * </p>
+ *
+ * <p>
+ * The JVM doesn't expose how long a carrier thread was pinned outside of flight recorder events, so the time tasks
+ * wait to be started, which grows once all carriers are pinned, stands in for the pinned carrier time. Blocked time is
+ * reported as the number of task threads blocked on a monitor when the state is sampled.
+ * </p>
+ */
+class VirtualThreadExecutorService extends AbstractExecutorService {
+    private final ThreadFactory threadFactory;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingTaskCount = new AtomicInteger();
+    private final AtomicInteger runningTaskCount = new AtomicInteger();
+    private final AtomicInteger largestRunningTaskCount = new AtomicInteger();
+    private final AtomicLong maxTaskStartDelayNanos = new AtomicLong();
+    private final Object lock = new Object();
+
+    private volatile boolean shutdown = false;
+
+    /**
+     * @param threadFactory
+     *            creates the thread of each task
+     */
+    VirtualThreadExecutorService(@NonNull final ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable command) {
+        final long submittedNanos = System.nanoTime();
+        synchronized (lock) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor has been shutdown");
+            }
+            final Thread thread = threadFactory.newThread(() -> runTask(command, submittedNanos));
+            if (thread == null) {
+                throw new RejectedExecutionException("Thread factory didn't create a thread");
+            }
+            threads.add(thread);
+            pendingTaskCount.incrementAndGet();
+            try {
+                thread.start();
+            } catch (Throwable t) {
+                threads.remove(thread);
+                pendingTaskCount.decrementAndGet();
+                throw new RejectedExecutionException("Unable to start a thread for the task", t);
+            }
+        }
+    }
+
+    private void runTask(final Runnable command, final long submittedNanos) {
+        final long startDelayNanos = System.nanoTime() - submittedNanos;
+        maxTaskStartDelayNanos.accumulateAndGet(startDelayNanos, Math::max);
+        pendingTaskCount.decrementAndGet();
+        largestRunningTaskCount.accumulateAndGet(runningTaskCount.incrementAndGet(), Math::max);
+        try {
+            command.run();
+        } finally {
+            runningTaskCount.decrementAndGet();
+            threads.remove(Thread.currentThread());
+            if (shutdown && threads.isEmpty()) {
+                synchronized (lock) {
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of tasks that were submitted but haven't started yet
+     */
+    int pendingTaskCount() {
+        return pendingTaskCount.get();
+    }
+
+    /**
+     * @return the number of tasks that are running
+     */
+    int runningTaskCount() {
+        return runningTaskCount.get();
+    }
+
+    /**
+     * @return the largest number of tasks that ran at the same time
+     */
+    int largestRunningTaskCount() {
+        return largestRunningTaskCount.get();
+    }
+
+    /**
+     * @return the number of task threads that are waiting to enter a monitor, which pins their carrier thread
+     */
+    int blockedTaskCount() {
+        int blocked = 0;
+        for (Thread thread : threads) {
+            if (thread.getState() == Thread.State.BLOCKED) {
+                blocked++;
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Returns the longest time a task waited to be started since the last call, and starts measuring again.
+     *
+     * @return the longest start delay in milliseconds
+     */
+    long drainMaxTaskStartDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxTaskStartDelayNanos.getAndSet(0));
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        // Every task gets its thread when it's submitted, so there are never tasks waiting to be run
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && threads.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (!isTerminated()) {
+                final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                lock.wait(remainingMillis);
+            }
+            return true;
+        }
+    }
+}
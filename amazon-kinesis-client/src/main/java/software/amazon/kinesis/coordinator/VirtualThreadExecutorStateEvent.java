@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.coordinator;
+
+import lombok.Getter;
+import lombok.ToString;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.kinesis.annotations.KinesisClientInternalApi;
+import software.amazon.kinesis.leases.LeaseCoordinator;
+import software.amazon.kinesis.metrics.MetricsFactory;
+import software.amazon.kinesis.metrics.MetricsLevel;
+import software.amazon.kinesis.metrics.MetricsScope;
+import software.amazon.kinesis.metrics.MetricsUtil;
+
+/**
+ * The state of a {@link VirtualThreadExecutorService}. Tasks waiting to be started and task threads blocked on a
+ * monitor are signs of carrier threads being pinned.
+ */
+@Getter
+@ToString
+@KinesisClientInternalApi
+class VirtualThreadExecutorStateEvent extends ExecutorStateEvent {
+    private static final String MESSAGE = "Current virtual thread executor state: ";
+    static final String OPERATION = "VirtualThreadExecutor";
+    static final String MAX_TASK_START_DELAY_METRIC = "MaxTaskStartDelay";
+    static final String BLOCKED_TASKS_METRIC = "BlockedTasks";
+    static final String PENDING_TASKS_METRIC = "PendingTasks";
+
+    private final String executorName;
+    private final int pendingTasks;
+    private final int runningTasks;
+    private final int largestRunningTasks;
+    private final int blockedTasks;
+    private final long maxTaskStartDelayMillis;
+    private final int leasesOwned;
+
+    VirtualThreadExecutorStateEvent(VirtualThreadExecutorService executor, LeaseCoordinator leaseCoordinator) {
+        super(executor, leaseCoordinator);
+        this.executorName = executor.getClass().getSimpleName();
+        this.pendingTasks = executor.pendingTaskCount();
+        this.runningTasks = executor.runningTaskCount();
+        this.largestRunningTasks = executor.largestRunningTaskCount();
+        this.blockedTasks = executor.blockedTaskCount();
+        this.maxTaskStartDelayMillis = executor.drainMaxTaskStartDelayMillis();
+        this.leasesOwned = super.getLeasesOwned();
+    }
+
+    /**
+     * Emits the time tasks waited for a carrier thread, and the number of tasks blocked on a monitor or waiting to be
+     * started, which are signs of pinned carrier threads.
+     *
+     * @param metricsFactory
+     *            factory of the scope to emit the metrics into
+     */
+    void emitMetrics(MetricsFactory metricsFactory) {
+        final MetricsScope scope = MetricsUtil.createMetricsWithOperation(metricsFactory, OPERATION);
+        try {
+            scope.addData(MAX_TASK_START_DELAY_METRIC, maxTaskStartDelayMillis, StandardUnit.MILLISECONDS,
+                    MetricsLevel.DETAILED);
+            scope.addData(BLOCKED_TASKS_METRIC, blockedTasks, StandardUnit.COUNT, MetricsLevel.DETAILED);
+            scope.addData(PENDING_TASKS_METRIC, pendingTasks, StandardUnit.COUNT, MetricsLevel.DETAILED);
+        } finally {
+            MetricsUtil.endScope(scope);
+        }
+    }
+
+    @Override
+    public void accept(DiagnosticEventHandler visitor) {
+        visitor.visit(this);
+    }
+
+    @Override
+    public String message() {
+        return MESSAGE + this.toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import java.util.Collection;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.kinesis.annotations.KinesisClientInternalApi;
+import software.amazon.kinesis.common.InitialPositionInStreamExtended;
+import software.amazon.kinesis.lifecycle.ConsumerTask;
+import software.amazon.kinesis.lifecycle.TaskResult;
+import software.amazon.kinesis.lifecycle.TaskType;
+import software.amazon.kinesis.metrics.MetricsFactory;
+import software.amazon.kinesis.metrics.MetricsScope;
+import software.amazon.kinesis.metrics.MetricsUtil;
+
+/**
+ * This task creates the leases of the child shards of shards that have been completely processed, without syncing all
+ * the shards of the stream with the lease table. It will clean up the leases of the completed shards if
+ * cleanupLeasesUponShardCompletion is true.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@KinesisClientInternalApi
+public class CompletedShardSyncTask implements ConsumerTask {
+    private static final String COMPLETED_SHARD_SYNC_TASK_OPERATION = "CompletedShardSyncTask";
+
+    @NonNull
+    private final ShardDetector shardDetector;
+    @NonNull
+    private final LeaseRefresher leaseRefresher;
+    @NonNull
+    private final Collection<String> completedShardIds;
+    @NonNull
+    private final InitialPositionInStreamExtended initialPosition;
+    private final boolean cleanupLeasesUponShardCompletion;
+    private final boolean ignoreUnexpectedChildShards;
+    private final long shardSyncTaskIdleTimeMillis;
+    @NonNull
+    private final HierarchicalShardSyncer hierarchicalShardSyncer;
+    @NonNull
+    private final MetricsFactory metricsFactory;
+
+    private final TaskType taskType = TaskType.SHARDSYNC;
+
+    @Override
+    public TaskResult call() {
+        Exception exception = null;
+        final MetricsScope scope = MetricsUtil.createMetricsWithOperation(metricsFactory,
+                COMPLETED_SHARD_SYNC_TASK_OPERATION);
+
+        try {
+            hierarchicalShardSyncer.checkAndCreateLeasesForChildShards(shardDetector, leaseRefresher,
+                    completedShardIds, initialPosition, cleanupLeasesUponShardCompletion, ignoreUnexpectedChildShards,
+                    scope);
+            if (shardSyncTaskIdleTimeMillis > 0) {
+                Thread.sleep(shardSyncTaskIdleTimeMillis);
+            }
+        } catch (Exception e) {
+            log.error("Caught exception while creating the leases of the child shards of {}", completedShardIds, e);
+            exception = e;
+        } finally {
+            MetricsUtil.endScope(scope);
+        }
+
+        return new TaskResult(exception);
+    }
+
+    @Override
+    public TaskType taskType() {
+        return taskType;
+    }
+
+}
@@ -25,11 +25,21 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -41,6 +51,7 @@ import software.amazon.kinesis.common.InitialPositionInStreamExtended;
 import software.amazon.kinesis.exceptions.internal.KinesisClientLibIOException;
 import software.amazon.kinesis.leases.exceptions.DependencyException;
 import software.amazon.kinesis.leases.exceptions.InvalidStateException;
+import software.amazon.kinesis.leases.exceptions.LeasingException;
 import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
 import software.amazon.kinesis.metrics.MetricsLevel;
 import software.amazon.kinesis.metrics.MetricsScope;
@@ -56,6 +67,42 @@ import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
 @Slf4j
 @KinesisClientInternalApi
 public class HierarchicalShardSyncer {
+    private static final int DEFAULT_MAX_CONCURRENT_LEASE_OPERATIONS = 1;
+    private static final long LEASE_OPERATION_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
+    private final int maxConcurrentLeaseOperations;
+    private final ExecutorService leaseOperationExecutor;
+    private final Object leaseTableSyncLock = new Object();
+    private final Map<String, Object> streamSyncLocks = new ConcurrentHashMap<>();
+
+    public HierarchicalShardSyncer() {
+        this(DEFAULT_MAX_CONCURRENT_LEASE_OPERATIONS);
+    }
+
+    /**
+     * Creates a syncer that creates and deletes up to maxConcurrentLeaseOperations leases at the same time. The lease
+     * of a shard is still created, or deleted, only once the leases of its parent shards have been.
+     *
+     * @param maxConcurrentLeaseOperations Maximum number of leases created or deleted concurrently, 1 to create and
+     *        delete them one at a time on the thread syncing the shards
+     */
+    public HierarchicalShardSyncer(final int maxConcurrentLeaseOperations) {
+        if (maxConcurrentLeaseOperations < 1) {
+            throw new IllegalArgumentException("maxConcurrentLeaseOperations must be at least 1, but was "
+                    + maxConcurrentLeaseOperations);
+        }
+        this.maxConcurrentLeaseOperations = maxConcurrentLeaseOperations;
+        if (maxConcurrentLeaseOperations > 1) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentLeaseOperations,
+                    maxConcurrentLeaseOperations, LEASE_OPERATION_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setDaemon(true)
+                            .setNameFormat("hierarchical-shard-syncer-%04d").build());
+            executor.allowCoreThreadTimeOut(true);
+            this.leaseOperationExecutor = executor;
+        } else {
+            this.leaseOperationExecutor = null;
+        }
+    }
 
     /**
      * Check and create leases for any new shards (e.g. following a reshard operation). Sync leases with Kinesis shards
@@ -72,39 +119,51 @@ public class HierarchicalShardSyncer {
      * @throws ProvisionedThroughputException
      * @throws KinesisClientLibIOException
      */
-    // CHECKSTYLE:OFF CyclomaticComplexity
-    public synchronized void checkAndCreateLeaseForNewShards(@NonNull final ShardDetector shardDetector,
+    public void checkAndCreateLeaseForNewShards(@NonNull final ShardDetector shardDetector,
             final LeaseRefresher leaseRefresher, final InitialPositionInStreamExtended initialPosition,
             final boolean cleanupLeasesOfCompletedShards, final boolean ignoreUnexpectedChildShards,
             final MetricsScope scope) throws DependencyException, InvalidStateException,
             ProvisionedThroughputException, KinesisClientLibIOException {
-        final List<Shard> shards = getShardList(shardDetector);
+        synchronized (syncLock(leaseRefresher)) {
+            createLeasesForNewShards(shardDetector, leaseRefresher, initialPosition, cleanupLeasesOfCompletedShards,
+                    ignoreUnexpectedChildShards, scope);
+        }
+    }
+
+    // CHECKSTYLE:OFF CyclomaticComplexity
+    private void createLeasesForNewShards(final ShardDetector shardDetector, final LeaseRefresher leaseRefresher,
+            final InitialPositionInStreamExtended initialPosition, final boolean cleanupLeasesOfCompletedShards,
+            final boolean ignoreUnexpectedChildShards, final MetricsScope scope) throws DependencyException,
+            InvalidStateException, ProvisionedThroughputException, KinesisClientLibIOException {
+        final ShardGraph shardGraph = getShardGraph(shardDetector);
+        final List<Shard> shards = shardGraph.shards();
         log.debug("Num shards: {}", shards.size());
 
-        final Map<String, Shard> shardIdToShardMap = constructShardIdToShardMap(shards);
-        final Map<String, Set<String>> shardIdToChildShardIdsMap = constructShardIdToChildShardIdsMap(
-                shardIdToShardMap);
-        final Set<String> inconsistentShardIds = findInconsistentShardIds(shardIdToChildShardIdsMap, shardIdToShardMap);
+        final Map<String, Shard> shardIdToShardMap = shardGraph.shardMap();
+        final Map<String, Set<String>> shardIdToChildShardIdsMap = shardGraph.childShardIdsMap();
+        final Set<String> inconsistentShardIds = shardGraph.inconsistentShardIds();
         if (!ignoreUnexpectedChildShards) {
             assertAllParentShardsAreClosed(inconsistentShardIds);
         }
 
         final List<Lease> currentLeases = leaseRefresher.listLeases();
 
-        final List<Lease> newLeasesToCreate = determineNewLeasesToCreate(shards, currentLeases, initialPosition,
+        final List<Lease> newLeasesToCreate = determineNewLeasesToCreate(shardGraph, currentLeases, initialPosition,
                 inconsistentShardIds);
         log.debug("Num new leases to create: {}", newLeasesToCreate.size());
-        for (Lease lease : newLeasesToCreate) {
+        runLeaseOperations(newLeasesToCreate, lease -> {
             long startTime = System.currentTimeMillis();
             boolean success = false;
             try {
                 leaseRefresher.createLeaseIfNotExists(lease);
                 success = true;
             } finally {
-                MetricsUtil.addSuccessAndLatency(scope, "CreateLease", success, startTime, MetricsLevel.DETAILED);
+                synchronized (scope) {
+                    MetricsUtil.addSuccessAndLatency(scope, "CreateLease", success, startTime, MetricsLevel.DETAILED);
+                }
             }
-        }
-        
+        });
+
         final List<Lease> trackedLeases = new ArrayList<>(currentLeases);
         trackedLeases.addAll(newLeasesToCreate);
         cleanupGarbageLeases(shardDetector, shards, trackedLeases, leaseRefresher);
@@ -115,6 +174,102 @@ public class HierarchicalShardSyncer {
     }
     // CHECKSTYLE:ON CyclomaticComplexity
 
+    /**
+     * Create leases for the child shards of shards that have been completely processed, without listing all the
+     * shards of the stream or scanning the lease table. The leases of the children and of the completed shards are
+     * read one by one. The children get the checkpoint of descendants of a shard with a lease: TRIM_HORIZON, or
+     * AT_TIMESTAMP if that is the initial position. If the child shards of a completed shard can't be found, all the
+     * shards are synced with {@link #checkAndCreateLeaseForNewShards} instead.
+     *
+     * @param shardDetector
+     * @param leaseRefresher
+     * @param completedShardIds Ids of the shards whose checkpoint is SHARD_END
+     * @param initialPosition
+     * @param cleanupLeasesOfCompletedShards Whether to delete the leases of the completed shards once the processing
+     *        of all their child shards has begun
+     * @param ignoreUnexpectedChildShards
+     * @param scope
+     * @throws DependencyException
+     * @throws InvalidStateException
+     * @throws ProvisionedThroughputException
+     * @throws KinesisClientLibIOException
+     */
+    public void checkAndCreateLeasesForChildShards(@NonNull final ShardDetector shardDetector,
+            final LeaseRefresher leaseRefresher, final Collection<String> completedShardIds,
+            final InitialPositionInStreamExtended initialPosition, final boolean cleanupLeasesOfCompletedShards,
+            final boolean ignoreUnexpectedChildShards, final MetricsScope scope) throws DependencyException,
+            InvalidStateException, ProvisionedThroughputException, KinesisClientLibIOException {
+        synchronized (syncLock(leaseRefresher)) {
+            createLeasesForChildShards(shardDetector, leaseRefresher, completedShardIds, initialPosition,
+                    cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards, scope);
+        }
+    }
+
+    private void createLeasesForChildShards(final ShardDetector shardDetector, final LeaseRefresher leaseRefresher,
+            final Collection<String> completedShardIds, final InitialPositionInStreamExtended initialPosition,
+            final boolean cleanupLeasesOfCompletedShards, final boolean ignoreUnexpectedChildShards,
+            final MetricsScope scope) throws DependencyException, InvalidStateException,
+            ProvisionedThroughputException, KinesisClientLibIOException {
+        final ExtendedSequenceNumber childCheckpoint = initialPosition.getInitialPositionInStream()
+                .equals(InitialPositionInStream.AT_TIMESTAMP) ? ExtendedSequenceNumber.AT_TIMESTAMP
+                        : ExtendedSequenceNumber.TRIM_HORIZON;
+
+        for (String completedShardId : completedShardIds) {
+            final List<Shard> childShards = shardDetector.childShards(completedShardId);
+            if (CollectionUtils.isNullOrEmpty(childShards)) {
+                log.info("No child shards found for completed shard {}. Syncing all shards and leases.",
+                        completedShardId);
+                createLeasesForNewShards(shardDetector, leaseRefresher, initialPosition,
+                        cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards, scope);
+                return;
+            }
+
+            final Map<String, Lease> trackedLeases = new HashMap<>();
+            for (Shard childShard : childShards) {
+                Lease lease = leaseRefresher.getLease(childShard.shardId());
+                if (lease == null) {
+                    lease = newKCLLease(childShard);
+                    lease.checkpoint(childCheckpoint);
+                    log.debug("Need to create a lease for child shard {} of completed shard {}", lease.leaseKey(),
+                            completedShardId);
+                    long startTime = System.currentTimeMillis();
+                    boolean success = false;
+                    try {
+                        leaseRefresher.createLeaseIfNotExists(lease);
+                        success = true;
+                    } finally {
+                        MetricsUtil.addSuccessAndLatency(scope, "CreateLease", success, startTime,
+                                MetricsLevel.DETAILED);
+                    }
+                }
+                trackedLeases.put(lease.leaseKey(), lease);
+            }
+
+            if (cleanupLeasesOfCompletedShards) {
+                final Lease completedShardLease = leaseRefresher.getLease(completedShardId);
+                if (completedShardLease != null) {
+                    final Set<String> childShardIds = new HashSet<>(trackedLeases.keySet());
+                    trackedLeases.put(completedShardId, completedShardLease);
+                    cleanupLeaseForClosedShard(completedShardId, childShardIds, trackedLeases, leaseRefresher);
+                }
+            }
+        }
+    }
+
+    /**
+     * The leases of a stream are synced by one thread at a time, whichever refresher object they are synced through,
+     * while the ShardSyncTaskManagers of the streams of a multi-stream Scheduler, which share this syncer, sync the
+     * leases of their streams concurrently. A syncer is used for a single lease table, so the syncs through plain
+     * refreshers share one lock.
+     */
+    private Object syncLock(final LeaseRefresher leaseRefresher) {
+        if (leaseRefresher instanceof StreamLeaseRefresher) {
+            return streamSyncLocks.computeIfAbsent(((StreamLeaseRefresher) leaseRefresher).streamName(),
+                    streamName -> new Object());
+        }
+        return leaseTableSyncLock;
+    }
+
     /** Helper method to detect a race condition between fetching the shards via paginated DescribeStream calls
      * and a reshard operation.
      * @param inconsistentShardIds
@@ -137,7 +292,7 @@ public class HierarchicalShardSyncer {
      * @param shardIdToShardMap
      * @return Set of inconsistent open shard ids for shards having open parents.
      */
-    private static Set<String> findInconsistentShardIds(final Map<String, Set<String>> shardIdToChildShardIdsMap,
+    static Set<String> findInconsistentShardIds(final Map<String, Set<String>> shardIdToChildShardIdsMap,
             final Map<String, Shard> shardIdToShardMap) {
         return shardIdToChildShardIdsMap.entrySet().stream()
                 .filter(entry -> entry.getKey() == null
@@ -253,6 +408,19 @@ public class HierarchicalShardSyncer {
         return shards;
     }
 
+    /**
+     * Lists the shards of the stream, and returns their lineage. The lineage is built from the listed shards if the
+     * shard detector doesn't maintain one.
+     */
+    private static ShardGraph getShardGraph(@NonNull final ShardDetector shardDetector)
+            throws KinesisClientLibIOException {
+        final ShardGraph shardGraph = shardDetector.shardGraph();
+        if (shardGraph != null) {
+            return shardGraph;
+        }
+        return ShardGraph.of(getShardList(shardDetector));
+    }
+
     /**
      * Determine new leases to create and their initial checkpoint.
      * Note: Package level access only for testing purposes.
@@ -302,13 +470,20 @@ public class HierarchicalShardSyncer {
      */
     static List<Lease> determineNewLeasesToCreate(final List<Shard> shards, final List<Lease> currentLeases,
             final InitialPositionInStreamExtended initialPosition, final Set<String> inconsistentShardIds) {
+        return determineNewLeasesToCreate(ShardGraph.of(shards), currentLeases, initialPosition,
+                inconsistentShardIds);
+    }
+
+    private static List<Lease> determineNewLeasesToCreate(final ShardGraph shardGraph,
+            final List<Lease> currentLeases, final InitialPositionInStreamExtended initialPosition,
+            final Set<String> inconsistentShardIds) {
         final Map<String, Lease> shardIdToNewLeaseMap = new HashMap<>();
-        final Map<String, Shard> shardIdToShardMapOfAllKinesisShards = constructShardIdToShardMap(shards);
+        final Map<String, Shard> shardIdToShardMapOfAllKinesisShards = shardGraph.shardMap();
 
         final Set<String> shardIdsOfCurrentLeases = currentLeases.stream()
                 .peek(lease -> log.debug("Existing lease: {}", lease)).map(Lease::leaseKey).collect(Collectors.toSet());
 
-        final List<Shard> openShards = getOpenShards(shards);
+        final List<Shard> openShards = shardGraph.openShards();
         final Map<String, Boolean> memoizationContext = new HashMap<>();
 
         // Iterate over the open shards and find those that don't have any lease entries.
@@ -509,7 +684,7 @@ public class HierarchicalShardSyncer {
      * @throws InvalidStateException
      * @throws DependencyException
      */
-    private static void cleanupGarbageLeases(@NonNull final ShardDetector shardDetector, final List<Shard> shards,
+    private void cleanupGarbageLeases(@NonNull final ShardDetector shardDetector, final List<Shard> shards,
             final List<Lease> trackedLeases, final LeaseRefresher leaseRefresher) throws KinesisClientLibIOException,
             DependencyException, InvalidStateException, ProvisionedThroughputException {
         final Set<String> kinesisShards = shards.stream().map(Shard::shardId).collect(Collectors.toSet());
@@ -524,12 +699,16 @@ public class HierarchicalShardSyncer {
             final Set<String> currentKinesisShardIds = getShardList(shardDetector).stream().map(Shard::shardId)
                     .collect(Collectors.toSet());
 
+            final List<Lease> leasesToDelete = new ArrayList<>();
             for (Lease lease : garbageLeases) {
                 if (isCandidateForCleanup(lease, currentKinesisShardIds)) {
-                    log.info("Deleting lease for shard {} as it is not present in Kinesis stream.", lease.leaseKey());
-                    leaseRefresher.deleteLease(lease);
+                    leasesToDelete.add(lease);
                 }
             }
+            runLeaseOperations(leasesToDelete, lease -> {
+                log.info("Deleting lease for shard {} as it is not present in Kinesis stream.", lease.leaseKey());
+                leaseRefresher.deleteLease(lease);
+            });
         }
     }
 
@@ -585,7 +764,7 @@ public class HierarchicalShardSyncer {
      * @throws ProvisionedThroughputException
      * @throws KinesisClientLibIOException
      */
-    private synchronized void cleanupLeasesOfFinishedShards(final Collection<Lease> currentLeases,
+    private void cleanupLeasesOfFinishedShards(final Collection<Lease> currentLeases,
             final Map<String, Shard> shardIdToShardMap, final Map<String, Set<String>> shardIdToChildShardIdsMap,
             final List<Lease> trackedLeases, final LeaseRefresher leaseRefresher) throws DependencyException,
             InvalidStateException, ProvisionedThroughputException, KinesisClientLibIOException {
@@ -603,13 +782,16 @@ public class HierarchicalShardSyncer {
             final Map<String, Lease> trackedLeaseMap = trackedLeases.stream()
                     .collect(Collectors.toMap(Lease::leaseKey, Function.identity()));
 
+            final List<Lease> leasesToDelete = new ArrayList<>();
             for (Lease leaseOfClosedShard : leasesOfClosedShards) {
                 final String closedShardId = leaseOfClosedShard.leaseKey();
                 final Set<String> childShardIds = shardIdToChildShardIdsMap.get(closedShardId);
-                if (closedShardId != null && !CollectionUtils.isNullOrEmpty(childShardIds)) {
-                    cleanupLeaseForClosedShard(closedShardId, childShardIds, trackedLeaseMap, leaseRefresher);
+                if (closedShardId != null && !CollectionUtils.isNullOrEmpty(childShardIds)
+                        && isLeaseForClosedShardDeletable(closedShardId, childShardIds, trackedLeaseMap)) {
+                    leasesToDelete.add(trackedLeaseMap.get(closedShardId));
                 }
             }
+            runLeaseOperations(leasesToDelete, lease -> deleteLeaseForClosedShard(lease, leaseRefresher));
         }        
     }
 
@@ -627,29 +809,153 @@ public class HierarchicalShardSyncer {
      * @throws InvalidStateException 
      * @throws DependencyException 
      */
-    synchronized void cleanupLeaseForClosedShard(final String closedShardId, final Set<String> childShardIds,
+    void cleanupLeaseForClosedShard(final String closedShardId, final Set<String> childShardIds,
             final Map<String, Lease> trackedLeases, final LeaseRefresher leaseRefresher)
             throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        if (isLeaseForClosedShardDeletable(closedShardId, childShardIds, trackedLeases)) {
+            deleteLeaseForClosedShard(trackedLeases.get(closedShardId), leaseRefresher);
+        }
+    }
+
+    private static boolean isLeaseForClosedShardDeletable(final String closedShardId, final Set<String> childShardIds,
+            final Map<String, Lease> trackedLeases) {
         final Lease leaseForClosedShard = trackedLeases.get(closedShardId);
         final List<Lease> childShardLeases = childShardIds.stream().map(trackedLeases::get).filter(Objects::nonNull)
                 .collect(Collectors.toList());
 
         if (leaseForClosedShard != null && leaseForClosedShard.checkpoint().equals(ExtendedSequenceNumber.SHARD_END)
                 && childShardLeases.size() == childShardIds.size()) {
-            boolean okayToDelete = true;
             for (Lease lease : childShardLeases) {
                 if (lease.checkpoint().equals(ExtendedSequenceNumber.TRIM_HORIZON)) {
-                    okayToDelete = false;
-                    break;
+                    return false;
                 }
             }
-            
-            if (okayToDelete) {
-                log.info("Deleting lease for shard {} as it has been completely processed and processing of child "
-                        + "shards has begun.", leaseForClosedShard.leaseKey());
-                leaseRefresher.deleteLease(leaseForClosedShard);
+            return true;
+        }
+        return false;
+    }
+
+    private static void deleteLeaseForClosedShard(final Lease leaseForClosedShard,
+            final LeaseRefresher leaseRefresher)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        log.info("Deleting lease for shard {} as it has been completely processed and processing of child "
+                + "shards has begun.", leaseForClosedShard.leaseKey());
+        leaseRefresher.deleteLease(leaseForClosedShard);
+    }
+
+    /**
+     * Applies an operation to the given leases, up to maxConcurrentLeaseOperations at a time. The leases are split
+     * into generations so that a lease is only handed to the operation once the operation has completed for the leases
+     * of its parent shards, which preserves the parents first order of the leases of
+     * {@link StartingSequenceNumberAndShardIdBasedComparator}. No more leases are handed to the operation once it
+     * failed, and the first failure is rethrown once the running operations have completed.
+     *
+     * @param leases Leases to apply the operation to, ordered by starting sequence number
+     * @param operation Operation to apply to each lease
+     * @throws DependencyException
+     * @throws InvalidStateException
+     * @throws ProvisionedThroughputException
+     */
+    private void runLeaseOperations(final List<Lease> leases, final LeaseOperation operation)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        if (leaseOperationExecutor == null || leases.size() < 2) {
+            for (Lease lease : leases) {
+                operation.apply(lease);
             }
+            return;
         }
+
+        for (List<Lease> generation : splitIntoGenerations(leases)) {
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            final List<Future<?>> futures = new ArrayList<>(generation.size());
+            for (Lease lease : generation) {
+                futures.add(leaseOperationExecutor.submit(() -> {
+                    if (failure.get() != null) {
+                        return;
+                    }
+                    try {
+                        operation.apply(lease);
+                    } catch (LeasingException | RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }));
+            }
+            awaitLeaseOperations(futures);
+
+            final Exception e = failure.get();
+            if (e instanceof DependencyException) {
+                throw (DependencyException) e;
+            } else if (e instanceof InvalidStateException) {
+                throw (InvalidStateException) e;
+            } else if (e instanceof ProvisionedThroughputException) {
+                throw (ProvisionedThroughputException) e;
+            } else if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else if (e != null) {
+                throw new DependencyException(e);
+            }
+        }
+    }
+
+    private static void awaitLeaseOperations(final List<Future<?>> futures) throws DependencyException {
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                futures.subList(i, futures.size()).forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new DependencyException("Interrupted while waiting for lease operations", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Lease operation failed unexpectedly", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Splits the leases into generations: the leases of a generation only have parent shards with leases in earlier
+     * generations. The order of the leases is kept within each generation.
+     * Note: Package level access only for testing purposes.
+     *
+     * @param leases Leases to split
+     * @return The generations of leases, starting with the leases without parents among the given leases
+     */
+    static List<List<Lease>> splitIntoGenerations(final List<Lease> leases) {
+        final Map<String, Lease> leaseMap = leases.stream()
+                .collect(Collectors.toMap(Lease::leaseKey, Function.identity(), (lease1, lease2) -> lease1));
+        final Map<String, Integer> generationMap = new HashMap<>();
+        final List<List<Lease>> generations = new ArrayList<>();
+        for (Lease lease : leases) {
+            final int generation = generation(lease, leaseMap, generationMap);
+            while (generations.size() <= generation) {
+                generations.add(new ArrayList<>());
+            }
+            generations.get(generation).add(lease);
+        }
+        return generations;
+    }
+
+    private static int generation(final Lease lease, final Map<String, Lease> leaseMap,
+            final Map<String, Integer> generationMap) {
+        final Integer memoizedGeneration = generationMap.get(lease.leaseKey());
+        if (memoizedGeneration != null) {
+            return memoizedGeneration;
+        }
+        int generation = 0;
+        if (lease.parentShardIds() != null) {
+            for (String parentShardId : lease.parentShardIds()) {
+                final Lease parentLease = leaseMap.get(parentShardId);
+                if (parentLease != null) {
+                    generation = Math.max(generation, generation(parentLease, leaseMap, generationMap) + 1);
+                }
+            }
+        }
+        generationMap.put(lease.leaseKey(), generation);
+        return generation;
+    }
+
+    @FunctionalInterface
+    private interface LeaseOperation {
+        void apply(Lease lease) throws DependencyException, InvalidStateException, ProvisionedThroughputException;
     }
 
     /**
@@ -19,13 +19,13 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -69,6 +69,7 @@ public class KinesisShardDetector implements ShardDetector {
     private final Duration kinesisRequestTimeout;
 
     private volatile Map<String, Shard> cachedShardMap = null;
+    private volatile ShardGraph cachedShardGraph = null;
     private volatile Instant lastCacheUpdateTime;
     @Getter(AccessLevel.PACKAGE)
     private AtomicInteger cacheMisses = new AtomicInteger(0);
@@ -146,6 +147,54 @@ public class KinesisShardDetector implements ShardDetector {
         return shard;
     }
 
+    /**
+     * Finds the child shards of the given shard in the cached shards, and lists the shards of the stream again if
+     * there are none. Children are only missing from the cache when it was loaded before the shard was closed, so a
+     * reshard lists the shards once, rather than once per closed shard.
+     *
+     * @param shardId
+     *            id of a closed shard
+     * @return the child shards of the shard, empty if none were found
+     */
+    @Override
+    public List<Shard> childShards(@NonNull final String shardId) {
+        List<Shard> childShards = cachedChildShards(shardId);
+        if (childShards.isEmpty()) {
+            synchronized (this) {
+                childShards = cachedChildShards(shardId);
+                if (childShards.isEmpty()) {
+                    log.info("Child shards of shard {} aren't in the shard map cache -- forcing a refresh", shardId);
+                    listShards();
+                    childShards = cachedChildShards(shardId);
+                }
+            }
+        }
+        return childShards;
+    }
+
+    private List<Shard> cachedChildShards(final String shardId) {
+        final ShardGraph shardGraph = cachedShardGraph;
+        if (shardGraph == null) {
+            return Collections.emptyList();
+        }
+        return shardGraph.childShardIds(shardId).stream().map(shardGraph::shard).collect(Collectors.toList());
+    }
+
+    /**
+     * Lists the shards of the stream, and returns their lineage. The lineage is only rebuilt when the shards of the
+     * stream changed since they were last listed.
+     *
+     * @return the lineage of the shards of the stream, null if the shards couldn't be listed
+     */
+    @Override
+    @Synchronized
+    public ShardGraph shardGraph() {
+        if (listShards() == null) {
+            return null;
+        }
+        return cachedShardGraph;
+    }
+
     @Override
     @Synchronized
     public List<Shard> listShards() {
@@ -228,7 +277,9 @@ public class KinesisShardDetector implements ShardDetector {
     }
 
     void cachedShardMap(final List<Shard> shards) {
-        cachedShardMap = shards.stream().collect(Collectors.toMap(Shard::shardId, Function.identity()));
+        final ShardGraph shardGraph = cachedShardGraph;
+        cachedShardGraph = shardGraph == null ? ShardGraph.of(shards) : shardGraph.withShards(shards);
+        cachedShardMap = cachedShardGraph.shardMap();
         lastCacheUpdateTime = Instant.now();
     }
 
@@ -40,7 +40,7 @@ import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
 @NoArgsConstructor
 @Getter
 @Accessors(fluent = true)
-@EqualsAndHashCode(exclude = {"concurrencyToken", "lastCounterIncrementNanos"})
+@EqualsAndHashCode(exclude = {"concurrencyToken", "lastCounterIncrementNanos", "throughput"})
 @ToString
 public class Lease {
     /*
@@ -89,6 +89,11 @@ public class Lease {
      */
     private Long ownerSwitchesSinceCheckpoint = 0L;
     private Set<String> parentShardIds = new HashSet<>();
+    /**
+     * @return throughput of the records of the lease as last reported by its owner, possibly null. It is a measurement
+     *         rather than state of the lease, so it is excluded from hashCode and equals.
+     */
+    private LeaseThroughput throughput;
 
     /**
      * Copy constructor, used by clone().
@@ -99,6 +104,7 @@ public class Lease {
         this(lease.leaseKey(), lease.leaseOwner(), lease.leaseCounter(), lease.concurrencyToken(),
                 lease.lastCounterIncrementNanos(), lease.checkpoint(), lease.pendingCheckpoint(),
                 lease.ownerSwitchesSinceCheckpoint(), lease.parentShardIds());
+        this.throughput = lease.throughput();
     }
 
     public Lease(final String leaseKey, final String leaseOwner, final Long leaseCounter,
@@ -233,6 +239,15 @@ public class Lease {
         this.parentShardIds.addAll(parentShardIds);
     }
 
+    /**
+     * Sets throughput.
+     *
+     * @param throughput may be null.
+     */
+    public void throughput(LeaseThroughput throughput) {
+        this.throughput = throughput;
+    }
+
     /**
      * Sets leaseOwner.
      * 
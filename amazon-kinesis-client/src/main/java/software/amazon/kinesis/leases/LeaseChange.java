@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import lombok.Data;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * A change of a single lease in the lease table, as reported by a {@link LeaseChangeSource}.
+ */
+@Data
+@Accessors(fluent = true)
+public class LeaseChange {
+    /**
+     * The key of the changed lease.
+     */
+    @NonNull
+    private final String leaseKey;
+
+    /**
+     * The lease as of after the change, null if the lease was deleted.
+     */
+    private final Lease lease;
+
+    /**
+     * @param lease
+     *            the lease as of after the change
+     * @return a change that created or updated the lease
+     */
+    public static LeaseChange updated(@NonNull final Lease lease) {
+        return new LeaseChange(lease.leaseKey(), lease);
+    }
+
+    /**
+     * @param leaseKey
+     *            the key of the deleted lease
+     * @return a change that deleted the lease
+     */
+    public static LeaseChange deleted(@NonNull final String leaseKey) {
+        return new LeaseChange(leaseKey, null);
+    }
+
+    /**
+     * @return true if the lease was deleted
+     */
+    public boolean isDeleted() {
+        return lease == null;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import java.util.List;
+
+import software.amazon.kinesis.leases.exceptions.DependencyException;
+import software.amazon.kinesis.leases.exceptions.InvalidStateException;
+import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
+
+/**
+ * Supplies the changes made to the lease table, so that a {@link LeaseTaker} can keep its view of all the leases up to
+ * date without scanning the whole table every time.
+ *
+ * <p>
+ * The user of a source calls {@link #start()}, then reads the whole table once, then calls {@link #getChanges()}
+ * periodically to apply the changes made since. Changes of the same lease are returned in the order they were made.
+ * Changes made between {@link #start()} and the read of the table may be returned again, which is harmless because
+ * applying a change twice has the same effect as applying it once.
+ * </p>
+ */
+public interface LeaseChangeSource {
+    /**
+     * Starts capturing the changes made to the lease table from now on, discarding any changes captured before.
+     *
+     * @throws DependencyException if the changes can't be captured
+     * @throws InvalidStateException if the lease table doesn't exist or doesn't publish its changes
+     * @throws ProvisionedThroughputException if a request fails due to lack of capacity
+     */
+    void start() throws DependencyException, InvalidStateException, ProvisionedThroughputException;
+
+    /**
+     * Returns the changes made to the lease table since the last call, or since {@link #start()} for the first call.
+     * After a {@link DependencyException} or an {@link InvalidStateException} the user has to call {@link #start()}
+     * and read the whole table again, because changes may have been missed.
+     *
+     * @return the changes in the order they were made, possibly empty, never null
+     *
+     * @throws DependencyException if the changes can't be read, or changes may have been missed
+     * @throws InvalidStateException if the source wasn't started, or the lease table doesn't exist
+     * @throws ProvisionedThroughputException if a request fails due to lack of capacity, the changes are returned by a
+     *         later call
+     */
+    List<LeaseChange> getChanges() throws DependencyException, InvalidStateException, ProvisionedThroughputException;
+}
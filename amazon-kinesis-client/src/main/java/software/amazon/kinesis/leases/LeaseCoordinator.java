@@ -102,6 +102,33 @@ public interface LeaseCoordinator {
     boolean updateLease(Lease lease, UUID concurrencyToken, String operation, String shardId)
             throws DependencyException, InvalidStateException, ProvisionedThroughputException;
 
+    /**
+     * Update application-specific fields of several currently held leases in a single transaction, like
+     * {@link #updateLease(Lease, UUID, String, String)} does for one. Fails if we do not hold any of the leases, or if
+     * the concurrency token of any of them does not match the concurrency token on the internal authoritative copy of
+     * the lease.
+     *
+     * <p>
+     * A failed update doesn't tell which of the leases were lost, so callers update the leases one by one to find
+     * out. Implementations that can't update leases in a transaction return false.
+     * </p>
+     *
+     * @param leases lease objects containing updated data, each with the concurrency token obtained by calling
+     *        Lease.concurrencyToken for the currently held lease
+     * @param operation the operation the metrics of the update are reported under
+     *
+     * @return true if all the leases were updated, false if none were
+     *
+     * @throws InvalidStateException if lease table does not exist
+     * @throws ProvisionedThroughputException if DynamoDB update fails due to lack of capacity
+     * @throws DependencyException if DynamoDB update fails in an unexpected way
+     */
+    default boolean updateLeases(Collection<Lease> leases, String operation)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        return false;
+    }
+
+
     /**
      * Requests the cancellation of the lease taker.
      */
@@ -136,6 +163,28 @@ public interface LeaseCoordinator {
        return Collections.emptyList();
     }
 
+    /**
+     * Registers a listener that is notified whenever the leases held by this worker may have changed, i.e. after
+     * leases were taken, renewed or dropped. The listener is called from the threads of the lease coordinator, so it
+     * must not block. The default implementation never notifies the listener, which leaves it to the caller to poll
+     * {@link #getCurrentAssignments()}.
+     *
+     * @param listener the listener to notify
+     */
+    default void addLeaseAssignmentChangeListener(Runnable listener) {
+    }
+
+    /**
+     * Returns the tracker that the throughput of the records processed for the held leases is reported to, so that it
+     * can be persisted with the leases and used to balance them by load. The default implementation doesn't track the
+     * throughput of the leases.
+     *
+     * @return the tracker of the throughput of the held leases, null if it isn't tracked
+     */
+    default LeaseThroughputTracker leaseThroughputTracker() {
+        return null;
+    }
+
     /**
      * @param writeCapacity The DynamoDB table used for tracking leases will be provisioned with the specified initial
      *        write capacity
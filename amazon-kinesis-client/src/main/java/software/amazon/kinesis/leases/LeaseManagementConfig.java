@@ -28,6 +28,7 @@ import lombok.Data;
 import lombok.NonNull;
 import lombok.experimental.Accessors;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsAsyncClient;
 import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 import software.amazon.kinesis.common.InitialPositionInStream;
 import software.amazon.kinesis.common.InitialPositionInStreamExtended;
@@ -44,6 +45,11 @@ import software.amazon.kinesis.metrics.NullMetricsFactory;
 public class LeaseManagementConfig {
 
     public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofMinutes(1);
+    public static final int DEFAULT_LEASE_RENEWAL_BATCH_SIZE = 1;
+    public static final long DEFAULT_FULL_LEASE_TABLE_SCAN_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final int DEFAULT_LEASE_TABLE_SCAN_SEGMENTS = 1;
+    public static final int DEFAULT_MAX_CONCURRENT_LEASE_TAKES = 1;
+    public static final boolean DEFAULT_INCREMENTAL_SHARD_SYNC = false;
 
     /**
      * Name of the table to use in DynamoDB
@@ -67,7 +73,8 @@ public class LeaseManagementConfig {
     @NonNull
     private final KinesisAsyncClient kinesisClient;
     /**
-     * Name of the Kinesis Data Stream to read records from.
+     * Name of the Kinesis Data Stream to read records from. Not used when the Scheduler processes the streams set in
+     * {@link software.amazon.kinesis.retrieval.RetrievalConfig#streamConfigs}.
      */
     @NonNull
     private final String streamName;
@@ -147,11 +154,84 @@ public class LeaseManagementConfig {
      */
     private int maxLeaseRenewalThreads = 20;
 
+    /**
+     * The maximum number of leases the lease renewer renews in a single DynamoDB transaction, at most 25. Renewing
+     * several leases per request reduces the number of requests a worker holding many leases makes, but doesn't reduce
+     * the consumed write capacity: every lease in a transaction consumes twice the write capacity of a single renewal.
+     * If a transaction fails, for example because one of the leases was taken by another worker, the leases of the
+     * transaction are renewed one by one.
+     *
+     * <p>Default value: 1, which renews every lease with its own request</p>
+     */
+    private int leaseRenewalBatchSize = DEFAULT_LEASE_RENEWAL_BATCH_SIZE;
+
+    /**
+     * Client used to read the changes of the lease table from its DynamoDB stream. When set, workers apply the changes
+     * since their previous run to their view of all the leases when taking leases, instead of scanning the whole
+     * lease table every time. The lease table needs a stream with the view type NEW_IMAGE or NEW_AND_OLD_IMAGES, which
+     * can be enabled through the {@link #tableCreatorCallback()}. The table is scanned as before while the stream
+     * can't be read.
+     *
+     * <p>
+     * DynamoDB throttles the reads of a stream shard that has more than two concurrent readers, so this fits
+     * applications with few workers per lease table.
+     * </p>
+     *
+     * <p>Default value: null, which scans the lease table every time</p>
+     */
+    private DynamoDbStreamsAsyncClient dynamoDBStreamsClient = null;
+
+    /**
+     * The maximum time between full scans of the lease table when its changes are read from its stream.
+     *
+     * <p>Default value: 600000L (10 minutes)</p>
+     */
+    private long fullLeaseTableScanIntervalMillis = DEFAULT_FULL_LEASE_TABLE_SCAN_INTERVAL_MILLIS;
+
+    /**
+     * The number of segments of the lease table that are scanned in parallel when listing all the leases, at startup,
+     * when syncing shards and when taking leases. Every segment is read by its own sequence of requests, so more
+     * segments list a large lease table faster, at the cost of more concurrent requests. The consumed read capacity
+     * stays the same.
+     *
+     * <p>Default value: 1</p>
+     */
+    private int leaseTableScanSegments = DEFAULT_LEASE_TABLE_SCAN_SEGMENTS;
+
+    /**
+     * The maximum number of leases that are taken at the same time. Taking a lease is a conditional update of the lease
+     * table, so taking many leases at once (e.g. when a worker starts or another worker fails) is faster when the
+     * updates overlap. Every lease taken at the same time uses a thread while it's being taken.
+     *
+     * <p>Default value: 1</p>
+     */
+    private int maxConcurrentLeaseTakes = DEFAULT_MAX_CONCURRENT_LEASE_TAKES;
+
+    /**
+     * Weighs the leases to balance their load between workers, instead of their number. The throughput of every lease
+     * is then persisted in the lease table when it's renewed, so that all workers can weigh it. Use
+     * {@link ThroughputLeaseWeigher} to balance the bytes and records processed per second. All workers of an
+     * application should use the same weigher.
+     *
+     * <p>Default value: null, which balances the number of leases</p>
+     */
+    private LeaseWeigher leaseWeigher = null;
+
     /**
      *
      */
     private boolean ignoreUnexpectedChildShards = false;
 
+    /**
+     * Whether only the leases of the child shards of a completely processed shard are created when the shard ends,
+     * instead of listing all the shards of the stream and reading the whole lease table. The child shards are found in
+     * the cached list of shards of the {@link ShardDetector}, which is refreshed once when a shard ends that has no
+     * known children. The shards and leases are still fully synced when the Scheduler is initialized.
+     *
+     * <p>Default value: false</p>
+     */
+    private boolean incrementalShardSync = DEFAULT_INCREMENTAL_SHARD_SYNC;
+
     /**
      *
      */
@@ -237,6 +317,13 @@ public class LeaseManagementConfig {
      */
     private TableCreatorCallback tableCreatorCallback = TableCreatorCallback.NOOP_TABLE_CREATOR_CALLBACK;
 
+    /**
+     * Syncs the leases with the shards of the stream. Use {@link HierarchicalShardSyncer#HierarchicalShardSyncer(int)}
+     * to create and delete the leases of many shards concurrently, e.g. when the shard count of a large stream is
+     * changed.
+     *
+     * <p>Default value: a {@link HierarchicalShardSyncer} creating and deleting one lease at a time</p>
+     */
     private HierarchicalShardSyncer hierarchicalShardSyncer = new HierarchicalShardSyncer();
 
     private LeaseManagementFactory leaseManagementFactory;
@@ -267,7 +354,9 @@ public class LeaseManagementConfig {
                     initialLeaseTableReadCapacity(),
                     initialLeaseTableWriteCapacity(),
                     hierarchicalShardSyncer(),
-                    tableCreatorCallback(), dynamoDbRequestTimeout());
+                    tableCreatorCallback(), dynamoDbRequestTimeout(), leaseRenewalBatchSize(),
+                    dynamoDBStreamsClient(), fullLeaseTableScanIntervalMillis(), leaseTableScanSegments(),
+                    maxConcurrentLeaseTakes(), leaseWeigher(), incrementalShardSync());
         }
         return leaseManagementFactory;
     }
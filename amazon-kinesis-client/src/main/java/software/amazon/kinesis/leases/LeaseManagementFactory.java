@@ -15,6 +15,9 @@
 
 package software.amazon.kinesis.leases;
 
+import java.util.Collection;
+
+import software.amazon.kinesis.common.StreamConfig;
 import software.amazon.kinesis.leases.dynamodb.DynamoDBLeaseRefresher;
 import software.amazon.kinesis.metrics.MetricsFactory;
 
@@ -24,8 +27,50 @@ import software.amazon.kinesis.metrics.MetricsFactory;
 public interface LeaseManagementFactory {
     LeaseCoordinator createLeaseCoordinator(MetricsFactory metricsFactory);
 
+    /**
+     * Whether this factory creates the LeaseCoordinator and ShardSyncTaskManagers of a multi-stream Scheduler with
+     * {@link #createLeaseCoordinator(MetricsFactory, Collection)} and
+     * {@link #createShardSyncTaskManager(MetricsFactory, StreamConfig)}. A multi-stream Scheduler can't be built with a
+     * factory that doesn't.
+     *
+     * @return whether several streams can be processed with the leases of this factory
+     */
+    default boolean supportsMultiStream() {
+        return false;
+    }
+
+    /**
+     * Creates the LeaseCoordinator of a multi-stream Scheduler. It only takes the leases of the given streams from
+     * the lease table shared by all the streams, which are keyed by {@link StreamLeaseKey}, so workers configured with
+     * different streams don't hold leases they can't process.
+     *
+     * @param metricsFactory
+     *            factory of the metrics of the lease operations
+     * @param streamConfigs
+     *            the streams to take the leases of
+     * @return the LeaseCoordinator of the streams
+     */
+    default LeaseCoordinator createLeaseCoordinator(MetricsFactory metricsFactory,
+            Collection<StreamConfig> streamConfigs) {
+        throw new UnsupportedOperationException("Processing several streams isn't supported by this factory");
+    }
+
     ShardSyncTaskManager createShardSyncTaskManager(MetricsFactory metricsFactory);
 
+    /**
+     * Creates the ShardSyncTaskManager of one of the streams of a multi-stream Scheduler. It syncs the shards of the
+     * stream with its leases in the lease table shared by all the streams, which are keyed by {@link StreamLeaseKey}.
+     *
+     * @param metricsFactory
+     *            factory of the metrics of the shard syncs
+     * @param streamConfig
+     *            the stream to sync the shards of
+     * @return the ShardSyncTaskManager of the stream
+     */
+    default ShardSyncTaskManager createShardSyncTaskManager(MetricsFactory metricsFactory, StreamConfig streamConfig) {
+        throw new UnsupportedOperationException("Processing several streams isn't supported by this factory");
+    }
+
     DynamoDBLeaseRefresher createLeaseRefresher();
 
     ShardDetector createShardDetector();
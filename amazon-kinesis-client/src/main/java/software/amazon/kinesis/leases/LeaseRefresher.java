@@ -14,6 +14,7 @@
  */
 package software.amazon.kinesis.leases;
 
+import java.util.Collection;
 import java.util.List;
 
 import software.amazon.kinesis.leases.exceptions.DependencyException;
@@ -111,6 +112,31 @@ public interface LeaseRefresher {
     boolean renewLease(Lease lease)
         throws DependencyException, InvalidStateException, ProvisionedThroughputException;
 
+    /**
+     * Renew several leases in a single transaction by incrementing their lease counters. Either all the leases are
+     * renewed or none of them: the transaction is conditional on the leaseCounter in DynamoDB matching the leaseCounter
+     * of every input. Mutates the leaseCounters of the passed-in lease objects after updating the records in DynamoDB.
+     *
+     * <p>
+     * A failed transaction doesn't tell which of the leases were lost, so callers renew the leases one by one with
+     * {@link #renewLease(Lease)} to find out. Refreshers that don't support transactions don't renew any lease and
+     * return false, so the leases are always renewed one by one.
+     * </p>
+     *
+     * @param leases the leases to renew
+     *
+     * @return true if all the leases were renewed, false if none were because at least one of them changed
+     *
+     * @throws InvalidStateException if lease table does not exist
+     * @throws ProvisionedThroughputException if DynamoDB update fails due to lack of capacity
+     * @throws DependencyException if DynamoDB update fails in an unexpected way, including conflicts with other
+     *         updates of the same leases
+     */
+    default boolean renewLeases(Collection<Lease> leases)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        return false;
+    }
+
     /**
      * Take a lease for the given owner by incrementing its leaseCounter and setting its owner field. Conditional on
      * the leaseCounter in DynamoDB matching the leaseCounter of the input. Mutates the leaseCounter and owner of the
@@ -178,6 +204,32 @@ public interface LeaseRefresher {
     boolean updateLease(Lease lease)
         throws DependencyException, InvalidStateException, ProvisionedThroughputException;
 
+    /**
+     * Update application-specific fields of several leases in a single transaction, like {@link #updateLease(Lease)}
+     * does for one. Either all the leases are updated or none of them: the transaction is conditional on the
+     * leaseCounter in DynamoDB matching the leaseCounter of every input. Mutates the leaseCounters of the passed-in
+     * lease objects after updating the records in DynamoDB.
+     *
+     * <p>
+     * A failed transaction doesn't tell which of the leases changed, so callers update the leases one by one with
+     * {@link #updateLease(Lease)} to find out. Refreshers that don't support transactions don't update any lease and
+     * return false, so the leases are always updated one by one.
+     * </p>
+     *
+     * @param leases the leases to update
+     *
+     * @return true if all the leases were updated, false if none were because at least one of them changed
+     *
+     * @throws InvalidStateException if lease table does not exist
+     * @throws ProvisionedThroughputException if DynamoDB update fails due to lack of capacity
+     * @throws DependencyException if DynamoDB update fails in an unexpected way, including conflicts with other
+     *         updates of the same leases
+     */
+    default boolean updateLeases(Collection<Lease> leases)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        return false;
+    }
+
     /**
      * Check (synchronously) if there are any leases in the lease table.
      * 
@@ -96,4 +96,31 @@ public interface LeaseRenewer {
     boolean updateLease(Lease lease, UUID concurrencyToken, String operation, String shardId)
             throws DependencyException, InvalidStateException, ProvisionedThroughputException;
 
+    /**
+     * Update application-specific fields of several currently held leases in a single transaction, like
+     * {@link #updateLease(Lease, UUID, String, String)} does for one. Fails if we do not hold any of the leases, or if
+     * the concurrency token of any of them does not match the concurrency token on the internal authoritative copy of
+     * the lease.
+     *
+     * <p>
+     * A failed update doesn't tell which of the leases were lost, so callers update the leases one by one to find
+     * out. Implementations that can't update leases in a transaction return false.
+     * </p>
+     *
+     * @param leases lease objects containing updated data, each with the concurrency token obtained by calling
+     *        Lease.concurrencyToken for the currently held lease
+     * @param operation the operation the metrics of the update are reported under
+     *
+     * @return true if all the leases were updated, false if none were
+     *
+     * @throws InvalidStateException if lease table does not exist
+     * @throws ProvisionedThroughputException if DynamoDB update fails due to lack of capacity
+     * @throws DependencyException if DynamoDB update fails in an unexpected way
+     */
+    default boolean updateLeases(Collection<Lease> leases, String operation)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        return false;
+    }
+
+
 }
@@ -15,6 +15,7 @@
 package software.amazon.kinesis.leases;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
 
 
@@ -23,6 +24,7 @@ import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValueUpdate;
 import software.amazon.awssdk.services.dynamodb.model.ExpectedAttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.Update;
 import software.amazon.kinesis.leases.Lease;
 
 /**
@@ -83,6 +85,34 @@ public interface LeaseSerializer {
      */
     Map<String, AttributeValueUpdate> getDynamoLeaseCounterUpdate(Lease lease);
 
+    /**
+     * @param lease
+     * @return the attribute value map that persists the throughput of a lease along with its lease counter, empty if
+     *         the throughput of the lease is unknown
+     */
+    default Map<String, AttributeValueUpdate> getDynamoLeaseThroughputUpdate(Lease lease) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return whether this serializer builds the transactional updates of
+     *         {@link #getDynamoLeaseCounterTransactionUpdate(Lease)} and
+     *         {@link #getDynamoUpdateLeaseTransactionUpdate(Lease)}, which renewing and updating several leases in a
+     *         transaction need
+     */
+    default boolean supportsTransactionalUpdates() {
+        return false;
+    }
+
+    /**
+     * @param lease
+     * @return the transactional update that increments a lease counter, conditional on the lease counter being what we
+     *         expect. The table name is set by the caller.
+     */
+    default Update getDynamoLeaseCounterTransactionUpdate(Lease lease) {
+        throw new UnsupportedOperationException("Transactional lease counter updates aren't supported");
+    }
+
     /**
      * @param lease
      * @param newOwner
@@ -103,6 +133,15 @@ public interface LeaseSerializer {
      */
     Map<String, AttributeValueUpdate> getDynamoUpdateLeaseUpdate(Lease lease);
 
+    /**
+     * @param lease
+     * @return the transactional update that updates application-specific data for a lease and increments the lease
+     *         counter, conditional on the lease counter being what we expect. The table name is set by the caller.
+     */
+    default Update getDynamoUpdateLeaseTransactionUpdate(Lease lease) {
+        throw new UnsupportedOperationException("Transactional lease updates aren't supported");
+    }
+
     /**
      * @return the key schema for creating a DynamoDB table to store leases
      */
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * The throughput of the records of a lease, as last observed by the worker holding it. It is persisted in the lease
+ * item so that every worker can weigh the leases by their load when balancing them.
+ */
+@Data
+@Accessors(fluent = true)
+public class LeaseThroughput {
+    /**
+     * @return bytes of records processed per second
+     */
+    private final long bytesPerSecond;
+    /**
+     * @return records processed per second
+     */
+    private final long recordsPerSecond;
+    /**
+     * @return how far behind the tip of the stream the processing of the lease last was, in milliseconds
+     */
+    private final long millisBehindLatest;
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the throughput of the records processed for each lease held by this worker. The rates are smoothed
+ * exponentially over {@link #DEFAULT_SMOOTHING_MILLIS} by default, so that a single large or empty batch of records
+ * doesn't move the weight of a lease, and with it the balance of the leases, by much.
+ *
+ * <p>
+ * Records are reported when the tasks processing them are created, and the throughput is sampled when the leases are
+ * renewed, which persists it in the lease table.
+ * </p>
+ */
+public class LeaseThroughputTracker {
+    public static final long DEFAULT_SMOOTHING_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final long smoothingNanos;
+    private final Map<String, Throughput> throughputs = new ConcurrentHashMap<>();
+
+    public LeaseThroughputTracker() {
+        this(DEFAULT_SMOOTHING_MILLIS);
+    }
+
+    /**
+     * @param smoothingMillis
+     *            time constant of the exponential smoothing of the rates
+     */
+    public LeaseThroughputTracker(final long smoothingMillis) {
+        if (smoothingMillis <= 0) {
+            throw new IllegalArgumentException("smoothingMillis should be >= 1");
+        }
+        this.smoothingNanos = TimeUnit.MILLISECONDS.toNanos(smoothingMillis);
+    }
+
+    /**
+     * Records a batch of records processed for a lease.
+     *
+     * @param leaseKey
+     *            key of the lease the records belong to
+     * @param records
+     *            number of records in the batch
+     * @param bytes
+     *            size of the data of the records in the batch
+     * @param millisBehindLatest
+     *            how far behind the tip of the stream the batch was, null if unknown
+     */
+    public void recordProcessed(final String leaseKey, final long records, final long bytes,
+            final Long millisBehindLatest) {
+        recordProcessed(leaseKey, records, bytes, millisBehindLatest, System.nanoTime());
+    }
+
+    void recordProcessed(final String leaseKey, final long records, final long bytes, final Long millisBehindLatest,
+            final long nowNanos) {
+        throughputs.computeIfAbsent(leaseKey, k -> new Throughput(nowNanos)).record(records, bytes,
+                millisBehindLatest);
+    }
+
+    /**
+     * Samples the throughput of a lease, folding the records processed since the last sample into the smoothed rates.
+     *
+     * @param leaseKey
+     *            key of the lease
+     * @return the throughput of the lease, null if no records were ever recorded for it
+     */
+    public LeaseThroughput throughput(final String leaseKey) {
+        return throughput(leaseKey, System.nanoTime());
+    }
+
+    LeaseThroughput throughput(final String leaseKey, final long nowNanos) {
+        final Throughput throughput = throughputs.get(leaseKey);
+        return throughput == null ? null : throughput.sample(nowNanos, smoothingNanos);
+    }
+
+    /**
+     * Stops tracking a lease, e.g. because it was lost.
+     *
+     * @param leaseKey
+     *            key of the lease
+     */
+    public void remove(final String leaseKey) {
+        throughputs.remove(leaseKey);
+    }
+
+    /**
+     * Stops tracking all leases.
+     */
+    public void clear() {
+        throughputs.clear();
+    }
+
+    private static class Throughput {
+        private long lastSampleNanos;
+        private long records = 0L;
+        private long bytes = 0L;
+        private long millisBehindLatest = 0L;
+        private boolean sampled = false;
+        private double recordsPerSecond = 0.0;
+        private double bytesPerSecond = 0.0;
+
+        Throughput(final long nowNanos) {
+            this.lastSampleNanos = nowNanos;
+        }
+
+        synchronized void record(final long records, final long bytes, final Long millisBehindLatest) {
+            this.records += records;
+            this.bytes += bytes;
+            if (millisBehindLatest != null) {
+                this.millisBehindLatest = millisBehindLatest;
+            }
+        }
+
+        synchronized LeaseThroughput sample(final long nowNanos, final long smoothingNanos) {
+            final long elapsedNanos = nowNanos - lastSampleNanos;
+            if (elapsedNanos > 0) {
+                final double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+                // The first sample is taken as is, later ones are weighed by the time they cover
+                final double alpha = sampled ? 1.0 - Math.exp(-(double) elapsedNanos / smoothingNanos) : 1.0;
+                recordsPerSecond += alpha * (records / seconds - recordsPerSecond);
+                bytesPerSecond += alpha * (bytes / seconds - bytesPerSecond);
+                sampled = true;
+                records = 0L;
+                bytes = 0L;
+                lastSampleNanos = nowNanos;
+            }
+            return new LeaseThroughput(Math.round(bytesPerSecond), Math.round(recordsPerSecond), millisBehindLatest);
+        }
+    }
+}
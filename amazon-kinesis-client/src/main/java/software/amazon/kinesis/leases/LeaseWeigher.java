@@ -0,0 +1,28 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+/**
+ * Weighs leases by the load of processing them, so that workers balance the load of their leases instead of the
+ * number of leases they hold.
+ */
+public interface LeaseWeigher {
+    /**
+     * @param lease
+     *            the lease to weigh, whose throughput may be unknown
+     * @return the weight of the lease, which must be greater than 0
+     */
+    double weigh(Lease lease);
+}
@@ -51,14 +51,15 @@ public class ParentsFirstShardPrioritization implements
     public List<ShardInfo> prioritize(List<ShardInfo> original) {
         Map<String, ShardInfo> shards = new HashMap<>();
         for (ShardInfo shardInfo : original) {
-            shards.put(shardInfo.shardId(),
+            // Keyed by lease, as the shards of the streams of a multi-stream Scheduler may have the same ids
+            shards.put(shardInfo.leaseKey(),
                     shardInfo);
         }
 
         Map<String, SortingNode> processedNodes = new HashMap<>();
 
         for (ShardInfo shardInfo : original) {
-            populateDepth(shardInfo.shardId(),
+            populateDepth(shardInfo.leaseKey(),
                     shards,
                     processedNodes);
         }
@@ -105,8 +106,10 @@ public class ParentsFirstShardPrioritization implements
 
         int maxParentDepth = 0;
         for (String parentId : shardInfo.parentShardIds()) {
+            String parentLeaseKey = shardInfo.streamName() == null ? parentId
+                    : StreamLeaseKey.leaseKey(shardInfo.streamName(), parentId);
             maxParentDepth = Math.max(maxParentDepth,
-                    populateDepth(parentId,
+                    populateDepth(parentLeaseKey,
                             shards,
                             processedNodes));
         }
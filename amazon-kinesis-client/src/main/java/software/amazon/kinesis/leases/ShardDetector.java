@@ -17,7 +17,9 @@ package software.amazon.kinesis.leases;
 
 import software.amazon.awssdk.services.kinesis.model.Shard;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  *
@@ -27,4 +29,29 @@ public interface ShardDetector {
 
     List<Shard> listShards();
 
+    /**
+     * Lists the shards of the stream, and returns their lineage.
+     *
+     * @return the lineage of the shards of the stream, or null if the shard detector doesn't maintain one or the
+     *         shards couldn't be listed
+     */
+    default ShardGraph shardGraph() {
+        return null;
+    }
+
+    /**
+     * Finds the shards created by splitting or merging the given shard.
+     *
+     * @param shardId
+     *            id of a closed shard
+     * @return the child shards of the shard, empty if none were found
+     */
+    default List<Shard> childShards(String shardId) {
+        final List<Shard> shards = listShards();
+        if (shards == null) {
+            return Collections.emptyList();
+        }
+        return shards.stream().filter(shard -> shardId.equals(shard.parentShardId())
+                || shardId.equals(shard.adjacentParentShardId())).collect(Collectors.toList());
+    }
 }
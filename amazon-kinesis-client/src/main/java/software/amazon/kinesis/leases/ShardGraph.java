@@ -0,0 +1,281 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+import software.amazon.awssdk.services.kinesis.model.Shard;
+import software.amazon.kinesis.annotations.KinesisClientInternalApi;
+
+/**
+ * An immutable index of the lineage of the shards of a stream: the parents and children of every shard, the open shards
+ * and the children of open shards, which are missing from an inconsistent shard list. Parents and children are looked
+ * up in constant time, ancestors and descendants in time proportional to their number. The open and inconsistent
+ * shards are found the first time they are needed.
+ *
+ * <p>
+ * The index is built once per stream and then updated with the shards listed by every shard sync:
+ * {@link #withShards(List)} returns the same index as long as the shards of the stream don't change, and otherwise
+ * applies the shards that were added, changed (e.g. closed) or removed (trimmed) to a copy of the maps of shards and
+ * children. Comparing the listings and copying the maps still takes time proportional to the number of shards, as do
+ * the open and inconsistent shards, which are found again for the new index.
+ * </p>
+ */
+@KinesisClientInternalApi
+public class ShardGraph {
+    private final List<Shard> shards;
+    private final Map<String, Shard> shardMap;
+    private final Map<String, Set<String>> childShardIdsMap;
+    /**
+     * The ids of the children of parent shards that aren't part of the stream, so that they are indexed once their
+     * parent is listed.
+     */
+    private final Map<String, Set<String>> orphanedChildShardIdsMap;
+    private volatile List<Shard> openShards;
+    private volatile Set<String> inconsistentShardIds;
+
+    private ShardGraph(final List<Shard> shards, final Map<String, Shard> shardMap,
+            final Map<String, Set<String>> childShardIdsMap, final Map<String, Set<String>> orphanedChildShardIdsMap) {
+        this.shards = Collections.unmodifiableList(shards);
+        this.shardMap = Collections.unmodifiableMap(shardMap);
+        this.childShardIdsMap = Collections.unmodifiableMap(childShardIdsMap);
+        this.orphanedChildShardIdsMap = orphanedChildShardIdsMap;
+    }
+
+    /**
+     * @param shards
+     *            all the shards of a stream
+     * @return the lineage of the shards
+     */
+    public static ShardGraph of(@NonNull final List<Shard> shards) {
+        final Map<String, Shard> shardMap = HierarchicalShardSyncer.constructShardIdToShardMap(shards);
+        final Map<String, Set<String>> childShardIdsMap = new HashMap<>();
+        final Map<String, Set<String>> orphanedChildShardIdsMap = new HashMap<>();
+        for (Shard shard : shardMap.values()) {
+            linkToParents(shard, shardMap, childShardIdsMap, orphanedChildShardIdsMap);
+        }
+        return new ShardGraph(shards, shardMap, childShardIdsMap, orphanedChildShardIdsMap);
+    }
+
+    /**
+     * @param shards
+     *            all the shards of the stream, listed again
+     * @return this index if the shards haven't changed, a new index of the shards otherwise
+     */
+    public ShardGraph withShards(@NonNull final List<Shard> shards) {
+        if (shards.equals(this.shards)) {
+            return this;
+        }
+        final Map<String, Shard> listedShardMap = HierarchicalShardSyncer.constructShardIdToShardMap(shards);
+        final Map<String, Shard> shardMap = new HashMap<>(this.shardMap);
+        final Map<String, Set<String>> childShardIdsMap = new HashMap<>(this.childShardIdsMap);
+        final Map<String, Set<String>> orphanedChildShardIdsMap = new HashMap<>(this.orphanedChildShardIdsMap);
+
+        // Changed shards are removed first and added again with the removed ones
+        final List<Shard> addedShards = new ArrayList<>();
+        for (Shard shard : this.shards) {
+            final Shard listedShard = listedShardMap.get(shard.shardId());
+            if (!shard.equals(listedShard)) {
+                shardMap.remove(shard.shardId());
+                unlinkFromParents(shard, shardMap, childShardIdsMap, orphanedChildShardIdsMap);
+                final Set<String> childShardIds = childShardIdsMap.remove(shard.shardId());
+                if (childShardIds != null) {
+                    orphanedChildShardIdsMap.put(shard.shardId(), childShardIds);
+                }
+            }
+        }
+        for (Shard shard : shards) {
+            if (!shard.equals(this.shardMap.get(shard.shardId()))) {
+                addedShards.add(shard);
+            }
+        }
+        for (Shard shard : addedShards) {
+            shardMap.put(shard.shardId(), shard);
+            final Set<String> childShardIds = orphanedChildShardIdsMap.remove(shard.shardId());
+            if (childShardIds != null) {
+                childShardIdsMap.put(shard.shardId(), childShardIds);
+            }
+        }
+        for (Shard shard : addedShards) {
+            linkToParents(shard, shardMap, childShardIdsMap, orphanedChildShardIdsMap);
+        }
+        return new ShardGraph(shards, shardMap, childShardIdsMap, orphanedChildShardIdsMap);
+    }
+
+    /**
+     * @return all the shards, in the order they were listed
+     */
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    /**
+     * @return the shards by shard id
+     */
+    public Map<String, Shard> shardMap() {
+        return shardMap;
+    }
+
+    /**
+     * @param shardId
+     *            id of a shard
+     * @return the shard, null if it isn't part of the stream
+     */
+    public Shard shard(final String shardId) {
+        return shardMap.get(shardId);
+    }
+
+    /**
+     * @param shardId
+     *            id of a shard
+     * @return the ids of the parent shards of the shard that are still part of the stream
+     */
+    public Set<String> parentShardIds(final String shardId) {
+        final Shard shard = shardMap.get(shardId);
+        if (shard == null) {
+            return Collections.emptySet();
+        }
+        return HierarchicalShardSyncer.getParentShardIds(shard, shardMap);
+    }
+
+    /**
+     * @param shardId
+     *            id of a shard
+     * @return the ids of the shards created by splitting or merging the shard
+     */
+    public Set<String> childShardIds(final String shardId) {
+        return childShardIdsMap.getOrDefault(shardId, Collections.emptySet());
+    }
+
+    /**
+     * @return the ids of the child shards by the id of their parent shards, only including shards with children
+     *         that are part of the stream
+     */
+    public Map<String, Set<String>> childShardIdsMap() {
+        return childShardIdsMap;
+    }
+
+    /**
+     * @param shardId
+     *            id of a shard
+     * @return the ids of the parents of the shard, of their parents and so on, closest first
+     */
+    public Set<String> ancestorShardIds(final String shardId) {
+        return traverse(shardId, true);
+    }
+
+    /**
+     * @param shardId
+     *            id of a shard
+     * @return the ids of the children of the shard, of their children and so on, closest first
+     */
+    public Set<String> descendantShardIds(final String shardId) {
+        return traverse(shardId, false);
+    }
+
+    /**
+     * @param shardId
+     *            id of a shard
+     * @return true if the shard is part of the stream and has no ending sequence number
+     */
+    public boolean isOpen(final String shardId) {
+        final Shard shard = shardMap.get(shardId);
+        return shard != null && shard.sequenceNumberRange().endingSequenceNumber() == null;
+    }
+
+    /**
+     * @return the shards that have no ending sequence number, in the order they were listed
+     */
+    public List<Shard> openShards() {
+        if (openShards == null) {
+            openShards = Collections.unmodifiableList(shards.stream()
+                    .filter(shard -> shard.sequenceNumberRange().endingSequenceNumber() == null)
+                    .collect(Collectors.toList()));
+        }
+        return openShards;
+    }
+
+    /**
+     * @return the ids of the child shards of open shards, which are only listed when the list of shards is
+     *         inconsistent
+     */
+    public Set<String> inconsistentShardIds() {
+        if (inconsistentShardIds == null) {
+            inconsistentShardIds = Collections.unmodifiableSet(
+                    HierarchicalShardSyncer.findInconsistentShardIds(childShardIdsMap, shardMap));
+        }
+        return inconsistentShardIds;
+    }
+
+    private static void linkToParents(final Shard shard, final Map<String, Shard> shardMap,
+            final Map<String, Set<String>> childShardIdsMap, final Map<String, Set<String>> orphanedChildShardIdsMap) {
+        for (String parentShardId : Arrays.asList(shard.parentShardId(), shard.adjacentParentShardId())) {
+            if (parentShardId != null) {
+                final Map<String, Set<String>> parentMap = shardMap.containsKey(parentShardId) ? childShardIdsMap
+                        : orphanedChildShardIdsMap;
+                final Set<String> childShardIds = new HashSet<>(
+                        parentMap.getOrDefault(parentShardId, Collections.emptySet()));
+                childShardIds.add(shard.shardId());
+                parentMap.put(parentShardId, Collections.unmodifiableSet(childShardIds));
+            }
+        }
+    }
+
+    private static void unlinkFromParents(final Shard shard, final Map<String, Shard> shardMap,
+            final Map<String, Set<String>> childShardIdsMap, final Map<String, Set<String>> orphanedChildShardIdsMap) {
+        for (String parentShardId : Arrays.asList(shard.parentShardId(), shard.adjacentParentShardId())) {
+            if (parentShardId != null) {
+                final Map<String, Set<String>> parentMap = shardMap.containsKey(parentShardId) ? childShardIdsMap
+                        : orphanedChildShardIdsMap;
+                final Set<String> childShardIds = new HashSet<>(
+                        parentMap.getOrDefault(parentShardId, Collections.emptySet()));
+                childShardIds.remove(shard.shardId());
+                if (childShardIds.isEmpty()) {
+                    parentMap.remove(parentShardId);
+                } else {
+                    parentMap.put(parentShardId, Collections.unmodifiableSet(childShardIds));
+                }
+            }
+        }
+    }
+
+    private Set<String> traverse(final String shardId, final boolean ancestors) {
+        final Set<String> visited = new LinkedHashSet<>();
+        final Deque<String> pending = new ArrayDeque<>();
+        pending.add(shardId);
+        while (!pending.isEmpty()) {
+            final String current = pending.poll();
+            final Set<String> next = ancestors ? parentShardIds(current) : childShardIds(current);
+            for (String nextShardId : next) {
+                if (visited.add(nextShardId)) {
+                    pending.add(nextShardId);
+                }
+            }
+        }
+        return visited;
+    }
+}
@@ -36,6 +36,7 @@ import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
 @ToString
 public class ShardInfo {
 
+    private final String streamName;
     private final String shardId;
     private final String concurrencyToken;
     // Sorted list of parent shardIds.
@@ -59,6 +60,29 @@ public class ShardInfo {
             final String concurrencyToken,
             final Collection<String> parentShardIds,
             final ExtendedSequenceNumber checkpoint) {
+        this(null, shardId, concurrencyToken, parentShardIds, checkpoint);
+    }
+
+    /**
+     * Creates a new ShardInfo object for a shard of one of the streams processed by a multi-stream Scheduler.
+     *
+     * @param streamName
+     *            Name of the stream of the shard, null if the Scheduler processes a single stream
+     * @param shardId
+     *            Kinesis shardId that this will be about
+     * @param concurrencyToken
+     *            Used to differentiate between lost and reclaimed leases
+     * @param parentShardIds
+     *            Parent shards of the shard identified by Kinesis shardId
+     * @param checkpoint
+     *            the latest checkpoint from lease
+     */
+    public ShardInfo(final String streamName,
+            @NonNull final String shardId,
+            final String concurrencyToken,
+            final Collection<String> parentShardIds,
+            final ExtendedSequenceNumber checkpoint) {
+        this.streamName = streamName;
         this.shardId = shardId;
         this.concurrencyToken = concurrencyToken;
         this.parentShardIds = new LinkedList<>();
@@ -80,6 +104,16 @@ public class ShardInfo {
         return new LinkedList<>(parentShardIds);
     }
 
+    /**
+     * The key of the lease of the shard, which is qualified by the name of the stream when the Scheduler processes
+     * several streams.
+     *
+     * @return the key of the lease of the shard
+     */
+    public String leaseKey() {
+        return streamName == null ? shardId : StreamLeaseKey.leaseKey(streamName, shardId);
+    }
+
     /**
      * Whether the shard has been completely processed or not.
      *
@@ -94,7 +128,8 @@ public class ShardInfo {
      */
     @Override
     public int hashCode() {
-        return new HashCodeBuilder().append(concurrencyToken).append(parentShardIds).append(shardId).toHashCode();
+        return new HashCodeBuilder().append(concurrencyToken).append(parentShardIds).append(streamName)
+                .append(shardId).toHashCode();
     }
 
     /**
@@ -118,7 +153,8 @@ public class ShardInfo {
         }
         ShardInfo other = (ShardInfo) obj;
         return new EqualsBuilder().append(concurrencyToken, other.concurrencyToken)
-                .append(parentShardIds, other.parentShardIds).append(shardId, other.shardId).isEquals();
+                .append(parentShardIds, other.parentShardIds).append(streamName, other.streamName)
+                .append(shardId, other.shardId).isEquals();
 
     }
 
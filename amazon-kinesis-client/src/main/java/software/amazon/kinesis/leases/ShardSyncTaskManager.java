@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.leases;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -51,6 +53,7 @@ public class ShardSyncTaskManager {
     private final ExecutorService executorService;
     @NonNull
     private final HierarchicalShardSyncer hierarchicalShardSyncer;
+    private final boolean incrementalShardSync;
     @NonNull
     private final MetricsFactory metricsFactory;
 
@@ -81,6 +84,7 @@ public class ShardSyncTaskManager {
         this.shardSyncIdleTimeMillis = shardSyncIdleTimeMillis;
         this.executorService = executorService;
         this.hierarchicalShardSyncer = new HierarchicalShardSyncer();
+        this.incrementalShardSync = false;
         this.metricsFactory = metricsFactory;
     }
 
@@ -101,6 +105,30 @@ public class ShardSyncTaskManager {
             InitialPositionInStreamExtended initialPositionInStream, boolean cleanupLeasesUponShardCompletion,
             boolean ignoreUnexpectedChildShards, long shardSyncIdleTimeMillis, ExecutorService executorService,
             HierarchicalShardSyncer hierarchicalShardSyncer, MetricsFactory metricsFactory) {
+        this(shardDetector, leaseRefresher, initialPositionInStream, cleanupLeasesUponShardCompletion,
+                ignoreUnexpectedChildShards, shardSyncIdleTimeMillis, executorService, hierarchicalShardSyncer, false,
+                metricsFactory);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param shardDetector
+     * @param leaseRefresher
+     * @param initialPositionInStream
+     * @param cleanupLeasesUponShardCompletion
+     * @param ignoreUnexpectedChildShards
+     * @param shardSyncIdleTimeMillis
+     * @param executorService
+     * @param hierarchicalShardSyncer
+     * @param incrementalShardSync
+     * @param metricsFactory
+     */
+    public ShardSyncTaskManager(ShardDetector shardDetector, LeaseRefresher leaseRefresher,
+            InitialPositionInStreamExtended initialPositionInStream, boolean cleanupLeasesUponShardCompletion,
+            boolean ignoreUnexpectedChildShards, long shardSyncIdleTimeMillis, ExecutorService executorService,
+            HierarchicalShardSyncer hierarchicalShardSyncer, boolean incrementalShardSync,
+            MetricsFactory metricsFactory) {
         this.shardDetector = shardDetector;
         this.leaseRefresher = leaseRefresher;
         this.initialPositionInStream = initialPositionInStream;
@@ -109,6 +137,7 @@ public class ShardSyncTaskManager {
         this.shardSyncIdleTimeMillis = shardSyncIdleTimeMillis;
         this.executorService = executorService;
         this.hierarchicalShardSyncer = hierarchicalShardSyncer;
+        this.incrementalShardSync = incrementalShardSync;
         this.metricsFactory = metricsFactory;
     }
 
@@ -116,10 +145,22 @@ public class ShardSyncTaskManager {
     private Future<TaskResult> future;
 
     public synchronized boolean syncShardAndLeaseInfo() {
-        return checkAndSubmitNextTask();
+        return checkAndSubmitNextTask(null);
     }
 
-    private synchronized boolean checkAndSubmitNextTask() {
+    /**
+     * Syncs the leases after the given shards have been completely processed. If incrementalShardSync is enabled,
+     * only the leases of the child shards of the completed shards are created, otherwise all the shards of the stream
+     * are synced.
+     *
+     * @param completedShardIds Ids of the shards that have been completely processed
+     * @return true if a new sync task was submitted
+     */
+    public synchronized boolean syncShardAndLeaseInfo(@NonNull final Collection<String> completedShardIds) {
+        return checkAndSubmitNextTask(incrementalShardSync ? completedShardIds : null);
+    }
+
+    private synchronized boolean checkAndSubmitNextTask(final Collection<String> completedShardIds) {
         boolean submittedNewTask = false;
         if ((future == null) || future.isCancelled() || future.isDone()) {
             if ((future != null) && future.isDone()) {
@@ -134,17 +175,28 @@ public class ShardSyncTaskManager {
                 }
             }
 
-            currentTask =
-                    new MetricsCollectingTaskDecorator(
-                            new ShardSyncTask(shardDetector,
-                                    leaseRefresher,
-                                    initialPositionInStream,
-                                    cleanupLeasesUponShardCompletion,
-                                    ignoreUnexpectedChildShards,
-                                    shardSyncIdleTimeMillis,
-                                    hierarchicalShardSyncer,
-                                    metricsFactory),
-                            metricsFactory);
+            final ConsumerTask shardSyncTask;
+            if (completedShardIds == null) {
+                shardSyncTask = new ShardSyncTask(shardDetector,
+                        leaseRefresher,
+                        initialPositionInStream,
+                        cleanupLeasesUponShardCompletion,
+                        ignoreUnexpectedChildShards,
+                        shardSyncIdleTimeMillis,
+                        hierarchicalShardSyncer,
+                        metricsFactory);
+            } else {
+                shardSyncTask = new CompletedShardSyncTask(shardDetector,
+                        leaseRefresher,
+                        new ArrayList<>(completedShardIds),
+                        initialPositionInStream,
+                        cleanupLeasesUponShardCompletion,
+                        ignoreUnexpectedChildShards,
+                        shardSyncIdleTimeMillis,
+                        hierarchicalShardSyncer,
+                        metricsFactory);
+            }
+            currentTask = new MetricsCollectingTaskDecorator(shardSyncTask, metricsFactory);
             future = executorService.submit(currentTask);
             submittedNewTask = true;
             if (log.isDebugEnabled()) {
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.kinesis.annotations.KinesisClientInternalApi;
+import software.amazon.kinesis.leases.exceptions.DependencyException;
+import software.amazon.kinesis.leases.exceptions.InvalidStateException;
+import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
+
+/**
+ * A scan of a lease table shared by the streams of a multi-stream Scheduler, split by the stream of the leases.
+ *
+ * <p>
+ * The {@link StreamLeaseRefresher}s of the streams list their leases from the last scan of the table as long as it is
+ * recent enough, so syncing the shards of N streams scans the table once instead of N times. The leases of a stream
+ * are scanned again once its view has written to the table, so a view always lists its own writes.
+ * </p>
+ */
+@Slf4j
+@KinesisClientInternalApi
+public class SharedLeaseTableScan {
+    private final long maxScanAgeNanos;
+
+    private Map<String, List<Lease>> streamLeases = Collections.emptyMap();
+    private long lastScanNanos;
+    private boolean scanned = false;
+    private final Set<String> outdatedStreams = new HashSet<>();
+
+    /**
+     * @param maxScanAgeMillis
+     *            max time the leases of the last scan are listed for, 0 to scan the table every time leases are listed
+     */
+    public SharedLeaseTableScan(final long maxScanAgeMillis) {
+        this.maxScanAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxScanAgeMillis);
+    }
+
+    /**
+     * Lists the leases of a stream, scanning the lease table if the last scan is too old or the stream has written to
+     * the table since.
+     *
+     * @param leaseRefresher
+     *            refresher of the whole lease table
+     * @param streamName
+     *            name of the stream to list the leases of
+     * @return the leases of the stream, keyed by {@link StreamLeaseKey}
+     */
+    public synchronized List<Lease> listLeases(@NonNull final LeaseRefresher leaseRefresher,
+            @NonNull final String streamName)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final long now = System.nanoTime();
+        if (!scanned || now - lastScanNanos >= maxScanAgeNanos || outdatedStreams.contains(streamName)) {
+            streamLeases = leaseRefresher.listLeases().stream()
+                    .filter(lease -> StreamLeaseKey.isStreamQualified(lease.leaseKey()))
+                    .collect(Collectors.groupingBy(lease -> StreamLeaseKey.streamName(lease.leaseKey())));
+            lastScanNanos = now;
+            scanned = true;
+            outdatedStreams.clear();
+            log.debug("Scanned the leases of {} streams", streamLeases.size());
+        }
+        return streamLeases.getOrDefault(streamName, Collections.emptyList());
+    }
+
+    /**
+     * Marks the leases of a stream outdated after its view has written to the lease table.
+     *
+     * @param streamName
+     *            name of the stream whose leases changed
+     */
+    public synchronized void leasesChanged(@NonNull final String streamName) {
+        outdatedStreams.add(streamName);
+    }
+}
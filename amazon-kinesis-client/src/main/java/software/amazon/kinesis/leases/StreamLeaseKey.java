@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+/**
+ * Builds and parses the keys of the leases of a Scheduler that processes several streams. The lease of a shard is
+ * keyed by the name of its stream and the id of the shard, separated by {@value #DELIMITER}. The names of Kinesis
+ * streams and the ids of shards can't contain the delimiter, so keys of the leases of a single stream, which are the
+ * shard ids, are never mistaken for stream qualified keys.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class StreamLeaseKey {
+    public static final char DELIMITER = ':';
+
+    /**
+     * @param streamName
+     *            name of the stream of the shard
+     * @param shardId
+     *            id of the shard
+     * @return the key of the lease of the shard
+     */
+    public static String leaseKey(@NonNull final String streamName, @NonNull final String shardId) {
+        return streamName + DELIMITER + shardId;
+    }
+
+    /**
+     * @param leaseKey
+     *            key of a lease
+     * @return whether the key is qualified by the name of a stream
+     */
+    public static boolean isStreamQualified(@NonNull final String leaseKey) {
+        return leaseKey.indexOf(DELIMITER) >= 0;
+    }
+
+    /**
+     * @param leaseKey
+     *            key of a lease
+     * @return the name of the stream of the lease, or null if the key isn't qualified by the name of a stream
+     */
+    public static String streamName(@NonNull final String leaseKey) {
+        final int index = leaseKey.indexOf(DELIMITER);
+        return index < 0 ? null : leaseKey.substring(0, index);
+    }
+
+    /**
+     * @param leaseKey
+     *            key of a lease
+     * @return the id of the shard of the lease
+     */
+    public static String shardId(@NonNull final String leaseKey) {
+        return leaseKey.substring(leaseKey.indexOf(DELIMITER) + 1);
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import software.amazon.kinesis.annotations.KinesisClientInternalApi;
+import software.amazon.kinesis.leases.exceptions.DependencyException;
+import software.amazon.kinesis.leases.exceptions.InvalidStateException;
+import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
+import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
+
+/**
+ * A view of the leases of a single stream in a lease table shared by the streams of a multi-stream Scheduler.
+ *
+ * <p>
+ * The leases in the shared table are keyed by stream and shard, as built by {@link StreamLeaseKey}, and so are the
+ * parents they refer to. This view only lists the leases of its stream, and presents them keyed by shard id, the way
+ * the leases of a Scheduler processing a single stream are. This lets the shard sync and the tasks of the shard
+ * consumers work on the leases of one stream without knowing about the others. The views of the streams of a
+ * Scheduler list their leases from a {@link SharedLeaseTableScan}, so they don't each scan the whole table.
+ * </p>
+ */
+@RequiredArgsConstructor
+@KinesisClientInternalApi
+public class StreamLeaseRefresher implements LeaseRefresher {
+    @NonNull
+    private final LeaseRefresher leaseRefresher;
+    @NonNull
+    private final String streamName;
+    @NonNull
+    private final SharedLeaseTableScan leaseTableScan;
+
+    /**
+     * Creates a view that scans the lease table every time it lists the leases of its stream.
+     *
+     * @param leaseRefresher
+     *            refresher of the whole lease table
+     * @param streamName
+     *            name of the stream of the view
+     */
+    public StreamLeaseRefresher(final LeaseRefresher leaseRefresher, final String streamName) {
+        this(leaseRefresher, streamName, new SharedLeaseTableScan(0));
+    }
+
+    /**
+     * @return name of the stream of the view
+     */
+    String streamName() {
+        return streamName;
+    }
+
+    @Override
+    public boolean createLeaseTableIfNotExists(final Long readCapacity, final Long writeCapacity)
+            throws ProvisionedThroughputException, DependencyException {
+        return leaseRefresher.createLeaseTableIfNotExists(readCapacity, writeCapacity);
+    }
+
+    @Override
+    public boolean leaseTableExists() throws DependencyException {
+        return leaseRefresher.leaseTableExists();
+    }
+
+    @Override
+    public boolean waitUntilLeaseTableExists(final long secondsBetweenPolls, final long timeoutSeconds)
+            throws DependencyException {
+        return leaseRefresher.waitUntilLeaseTableExists(secondsBetweenPolls, timeoutSeconds);
+    }
+
+    @Override
+    public List<Lease> listLeases() throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        return leaseTableScan.listLeases(leaseRefresher, streamName).stream()
+                .map(this::toStreamLease).collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean createLeaseIfNotExists(final Lease lease)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        try {
+            return leaseRefresher.createLeaseIfNotExists(toTableLease(lease));
+        } finally {
+            leaseTableScan.leasesChanged(streamName);
+        }
+    }
+
+    @Override
+    public Lease getLease(final String shardId)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final Lease lease = leaseRefresher.getLease(StreamLeaseKey.leaseKey(streamName, shardId));
+        return lease == null ? null : toStreamLease(lease);
+    }
+
+    @Override
+    public boolean renewLease(final Lease lease)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final Lease tableLease = toTableLease(lease);
+        try {
+            return leaseRefresher.renewLease(tableLease);
+        } finally {
+            leasesChanged(lease, tableLease);
+        }
+    }
+
+    @Override
+    public boolean takeLease(final Lease lease, final String owner)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final Lease tableLease = toTableLease(lease);
+        try {
+            return leaseRefresher.takeLease(tableLease, owner);
+        } finally {
+            leasesChanged(lease, tableLease);
+        }
+    }
+
+    @Override
+    public boolean evictLease(final Lease lease)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final Lease tableLease = toTableLease(lease);
+        try {
+            return leaseRefresher.evictLease(tableLease);
+        } finally {
+            leasesChanged(lease, tableLease);
+        }
+    }
+
+    @Override
+    public void deleteLease(final Lease lease)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        try {
+            leaseRefresher.deleteLease(toTableLease(lease));
+        } finally {
+            leaseTableScan.leasesChanged(streamName);
+        }
+    }
+
+    /**
+     * Deletes the leases of the stream of this view only.
+     */
+    @Override
+    public void deleteAll() throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        for (Lease lease : listLeases()) {
+            deleteLease(lease);
+        }
+    }
+
+    @Override
+    public boolean updateLease(final Lease lease)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final Lease tableLease = toTableLease(lease);
+        try {
+            return leaseRefresher.updateLease(tableLease);
+        } finally {
+            leasesChanged(lease, tableLease);
+        }
+    }
+
+    /**
+     * Checks whether there are leases of the stream of this view, which requires a scan of the lease table.
+     */
+    @Override
+    public boolean isLeaseTableEmpty()
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        return listLeases().isEmpty();
+    }
+
+    @Override
+    public ExtendedSequenceNumber getCheckpoint(final String shardId)
+            throws ProvisionedThroughputException, InvalidStateException, DependencyException {
+        return leaseRefresher.getCheckpoint(StreamLeaseKey.leaseKey(streamName, shardId));
+    }
+
+    private Lease toStreamLease(final Lease lease) {
+        return withLeaseKeys(lease, StreamLeaseKey::shardId);
+    }
+
+    private Lease toTableLease(final Lease lease) {
+        return withLeaseKeys(lease, shardId -> StreamLeaseKey.leaseKey(streamName, shardId));
+    }
+
+    private static Lease withLeaseKeys(final Lease lease, final Function<String, String> leaseKeyMapper) {
+        final Set<String> parentShardIds = lease.parentShardIds().stream().map(leaseKeyMapper)
+                .collect(Collectors.toSet());
+        final Lease mapped = new Lease(leaseKeyMapper.apply(lease.leaseKey()), lease.leaseOwner(),
+                lease.leaseCounter(), lease.concurrencyToken(), lease.lastCounterIncrementNanos(), lease.checkpoint(),
+                lease.pendingCheckpoint(), lease.ownerSwitchesSinceCheckpoint(), parentShardIds);
+        mapped.throughput(lease.throughput());
+        return mapped;
+    }
+
+    private void leasesChanged(final Lease lease, final Lease tableLease) {
+        updateLeasingFields(lease, tableLease);
+        leaseTableScan.leasesChanged(streamName);
+    }
+
+    /**
+     * Copies the fields the lease table mutates on the passed-in lease back to the lease of this view.
+     */
+    private static void updateLeasingFields(final Lease lease, final Lease tableLease) {
+        lease.leaseOwner(tableLease.leaseOwner());
+        lease.leaseCounter(tableLease.leaseCounter());
+        lease.ownerSwitchesSinceCheckpoint(tableLease.ownerSwitchesSinceCheckpoint());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import java.util.concurrent.TimeUnit;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Weighs a lease by the share of the write capacity of a shard that its records use, i.e. by the larger of its bytes
+ * per second over {@link #bytesPerSecondPerWeight} and its records per second over {@link #recordsPerSecondPerWeight}.
+ * Leases whose processing is far behind the tip of the stream weigh more, as catching up takes more work than keeping
+ * up.
+ */
+@Data
+@Accessors(fluent = true)
+public class ThroughputLeaseWeigher implements LeaseWeigher {
+    /**
+     * The bytes per second of a lease weighing 1.
+     *
+     * <p>Default value: 1 MiB, the write limit of a shard</p>
+     */
+    private long bytesPerSecondPerWeight = 1024L * 1024L;
+
+    /**
+     * The records per second of a lease weighing 1.
+     *
+     * <p>Default value: 1000, the write limit of a shard</p>
+     */
+    private long recordsPerSecondPerWeight = 1000L;
+
+    /**
+     * The weight of leases whose throughput hasn't been observed yet, e.g. leases of new shards.
+     *
+     * <p>Default value: 1.0</p>
+     */
+    private double unknownLeaseWeight = 1.0;
+
+    /**
+     * The weight of idle leases, which still cost something to hold.
+     *
+     * <p>Default value: 0.01</p>
+     */
+    private double minimumLeaseWeight = 0.01;
+
+    /**
+     * How far behind the tip of the stream a lease is processed before its weight is multiplied by
+     * {@link #laggingLeaseWeightMultiplier}.
+     *
+     * <p>Default value: 1 minute</p>
+     */
+    private long laggingThresholdMillis = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * The multiplier of the weight of leases processed far behind the tip of the stream.
+     *
+     * <p>Default value: 2.0</p>
+     */
+    private double laggingLeaseWeightMultiplier = 2.0;
+
+    @Override
+    public double weigh(final Lease lease) {
+        final LeaseThroughput throughput = lease.throughput();
+        if (throughput == null) {
+            return unknownLeaseWeight;
+        }
+        double weight = Math.max((double) throughput.bytesPerSecond() / bytesPerSecondPerWeight,
+                (double) throughput.recordsPerSecond() / recordsPerSecondPerWeight);
+        weight = Math.max(weight, minimumLeaseWeight);
+        if (throughput.millisBehindLatest() >= laggingThresholdMillis) {
+            weight *= laggingLeaseWeightMultiplier;
+        }
+        return weight;
+    }
+}
@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedTransferQueue;
 import java.util.concurrent.ScheduledExecutorService;
@@ -34,11 +35,16 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.leases.Lease;
+import software.amazon.kinesis.leases.LeaseChangeSource;
 import software.amazon.kinesis.leases.LeaseCoordinator;
+import software.amazon.kinesis.leases.LeaseManagementConfig;
 import software.amazon.kinesis.leases.LeaseRefresher;
 import software.amazon.kinesis.leases.LeaseRenewer;
 import software.amazon.kinesis.leases.LeaseTaker;
+import software.amazon.kinesis.leases.LeaseThroughputTracker;
+import software.amazon.kinesis.leases.LeaseWeigher;
 import software.amazon.kinesis.leases.ShardInfo;
+import software.amazon.kinesis.leases.StreamLeaseKey;
 import software.amazon.kinesis.leases.exceptions.DependencyException;
 import software.amazon.kinesis.leases.exceptions.InvalidStateException;
 import software.amazon.kinesis.leases.exceptions.LeasingException;
@@ -63,18 +69,23 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
             .setNameFormat("LeaseCoordinator-%04d").setDaemon(true).build();
     private static final ThreadFactory LEASE_RENEWAL_THREAD_FACTORY = new ThreadFactoryBuilder()
             .setNameFormat("LeaseRenewer-%04d").setDaemon(true).build();
+    private static final ThreadFactory LEASE_TAKER_THREAD_FACTORY = new ThreadFactoryBuilder()
+            .setNameFormat("LeaseTaker-%04d").setDaemon(true).build();
 
     private final LeaseRenewer leaseRenewer;
     private final LeaseTaker leaseTaker;
     private final long renewerIntervalMillis;
     private final long takerIntervalMillis;
     private final ExecutorService leaseRenewalThreadpool;
+    private final ExecutorService leaseTakerThreadpool;
+    private final LeaseThroughputTracker leaseThroughputTracker;
     private final LeaseRefresher leaseRefresher;
     private long initialLeaseTableReadCapacity;
     private long initialLeaseTableWriteCapacity;
     protected final MetricsFactory metricsFactory;
 
     private final Object shutdownLock = new Object();
+    private final List<Runnable> leaseAssignmentChangeListeners = new CopyOnWriteArrayList<>();
 
     private ScheduledExecutorService leaseCoordinatorThreadPool;
     private ScheduledFuture<?> takerFuture;
@@ -148,13 +159,80 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
                                     final long initialLeaseTableReadCapacity,
                                     final long initialLeaseTableWriteCapacity,
                                     final MetricsFactory metricsFactory) {
+        this(leaseRefresher, workerIdentifier, leaseDurationMillis, epsilonMillis, maxLeasesForWorker,
+                maxLeasesToStealAtOneTime, maxLeaseRenewerThreadCount, initialLeaseTableReadCapacity,
+                initialLeaseTableWriteCapacity, LeaseManagementConfig.DEFAULT_LEASE_RENEWAL_BATCH_SIZE,
+                (LeaseChangeSource) null, LeaseManagementConfig.DEFAULT_FULL_LEASE_TABLE_SCAN_INTERVAL_MILLIS,
+                LeaseManagementConfig.DEFAULT_MAX_CONCURRENT_LEASE_TAKES, (LeaseWeigher) null,
+                (Collection<String>) null, metricsFactory);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param leaseRefresher
+     *            LeaseRefresher instance to use
+     * @param workerIdentifier
+     *            Identifies the worker (e.g. useful to track lease ownership)
+     * @param leaseDurationMillis
+     *            Duration of a lease
+     * @param epsilonMillis
+     *            Allow for some variance when calculating lease expirations
+     * @param maxLeasesForWorker
+     *            Max leases this Worker can handle at a time
+     * @param maxLeasesToStealAtOneTime
+     *            Steal up to these many leases at a time (for load balancing)
+     * @param initialLeaseTableReadCapacity
+     *            Initial dynamodb lease table read iops if creating the lease table
+     * @param initialLeaseTableWriteCapacity
+     *            Initial dynamodb lease table write iops if creating the lease table
+     * @param leaseRenewalBatchSize
+     *            Max leases renewed in a single DynamoDB transaction
+     * @param leaseChangeSource
+     *            Source of the changes made to the lease table, null to scan the whole table every time leases are
+     *            taken
+     * @param fullLeaseTableScanIntervalMillis
+     *            Max time between full scans of the lease table when a lease change source is used
+     * @param maxConcurrentLeaseTakes
+     *            Max leases being taken at the same time
+     * @param leaseWeigher
+     *            Weigher of the leases to balance their load between workers, null to balance their number
+     * @param streamNames
+     *            Names of the streams of a multi-stream Scheduler to take the leases of, null to take all the leases
+     * @param metricsFactory
+     *            Used to publish metrics about lease operations
+     */
+    public DynamoDBLeaseCoordinator(final LeaseRefresher leaseRefresher,
+                                    final String workerIdentifier,
+                                    final long leaseDurationMillis,
+                                    final long epsilonMillis,
+                                    final int maxLeasesForWorker,
+                                    final int maxLeasesToStealAtOneTime,
+                                    final int maxLeaseRenewerThreadCount,
+                                    final long initialLeaseTableReadCapacity,
+                                    final long initialLeaseTableWriteCapacity,
+                                    final int leaseRenewalBatchSize,
+                                    final LeaseChangeSource leaseChangeSource,
+                                    final long fullLeaseTableScanIntervalMillis,
+                                    final int maxConcurrentLeaseTakes,
+                                    final LeaseWeigher leaseWeigher,
+                                    final Collection<String> streamNames,
+                                    final MetricsFactory metricsFactory) {
         this.leaseRefresher = leaseRefresher;
         this.leaseRenewalThreadpool = getLeaseRenewalExecutorService(maxLeaseRenewerThreadCount);
+        this.leaseTakerThreadpool = maxConcurrentLeaseTakes > 1
+                ? getLeaseTakerExecutorService(maxConcurrentLeaseTakes) : null;
         this.leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, workerIdentifier, leaseDurationMillis, metricsFactory)
                 .withMaxLeasesForWorker(maxLeasesForWorker)
-                .withMaxLeasesToStealAtOneTime(maxLeasesToStealAtOneTime);
-        this.leaseRenewer = new DynamoDBLeaseRenewer(
-                leaseRefresher, workerIdentifier, leaseDurationMillis, leaseRenewalThreadpool, metricsFactory);
+                .withMaxLeasesToStealAtOneTime(maxLeasesToStealAtOneTime)
+                .withLeaseChangeSource(leaseChangeSource)
+                .withFullLeaseTableScanIntervalMillis(fullLeaseTableScanIntervalMillis)
+                .withConcurrentLeaseTakes(leaseTakerThreadpool, maxConcurrentLeaseTakes)
+                .withLeaseWeigher(leaseWeigher)
+                .withStreamNames(streamNames);
+        this.leaseThroughputTracker = leaseWeigher != null ? new LeaseThroughputTracker() : null;
+        this.leaseRenewer = new DynamoDBLeaseRenewer(leaseRefresher, workerIdentifier, leaseDurationMillis,
+                leaseRenewalThreadpool, metricsFactory, leaseRenewalBatchSize, leaseThroughputTracker);
         this.renewerIntervalMillis = leaseDurationMillis / 3 - epsilonMillis;
         this.takerIntervalMillis = (leaseDurationMillis + epsilonMillis) * 2;
         if (initialLeaseTableReadCapacity <= 0) {
@@ -259,6 +337,9 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
                     leaseRenewer.addLeasesToRenew(takenLeases.values());
                 }
             }
+            if (!takenLeases.isEmpty()) {
+                notifyLeaseAssignmentChangeListeners();
+            }
 
             success = true;
         } finally {
@@ -270,7 +351,23 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
 
     @Override
     public void runLeaseRenewer() throws DependencyException, InvalidStateException {
-        leaseRenewer.renewLeases();
+        try {
+            leaseRenewer.renewLeases();
+        } finally {
+            // Leases that couldn't be renewed are no longer held
+            notifyLeaseAssignmentChangeListeners();
+        }
+    }
+
+    @Override
+    public void addLeaseAssignmentChangeListener(final Runnable listener) {
+        leaseAssignmentChangeListeners.add(listener);
+    }
+
+    private void notifyLeaseAssignmentChangeListeners() {
+        for (Runnable listener : leaseAssignmentChangeListeners) {
+            listener.run();
+        }
     }
 
     @Override
@@ -320,6 +417,9 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
         }
 
         leaseRenewalThreadpool.shutdownNow();
+        if (leaseTakerThreadpool != null) {
+            leaseTakerThreadpool.shutdownNow();
+        }
         synchronized (shutdownLock) {
             leaseRenewer.clearCurrentlyHeldLeases();
             running = false;
@@ -339,6 +439,12 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
                 leaseRenewer.dropLease(lease);
             }
         }
+        notifyLeaseAssignmentChangeListeners();
+    }
+
+    @Override
+    public LeaseThroughputTracker leaseThroughputTracker() {
+        return leaseThroughputTracker;
     }
 
     @Override
@@ -352,6 +458,12 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
         return leaseRenewer.updateLease(lease, concurrencyToken, operation, shardId);
     }
 
+    @Override
+    public boolean updateLeases(final Collection<Lease> leases, final String operation)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        return leaseRenewer.updateLeases(leases, operation);
+    }
+
     /**
      * Returns executor service that should be used for lease renewal.
      * @param maximumPoolSize Maximum allowed thread pool size
@@ -364,6 +476,19 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
                 new LinkedTransferQueue<>(), LEASE_RENEWAL_THREAD_FACTORY);
     }
 
+    /**
+     * Returns executor service that should be used for taking leases concurrently. Its threads are only used while
+     * leases are taken, so they are let go when idle.
+     * @param maximumPoolSize Maximum number of leases being taken at the same time
+     * @return Executor service that should be used for taking leases.
+     */
+    private static ExecutorService getLeaseTakerExecutorService(int maximumPoolSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maximumPoolSize, maximumPoolSize, 60, TimeUnit.SECONDS,
+                new LinkedTransferQueue<>(), LEASE_TAKER_THREAD_FACTORY);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @Override
     public List<ShardInfo> getCurrentAssignments() {
         Collection<Lease> leases = getAssignments();
@@ -378,8 +503,12 @@ public class DynamoDBLeaseCoordinator implements LeaseCoordinator {
     }
 
     public static ShardInfo convertLeaseToAssignment(final Lease lease) {
-        return new ShardInfo(lease.leaseKey(), lease.concurrencyToken().toString(), lease.parentShardIds(),
-                lease.checkpoint());
+        // The leases of a multi-stream Scheduler are keyed by stream and shard, and so are the parents they refer to
+        final String streamName = StreamLeaseKey.streamName(lease.leaseKey());
+        final List<String> parentShardIds = lease.parentShardIds().stream().map(StreamLeaseKey::shardId)
+                .collect(Collectors.toList());
+        return new ShardInfo(streamName, StreamLeaseKey.shardId(lease.leaseKey()), lease.concurrencyToken().toString(),
+                parentShardIds, lease.checkpoint());
     }
 
     /**
@@ -16,22 +16,33 @@
 package software.amazon.kinesis.leases.dynamodb;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NonNull;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsAsyncClient;
 import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.common.InitialPositionInStreamExtended;
+import software.amazon.kinesis.common.StreamConfig;
 import software.amazon.kinesis.leases.HierarchicalShardSyncer;
 import software.amazon.kinesis.leases.KinesisShardDetector;
+import software.amazon.kinesis.leases.LeaseChangeSource;
 import software.amazon.kinesis.leases.LeaseCoordinator;
 import software.amazon.kinesis.leases.LeaseManagementConfig;
 import software.amazon.kinesis.leases.LeaseManagementFactory;
+import software.amazon.kinesis.leases.LeaseWeigher;
 import software.amazon.kinesis.leases.ShardDetector;
+import software.amazon.kinesis.leases.SharedLeaseTableScan;
 import software.amazon.kinesis.leases.ShardSyncTaskManager;
+import software.amazon.kinesis.leases.StreamLeaseRefresher;
 import software.amazon.kinesis.metrics.MetricsFactory;
+import software.amazon.kinesis.metrics.NullMetricsFactory;
 
 /**
  *
@@ -75,6 +86,15 @@ public class DynamoDBLeaseManagementFactory implements LeaseManagementFactory {
     private final long initialLeaseTableWriteCapacity;
     private final TableCreatorCallback tableCreatorCallback;
     private final Duration dynamoDbRequestTimeout;
+    private final int leaseRenewalBatchSize;
+    private final DynamoDbStreamsAsyncClient dynamoDBStreamsClient;
+    private final long fullLeaseTableScanIntervalMillis;
+    private final int leaseTableScanSegments;
+    private final int maxConcurrentLeaseTakes;
+    private final LeaseWeigher leaseWeigher;
+    private final boolean incrementalShardSync;
+    @Getter(AccessLevel.NONE)
+    private final SharedLeaseTableScan sharedLeaseTableScan;
 
     /**
      * Constructor.
@@ -266,6 +286,74 @@ public class DynamoDBLeaseManagementFactory implements LeaseManagementFactory {
             final long initialLeaseTableReadCapacity, final long initialLeaseTableWriteCapacity,
             final HierarchicalShardSyncer hierarchicalShardSyncer, final TableCreatorCallback tableCreatorCallback,
             Duration dynamoDbRequestTimeout) {
+        this(kinesisClient, streamName, dynamoDBClient, tableName, workerIdentifier, executorService,
+                initialPositionInStream, failoverTimeMillis, epsilonMillis, maxLeasesForWorker,
+                maxLeasesToStealAtOneTime, maxLeaseRenewalThreads, cleanupLeasesUponShardCompletion,
+                ignoreUnexpectedChildShards, shardSyncIntervalMillis, consistentReads, listShardsBackoffTimeMillis,
+                maxListShardsRetryAttempts, maxCacheMissesBeforeReload, listShardsCacheAllowedAgeInSeconds,
+                cacheMissWarningModulus, initialLeaseTableReadCapacity, initialLeaseTableWriteCapacity,
+                hierarchicalShardSyncer, tableCreatorCallback, dynamoDbRequestTimeout,
+                LeaseManagementConfig.DEFAULT_LEASE_RENEWAL_BATCH_SIZE, (DynamoDbStreamsAsyncClient) null,
+                LeaseManagementConfig.DEFAULT_FULL_LEASE_TABLE_SCAN_INTERVAL_MILLIS,
+                LeaseManagementConfig.DEFAULT_LEASE_TABLE_SCAN_SEGMENTS,
+                LeaseManagementConfig.DEFAULT_MAX_CONCURRENT_LEASE_TAKES, (LeaseWeigher) null,
+                LeaseManagementConfig.DEFAULT_INCREMENTAL_SHARD_SYNC);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param kinesisClient
+     * @param streamName
+     * @param dynamoDBClient
+     * @param tableName
+     * @param workerIdentifier
+     * @param executorService
+     * @param initialPositionInStream
+     * @param failoverTimeMillis
+     * @param epsilonMillis
+     * @param maxLeasesForWorker
+     * @param maxLeasesToStealAtOneTime
+     * @param maxLeaseRenewalThreads
+     * @param cleanupLeasesUponShardCompletion
+     * @param ignoreUnexpectedChildShards
+     * @param shardSyncIntervalMillis
+     * @param consistentReads
+     * @param listShardsBackoffTimeMillis
+     * @param maxListShardsRetryAttempts
+     * @param maxCacheMissesBeforeReload
+     * @param listShardsCacheAllowedAgeInSeconds
+     * @param cacheMissWarningModulus
+     * @param initialLeaseTableReadCapacity
+     * @param initialLeaseTableWriteCapacity
+     * @param hierarchicalShardSyncer
+     * @param tableCreatorCallback
+     * @param dynamoDbRequestTimeout
+     * @param leaseRenewalBatchSize
+     * @param dynamoDBStreamsClient
+     * @param fullLeaseTableScanIntervalMillis
+     * @param leaseTableScanSegments
+     * @param maxConcurrentLeaseTakes
+     * @param leaseWeigher
+     * @param incrementalShardSync
+     */
+    public DynamoDBLeaseManagementFactory(final KinesisAsyncClient kinesisClient, final String streamName,
+            final DynamoDbAsyncClient dynamoDBClient, final String tableName, final String workerIdentifier,
+            final ExecutorService executorService, final InitialPositionInStreamExtended initialPositionInStream,
+            final long failoverTimeMillis, final long epsilonMillis, final int maxLeasesForWorker,
+            final int maxLeasesToStealAtOneTime, final int maxLeaseRenewalThreads,
+            final boolean cleanupLeasesUponShardCompletion, final boolean ignoreUnexpectedChildShards,
+            final long shardSyncIntervalMillis, final boolean consistentReads, final long listShardsBackoffTimeMillis,
+            final int maxListShardsRetryAttempts, final int maxCacheMissesBeforeReload,
+            final long listShardsCacheAllowedAgeInSeconds, final int cacheMissWarningModulus,
+            final long initialLeaseTableReadCapacity, final long initialLeaseTableWriteCapacity,
+            final HierarchicalShardSyncer hierarchicalShardSyncer, final TableCreatorCallback tableCreatorCallback,
+            Duration dynamoDbRequestTimeout, final int leaseRenewalBatchSize,
+            final DynamoDbStreamsAsyncClient dynamoDBStreamsClient, final long fullLeaseTableScanIntervalMillis,
+            final int leaseTableScanSegments,
+            final int maxConcurrentLeaseTakes,
+            final LeaseWeigher leaseWeigher,
+            final boolean incrementalShardSync) {
         this.kinesisClient = kinesisClient;
         this.streamName = streamName;
         this.dynamoDBClient = dynamoDBClient;
@@ -292,11 +380,36 @@ public class DynamoDBLeaseManagementFactory implements LeaseManagementFactory {
         this.hierarchicalShardSyncer = hierarchicalShardSyncer;
         this.tableCreatorCallback = tableCreatorCallback;
         this.dynamoDbRequestTimeout = dynamoDbRequestTimeout;
+        this.leaseRenewalBatchSize = leaseRenewalBatchSize;
+        this.dynamoDBStreamsClient = dynamoDBStreamsClient;
+        this.fullLeaseTableScanIntervalMillis = fullLeaseTableScanIntervalMillis;
+        this.leaseTableScanSegments = leaseTableScanSegments;
+        this.maxConcurrentLeaseTakes = maxConcurrentLeaseTakes;
+        this.leaseWeigher = leaseWeigher;
+        this.incrementalShardSync = incrementalShardSync;
+        this.sharedLeaseTableScan = new SharedLeaseTableScan(shardSyncIntervalMillis);
     }
 
     @Override
     public LeaseCoordinator createLeaseCoordinator(@NonNull final MetricsFactory metricsFactory) {
-        return new DynamoDBLeaseCoordinator(this.createLeaseRefresher(),
+        return createStreamsLeaseCoordinator(metricsFactory, null);
+    }
+
+    @Override
+    public boolean supportsMultiStream() {
+        return true;
+    }
+
+    @Override
+    public LeaseCoordinator createLeaseCoordinator(@NonNull final MetricsFactory metricsFactory,
+            @NonNull final Collection<StreamConfig> streamConfigs) {
+        return createStreamsLeaseCoordinator(metricsFactory,
+                streamConfigs.stream().map(StreamConfig::streamName).collect(Collectors.toList()));
+    }
+
+    private LeaseCoordinator createStreamsLeaseCoordinator(final MetricsFactory metricsFactory,
+            final Collection<String> streamNames) {
+        return new DynamoDBLeaseCoordinator(this.createLeaseRefresher(metricsFactory),
                 workerIdentifier,
                 failoverTimeMillis,
                 epsilonMillis,
@@ -305,30 +418,72 @@ public class DynamoDBLeaseManagementFactory implements LeaseManagementFactory {
                 maxLeaseRenewalThreads,
                 initialLeaseTableReadCapacity,
                 initialLeaseTableWriteCapacity,
+                leaseRenewalBatchSize,
+                this.createLeaseChangeSource(),
+                fullLeaseTableScanIntervalMillis,
+                maxConcurrentLeaseTakes,
+                leaseWeigher,
+                streamNames,
                 metricsFactory);
     }
 
+    /**
+     * @return the source of the changes of the lease table, null if the lease table is scanned instead
+     */
+    public LeaseChangeSource createLeaseChangeSource() {
+        if (dynamoDBStreamsClient == null) {
+            return null;
+        }
+        return new DynamoDBStreamsLeaseChangeSource(tableName, dynamoDBClient, dynamoDBStreamsClient,
+                new DynamoDBLeaseSerializer(), dynamoDbRequestTimeout);
+    }
+
     @Override
     public ShardSyncTaskManager createShardSyncTaskManager(@NonNull final MetricsFactory metricsFactory) {
         return new ShardSyncTaskManager(this.createShardDetector(),
-                this.createLeaseRefresher(),
+                this.createLeaseRefresher(metricsFactory),
                 initialPositionInStream,
                 cleanupLeasesUponShardCompletion,
                 ignoreUnexpectedChildShards,
                 shardSyncIntervalMillis,
                 executorService,
                 hierarchicalShardSyncer,
+                incrementalShardSync,
+                metricsFactory);
+    }
+
+    @Override
+    public ShardSyncTaskManager createShardSyncTaskManager(@NonNull final MetricsFactory metricsFactory,
+            @NonNull final StreamConfig streamConfig) {
+        return new ShardSyncTaskManager(createShardDetector(streamConfig.streamName()),
+                new StreamLeaseRefresher(createLeaseRefresher(metricsFactory), streamConfig.streamName(),
+                        sharedLeaseTableScan),
+                streamConfig.initialPositionInStreamExtended(),
+                cleanupLeasesUponShardCompletion,
+                ignoreUnexpectedChildShards,
+                shardSyncIntervalMillis,
+                executorService,
+                hierarchicalShardSyncer,
+                incrementalShardSync,
                 metricsFactory);
     }
 
     @Override
     public DynamoDBLeaseRefresher createLeaseRefresher() {
+        return createLeaseRefresher(new NullMetricsFactory());
+    }
+
+    private DynamoDBLeaseRefresher createLeaseRefresher(final MetricsFactory metricsFactory) {
         return new DynamoDBLeaseRefresher(tableName, dynamoDBClient, new DynamoDBLeaseSerializer(), consistentReads,
-                tableCreatorCallback, dynamoDbRequestTimeout);
+                tableCreatorCallback, dynamoDbRequestTimeout, leaseTableScanSegments, metricsFactory);
     }
 
     @Override
     public ShardDetector createShardDetector() {
+        return createShardDetector(streamName);
+    }
+
+    private ShardDetector createShardDetector(final String streamName) {
         return new KinesisShardDetector(kinesisClient, streamName, listShardsBackoffTimeMillis,
                 maxListShardsRetryAttempts, listShardsCacheAllowedAgeInSeconds, maxCacheMissesBeforeReload,
                 cacheMissWarningModulus, dynamoDbRequestTimeout);
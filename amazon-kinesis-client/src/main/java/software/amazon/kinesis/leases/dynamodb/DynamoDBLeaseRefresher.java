@@ -16,14 +16,25 @@ package software.amazon.kinesis.leases.dynamodb;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValueUpdate;
@@ -44,6 +55,10 @@ import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 import software.amazon.awssdk.utils.CollectionUtils;
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
@@ -55,6 +70,11 @@ import software.amazon.kinesis.leases.LeaseSerializer;
 import software.amazon.kinesis.leases.exceptions.DependencyException;
 import software.amazon.kinesis.leases.exceptions.InvalidStateException;
 import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
+import software.amazon.kinesis.metrics.MetricsFactory;
+import software.amazon.kinesis.metrics.MetricsLevel;
+import software.amazon.kinesis.metrics.MetricsScope;
+import software.amazon.kinesis.metrics.MetricsUtil;
+import software.amazon.kinesis.metrics.NullMetricsFactory;
 import software.amazon.kinesis.retrieval.AWSExceptionManager;
 import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
 
@@ -64,6 +84,15 @@ import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
 @Slf4j
 @KinesisClientInternalApi
 public class DynamoDBLeaseRefresher implements LeaseRefresher {
+    /**
+     * The maximum number of leases that can be renewed in a single transaction.
+     */
+    public static final int MAX_TRANSACTION_ITEMS = 25;
+
+    private static final String LIST_LEASES_OPERATION = "ListLeases";
+    private static final String SCAN_SEGMENT_TIME_METRIC = "ScanSegment.Time";
+    private static final ExecutorService SCAN_SEGMENT_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("LeaseTableScanSegment-%04d").setDaemon(true).build());
 
     protected final String table;
     protected final DynamoDbAsyncClient dynamoDBClient;
@@ -72,6 +101,8 @@ public class DynamoDBLeaseRefresher implements LeaseRefresher {
     private final TableCreatorCallback tableCreatorCallback;
 
     private final Duration dynamoDbRequestTimeout;
+    private final int scanSegments;
+    private final MetricsFactory metricsFactory;
 
     private boolean newTableCreated = false;
 
@@ -121,12 +152,37 @@ public class DynamoDBLeaseRefresher implements LeaseRefresher {
     public DynamoDBLeaseRefresher(final String table, final DynamoDbAsyncClient dynamoDBClient,
                                   final LeaseSerializer serializer, final boolean consistentReads,
                                   @NonNull final TableCreatorCallback tableCreatorCallback, Duration dynamoDbRequestTimeout) {
+        this(table, dynamoDBClient, serializer, consistentReads, tableCreatorCallback, dynamoDbRequestTimeout, 1,
+                new NullMetricsFactory());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param table
+     * @param dynamoDBClient
+     * @param serializer
+     * @param consistentReads
+     * @param tableCreatorCallback
+     * @param dynamoDbRequestTimeout
+     * @param scanSegments number of segments of the lease table that are scanned in parallel when listing leases
+     * @param metricsFactory
+     */
+    public DynamoDBLeaseRefresher(final String table, final DynamoDbAsyncClient dynamoDBClient,
+                                  final LeaseSerializer serializer, final boolean consistentReads,
+                                  @NonNull final TableCreatorCallback tableCreatorCallback, Duration dynamoDbRequestTimeout,
+                                  final int scanSegments, @NonNull final MetricsFactory metricsFactory) {
+        if (scanSegments <= 0) {
+            throw new IllegalArgumentException("scanSegments should be >= 1");
+        }
         this.table = table;
         this.dynamoDBClient = dynamoDBClient;
         this.serializer = serializer;
         this.consistentReads = consistentReads;
         this.tableCreatorCallback = tableCreatorCallback;
         this.dynamoDbRequestTimeout = dynamoDbRequestTimeout;
+        this.scanSegments = scanSegments;
+        this.metricsFactory = metricsFactory;
     }
 
     /**
@@ -279,42 +335,25 @@ public class DynamoDBLeaseRefresher implements LeaseRefresher {
      * @throws ProvisionedThroughputException if DynamoDB scan fail due to exceeded capacity
      */
     List<Lease> list(Integer limit) throws DependencyException, InvalidStateException, ProvisionedThroughputException {
-        log.debug("Listing leases from table {}", table);
-
-        ScanRequest.Builder scanRequestBuilder = ScanRequest.builder().tableName(table);
-        if (limit != null) {
-            scanRequestBuilder = scanRequestBuilder.limit(limit);
-        }
-        ScanRequest scanRequest = scanRequestBuilder.build();
+        log.debug("Listing leases from table {} in {} segments", table, scanSegments);
 
         final AWSExceptionManager exceptionManager = createExceptionManager();
         exceptionManager.add(ResourceNotFoundException.class, t ->  t);
         exceptionManager.add(ProvisionedThroughputExceededException.class, t -> t);
 
+        final MetricsScope scope = MetricsUtil.createMetricsWithOperation(metricsFactory, LIST_LEASES_OPERATION);
+        final long startTime = System.currentTimeMillis();
+        boolean success = false;
         try {
             try {
-                ScanResponse scanResult = FutureUtils.resolveOrCancelFuture(dynamoDBClient.scan(scanRequest), dynamoDbRequestTimeout);
                 List<Lease> result = new ArrayList<>();
-
-                while (scanResult != null) {
-                    for (Map<String, AttributeValue> item : scanResult.items()) {
-                        log.debug("Got item {} from DynamoDB.", item.toString());
-                        result.add(serializer.fromDynamoRecord(item));
-                    }
-
-                    Map<String, AttributeValue> lastEvaluatedKey = scanResult.lastEvaluatedKey();
-                    if (CollectionUtils.isNullOrEmpty(lastEvaluatedKey)) {
-                        // Signify that we're done.
-                        scanResult = null;
-                        log.debug("lastEvaluatedKey was null - scan finished.");
-                    } else {
-                        // Make another request, picking up where we left off.
-                        scanRequest = scanRequest.toBuilder().exclusiveStartKey(lastEvaluatedKey).build();
-                        log.debug("lastEvaluatedKey was {}, continuing scan.", lastEvaluatedKey);
-                        scanResult = FutureUtils.resolveOrCancelFuture(dynamoDBClient.scan(scanRequest), dynamoDbRequestTimeout);
-                    }
+                for (SegmentScan segmentScan : scanSegments(limit)) {
+                    result.addAll(segmentScan.leases);
+                    scope.addData(SCAN_SEGMENT_TIME_METRIC, segmentScan.latencyMillis, StandardUnit.MILLISECONDS,
+                            MetricsLevel.DETAILED);
                 }
                 log.debug("Listed {} leases from table {}", result.size(), table);
+                success = true;
                 return result;
             } catch (ExecutionException e) {
                 throw exceptionManager.apply(e.getCause());
@@ -328,9 +367,93 @@ public class DynamoDBLeaseRefresher implements LeaseRefresher {
             throw new ProvisionedThroughputException(e);
         } catch (DynamoDbException | TimeoutException e) {
             throw new DependencyException(e);
+        } finally {
+            MetricsUtil.addSuccessAndLatency(scope, success, startTime, MetricsLevel.DETAILED);
+            MetricsUtil.endScope(scope);
         }
     }
 
+    /**
+     * Scans every segment of the table. Each segment is scanned by its own sequence of requests on its own thread, so
+     * a slow or throttled segment doesn't hold up the pages of the others.
+     */
+    private List<SegmentScan> scanSegments(final Integer limit)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        if (scanSegments == 1) {
+            return Collections.singletonList(scanSegment(scanRequest(null, limit)));
+        }
+
+        final List<Future<SegmentScan>> segmentFutures = new ArrayList<>(scanSegments);
+        try {
+            for (int segment = 0; segment < scanSegments; segment++) {
+                final ScanRequest scanRequest = scanRequest(segment, limit);
+                segmentFutures.add(SCAN_SEGMENT_EXECUTOR.submit(() -> scanSegment(scanRequest)));
+            }
+
+            final List<SegmentScan> segmentScans = new ArrayList<>(scanSegments);
+            for (Future<SegmentScan> segmentFuture : segmentFutures) {
+                try {
+                    segmentScans.add(segmentFuture.get());
+                } catch (ExecutionException e) {
+                    // Surface the failure of the segment as if its request had been made on this thread
+                    if (e.getCause() instanceof ExecutionException) {
+                        throw (ExecutionException) e.getCause();
+                    } else if (e.getCause() instanceof TimeoutException) {
+                        throw (TimeoutException) e.getCause();
+                    } else if (e.getCause() instanceof InterruptedException) {
+                        throw (InterruptedException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+            return segmentScans;
+        } finally {
+            // Don't leave the other segments running if one of them failed
+            segmentFutures.forEach(segmentFuture -> segmentFuture.cancel(true));
+        }
+    }
+
+    private ScanRequest scanRequest(final Integer segment, final Integer limit) {
+        ScanRequest.Builder scanRequestBuilder = ScanRequest.builder().tableName(table);
+        if (limit != null) {
+            scanRequestBuilder = scanRequestBuilder.limit(limit);
+        }
+        if (segment != null) {
+            scanRequestBuilder = scanRequestBuilder.segment(segment).totalSegments(scanSegments);
+        }
+        return scanRequestBuilder.build();
+    }
+
+    private SegmentScan scanSegment(ScanRequest scanRequest)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        final long startTime = System.currentTimeMillis();
+        final List<Lease> leases = new ArrayList<>();
+        while (true) {
+            ScanResponse scanResult = FutureUtils.resolveOrCancelFuture(dynamoDBClient.scan(scanRequest),
+                    dynamoDbRequestTimeout);
+            for (Map<String, AttributeValue> item : scanResult.items()) {
+                log.debug("Got item {} from DynamoDB.", item.toString());
+                leases.add(serializer.fromDynamoRecord(item));
+            }
+
+            Map<String, AttributeValue> lastEvaluatedKey = scanResult.lastEvaluatedKey();
+            if (CollectionUtils.isNullOrEmpty(lastEvaluatedKey)) {
+                // Signify that we're done.
+                log.debug("lastEvaluatedKey was null - scan finished.");
+                return new SegmentScan(leases, System.currentTimeMillis() - startTime);
+            }
+            // Make another request, picking up where we left off.
+            scanRequest = scanRequest.toBuilder().exclusiveStartKey(lastEvaluatedKey).build();
+            log.debug("lastEvaluatedKey was {}, continuing scan.", lastEvaluatedKey);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class SegmentScan {
+        private final List<Lease> leases;
+        private final long latencyMillis;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -406,9 +529,11 @@ public class DynamoDBLeaseRefresher implements LeaseRefresher {
             throws DependencyException, InvalidStateException, ProvisionedThroughputException {
         log.debug("Renewing lease with key {}", lease.leaseKey());
 
+        Map<String, AttributeValueUpdate> updates = new HashMap<>(serializer.getDynamoLeaseCounterUpdate(lease));
+        updates.putAll(serializer.getDynamoLeaseThroughputUpdate(lease));
         UpdateItemRequest request = UpdateItemRequest.builder().tableName(table).key(serializer.getDynamoHashKey(lease))
                 .expected(serializer.getDynamoLeaseCounterExpectation(lease))
-                .attributeUpdates(serializer.getDynamoLeaseCounterUpdate(lease)).build();
+                .attributeUpdates(updates).build();
 
         final AWSExceptionManager exceptionManager = createExceptionManager();
         exceptionManager.add(ConditionalCheckFailedException.class, t ->  t);
@@ -446,6 +571,96 @@ public class DynamoDBLeaseRefresher implements LeaseRefresher {
         return true;
     }
 
+    /**
+     * @return whether the serializer of this refresher supports the transactional updates of several leases
+     */
+    public boolean supportsTransactionalUpdates() {
+        return serializer.supportsTransactionalUpdates();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The leases are renewed with a single TransactWriteItems request. Retries of the request by the SDK reuse its
+     * client request token, so they can't fail spuriously like retries of {@link #renewLease(Lease)} can. If the
+     * serializer doesn't support transactional updates, no lease is renewed and false is returned.
+     * </p>
+     */
+    @Override
+    public boolean renewLeases(@NonNull final Collection<Lease> leases)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        if (!supportsTransactionalUpdates()) {
+            return false;
+        }
+        return transactLeaseCounterUpdates(leases, serializer::getDynamoLeaseCounterTransactionUpdate, "renew");
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The leases are updated with a single TransactWriteItems request, which costs one write per lease like
+     * {@link #updateLease(Lease)} but only one round trip to DynamoDB. If the serializer doesn't support transactional
+     * updates, no lease is updated and false is returned.
+     * </p>
+     */
+    @Override
+    public boolean updateLeases(@NonNull final Collection<Lease> leases)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        if (!supportsTransactionalUpdates()) {
+            return false;
+        }
+        return transactLeaseCounterUpdates(leases, serializer::getDynamoUpdateLeaseTransactionUpdate, "update");
+    }
+
+    private boolean transactLeaseCounterUpdates(final Collection<Lease> leases,
+            final Function<Lease, Update> updateFunction, final String operation)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        if (leases.isEmpty()) {
+            return true;
+        }
+        if (leases.size() > MAX_TRANSACTION_ITEMS) {
+            throw new IllegalArgumentException(String.format("Can't %s more than %d leases in a transaction, got %d",
+                    operation, MAX_TRANSACTION_ITEMS, leases.size()));
+        }
+        log.debug("Running {} of {} leases in a transaction", operation, leases.size());
+
+        final List<TransactWriteItem> items = new ArrayList<>(leases.size());
+        for (Lease lease : leases) {
+            items.add(TransactWriteItem.builder()
+                    .update(updateFunction.apply(lease).toBuilder().tableName(table).build())
+                    .build());
+        }
+        final TransactWriteItemsRequest request = TransactWriteItemsRequest.builder().transactItems(items).build();
+
+        final AWSExceptionManager exceptionManager = createExceptionManager();
+        exceptionManager.add(TransactionCanceledException.class, t -> t);
+        exceptionManager.add(ProvisionedThroughputExceededException.class, t -> t);
+        exceptionManager.add(ResourceNotFoundException.class, t -> t);
+
+        try {
+            try {
+                FutureUtils.resolveOrCancelFuture(dynamoDBClient.transactWriteItems(request), dynamoDbRequestTimeout);
+            } catch (ExecutionException e) {
+                throw exceptionManager.apply(e.getCause());
+            } catch (InterruptedException e) {
+                throw new DependencyException(e);
+            }
+        } catch (TransactionCanceledException e) {
+            log.debug("Transaction to {} {} leases was canceled: {}", operation, leases.size(),
+                    e.cancellationReasons());
+            return false;
+        } catch (DynamoDbException | TimeoutException e) {
+            throw convertAndRethrowExceptions(operation, leases.iterator().next().leaseKey(), e);
+        }
+
+        for (Lease lease : leases) {
+            lease.leaseCounter(lease.leaseCounter() + 1);
+        }
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -16,10 +16,13 @@ package software.amazon.kinesis.leases.dynamodb;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentNavigableMap;
@@ -30,6 +33,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -37,8 +41,11 @@ import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.leases.Lease;
+import software.amazon.kinesis.leases.LeaseManagementConfig;
 import software.amazon.kinesis.leases.LeaseRefresher;
 import software.amazon.kinesis.leases.LeaseRenewer;
+import software.amazon.kinesis.leases.LeaseThroughput;
+import software.amazon.kinesis.leases.LeaseThroughputTracker;
 import software.amazon.kinesis.leases.exceptions.DependencyException;
 import software.amazon.kinesis.leases.exceptions.InvalidStateException;
 import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
@@ -61,6 +68,8 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
     private final long leaseDurationNanos;
     private final ExecutorService executorService;
     private final MetricsFactory metricsFactory;
+    private final int leaseRenewalBatchSize;
+    private final LeaseThroughputTracker leaseThroughputTracker;
 
     private final ConcurrentNavigableMap<String, Lease> ownedLeases = new ConcurrentSkipListMap<>();
 
@@ -79,11 +88,45 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
     public DynamoDBLeaseRenewer(final LeaseRefresher leaseRefresher, final String workerIdentifier,
             final long leaseDurationMillis, final ExecutorService executorService,
             final MetricsFactory metricsFactory) {
+        this(leaseRefresher, workerIdentifier, leaseDurationMillis, executorService, metricsFactory,
+                LeaseManagementConfig.DEFAULT_LEASE_RENEWAL_BATCH_SIZE, (LeaseThroughputTracker) null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param leaseRefresher
+     *            LeaseRefresher to use
+     * @param workerIdentifier
+     *            identifier of this worker
+     * @param leaseDurationMillis
+     *            duration of a lease in milliseconds
+     * @param executorService
+     *            ExecutorService to use for renewing leases in parallel
+     * @param leaseRenewalBatchSize
+     *            maximum number of leases renewed in a single transaction, 1 renews every lease on its own
+     * @param leaseThroughputTracker
+     *            tracker of the throughput of the leases, which is persisted when they are renewed, null to not
+     *            persist it
+     */
+    public DynamoDBLeaseRenewer(final LeaseRefresher leaseRefresher, final String workerIdentifier,
+            final long leaseDurationMillis, final ExecutorService executorService,
+            final MetricsFactory metricsFactory, final int leaseRenewalBatchSize,
+            final LeaseThroughputTracker leaseThroughputTracker) {
+        Validate.inclusiveBetween(1, DynamoDBLeaseRefresher.MAX_TRANSACTION_ITEMS, leaseRenewalBatchSize,
+                "leaseRenewalBatchSize must be between 1 and " + DynamoDBLeaseRefresher.MAX_TRANSACTION_ITEMS);
+        if (leaseRenewalBatchSize > 1 && leaseRefresher instanceof DynamoDBLeaseRefresher
+                && !((DynamoDBLeaseRefresher) leaseRefresher).supportsTransactionalUpdates()) {
+            throw new IllegalArgumentException(
+                    "leaseRenewalBatchSize must be 1 when the lease serializer doesn't support transactional updates");
+        }
         this.leaseRefresher = leaseRefresher;
         this.workerIdentifier = workerIdentifier;
         this.leaseDurationNanos = TimeUnit.MILLISECONDS.toNanos(leaseDurationMillis);
         this.executorService = executorService;
         this.metricsFactory = metricsFactory;
+        this.leaseRenewalBatchSize = leaseRenewalBatchSize;
+        this.leaseThroughputTracker = leaseThroughputTracker;
     }
 
     /**
@@ -111,24 +154,34 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
          * to getCurrentlyHeldLeases. They'll still cross paths, but they won't interleave their executions.
          */
             int lostLeases = 0;
-            List<Future<Boolean>> renewLeaseTasks = new ArrayList<>();
+            List<List<Lease>> batches = new ArrayList<>();
+            List<Lease> batch = new ArrayList<>(leaseRenewalBatchSize);
             for (Lease lease : ownedLeases.descendingMap().values()) {
-                renewLeaseTasks.add(executorService.submit(new RenewLeaseTask(lease)));
+                batch.add(lease);
+                if (batch.size() == leaseRenewalBatchSize) {
+                    batches.add(batch);
+                    batch = new ArrayList<>(leaseRenewalBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.add(batch);
+            }
+            List<Future<Integer>> renewLeaseTasks = new ArrayList<>(batches.size());
+            for (List<Lease> leases : batches) {
+                renewLeaseTasks.add(executorService.submit(new RenewLeaseTask(leases)));
             }
             int leasesInUnknownState = 0;
             Exception lastException = null;
-            for (Future<Boolean> renewLeaseTask : renewLeaseTasks) {
+            for (int i = 0; i < renewLeaseTasks.size(); i++) {
                 try {
-                    if (!renewLeaseTask.get()) {
-                        lostLeases++;
-                    }
+                    lostLeases += renewLeaseTasks.get(i).get();
                 } catch (InterruptedException e) {
                     log.info("Interrupted while waiting for a lease to renew.");
-                    leasesInUnknownState += 1;
+                    leasesInUnknownState += batches.get(i).size();
                     Thread.currentThread().interrupt();
                 } catch (ExecutionException e) {
                     log.error("Encountered an exception while renewing a lease.", e.getCause());
-                    leasesInUnknownState += 1;
+                    leasesInUnknownState += batches.get(i).size();
                     lastException = e;
                 }
             }
@@ -149,13 +202,99 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
         }
     }
 
+    /**
+     * Renews a batch of leases and returns the number of leases that were lost.
+     */
     @RequiredArgsConstructor
-    private class RenewLeaseTask implements Callable<Boolean> {
-        private final Lease lease;
+    private class RenewLeaseTask implements Callable<Integer> {
+        private final List<Lease> leases;
 
         @Override
-        public Boolean call() throws Exception {
-            return renewLease(lease);
+        public Integer call() throws Exception {
+            if (leases.size() > 1 && renewLeasesInTransaction(leases)) {
+                return 0;
+            }
+            // A failed transaction doesn't tell which leases were lost, so every lease is renewed on its own
+            int lostLeases = 0;
+            for (Lease lease : leases) {
+                if (!renewLease(lease)) {
+                    lostLeases++;
+                }
+            }
+            return lostLeases;
+        }
+    }
+
+    /**
+     * Renews all the leases in a single transaction, holding the locks of all of them.
+     *
+     * @param leases the leases to renew
+     * @return true if all the leases were renewed, false if they need to be renewed one by one
+     */
+    private boolean renewLeasesInTransaction(List<Lease> leases) {
+        final MetricsScope scope = MetricsUtil.createMetricsWithOperation(metricsFactory, RENEW_ALL_LEASES_DIMENSION);
+
+        boolean success = false;
+        long startTime = System.currentTimeMillis();
+        try {
+            final boolean renewedLeases = renewLeasesInTransaction(leases, 0);
+            success = true;
+            if (renewedLeases && log.isDebugEnabled()) {
+                log.debug("Worker {} successfully renewed {} leases in a transaction", workerIdentifier,
+                        leases.size());
+            }
+            return renewedLeases;
+        } catch (DependencyException | InvalidStateException | ProvisionedThroughputException e) {
+            log.info("Worker {} could not renew {} leases in a transaction, renewing them one by one",
+                    workerIdentifier, leases.size(), e);
+            return false;
+        } finally {
+            MetricsUtil.addWorkerIdentifier(scope, workerIdentifier);
+            MetricsUtil.addSuccessAndLatency(scope, "RenewLeasesInTransaction", success, startTime,
+                    MetricsLevel.DETAILED);
+            MetricsUtil.endScope(scope);
+        }
+    }
+
+    private boolean renewLeasesInTransaction(List<Lease> leases, int lockedLeases)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        if (lockedLeases < leases.size()) {
+            // Only ever hold the locks of several leases here, in the same order, so that they can't deadlock
+            synchronized (leases.get(lockedLeases)) {
+                return renewLeasesInTransaction(leases, lockedLeases + 1);
+            }
+        }
+        final long now = System.nanoTime();
+        for (Lease lease : leases) {
+            // Expired leases aren't renewed during regular renewals, leave them to renewLease
+            if (lease.isExpired(leaseDurationNanos, now)) {
+                return false;
+            }
+        }
+        for (Lease lease : leases) {
+            updateThroughput(lease);
+        }
+        if (!leaseRefresher.renewLeases(leases)) {
+            return false;
+        }
+        final long renewedNanos = System.nanoTime();
+        for (Lease lease : leases) {
+            lease.lastCounterIncrementNanos(renewedNanos);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the latest throughput of the lease, so that it is persisted when the lease is renewed. Must be called while
+     * holding the lock of the lease.
+     */
+    private void updateThroughput(Lease lease) {
+        if (leaseThroughputTracker == null) {
+            return;
+        }
+        LeaseThroughput throughput = leaseThroughputTracker.throughput(lease.leaseKey());
+        if (throughput != null) {
+            lease.throughput(throughput);
         }
     }
 
@@ -180,6 +319,7 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
                         // ShutdownException).
                         boolean isLeaseExpired = lease.isExpired(leaseDurationNanos, System.nanoTime());
                         if (renewEvenIfExpired || !isLeaseExpired) {
+                            updateThroughput(lease);
                             renewedLease = leaseRefresher.renewLease(lease);
                         }
                         if (renewedLease) {
@@ -194,6 +334,9 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
                     } else {
                         log.info("Worker {} lost lease with key {}", workerIdentifier, leaseKey);
                         ownedLeases.remove(leaseKey);
+                        if (leaseThroughputTracker != null) {
+                            leaseThroughputTracker.remove(leaseKey);
+                        }
                     }
 
                     success = true;
@@ -343,6 +486,73 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean updateLeases(@NonNull Collection<Lease> leases, @NonNull String operation)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        // Lock the leases in the same order as renewLeases does, so that they can't deadlock
+        final NavigableMap<String, Lease> updates = new TreeMap<>(Comparator.reverseOrder());
+        final Map<String, Lease> authoritativeLeases = new HashMap<>();
+        for (Lease lease : leases) {
+            verifyNotNull(lease.leaseKey(), "leaseKey cannot be null");
+            verifyNotNull(lease.concurrencyToken(), "concurrencyToken cannot be null");
+            final String leaseKey = lease.leaseKey();
+            final Lease authoritativeLease = ownedLeases.get(leaseKey);
+            if (authoritativeLease == null
+                    || !authoritativeLease.concurrencyToken().equals(lease.concurrencyToken())) {
+                log.info("Worker {} could not update lease with key {} in a transaction because it does not hold it",
+                        workerIdentifier, leaseKey);
+                return false;
+            }
+            if (updates.put(leaseKey, lease) != null) {
+                throw new IllegalArgumentException("Lease with key " + leaseKey + " can only be updated once");
+            }
+            authoritativeLeases.put(leaseKey, authoritativeLease);
+        }
+        if (updates.isEmpty()) {
+            return true;
+        }
+
+        final MetricsScope scope = MetricsUtil.createMetricsWithOperation(metricsFactory, operation);
+        long startTime = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            final List<Lease> lockOrder = new ArrayList<>(updates.size());
+            for (String leaseKey : updates.keySet()) {
+                lockOrder.add(authoritativeLeases.get(leaseKey));
+            }
+            final boolean updatedLeases = updateLeasesInTransaction(lockOrder, updates, 0);
+            success = true;
+            return updatedLeases;
+        } finally {
+            MetricsUtil.addSuccessAndLatency(scope, "UpdateLeases", success, startTime, MetricsLevel.DETAILED);
+            MetricsUtil.endScope(scope);
+        }
+    }
+
+    private boolean updateLeasesInTransaction(List<Lease> authoritativeLeases, Map<String, Lease> updates,
+            int lockedLeases) throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        if (lockedLeases < authoritativeLeases.size()) {
+            synchronized (authoritativeLeases.get(lockedLeases)) {
+                return updateLeasesInTransaction(authoritativeLeases, updates, lockedLeases + 1);
+            }
+        }
+        for (Lease authoritativeLease : authoritativeLeases) {
+            authoritativeLease.update(updates.get(authoritativeLease.leaseKey()));
+        }
+        // A failed transaction doesn't tell which leases were lost, the caller finds out by updating them one by one
+        if (!leaseRefresher.updateLeases(authoritativeLeases)) {
+            return false;
+        }
+        final long updatedNanos = System.nanoTime();
+        for (Lease authoritativeLease : authoritativeLeases) {
+            authoritativeLease.lastCounterIncrementNanos(updatedNanos);
+        }
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -374,6 +584,9 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
     @Override
     public void clearCurrentlyHeldLeases() {
         ownedLeases.clear();
+        if (leaseThroughputTracker != null) {
+            leaseThroughputTracker.clear();
+        }
     }
 
     /**
@@ -383,6 +596,9 @@ public class DynamoDBLeaseRenewer implements LeaseRenewer {
     @Override
     public void dropLease(Lease lease) {
         ownedLeases.remove(lease.leaseKey());
+        if (leaseThroughputTracker != null) {
+            leaseThroughputTracker.remove(lease.leaseKey());
+        }
     }
 
     /**
@@ -16,6 +16,7 @@ package software.amazon.kinesis.leases.dynamodb;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,9 +31,11 @@ import software.amazon.awssdk.services.dynamodb.model.ExpectedAttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.KeyType;
 import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.Update;
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.leases.DynamoUtils;
 import software.amazon.kinesis.leases.Lease;
+import software.amazon.kinesis.leases.LeaseThroughput;
 import software.amazon.kinesis.leases.LeaseSerializer;
 import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
 
@@ -51,6 +54,13 @@ public class DynamoDBLeaseSerializer implements LeaseSerializer {
     private static final String PENDING_CHECKPOINT_SEQUENCE_KEY = "pendingCheckpoint";
     private static final String PENDING_CHECKPOINT_SUBSEQUENCE_KEY = "pendingCheckpointSubSequenceNumber";
     private static final String PARENT_SHARD_ID_KEY = "parentShardId";
+    private static final String THROUGHPUT_BYTES_KEY = "throughputBytesPerSecond";
+    private static final String THROUGHPUT_RECORDS_KEY = "throughputRecordsPerSecond";
+    private static final String MILLIS_BEHIND_LATEST_KEY = "millisBehindLatest";
+
+    private static final String LEASE_COUNTER_NAME = "#leaseCounter";
+    private static final String EXPECTED_LEASE_COUNTER_VALUE = ":expectedLeaseCounter";
+    private static final String NEW_LEASE_COUNTER_VALUE = ":newLeaseCounter";
 
     @Override
     public Map<String, AttributeValue> toDynamoRecord(final Lease lease) {
@@ -75,6 +85,12 @@ public class DynamoDBLeaseSerializer implements LeaseSerializer {
             result.put(PENDING_CHECKPOINT_SUBSEQUENCE_KEY, DynamoUtils.createAttributeValue(lease.pendingCheckpoint().subSequenceNumber()));
         }
 
+        if (lease.throughput() != null) {
+            result.put(THROUGHPUT_BYTES_KEY, DynamoUtils.createAttributeValue(lease.throughput().bytesPerSecond()));
+            result.put(THROUGHPUT_RECORDS_KEY, DynamoUtils.createAttributeValue(lease.throughput().recordsPerSecond()));
+            result.put(MILLIS_BEHIND_LATEST_KEY, DynamoUtils.createAttributeValue(lease.throughput().millisBehindLatest()));
+        }
+
         return result;
     }
 
@@ -101,6 +117,14 @@ public class DynamoDBLeaseSerializer implements LeaseSerializer {
             );
         }
 
+        Long throughputBytes = DynamoUtils.safeGetLong(dynamoRecord, THROUGHPUT_BYTES_KEY);
+        Long throughputRecords = DynamoUtils.safeGetLong(dynamoRecord, THROUGHPUT_RECORDS_KEY);
+        if (throughputBytes != null && throughputRecords != null) {
+            Long millisBehindLatest = DynamoUtils.safeGetLong(dynamoRecord, MILLIS_BEHIND_LATEST_KEY);
+            result.throughput(new LeaseThroughput(throughputBytes, throughputRecords,
+                    millisBehindLatest == null ? 0L : millisBehindLatest));
+        }
+
         return result;
     }
 
@@ -174,6 +198,46 @@ public class DynamoDBLeaseSerializer implements LeaseSerializer {
         return result;
     }
 
+    @Override
+    public Map<String, AttributeValueUpdate> getDynamoLeaseThroughputUpdate(final Lease lease) {
+        Map<String, AttributeValueUpdate> result = new HashMap<>();
+
+        if (lease.throughput() != null) {
+            result.put(THROUGHPUT_BYTES_KEY, putUpdate(DynamoUtils.createAttributeValue(lease.throughput().bytesPerSecond())));
+            result.put(THROUGHPUT_RECORDS_KEY, putUpdate(DynamoUtils.createAttributeValue(lease.throughput().recordsPerSecond())));
+            result.put(MILLIS_BEHIND_LATEST_KEY, putUpdate(DynamoUtils.createAttributeValue(lease.throughput().millisBehindLatest())));
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean supportsTransactionalUpdates() {
+        return true;
+    }
+
+    @Override
+    public Update getDynamoLeaseCounterTransactionUpdate(final Lease lease) {
+        Map<String, String> names = new HashMap<>();
+        names.put(LEASE_COUNTER_NAME, LEASE_COUNTER_KEY);
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(EXPECTED_LEASE_COUNTER_VALUE, DynamoUtils.createAttributeValue(lease.leaseCounter()));
+        values.put(NEW_LEASE_COUNTER_VALUE, DynamoUtils.createAttributeValue(lease.leaseCounter() + 1));
+        StringBuilder updateExpression = new StringBuilder("SET " + LEASE_COUNTER_NAME + " = " + NEW_LEASE_COUNTER_VALUE);
+
+        for (Map.Entry<String, AttributeValueUpdate> update : getDynamoLeaseThroughputUpdate(lease).entrySet()) {
+            names.put("#" + update.getKey(), update.getKey());
+            values.put(":" + update.getKey(), update.getValue().value());
+            updateExpression.append(", #").append(update.getKey()).append(" = :").append(update.getKey());
+        }
+
+        return Update.builder().key(getDynamoHashKey(lease))
+                .conditionExpression(LEASE_COUNTER_NAME + " = " + EXPECTED_LEASE_COUNTER_VALUE)
+                .updateExpression(updateExpression.toString())
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values).build();
+    }
+
     @Override
     public Map<String, AttributeValueUpdate> getDynamoTakeLeaseUpdate(final Lease lease, String owner) {
         Map<String, AttributeValueUpdate> result = new HashMap<>();
@@ -219,6 +283,33 @@ public class DynamoDBLeaseSerializer implements LeaseSerializer {
         return result;
     }
 
+    @Override
+    public Update getDynamoUpdateLeaseTransactionUpdate(final Lease lease) {
+        Map<String, String> names = new HashMap<>();
+        names.put(LEASE_COUNTER_NAME, LEASE_COUNTER_KEY);
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(EXPECTED_LEASE_COUNTER_VALUE, DynamoUtils.createAttributeValue(lease.leaseCounter()));
+        values.put(NEW_LEASE_COUNTER_VALUE, DynamoUtils.createAttributeValue(lease.leaseCounter() + 1));
+        StringBuilder setExpression = new StringBuilder("SET " + LEASE_COUNTER_NAME + " = " + NEW_LEASE_COUNTER_VALUE);
+        StringBuilder removeExpression = new StringBuilder();
+
+        for (Map.Entry<String, AttributeValueUpdate> update : getDynamoUpdateLeaseUpdate(lease).entrySet()) {
+            names.put("#" + update.getKey(), update.getKey());
+            if (update.getValue().action() == AttributeAction.DELETE) {
+                removeExpression.append(removeExpression.length() == 0 ? " REMOVE #" : ", #").append(update.getKey());
+            } else {
+                values.put(":" + update.getKey(), update.getValue().value());
+                setExpression.append(", #").append(update.getKey()).append(" = :").append(update.getKey());
+            }
+        }
+
+        return Update.builder().key(getDynamoHashKey(lease))
+                .conditionExpression(LEASE_COUNTER_NAME + " = " + EXPECTED_LEASE_COUNTER_VALUE)
+                .updateExpression(setExpression.append(removeExpression).toString())
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values).build();
+    }
+
     @Override
     public Collection<KeySchemaElement> getKeySchema() {
         List<KeySchemaElement> keySchema = new ArrayList<>();
@@ -19,19 +19,30 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.leases.Lease;
+import software.amazon.kinesis.leases.LeaseChange;
+import software.amazon.kinesis.leases.LeaseChangeSource;
 import software.amazon.kinesis.leases.LeaseRefresher;
 import software.amazon.kinesis.leases.LeaseTaker;
+import software.amazon.kinesis.leases.LeaseWeigher;
+import software.amazon.kinesis.leases.StreamLeaseKey;
 import software.amazon.kinesis.leases.exceptions.DependencyException;
 import software.amazon.kinesis.leases.exceptions.InvalidStateException;
 import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
@@ -66,6 +77,16 @@ public class DynamoDBLeaseTaker implements LeaseTaker {
 
     private long lastScanTimeNanos = 0L;
 
+    private LeaseChangeSource leaseChangeSource = null;
+    private long fullLeaseTableScanIntervalNanos = Long.MAX_VALUE;
+    private boolean leaseChangeSourceStarted = false;
+    private long lastFullScanTimeNanos = 0L;
+
+    private ExecutorService takeLeaseExecutorService = null;
+    private LeaseWeigher leaseWeigher = null;
+    private int maxConcurrentLeaseTakes = 1;
+    private Set<String> streamNames = null;
+
     public DynamoDBLeaseTaker(LeaseRefresher leaseRefresher, String workerIdentifier, long leaseDurationMillis,
             final MetricsFactory metricsFactory) {
         this.leaseRefresher = leaseRefresher;
@@ -111,6 +132,82 @@ public class DynamoDBLeaseTaker implements LeaseTaker {
         return this;
     }
 
+    /**
+     * Keep the view of all leases up to date with the changes supplied by the given source, instead of scanning the
+     * whole lease table on every run. The lease table is still scanned on the first run, whenever the source fails and
+     * every full lease table scan interval.
+     *
+     * @param leaseChangeSource Source of the changes made to the lease table, null to scan the table on every run
+     * @return LeaseTaker
+     */
+    public DynamoDBLeaseTaker withLeaseChangeSource(LeaseChangeSource leaseChangeSource) {
+        this.leaseChangeSource = leaseChangeSource;
+        this.leaseChangeSourceStarted = false;
+        return this;
+    }
+
+    /**
+     * Scan the whole lease table at least this often when a lease change source is used, to recover from changes
+     * that the source didn't report.
+     *
+     * @param fullLeaseTableScanIntervalMillis Maximum time between full scans of the lease table
+     * @return LeaseTaker
+     */
+    public DynamoDBLeaseTaker withFullLeaseTableScanIntervalMillis(long fullLeaseTableScanIntervalMillis) {
+        if (fullLeaseTableScanIntervalMillis <= 0) {
+            throw new IllegalArgumentException("fullLeaseTableScanIntervalMillis should be >= 1");
+        }
+        this.fullLeaseTableScanIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fullLeaseTableScanIntervalMillis);
+        return this;
+    }
+
+    /**
+     * Take up to the given number of leases at a time, instead of one after the other, using the given executor.
+     * The conditional updates taking the leases are independent of each other, so taking many leases at once (e.g.
+     * when a worker starts or another one fails) mostly waits on the round trips to the lease table, which are
+     * overlapped when more than one lease is taken at a time. The executor should have at least
+     * maxConcurrentLeaseTakes threads.
+     *
+     * @param takeLeaseExecutorService Executor running the takes of the leases, null to take them one after the other
+     * @param maxConcurrentLeaseTakes Maximum number of leases being taken at the same time
+     * @return LeaseTaker
+     */
+    public DynamoDBLeaseTaker withConcurrentLeaseTakes(ExecutorService takeLeaseExecutorService,
+            int maxConcurrentLeaseTakes) {
+        if (maxConcurrentLeaseTakes <= 0) {
+            throw new IllegalArgumentException("maxConcurrentLeaseTakes should be >= 1");
+        }
+        this.takeLeaseExecutorService = takeLeaseExecutorService;
+        this.maxConcurrentLeaseTakes = maxConcurrentLeaseTakes;
+        return this;
+    }
+
+    /**
+     * Balance the load of the leases between workers instead of their number, weighing every lease with the given
+     * weigher. Workers then take expired leases until they reach their share of the total weight, and steal the
+     * leases of the most loaded worker that bring them closer to it.
+     *
+     * @param leaseWeigher Weigher of the leases, null to balance the number of leases
+     * @return LeaseTaker
+     */
+    public DynamoDBLeaseTaker withLeaseWeigher(LeaseWeigher leaseWeigher) {
+        this.leaseWeigher = leaseWeigher;
+        return this;
+    }
+
+    /**
+     * Only consider the leases of the given streams of a multi-stream Scheduler, keyed by {@link StreamLeaseKey}. The
+     * leases of other streams in the lease table are neither taken nor counted when balancing the leases, so workers
+     * configured with different streams share the table without holding leases they don't process.
+     *
+     * @param streamNames Names of the streams to take the leases of, null to take the leases of the whole table
+     * @return LeaseTaker
+     */
+    public DynamoDBLeaseTaker withStreamNames(Collection<String> streamNames) {
+        this.streamNames = streamNames == null ? null : new HashSet<>(streamNames);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -169,34 +266,20 @@ public class DynamoDBLeaseTaker implements LeaseTaker {
 
             List<Lease> expiredLeases = getExpiredLeases();
 
-            Set<Lease> leasesToTake = computeLeasesToTake(expiredLeases);
+            Set<Lease> leasesToTake = leaseWeigher == null ? computeLeasesToTake(expiredLeases)
+                    : computeLeasesToTakeByWeight(expiredLeases);
             Set<String> untakenLeaseKeys = new HashSet<>();
 
-            for (Lease lease : leasesToTake) {
-                String leaseKey = lease.leaseKey();
-
-                startTime = System.currentTimeMillis();
-                success = false;
-                try {
-                    for (int i = 1; i <= TAKE_RETRIES; i++) {
-                        try {
-                            if (leaseRefresher.takeLease(lease, workerIdentifier)) {
-                                lease.lastCounterIncrementNanos(System.nanoTime());
-                                takenLeases.put(leaseKey, lease);
-                            } else {
-                                untakenLeaseKeys.add(leaseKey);
-                            }
-
-                            success = true;
-                            break;
-                        } catch (ProvisionedThroughputException e) {
-                            log.info("Could not take lease with key {} for worker {} on try {} out of {} due to"
-                                            + " capacity", leaseKey, workerIdentifier, i, TAKE_RETRIES);
-                        }
+            if (takeLeaseExecutorService == null || maxConcurrentLeaseTakes == 1) {
+                for (Lease lease : leasesToTake) {
+                    TakeLeaseResult result = takeLease(lease);
+                    recordTakeLeaseResult(result, takenLeases, untakenLeaseKeys, scope);
+                    if (result.exception != null) {
+                        rethrow(result.exception);
                     }
-                } finally {
-                    MetricsUtil.addSuccessAndLatency(scope, "TakeLease", success, startTime, MetricsLevel.DETAILED);
                 }
+            } else {
+                takeLeasesConcurrently(leasesToTake, takenLeases, untakenLeaseKeys, scope);
             }
 
             if (takenLeases.size() > 0) {
@@ -217,6 +300,130 @@ public class DynamoDBLeaseTaker implements LeaseTaker {
         return takenLeases;
     }
 
+    /**
+     * Takes the given leases with up to maxConcurrentLeaseTakes conditional updates in flight at a time. When a lease
+     * fails with an exception, no more leases are submitted, the ones in flight are waited for and the exception of
+     * the first failed lease is thrown.
+     */
+    private void takeLeasesConcurrently(Collection<Lease> leasesToTake, Map<String, Lease> takenLeases,
+            Set<String> untakenLeaseKeys, MetricsScope scope) throws DependencyException, InvalidStateException {
+        CompletionService<TakeLeaseResult> completionService =
+                new ExecutorCompletionService<>(takeLeaseExecutorService);
+        Iterator<Lease> leases = leasesToTake.iterator();
+        Exception failure = null;
+        int inFlight = 0;
+        boolean interrupted = false;
+
+        try {
+            while (inFlight > 0 || (failure == null && leases.hasNext())) {
+                while (failure == null && inFlight < maxConcurrentLeaseTakes && leases.hasNext()) {
+                    Lease lease = leases.next();
+                    try {
+                        completionService.submit(() -> takeLease(lease));
+                        inFlight++;
+                    } catch (RejectedExecutionException e) {
+                        failure = new DependencyException("Unable to submit the take of lease " + lease.leaseKey(), e);
+                    }
+                }
+                if (inFlight == 0) {
+                    break;
+                }
+
+                TakeLeaseResult result;
+                try {
+                    result = completionService.take().get();
+                } catch (InterruptedException e) {
+                    // The in-flight takes are still waited for, so that the leases they took are reported
+                    interrupted = true;
+                    if (failure == null) {
+                        failure = new DependencyException("Interrupted while taking leases", e);
+                    }
+                    continue;
+                } catch (ExecutionException e) {
+                    // takeLease reports its exceptions in the result, so this is only reached on errors
+                    inFlight--;
+                    if (failure == null) {
+                        failure = new DependencyException("Unable to take a lease", e.getCause());
+                    }
+                    continue;
+                }
+                inFlight--;
+                recordTakeLeaseResult(result, takenLeases, untakenLeaseKeys, scope);
+                if (failure == null) {
+                    failure = result.exception;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failure != null) {
+            rethrow(failure);
+        }
+    }
+
+    /**
+     * Tries to take the given lease up to TAKE_RETRIES times while the lease table is out of capacity. Exceptions other
+     * than ProvisionedThroughputException are returned in the result instead of being thrown, so that the result can
+     * be recorded before they are rethrown.
+     */
+    private TakeLeaseResult takeLease(Lease lease) {
+        String leaseKey = lease.leaseKey();
+        long startTime = System.currentTimeMillis();
+        try {
+            for (int i = 1; i <= TAKE_RETRIES; i++) {
+                try {
+                    boolean taken = leaseRefresher.takeLease(lease, workerIdentifier);
+                    if (taken) {
+                        lease.lastCounterIncrementNanos(System.nanoTime());
+                    }
+                    return new TakeLeaseResult(lease, startTime, true, taken, null);
+                } catch (ProvisionedThroughputException e) {
+                    log.info("Could not take lease with key {} for worker {} on try {} out of {} due to"
+                            + " capacity", leaseKey, workerIdentifier, i, TAKE_RETRIES);
+                }
+            }
+            return new TakeLeaseResult(lease, startTime, false, false, null);
+        } catch (DependencyException | InvalidStateException | RuntimeException e) {
+            return new TakeLeaseResult(lease, startTime, false, false, e);
+        }
+    }
+
+    private static void recordTakeLeaseResult(TakeLeaseResult result, Map<String, Lease> takenLeases,
+            Set<String> untakenLeaseKeys, MetricsScope scope) {
+        if (result.taken) {
+            takenLeases.put(result.lease.leaseKey(), result.lease);
+        } else if (result.success) {
+            untakenLeaseKeys.add(result.lease.leaseKey());
+        }
+        MetricsUtil.addSuccessAndLatency(scope, "TakeLease", result.success, result.startTime, MetricsLevel.DETAILED);
+    }
+
+    private static void rethrow(Exception e) throws DependencyException, InvalidStateException {
+        if (e instanceof DependencyException) {
+            throw (DependencyException) e;
+        }
+        if (e instanceof InvalidStateException) {
+            throw (InvalidStateException) e;
+        }
+        throw (RuntimeException) e;
+    }
+
+    /**
+     * Outcome of taking a single lease.
+     */
+    @RequiredArgsConstructor
+    private static class TakeLeaseResult {
+        private final Lease lease;
+        private final long startTime;
+        /** False when the lease table was out of capacity on every try, or when the take failed with an exception */
+        private final boolean success;
+        private final boolean taken;
+        private final Exception exception;
+    }
+
     /** Package access for testing purposes.
      *
      * @param strings
@@ -238,7 +445,8 @@ public class DynamoDBLeaseTaker implements LeaseTaker {
     }
 
     /**
-     * Scan all leases and update lastRenewalTime. Add new leases and delete old leases.
+     * Scan all leases and update lastRenewalTime. Add new leases and delete old leases. When a lease change source is
+     * used, only the changes since the previous run are applied, unless a full scan is due.
      * 
      * @param timeProvider callable that supplies the current time
      * 
@@ -250,56 +458,108 @@ public class DynamoDBLeaseTaker implements LeaseTaker {
      */
     private void updateAllLeases(Callable<Long> timeProvider)
         throws DependencyException, InvalidStateException, ProvisionedThroughputException {
-        List<Lease> freshList = leaseRefresher.listLeases();
-        try {
-            lastScanTimeNanos = timeProvider.call();
-        } catch (Exception e) {
-            throw new DependencyException("Exception caught from timeProvider", e);
+        if (leaseChangeSource != null) {
+            if (leaseChangeSourceStarted
+                    && currentTimeNanos(timeProvider) - lastFullScanTimeNanos < fullLeaseTableScanIntervalNanos) {
+                try {
+                    List<LeaseChange> changes = leaseChangeSource.getChanges();
+                    lastScanTimeNanos = currentTimeNanos(timeProvider);
+
+                    for (LeaseChange change : changes) {
+                        if (change.isDeleted()) {
+                            allLeases.remove(change.leaseKey());
+                        } else if (isLeaseOfStreams(change.leaseKey())) {
+                            updateLease(change.lease());
+                        }
+                    }
+                    return;
+                } catch (DependencyException | InvalidStateException e) {
+                    log.warn("Worker {} lost track of the changes of the lease table, scanning it instead",
+                            workerIdentifier, e);
+                    leaseChangeSourceStarted = false;
+                }
+            }
+
+            // Start reading the changes before the scan, so no change made after the scan is missed
+            try {
+                leaseChangeSource.start();
+                leaseChangeSourceStarted = true;
+            } catch (DependencyException | InvalidStateException e) {
+                log.warn("Worker {} could not start reading the changes of the lease table, scanning it instead",
+                        workerIdentifier, e);
+            }
         }
 
+        List<Lease> freshList = leaseRefresher.listLeases();
+        lastScanTimeNanos = currentTimeNanos(timeProvider);
+        lastFullScanTimeNanos = lastScanTimeNanos;
+
         // This set will hold the lease keys not updated by the previous listLeases call.
         Set<String> notUpdated = new HashSet<>(allLeases.keySet());
 
         // Iterate over all leases, finding ones to try to acquire that haven't changed since the last iteration
         for (Lease lease : freshList) {
-            String leaseKey = lease.leaseKey();
+            if (isLeaseOfStreams(lease.leaseKey())) {
+                updateLease(lease);
+                notUpdated.remove(lease.leaseKey());
+            }
+        }
+
+        // Remove dead leases from allLeases
+        for (String key : notUpdated) {
+            allLeases.remove(key);
+        }
+    }
 
-            Lease oldLease = allLeases.get(leaseKey);
-            allLeases.put(leaseKey, lease);
-            notUpdated.remove(leaseKey);
+    private boolean isLeaseOfStreams(String leaseKey) {
+        return streamNames == null || streamNames.contains(StreamLeaseKey.streamName(leaseKey));
+    }
 
-            if (oldLease != null) {
-                // If we've seen this lease before...
-                if (oldLease.leaseCounter().equals(lease.leaseCounter())) {
-                    // ...and the counter hasn't changed, propagate the lastRenewalNanos time from the old lease
-                    lease.lastCounterIncrementNanos(oldLease.lastCounterIncrementNanos());
-                } else {
-                    // ...and the counter has changed, set lastRenewalNanos to the time of the scan.
-                    lease.lastCounterIncrementNanos(lastScanTimeNanos);
-                }
+    /**
+     * Replace the lease with the given fresh copy and update its lastRenewalTime, as of the last scan.
+     *
+     * @param lease fresh copy of the lease from the lease table
+     */
+    private void updateLease(Lease lease) {
+        String leaseKey = lease.leaseKey();
+
+        Lease oldLease = allLeases.get(leaseKey);
+        allLeases.put(leaseKey, lease);
+
+        if (oldLease != null) {
+            // If we've seen this lease before...
+            if (oldLease.leaseCounter().equals(lease.leaseCounter())) {
+                // ...and the counter hasn't changed, propagate the lastRenewalNanos time from the old lease
+                lease.lastCounterIncrementNanos(oldLease.lastCounterIncrementNanos());
             } else {
-                if (lease.leaseOwner() == null) {
-                    // if this new lease is unowned, it's never been renewed.
-                    lease.lastCounterIncrementNanos(0L);
+                // ...and the counter has changed, set lastRenewalNanos to the time of the scan.
+                lease.lastCounterIncrementNanos(lastScanTimeNanos);
+            }
+        } else {
+            if (lease.leaseOwner() == null) {
+                // if this new lease is unowned, it's never been renewed.
+                lease.lastCounterIncrementNanos(0L);
 
-                    if (log.isDebugEnabled()) {
-                        log.debug("Treating new lease with key {} as never renewed because it is new and unowned.",
-                                leaseKey);
-                    }
-                } else {
-                    // if this new lease is owned, treat it as renewed as of the scan
-                    lease.lastCounterIncrementNanos(lastScanTimeNanos);
-                    if (log.isDebugEnabled()) {
-                        log.debug("Treating new lease with key {} as recently renewed because it is new and owned.",
-                                leaseKey);
-                    }
+                if (log.isDebugEnabled()) {
+                    log.debug("Treating new lease with key {} as never renewed because it is new and unowned.",
+                            leaseKey);
+                }
+            } else {
+                // if this new lease is owned, treat it as renewed as of the scan
+                lease.lastCounterIncrementNanos(lastScanTimeNanos);
+                if (log.isDebugEnabled()) {
+                    log.debug("Treating new lease with key {} as recently renewed because it is new and owned.",
+                            leaseKey);
                 }
             }
         }
+    }
 
-        // Remove dead leases from allLeases
-        for (String key : notUpdated) {
-            allLeases.remove(key);
+    private static long currentTimeNanos(Callable<Long> timeProvider) throws DependencyException {
+        try {
+            return timeProvider.call();
+        } catch (Exception e) {
+            throw new DependencyException("Exception caught from timeProvider", e);
         }
     }
 
@@ -413,6 +673,156 @@ public class DynamoDBLeaseTaker implements LeaseTaker {
         return leasesToTake;
     }
 
+    /**
+     * Compute the leases to take by weight. This worker's target is its share of the total weight of all leases. If it
+     * is below its target, it takes expired leases in random order until it reaches it. If there are no expired
+     * leases, it steals leases from the most loaded worker, see {@link #chooseLeasesToStealByWeight}. The number of
+     * leases held is still capped by maxLeasesForWorker.
+     *
+     * @param expiredLeases list of leases we determined to be expired
+     * @return set of leases to take.
+     */
+    private Set<Lease> computeLeasesToTakeByWeight(List<Lease> expiredLeases) {
+        Map<String, Integer> leaseCounts = computeLeaseCounts(expiredLeases);
+        Map<String, Double> leaseWeights = computeLeaseWeights(expiredLeases);
+        Set<Lease> leasesToTake = new HashSet<>();
+        final MetricsScope scope = MetricsUtil.createMetricsWithOperation(metricsFactory, TAKE_LEASES_DIMENSION);
+        MetricsUtil.addWorkerIdentifier(scope, workerIdentifier);
+
+        try {
+            int numLeases = allLeases.size();
+            int numWorkers = leaseWeights.size();
+
+            if (numLeases == 0) {
+                return leasesToTake;
+            }
+
+            double totalWeight = 0;
+            for (Lease lease : allLeases.values()) {
+                totalWeight += leaseWeigher.weigh(lease);
+            }
+            double target = totalWeight / numWorkers;
+            double myWeight = leaseWeights.get(workerIdentifier);
+            int myCount = leaseCounts.get(workerIdentifier);
+            int numLeasesBelowMax = maxLeasesForWorker - myCount;
+
+            if (myWeight >= target || numLeasesBelowMax <= 0) {
+                return leasesToTake;
+            }
+
+            // Shuffle expiredLeases so workers don't all try to contend for the same leases.
+            Collections.shuffle(expiredLeases);
+
+            int originalExpiredLeasesSize = expiredLeases.size();
+            double newWeight = myWeight;
+            if (expiredLeases.size() > 0) {
+                for (Lease lease : expiredLeases) {
+                    if (newWeight >= target || leasesToTake.size() >= numLeasesBelowMax) {
+                        break;
+                    }
+                    leasesToTake.add(lease);
+                    newWeight += leaseWeigher.weigh(lease);
+                }
+            } else {
+                List<Lease> leasesToSteal = chooseLeasesToStealByWeight(leaseWeights, target, numLeasesBelowMax);
+                for (Lease leaseToSteal : leasesToSteal) {
+                    log.info("Worker {} is below its target weight but no leases were expired, so it will steal lease"
+                            + " {} from {}", workerIdentifier, leaseToSteal.leaseKey(), leaseToSteal.leaseOwner());
+                    leasesToTake.add(leaseToSteal);
+                    newWeight += leaseWeigher.weigh(leaseToSteal);
+                }
+            }
+
+            if (!leasesToTake.isEmpty()) {
+                log.info(String.format("Worker %s saw %d total leases weighing %.3f, %d available leases, %d workers."
+                                + " Target weight is %.3f, I have %d leases weighing %.3f, I will take %d leases"
+                                + " weighing %.3f", workerIdentifier, numLeases, totalWeight,
+                        originalExpiredLeasesSize, numWorkers, target, myCount, myWeight, leasesToTake.size(),
+                        newWeight - myWeight));
+            }
+
+            scope.addData("TotalLeases", numLeases, StandardUnit.COUNT, MetricsLevel.DETAILED);
+            scope.addData("ExpiredLeases", originalExpiredLeasesSize, StandardUnit.COUNT, MetricsLevel.SUMMARY);
+            scope.addData("NumWorkers", numWorkers, StandardUnit.COUNT, MetricsLevel.SUMMARY);
+            scope.addData("LeasesToTake", leasesToTake.size(), StandardUnit.COUNT, MetricsLevel.DETAILED);
+        } finally {
+            MetricsUtil.endScope(scope);
+        }
+
+        return leasesToTake;
+    }
+
+    /**
+     * Choose leases to steal from the most loaded worker by weight. Only leases whose move leaves this worker at most
+     * as loaded as the most loaded worker are stolen, so the two workers never steal the same lease back and forth.
+     * Among those, the heaviest lease that keeps this worker within its target is preferred, then the lightest one.
+     * Up to maxLeasesToStealAtOneTime leases are stolen while this worker is below its target.
+     *
+     * @param leaseWeights map of workerIdentifier to the weight of its leases
+     * @param target target weight of the leases of every worker
+     * @param maxLeasesToSteal max number of leases this worker can take without exceeding maxLeasesForWorker
+     * @return Leases to steal, or empty list if we should not steal
+     */
+    private List<Lease> chooseLeasesToStealByWeight(Map<String, Double> leaseWeights, double target,
+            int maxLeasesToSteal) {
+        List<Lease> leasesToSteal = new ArrayList<>();
+
+        Entry<String, Double> mostLoadedWorker = null;
+        for (Entry<String, Double> worker : leaseWeights.entrySet()) {
+            if (mostLoadedWorker == null || mostLoadedWorker.getValue() < worker.getValue()) {
+                mostLoadedWorker = worker;
+            }
+        }
+        if (workerIdentifier.equals(mostLoadedWorker.getKey()) || mostLoadedWorker.getValue() <= target) {
+            return leasesToSteal;
+        }
+
+        List<Lease> candidates = new ArrayList<>();
+        for (Lease lease : allLeases.values()) {
+            if (mostLoadedWorker.getKey().equals(lease.leaseOwner())) {
+                candidates.add(lease);
+            }
+        }
+        // Shuffle before sorting so that leases of the same weight are chosen at random
+        Collections.shuffle(candidates);
+        candidates.sort((a, b) -> Double.compare(leaseWeigher.weigh(b), leaseWeigher.weigh(a)));
+
+        double myWeight = leaseWeights.get(workerIdentifier);
+        double theirWeight = mostLoadedWorker.getValue();
+        int maxToSteal = Math.min(maxLeasesToStealAtOneTime, maxLeasesToSteal);
+        while (leasesToSteal.size() < maxToSteal && myWeight < target) {
+            Lease choice = null;
+            for (Lease candidate : candidates) {
+                double weight = leaseWeigher.weigh(candidate);
+                if (myWeight + weight > theirWeight - weight) {
+                    continue;
+                }
+                if (myWeight + weight <= target) {
+                    // Candidates are sorted by descending weight, so this is the heaviest one within the target
+                    choice = candidate;
+                    break;
+                }
+                // Keep the lightest lease that is worth moving, in case none is within the target
+                choice = candidate;
+            }
+            if (choice == null) {
+                break;
+            }
+            candidates.remove(choice);
+            leasesToSteal.add(choice);
+            myWeight += leaseWeigher.weigh(choice);
+            theirWeight -= leaseWeigher.weigh(choice);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("Worker %s will attempt to steal %d leases from most loaded worker %s. He has"
+                            + " leases weighing %.3f, target is %.3f.", workerIdentifier, leasesToSteal.size(),
+                    mostLoadedWorker.getKey(), mostLoadedWorker.getValue(), target));
+        }
+
+        return leasesToSteal;
+    }
+
     /**
      * Choose leases to steal by randomly selecting one or more (up to max) from the most loaded worker.
      * Stealing rules:
@@ -523,6 +933,26 @@ public class DynamoDBLeaseTaker implements LeaseTaker {
         return leaseCounts;
     }
 
+    /**
+     * Weigh leases by host. Always includes myself, but otherwise only includes hosts that are currently holding
+     * leases.
+     *
+     * @param expiredLeases list of leases that are currently expired
+     * @return map of workerIdentifier to the weight of its leases
+     */
+    private Map<String, Double> computeLeaseWeights(List<Lease> expiredLeases) {
+        Map<String, Double> leaseWeights = new HashMap<>();
+
+        for (Lease lease : allLeases.values()) {
+            if (!expiredLeases.contains(lease)) {
+                leaseWeights.merge(lease.leaseOwner(), leaseWeigher.weigh(lease), Double::sum);
+            }
+        }
+        leaseWeights.putIfAbsent(workerIdentifier, 0.0);
+
+        return leaseWeights;
+    }
+
     /**
      * {@inheritDoc}
      */
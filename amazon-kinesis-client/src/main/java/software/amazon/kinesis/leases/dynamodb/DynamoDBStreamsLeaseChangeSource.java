@@ -0,0 +1,311 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases.dynamodb;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.ExpiredIteratorException;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.LimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamSpecification;
+import software.amazon.awssdk.services.dynamodb.model.StreamViewType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TrimmedDataAccessException;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsAsyncClient;
+import software.amazon.kinesis.annotations.KinesisClientInternalApi;
+import software.amazon.kinesis.common.FutureUtils;
+import software.amazon.kinesis.leases.LeaseChange;
+import software.amazon.kinesis.leases.LeaseChangeSource;
+import software.amazon.kinesis.leases.LeaseSerializer;
+import software.amazon.kinesis.leases.exceptions.DependencyException;
+import software.amazon.kinesis.leases.exceptions.InvalidStateException;
+import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
+import software.amazon.kinesis.retrieval.AWSExceptionManager;
+
+/**
+ * A {@link LeaseChangeSource} that reads the changes of the lease table from its DynamoDB stream.
+ *
+ * <p>
+ * The lease table needs a stream with the view type NEW_IMAGE or NEW_AND_OLD_IMAGES. The shards of the stream are
+ * read in the order of their lineage, so the changes of a lease are returned in the order they were made. Reading a
+ * stream doesn't consume read capacity of the table, but DynamoDB throttles the reads of a stream shard that has more
+ * than two concurrent readers.
+ * </p>
+ */
+@Slf4j
+@KinesisClientInternalApi
+public class DynamoDBStreamsLeaseChangeSource implements LeaseChangeSource {
+    private final String table;
+    private final DynamoDbAsyncClient dynamoDBClient;
+    private final DynamoDbStreamsAsyncClient dynamoDBStreamsClient;
+    private final LeaseSerializer serializer;
+    private final Duration dynamoDbRequestTimeout;
+
+    private String streamArn;
+    // Iterators of the shards that are being read, parents always come before their children
+    private final Map<String, String> shardIterators = new LinkedHashMap<>();
+    // Shards that can't be read before their parent is read to the end, with the id of their parent
+    private final Map<String, String> waitingShards = new LinkedHashMap<>();
+    private final Set<String> closedShardIds = new HashSet<>();
+    // Changes that were read but not returned yet because a later read failed
+    private final List<LeaseChange> pendingChanges = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param table
+     *            name of the lease table
+     * @param dynamoDBClient
+     *            client used to find the stream of the lease table
+     * @param dynamoDBStreamsClient
+     *            client used to read the stream of the lease table
+     * @param serializer
+     *            serializer of the leases in the stream records
+     * @param dynamoDbRequestTimeout
+     *            timeout of every request
+     */
+    public DynamoDBStreamsLeaseChangeSource(@NonNull final String table,
+            @NonNull final DynamoDbAsyncClient dynamoDBClient,
+            @NonNull final DynamoDbStreamsAsyncClient dynamoDBStreamsClient, @NonNull final LeaseSerializer serializer,
+            @NonNull final Duration dynamoDbRequestTimeout) {
+        this.table = table;
+        this.dynamoDBClient = dynamoDBClient;
+        this.dynamoDBStreamsClient = dynamoDBStreamsClient;
+        this.serializer = serializer;
+        this.dynamoDbRequestTimeout = dynamoDbRequestTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void start()
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        reset();
+        final TableDescription tableDescription = call("describe table", () -> dynamoDBClient
+                .describeTable(DescribeTableRequest.builder().tableName(table).build())).table();
+        final StreamSpecification streamSpecification = tableDescription.streamSpecification();
+        if (streamSpecification == null || !Boolean.TRUE.equals(streamSpecification.streamEnabled())
+                || !(streamSpecification.streamViewType() == StreamViewType.NEW_IMAGE
+                        || streamSpecification.streamViewType() == StreamViewType.NEW_AND_OLD_IMAGES)) {
+            throw new InvalidStateException(String.format("Lease table %s doesn't have a stream with the view type %s"
+                    + " or %s", table, StreamViewType.NEW_IMAGE, StreamViewType.NEW_AND_OLD_IMAGES));
+        }
+
+        final String arn = tableDescription.latestStreamArn();
+        for (Shard shard : listShards(arn)) {
+            if (shard.sequenceNumberRange().endingSequenceNumber() == null) {
+                shardIterators.put(shard.shardId(), getShardIterator(arn, shard.shardId(), ShardIteratorType.LATEST));
+            } else {
+                // Closed shards only hold changes that were made before now
+                closedShardIds.add(shard.shardId());
+            }
+        }
+        streamArn = arn;
+        log.info("Reading the changes of lease table {} from the {} open shards of stream {}", table,
+                shardIterators.size(), streamArn);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Requests that fail because of throttling throw {@link ProvisionedThroughputException} without losing any
+     * changes, which are returned by a later call instead.
+     * </p>
+     */
+    @Override
+    public synchronized List<LeaseChange> getChanges()
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        if (streamArn == null) {
+            throw new InvalidStateException("The changes of lease table " + table + " aren't being read");
+        }
+        try {
+            discoverShards();
+            boolean readShards = true;
+            while (readShards) {
+                for (String shardId : new ArrayList<>(shardIterators.keySet())) {
+                    readShard(shardId);
+                }
+                // Children of the shards that were read to the end can be read now
+                readShards = startChildShards();
+            }
+        } catch (DependencyException | InvalidStateException e) {
+            reset();
+            throw e;
+        }
+
+        final List<LeaseChange> changes = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        return changes;
+    }
+
+    private void reset() {
+        streamArn = null;
+        shardIterators.clear();
+        waitingShards.clear();
+        closedShardIds.clear();
+        pendingChanges.clear();
+    }
+
+    private void discoverShards() throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final Set<String> shardIds = new HashSet<>();
+        for (Shard shard : listShards(streamArn)) {
+            shardIds.add(shard.shardId());
+            if (!shardIterators.containsKey(shard.shardId()) && !waitingShards.containsKey(shard.shardId())
+                    && !closedShardIds.contains(shard.shardId())) {
+                waitingShards.put(shard.shardId(), shard.parentShardId());
+            }
+        }
+        // Forget the shards that expired from the stream
+        closedShardIds.retainAll(shardIds);
+        startChildShards();
+    }
+
+    private boolean startChildShards()
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        boolean started = false;
+        final Iterator<Map.Entry<String, String>> iterator = waitingShards.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, String> entry = iterator.next();
+            final String parentShardId = entry.getValue();
+            if (parentShardId != null
+                    && (shardIterators.containsKey(parentShardId) || waitingShards.containsKey(parentShardId))) {
+                continue;
+            }
+            shardIterators.put(entry.getKey(),
+                    getShardIterator(streamArn, entry.getKey(), ShardIteratorType.TRIM_HORIZON));
+            iterator.remove();
+            started = true;
+        }
+        return started;
+    }
+
+    /**
+     * Reads the records of a shard until there are no more, and adds their changes to the pending changes. The
+     * iterator of the shard is advanced after every request, so a failed request doesn't read any record twice.
+     */
+    private void readShard(final String shardId)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        while (true) {
+            final GetRecordsRequest request = GetRecordsRequest.builder().shardIterator(shardIterators.get(shardId))
+                    .build();
+            final GetRecordsResponse response = call("get records", () -> dynamoDBStreamsClient.getRecords(request));
+            for (Record record : response.records()) {
+                pendingChanges.add(toLeaseChange(record));
+            }
+            if (response.nextShardIterator() == null) {
+                shardIterators.remove(shardId);
+                closedShardIds.add(shardId);
+                return;
+            }
+            shardIterators.put(shardId, response.nextShardIterator());
+            if (response.records().isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private LeaseChange toLeaseChange(final Record record) {
+        if (record.eventName() == OperationType.REMOVE) {
+            // Only the key of deleted leases is in the record
+            final String keyAttributeName = serializer.getKeySchema().iterator().next().attributeName();
+            return LeaseChange.deleted(record.dynamodb().keys().get(keyAttributeName).s());
+        }
+        return LeaseChange.updated(serializer.fromDynamoRecord(record.dynamodb().newImage()));
+    }
+
+    private List<Shard> listShards(final String arn)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final List<Shard> shards = new ArrayList<>();
+        String exclusiveStartShardId = null;
+        do {
+            final DescribeStreamRequest request = DescribeStreamRequest.builder().streamArn(arn)
+                    .exclusiveStartShardId(exclusiveStartShardId).build();
+            final DescribeStreamResponse response = call("describe stream",
+                    () -> dynamoDBStreamsClient.describeStream(request));
+            shards.addAll(response.streamDescription().shards());
+            exclusiveStartShardId = response.streamDescription().lastEvaluatedShardId();
+        } while (exclusiveStartShardId != null);
+        return shards;
+    }
+
+    private String getShardIterator(final String arn, final String shardId, final ShardIteratorType type)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final GetShardIteratorRequest request = GetShardIteratorRequest.builder().streamArn(arn).shardId(shardId)
+                .shardIteratorType(type).build();
+        return call("get shard iterator", () -> dynamoDBStreamsClient.getShardIterator(request)).shardIterator();
+    }
+
+    private <T> T call(final String operation, final Supplier<CompletableFuture<T>> request)
+            throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        final AWSExceptionManager exceptionManager = new AWSExceptionManager();
+        exceptionManager.add(DynamoDbException.class, t -> t);
+
+        try {
+            try {
+                return FutureUtils.resolveOrCancelFuture(request.get(), dynamoDbRequestTimeout);
+            } catch (ExecutionException e) {
+                throw exceptionManager.apply(e.getCause());
+            } catch (InterruptedException e) {
+                throw new DependencyException(e);
+            }
+        } catch (ProvisionedThroughputExceededException | LimitExceededException e) {
+            throw new ProvisionedThroughputException(e);
+        } catch (ExpiredIteratorException | TrimmedDataAccessException e) {
+            throw new DependencyException(
+                    String.format("Changes of lease table %s may have been missed, unable to %s", table, operation), e);
+        } catch (ResourceNotFoundException e) {
+            throw new InvalidStateException(
+                    String.format("Cannot %s because the stream of lease table %s does not exist.", operation, table),
+                    e);
+        } catch (DynamoDbException | TimeoutException e) {
+            if (e instanceof DynamoDbException && isThrottling((DynamoDbException) e)) {
+                throw new ProvisionedThroughputException(e);
+            }
+            throw new DependencyException(e);
+        }
+    }
+
+    private static boolean isThrottling(final DynamoDbException e) {
+        return e.awsErrorDetails() != null && "ThrottlingException".equals(e.awsErrorDetails().errorCode());
+    }
+}
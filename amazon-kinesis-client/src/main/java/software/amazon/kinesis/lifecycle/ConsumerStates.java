@@ -16,7 +16,10 @@ package software.amazon.kinesis.lifecycle;
 
 import lombok.Getter;
 import lombok.experimental.Accessors;
+import software.amazon.kinesis.leases.LeaseThroughputTracker;
+import software.amazon.kinesis.leases.ShardInfo;
 import software.amazon.kinesis.lifecycle.events.ProcessRecordsInput;
+import software.amazon.kinesis.retrieval.KinesisClientRecord;
 import software.amazon.kinesis.retrieval.ThrottlingReporter;
 
 /**
@@ -259,6 +262,7 @@ class ConsumerStates {
         @Override
         public ConsumerTask createTask(ShardConsumerArgument argument, ShardConsumer consumer, ProcessRecordsInput input) {
             ThrottlingReporter throttlingReporter = new ThrottlingReporter(5, argument.shardInfo().shardId());
+            recordThroughput(argument.leaseThroughputTracker(), argument.shardInfo(), input);
             return new ProcessTask(argument.shardInfo(),
                     argument.shardRecordProcessor(),
                     argument.recordProcessorCheckpointer(),
@@ -268,11 +272,29 @@ class ConsumerStates {
                     throttlingReporter,
                     input,
                     argument.shouldCallProcessRecordsEvenForEmptyRecordList(),
+                    argument.deaggregateRecordsLazily(),
                     argument.idleTimeInMilliseconds(),
                     argument.aggregatorUtil(), argument.metricsFactory()
             );
         }
 
+        /**
+         * Reports the Kinesis records of the task to the tracker of the throughput of the lease, before
+         * deaggregation, so that the throughput matches the one of the shard.
+         */
+        private static void recordThroughput(LeaseThroughputTracker leaseThroughputTracker, ShardInfo shardInfo,
+                ProcessRecordsInput input) {
+            if (leaseThroughputTracker == null) {
+                return;
+            }
+            long bytes = 0;
+            for (KinesisClientRecord record : input.records()) {
+                bytes += record.data().remaining();
+            }
+            leaseThroughputTracker.recordProcessed(shardInfo.leaseKey(), input.records().size(), bytes,
+                    input.millisBehindLatest());
+        }
+
         @Override
         public ConsumerState successTransition() {
             return ShardConsumerState.PROCESSING.consumerState();
@@ -492,6 +514,7 @@ class ConsumerStates {
                     argument.initialPositionInStream(),
                     argument.cleanupLeasesOfCompletedShards(),
                     argument.ignoreUnexpectedChildShards(),
+                    argument.incrementalShardSync(),
                     argument.leaseRefresher(),
                     argument.taskBackoffTimeMillis(),
                     argument.recordsPublisher(),
@@ -75,7 +75,7 @@ public class InitializeTask implements ConsumerTask {
 
         try {
             log.debug("Initializing ShardId {}", shardInfo);
-            Checkpoint initialCheckpointObject = checkpoint.getCheckpointObject(shardInfo.shardId());
+            Checkpoint initialCheckpointObject = checkpoint.getCheckpointObject(shardInfo.leaseKey());
             ExtendedSequenceNumber initialCheckpoint = initialCheckpointObject.checkpoint();
             log.debug("[{}]: Checkpoint: {} -- Initial Position: {}", shardInfo.shardId(), initialCheckpoint,
                     initialPositionInStream);
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.lifecycle;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.kinesis.checkpoint.ShardRecordProcessorCheckpointer;
+import software.amazon.kinesis.retrieval.KinesisClientRecord;
+import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
+
+/**
+ * A view of the records of a batch that deaggregates, filters and accounts for the records while they are being
+ * iterated, instead of materializing every user record of the batch before the record processor is called.
+ *
+ * <p>
+ * Each Kinesis record is only deaggregated when the iteration reaches it. Its user records at or below the last
+ * checkpoint are dropped, the largest permitted checkpoint of the checkpointer is advanced to cover the remaining ones
+ * before any of them is handed out, and each of them is passed to the record accumulator. A single iteration therefore
+ * only keeps the user records of one Kinesis record in memory.
+ * </p>
+ *
+ * <p>
+ * Random access, {@link #size()} and any iteration after the first fall back to materializing the whole list. This
+ * class is not thread safe; it's only meant to be used by the thread calling the record processor.
+ * </p>
+ */
+@Slf4j
+class LazyDeaggregatingRecordList extends AbstractList<KinesisClientRecord> {
+    private final List<KinesisClientRecord> rawRecords;
+    private final Function<List<KinesisClientRecord>, List<KinesisClientRecord>> deaggregator;
+    private final ShardRecordProcessorCheckpointer recordProcessorCheckpointer;
+    private final Consumer<KinesisClientRecord> recordAccumulator;
+    private final ExtendedSequenceNumber lastCheckpointValue;
+
+    private ExtendedSequenceNumber largestExtendedSequenceNumber;
+    private int nextRawRecordIndex = 0;
+    private List<KinesisClientRecord> currentRecords = Collections.emptyList();
+    private int currentRecordIndex = 0;
+    private boolean streamed = false;
+    private List<KinesisClientRecord> materializedRecords;
+
+    /**
+     * The number of user records the Kinesis records reached so far deaggregated to, including the ones that are
+     * dropped because they're at or below the last checkpoint. This matches the number of records the eager path
+     * reports as processed.
+     */
+    @Getter
+    @Accessors(fluent = true)
+    private int deaggregatedRecordCount = 0;
+
+    LazyDeaggregatingRecordList(@NonNull final List<KinesisClientRecord> rawRecords,
+            @NonNull final Function<List<KinesisClientRecord>, List<KinesisClientRecord>> deaggregator,
+            @NonNull final ShardRecordProcessorCheckpointer recordProcessorCheckpointer,
+            @NonNull final Consumer<KinesisClientRecord> recordAccumulator) {
+        this.rawRecords = rawRecords;
+        this.deaggregator = deaggregator;
+        this.recordProcessorCheckpointer = recordProcessorCheckpointer;
+        this.recordAccumulator = recordAccumulator;
+        this.lastCheckpointValue = recordProcessorCheckpointer.lastCheckpointValue();
+        this.largestExtendedSequenceNumber = recordProcessorCheckpointer.largestPermittedCheckpointValue();
+    }
+
+    @Override
+    public Iterator<KinesisClientRecord> iterator() {
+        if (streamed || materializedRecords != null) {
+            return materialize().iterator();
+        }
+        streamed = true;
+        return new Iterator<KinesisClientRecord>() {
+            @Override
+            public boolean hasNext() {
+                return advance();
+            }
+
+            @Override
+            public KinesisClientRecord next() {
+                if (!advance()) {
+                    throw new NoSuchElementException();
+                }
+                return currentRecords.get(currentRecordIndex++);
+            }
+        };
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (!streamed && materializedRecords == null) {
+            // Peeking doesn't consume anything, so the first iterator will still start from the first record.
+            return !advance();
+        }
+        return materialize().isEmpty();
+    }
+
+    @Override
+    public KinesisClientRecord get(final int index) {
+        return materialize().get(index);
+    }
+
+    @Override
+    public int size() {
+        return materialize().size();
+    }
+
+    /**
+     * Accounts for every record that hasn't been reached by the iteration yet, without handing it out. After this
+     * call the largest permitted checkpoint and the accumulated metrics cover the whole batch.
+     */
+    void drain() {
+        streamed = true;
+        while (advance()) {
+            currentRecordIndex = currentRecords.size();
+        }
+    }
+
+    private List<KinesisClientRecord> materialize() {
+        if (materializedRecords == null) {
+            drain();
+            final List<KinesisClientRecord> records = new ArrayList<>(rawRecords.size());
+            for (KinesisClientRecord rawRecord : rawRecords) {
+                records.addAll(deaggregate(rawRecord));
+            }
+            materializedRecords = filter(records, false);
+        }
+        return materializedRecords;
+    }
+
+    /**
+     * Makes sure that the current record is available, deaggregating the next Kinesis records as needed.
+     *
+     * @return true if a record is available, false if the batch is exhausted
+     */
+    private boolean advance() {
+        while (currentRecordIndex >= currentRecords.size()) {
+            if (nextRawRecordIndex >= rawRecords.size()) {
+                return false;
+            }
+            final List<KinesisClientRecord> deaggregatedRecords = deaggregate(rawRecords.get(nextRawRecordIndex++));
+            deaggregatedRecordCount += deaggregatedRecords.size();
+            currentRecords = filter(deaggregatedRecords, true);
+            currentRecordIndex = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Deaggregates a single Kinesis record. Deaggregation moves the position of the record's data, so it's given a
+     * duplicate of the data to allow the same record to be deaggregated again when the list is materialized.
+     */
+    private List<KinesisClientRecord> deaggregate(final KinesisClientRecord rawRecord) {
+        return deaggregator.apply(Collections.singletonList(
+                rawRecord.toBuilder().data(rawRecord.data().duplicate()).build()));
+    }
+
+    /**
+     * Removes records up to and including the last checkpoint value in-place, optionally accounting for the retained
+     * records.
+     */
+    private List<KinesisClientRecord> filter(final List<KinesisClientRecord> records, final boolean account) {
+        final ExtendedSequenceNumber previousLargestExtendedSequenceNumber = largestExtendedSequenceNumber;
+        final ListIterator<KinesisClientRecord> recordIterator = records.listIterator();
+        while (recordIterator.hasNext()) {
+            KinesisClientRecord record = recordIterator.next();
+            ExtendedSequenceNumber extendedSequenceNumber = new ExtendedSequenceNumber(record.sequenceNumber(),
+                    record.subSequenceNumber());
+
+            if (extendedSequenceNumber.compareTo(lastCheckpointValue) <= 0) {
+                recordIterator.remove();
+                log.debug("removing record with ESN {} because the ESN is <= checkpoint ({})", extendedSequenceNumber,
+                        lastCheckpointValue);
+                continue;
+            }
+
+            if (account) {
+                if (largestExtendedSequenceNumber == null
+                        || largestExtendedSequenceNumber.compareTo(extendedSequenceNumber) < 0) {
+                    largestExtendedSequenceNumber = extendedSequenceNumber;
+                }
+                recordAccumulator.accept(record);
+            }
+        }
+        if (largestExtendedSequenceNumber != previousLargestExtendedSequenceNumber) {
+            recordProcessorCheckpointer.largestPermittedCheckpointValue(largestExtendedSequenceNumber);
+        }
+        return records;
+    }
+}
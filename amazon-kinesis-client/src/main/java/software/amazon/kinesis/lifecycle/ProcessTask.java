@@ -56,6 +56,7 @@ public class ProcessTask implements ConsumerTask {
     private final Shard shard;
     private final ThrottlingReporter throttlingReporter;
     private final boolean shouldCallProcessRecordsEvenForEmptyRecordList;
+    private final boolean deaggregateRecordsLazily;
     private final long idleTimeInMilliseconds;
     private final ProcessRecordsInput processRecordsInput;
     private final MetricsFactory metricsFactory;
@@ -70,6 +71,7 @@ public class ProcessTask implements ConsumerTask {
                        @NonNull ThrottlingReporter throttlingReporter,
                        ProcessRecordsInput processRecordsInput,
                        boolean shouldCallProcessRecordsEvenForEmptyRecordList,
+                       boolean deaggregateRecordsLazily,
                        long idleTimeInMilliseconds,
                        @NonNull AggregatorUtil aggregatorUtil,
                        @NonNull MetricsFactory metricsFactory) {
@@ -80,6 +82,7 @@ public class ProcessTask implements ConsumerTask {
         this.throttlingReporter = throttlingReporter;
         this.processRecordsInput = processRecordsInput;
         this.shouldCallProcessRecordsEvenForEmptyRecordList = shouldCallProcessRecordsEvenForEmptyRecordList;
+        this.deaggregateRecordsLazily = deaggregateRecordsLazily;
         this.idleTimeInMilliseconds = idleTimeInMilliseconds;
         this.metricsFactory = metricsFactory;
 
@@ -126,19 +129,24 @@ public class ProcessTask implements ConsumerTask {
                 }
 
                 throttlingReporter.success();
-                List<KinesisClientRecord> records = deaggregateAnyKplRecords(processRecordsInput.records());
+                if (deaggregateRecordsLazily) {
+                    processRecordsLazily(scope);
+                } else {
+                    List<KinesisClientRecord> records = deaggregateAnyKplRecords(processRecordsInput.records());
 
 
-                if (!records.isEmpty()) {
-                    scope.addData(RECORDS_PROCESSED_METRIC, records.size(), StandardUnit.COUNT, MetricsLevel.SUMMARY);
-                }
+                    if (!records.isEmpty()) {
+                        scope.addData(RECORDS_PROCESSED_METRIC, records.size(), StandardUnit.COUNT,
+                                MetricsLevel.SUMMARY);
+                    }
 
-                recordProcessorCheckpointer.largestPermittedCheckpointValue(filterAndGetMaxExtendedSequenceNumber(
-                        scope, records, recordProcessorCheckpointer.lastCheckpointValue(),
-                        recordProcessorCheckpointer.largestPermittedCheckpointValue()));
+                    recordProcessorCheckpointer.largestPermittedCheckpointValue(filterAndGetMaxExtendedSequenceNumber(
+                            scope, records, recordProcessorCheckpointer.lastCheckpointValue(),
+                            recordProcessorCheckpointer.largestPermittedCheckpointValue()));
 
-                if (shouldCallProcessRecords(records)) {
-                    callProcessRecords(processRecordsInput, records);
+                    if (shouldCallProcessRecords(records)) {
+                        callProcessRecords(processRecordsInput, records);
+                    }
                 }
                 success = true;
             } catch (RuntimeException e) {
@@ -166,6 +174,30 @@ public class ProcessTask implements ConsumerTask {
         }
     }
 
+    /**
+     * Dispatches the records to the record processor through a {@link LazyDeaggregatingRecordList}, so deaggregation,
+     * checkpoint filtering and metrics happen while the record processor iterates. Whatever the record processor
+     * didn't iterate is accounted for afterwards, so the largest permitted checkpoint covers the whole batch.
+     *
+     * @param scope
+     *            metrics scope to emit metrics into
+     */
+    private void processRecordsLazily(final MetricsScope scope) {
+        final LazyDeaggregatingRecordList records = new LazyDeaggregatingRecordList(processRecordsInput.records(),
+                this::deaggregateAnyKplRecords, recordProcessorCheckpointer,
+                record -> scope.addData(DATA_BYTES_PROCESSED_METRIC, record.data().limit(), StandardUnit.BYTES,
+                        MetricsLevel.SUMMARY));
+
+        if (shouldCallProcessRecords(records)) {
+            callProcessRecords(processRecordsInput, records);
+        }
+        records.drain();
+
+        if (records.deaggregatedRecordCount() > 0) {
+            scope.addData(RECORDS_PROCESSED_METRIC, records.deaggregatedRecordCount(), StandardUnit.COUNT, MetricsLevel.SUMMARY);
+        }
+    }
+
     /**
      * Sleeps for the configured backoff period. This is usually only called when an exception occurs.
      */
@@ -187,8 +219,14 @@ public class ProcessTask implements ConsumerTask {
      *            the records to be dispatched. It's possible the records have been adjusted by KPL deaggregation.
      */
     private void callProcessRecords(ProcessRecordsInput input, List<KinesisClientRecord> records) {
-        log.debug("Calling application processRecords() with {} records from {}", records.size(),
-                shardInfo.shardId());
+        if (deaggregateRecordsLazily) {
+            // The size of a lazy list isn't known until it has been iterated.
+            log.debug("Calling application processRecords() with the records of {} Kinesis records from {}",
+                    input.records().size(), shardInfo.shardId());
+        } else {
+            log.debug("Calling application processRecords() with {} records from {}", records.size(),
+                    shardInfo.shardId());
+        }
 
         final ProcessRecordsInput processRecordsInput = ProcessRecordsInput.builder().records(records).cacheExitTime(input.cacheExitTime()).cacheEntryTime(input.cacheEntryTime())
                 .checkpointer(recordProcessorCheckpointer).millisBehindLatest(input.millisBehindLatest()).build();
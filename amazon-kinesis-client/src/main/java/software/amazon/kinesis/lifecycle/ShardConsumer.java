@@ -85,6 +85,12 @@ public class ShardConsumer {
 
     private final ShardConsumerSubscriber subscriber;
 
+    /*
+     * Notified when this ShardConsumer can make progress, so the Scheduler can call executeLifecycle() right away
+     * instead of on its next poll.
+     */
+    private volatile Runnable lifecycleEventListener = () -> { };
+
     @Deprecated
     public ShardConsumer(RecordsPublisher recordsPublisher, ExecutorService executorService, ShardInfo shardInfo,
             Optional<Long> logWarningForTaskAfterMillis, ShardConsumerArgument shardConsumerArgument,
@@ -159,6 +165,7 @@ public class ShardConsumer {
         if (stateChangeFuture != null && !stateChangeFuture.isDone()) {
             return;
         }
+        final CompletableFuture<Boolean> previousStateChangeFuture = stateChangeFuture;
         try {
             if (isShutdownRequested()) {
                 stateChangeFuture = shutdownComplete();
@@ -187,6 +194,14 @@ public class ShardConsumer {
             // the state transitions.
             taskOutcome = TaskOutcome.FAILURE;
         }
+        if (stateChangeFuture != null && stateChangeFuture != previousStateChangeFuture) {
+            stateChangeFuture.whenComplete((stateChanged, t) -> {
+                // Failed tasks are retried on the next poll, so that they don't spin
+                if (t == null && !lastTaskFailed()) {
+                    lifecycleEventListener.run();
+                }
+            });
+        }
 
         if (ConsumerStates.ShardConsumerState.PROCESSING.equals(currentState.state())) {
             Throwable t = healthCheck();
@@ -260,6 +275,22 @@ public class ShardConsumer {
         }
     }
 
+    private synchronized boolean lastTaskFailed() {
+        return taskOutcome == TaskOutcome.FAILURE;
+    }
+
+    /**
+     * Sets the listener that is notified whenever this ShardConsumer can make progress: a task of a state transition
+     * completed, the end of the shard was reached or a shutdown was requested. The listener is expected to call
+     * {@link #executeLifecycle()} soon after, from the thread that drives this ShardConsumer.
+     *
+     * @param lifecycleEventListener
+     *            the listener, which must not block
+     */
+    public void lifecycleEventListener(@NonNull final Runnable lifecycleEventListener) {
+        this.lifecycleEventListener = lifecycleEventListener;
+    }
+
     @VisibleForTesting
     void subscribe() {
         subscriber.startSubscriptions();
@@ -430,6 +461,7 @@ public class ShardConsumer {
                 shutdownReason = reason;
             }
         }
+        lifecycleEventListener.run();
     }
 
     /**
@@ -22,6 +22,7 @@ import software.amazon.kinesis.annotations.KinesisClientInternalApi;
 import software.amazon.kinesis.checkpoint.ShardRecordProcessorCheckpointer;
 import software.amazon.kinesis.common.InitialPositionInStreamExtended;
 import software.amazon.kinesis.leases.LeaseRefresher;
+import software.amazon.kinesis.leases.LeaseThroughputTracker;
 import software.amazon.kinesis.leases.ShardDetector;
 import software.amazon.kinesis.leases.ShardInfo;
 import software.amazon.kinesis.leases.HierarchicalShardSyncer;
@@ -59,15 +60,18 @@ public class ShardConsumerArgument {
     private final long listShardsBackoffTimeInMillis;
     private final int maxListShardsRetryAttempts;
     private final boolean shouldCallProcessRecordsEvenForEmptyRecordList;
+    private final boolean deaggregateRecordsLazily;
     private final long idleTimeInMilliseconds;
     @NonNull
     private final InitialPositionInStreamExtended initialPositionInStream;
     private final boolean cleanupLeasesOfCompletedShards;
     private final boolean ignoreUnexpectedChildShards;
+    private final boolean incrementalShardSync;
     @NonNull
     private final ShardDetector shardDetector;
     private final AggregatorUtil aggregatorUtil;
     private final HierarchicalShardSyncer hierarchicalShardSyncer;
+    private final LeaseThroughputTracker leaseThroughputTracker;
     @NonNull
     private final MetricsFactory metricsFactory;
 }
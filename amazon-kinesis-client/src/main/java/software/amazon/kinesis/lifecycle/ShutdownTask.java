@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.lifecycle;
 
+import java.util.Collections;
+
 import com.google.common.annotations.VisibleForTesting;
 
 import lombok.NonNull;
@@ -60,6 +62,7 @@ public class ShutdownTask implements ConsumerTask {
     private final InitialPositionInStreamExtended initialPositionInStream;
     private final boolean cleanupLeasesOfCompletedShards;
     private final boolean ignoreUnexpectedChildShards;
+    private final boolean incrementalShardSync;
     @NonNull
     private final LeaseRefresher leaseRefresher;
     private final long backoffTimeMillis;
@@ -103,6 +106,8 @@ public class ShutdownTask implements ConsumerTask {
                 try {
                     if (reason == ShutdownReason.SHARD_END) {
                         shardRecordProcessor.shardEnded(ShardEndedInput.builder().checkpointer(recordProcessorCheckpointer).build());
+                        // A checkpoint made asynchronously may still be being saved.
+                        recordProcessorCheckpointer.awaitUnsavedCheckpoint();
                         ExtendedSequenceNumber lastCheckpointValue = recordProcessorCheckpointer.lastCheckpointValue();
                         if (lastCheckpointValue == null
                                 || !lastCheckpointValue.equals(ExtendedSequenceNumber.SHARD_END)) {
@@ -126,8 +131,15 @@ public class ShutdownTask implements ConsumerTask {
                 if (reason == ShutdownReason.SHARD_END) {
                     log.debug("Looking for child shards of shard {}", shardInfo.shardId());
                     // create leases for the child shards
-                    hierarchicalShardSyncer.checkAndCreateLeaseForNewShards(shardDetector, leaseRefresher,
-                            initialPositionInStream, cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards, scope);
+                    if (incrementalShardSync) {
+                        hierarchicalShardSyncer.checkAndCreateLeasesForChildShards(shardDetector, leaseRefresher,
+                                Collections.singleton(shardInfo.shardId()), initialPositionInStream,
+                                cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards, scope);
+                    } else {
+                        hierarchicalShardSyncer.checkAndCreateLeaseForNewShards(shardDetector, leaseRefresher,
+                                initialPositionInStream, cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards,
+                                scope);
+                    }
                     log.debug("Finished checking for child shards of shard {}", shardInfo.shardId());
                 }
 
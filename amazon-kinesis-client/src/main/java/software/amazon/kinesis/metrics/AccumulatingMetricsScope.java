@@ -17,14 +17,16 @@ package software.amazon.kinesis.metrics;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.google.common.collect.Maps;
+
 import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
 import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
-import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
 
 /**
  * An IMetricsScope that accumulates data from multiple calls to addData with
  * the same name parameter. It tracks min, max, sample count, and sum for each
- * named metric.
+ * named metric. Samples are folded into mutable {@link MetricAccumulator} cells, and {@link #data} is a view that
+ * only builds the MetricDatum of a metric when it is read.
  * 
  * @param <KeyType> can be a class or object defined by the user that stores information about a MetricDatum needed
  *        by the user.
@@ -41,7 +43,9 @@ import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
  */
 public abstract class AccumulatingMetricsScope<KeyType> extends EndingMetricsScope {
 
-    protected Map<KeyType, MetricDatum> data = new HashMap<>();
+    private final Map<KeyType, MetricAccumulator> accumulators = new HashMap<>();
+
+    protected Map<KeyType, MetricDatum> data = Maps.transformValues(accumulators, MetricAccumulator::toDatum);
 
     @Override
     public void addData(String name, double value, StandardUnit unit) {
@@ -76,27 +80,25 @@ public abstract class AccumulatingMetricsScope<KeyType> extends EndingMetricsSco
     public void addData(KeyType key, String name, double value, StandardUnit unit) {
         super.addData(name, value, unit);
 
-        final MetricDatum datum = data.get(key);
-        final MetricDatum metricDatum;
-        if (datum == null) {
-            metricDatum = MetricDatum.builder().metricName(name).unit(unit)
-                    .statisticValues(
-                            StatisticSet.builder().maximum(value).minimum(value).sampleCount(1.0).sum(value).build())
-                    .build();
-        } else {
-            if (!datum.unit().equals(unit)) {
-                throw new IllegalArgumentException("Cannot add to existing metric with different unit");
-            }
-
-            final StatisticSet oldStatisticSet = datum.statisticValues();
-            final StatisticSet statisticSet = oldStatisticSet.toBuilder()
-                    .maximum(Math.max(value, oldStatisticSet.maximum()))
-                    .minimum(Math.min(value, oldStatisticSet.minimum())).sampleCount(oldStatisticSet.sampleCount() + 1)
-                    .sum(oldStatisticSet.sum() + value).build();
-
-            metricDatum = datum.toBuilder().statisticValues(statisticSet).build();
+        MetricAccumulator accumulator = accumulators.get(key);
+        if (accumulator == null) {
+            accumulator = new MetricAccumulator(name, unit, recordLatencyHistogram(name, unit));
+            accumulators.put(key, accumulator);
+        } else if (!accumulator.unit().equals(unit)) {
+            throw new IllegalArgumentException("Cannot add to existing metric with different unit");
         }
 
-        data.put(key, metricDatum);
+        accumulator.add(value);
+    }
+
+    /**
+     * @param name
+     *            metric name
+     * @param unit
+     *            metric unit
+     * @return whether samples of the metric should also be kept in a {@link LatencyHistogram}
+     */
+    protected boolean recordLatencyHistogram(String name, StandardUnit unit) {
+        return false;
     }
 }
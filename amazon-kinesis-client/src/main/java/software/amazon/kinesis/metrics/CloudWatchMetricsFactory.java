@@ -43,6 +43,10 @@ public class CloudWatchMetricsFactory implements MetricsFactory {
      * List of enabled dimensions for metrics.
      */
     private final Set<String> metricsEnabledDimensions;
+    /**
+     * Whether millisecond metrics are published as latency histograms.
+     */
+    private final boolean latencyHistogramsEnabled;
 
     /**
      * Constructor.
@@ -66,7 +70,36 @@ public class CloudWatchMetricsFactory implements MetricsFactory {
             @NonNull final String namespace, final long bufferTimeMillis, final int maxQueueSize,
             @NonNull final MetricsLevel metricsLevel, @NonNull final Set<String> metricsEnabledDimensions,
             final int flushSize) {
+        this(cloudWatchClient, namespace, bufferTimeMillis, maxQueueSize, metricsLevel, metricsEnabledDimensions,
+                flushSize, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cloudWatchClient
+     *            Client used to make CloudWatch requests
+     * @param namespace
+     *            the namespace under which the metrics will appear in the CloudWatch console
+     * @param bufferTimeMillis
+     *            time to buffer metrics before publishing to CloudWatch
+     * @param maxQueueSize
+     *            maximum number of metrics that we can have in a queue
+     * @param metricsLevel
+     *            metrics level to enable
+     * @param metricsEnabledDimensions
+     *            metrics dimensions to allow
+     * @param flushSize
+     *            size of batch that can be published
+     * @param latencyHistogramsEnabled
+     *            publish millisecond metrics as values and counts so CloudWatch can compute percentiles
+     */
+    public CloudWatchMetricsFactory(@NonNull final CloudWatchAsyncClient cloudWatchClient,
+            @NonNull final String namespace, final long bufferTimeMillis, final int maxQueueSize,
+            @NonNull final MetricsLevel metricsLevel, @NonNull final Set<String> metricsEnabledDimensions,
+            final int flushSize, final boolean latencyHistogramsEnabled) {
         this.metricsLevel = metricsLevel;
+        this.latencyHistogramsEnabled = latencyHistogramsEnabled;
         this.metricsEnabledDimensions = (metricsEnabledDimensions == null ? ImmutableSet.of()
                 : ImmutableSet.copyOf(metricsEnabledDimensions));
 
@@ -79,7 +112,7 @@ public class CloudWatchMetricsFactory implements MetricsFactory {
 
     @Override
     public MetricsScope createMetrics() {
-        return new CloudWatchMetricsScope(runnable, metricsLevel, metricsEnabledDimensions);
+        return new CloudWatchMetricsScope(runnable, metricsLevel, metricsEnabledDimensions, latencyHistogramsEnabled);
     }
 
     public void shutdown() {
@@ -18,6 +18,8 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+
 
 /**
  * Metrics scope for CloudWatch metrics.
@@ -25,6 +27,7 @@ import java.util.stream.Collectors;
 public class CloudWatchMetricsScope extends FilteringMetricsScope implements MetricsScope {
 
     private CloudWatchPublisherRunnable publisher;
+    private final boolean latencyHistogramsEnabled;
 
     /**
      * Creates a CloudWatch metrics scope with given metrics level and enabled dimensions.
@@ -34,8 +37,28 @@ public class CloudWatchMetricsScope extends FilteringMetricsScope implements Met
      */
     public CloudWatchMetricsScope(CloudWatchPublisherRunnable publisher,
                                   MetricsLevel metricsLevel, Set<String> metricsEnabledDimensions) {
+        this(publisher, metricsLevel, metricsEnabledDimensions, false);
+    }
+
+    /**
+     * Creates a CloudWatch metrics scope with given metrics level and enabled dimensions.
+     * @param publisher Publisher that emits CloudWatch metrics periodically.
+     * @param metricsLevel Metrics level to enable. All data with level below this will be dropped.
+     * @param metricsEnabledDimensions Enabled dimensions for CloudWatch metrics.
+     * @param latencyHistogramsEnabled Whether millisecond metrics are published as histograms instead of statistic
+     *                                 sets.
+     */
+    public CloudWatchMetricsScope(CloudWatchPublisherRunnable publisher,
+                                  MetricsLevel metricsLevel, Set<String> metricsEnabledDimensions,
+                                  boolean latencyHistogramsEnabled) {
         super(metricsLevel, metricsEnabledDimensions);
         this.publisher = publisher;
+        this.latencyHistogramsEnabled = latencyHistogramsEnabled;
+    }
+
+    @Override
+    protected boolean recordLatencyHistogram(String name, StandardUnit unit) {
+        return latencyHistogramsEnabled && unit == StandardUnit.MILLISECONDS;
     }
 
     /**
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+/**
+ * A log-linear histogram in the style of HdrHistogram, used to keep latency distributions for CloudWatch.
+ *
+ * <p>
+ * Values below {@link #SUB_BUCKET_COUNT} are counted exactly; every larger power of two is split into
+ * {@link #SUB_BUCKET_COUNT} equal-width buckets, so a recorded value is off by at most 1/{@link #SUB_BUCKET_COUNT}
+ * of its magnitude. Buckets are plain {@code long} counters grown on demand, which keeps recording allocation free
+ * once the histogram has seen its largest value.
+ * </p>
+ *
+ * <p>
+ * This class is not thread safe.
+ * </p>
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Maximum number of distinct values CloudWatch accepts in a single MetricDatum.
+     */
+    public static final int MAX_VALUES = 150;
+
+    private long[] buckets = new long[SUB_BUCKET_COUNT * 2];
+    private long totalCount;
+
+    /**
+     * Records a single occurrence of the given value.
+     *
+     * @param value value to record, negative values are recorded as zero
+     */
+    public void record(double value) {
+        record(value, 1);
+    }
+
+    /**
+     * Records the given value {@code count} times.
+     *
+     * @param value value to record, negative values are recorded as zero
+     * @param count number of occurrences
+     */
+    public void record(double value, long count) {
+        if (count <= 0) {
+            return;
+        }
+        final int index = bucketIndex(value);
+        if (index >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.max(index + 1, buckets.length * 2));
+        }
+        buckets[index] += count;
+        totalCount += count;
+    }
+
+    public long totalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Sets the histogram on the builder as CloudWatch values and counts. If more than {@link #MAX_VALUES} buckets
+     * are populated, neighbouring buckets are merged into their count-weighted mean until the limit is met.
+     *
+     * @param builder builder to populate
+     * @return the builder
+     */
+    public MetricDatum.Builder export(MetricDatum.Builder builder) {
+        int size = 0;
+        double[] values = new double[buckets.length];
+        double[] counts = new double[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != 0) {
+                values[size] = bucketValue(i);
+                counts[size] = buckets[i];
+                size++;
+            }
+        }
+
+        while (size > MAX_VALUES) {
+            int merged = 0;
+            for (int i = 0; i < size; i += 2) {
+                if (i + 1 < size) {
+                    final double count = counts[i] + counts[i + 1];
+                    values[merged] = (values[i] * counts[i] + values[i + 1] * counts[i + 1]) / count;
+                    counts[merged] = count;
+                } else {
+                    values[merged] = values[i];
+                    counts[merged] = counts[i];
+                }
+                merged++;
+            }
+            size = merged;
+        }
+
+        final List<Double> valueList = new ArrayList<>(size);
+        final List<Double> countList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            valueList.add(values[i]);
+            countList.add(counts[i]);
+        }
+        return builder.values(valueList).counts(countList);
+    }
+
+    static int bucketIndex(double value) {
+        final long v;
+        if (!(value > 0)) {
+            v = 0;
+        } else if (value >= Long.MAX_VALUE) {
+            v = Long.MAX_VALUE;
+        } else {
+            v = (long) value;
+        }
+        if (v < SUB_BUCKET_COUNT) {
+            return (int) v;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BUCKET_BITS;
+        final int subBucket = (int) (v >>> shift);
+        return (shift + 1) * SUB_BUCKET_COUNT + (subBucket - SUB_BUCKET_COUNT);
+    }
+
+    static double bucketValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_COUNT - 1;
+        final long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + ((1L << shift) >> 1);
+    }
+}
@@ -22,11 +22,11 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
-import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
 
 
 /**
- * Helper class for accumulating MetricDatums with the same name and dimensions.
+ * Helper class for accumulating MetricDatums with the same name and dimensions. Datums offered more than once are
+ * merged into a {@link MetricAccumulator} and only rebuilt when drained.
  * 
  * @param <KeyType> can be a class or object defined by the user that stores information about a MetricDatum needed
  *        by the user.
@@ -47,10 +47,13 @@ public class MetricAccumulatingQueue<KeyType> {
     private BlockingQueue<MetricDatumWithKey<KeyType>> queue;
     // Map is for constant time lookup by key
     private Map<KeyType, MetricDatumWithKey<KeyType>> map;
+    // Cells for keys that have been offered more than once, turned back into datums on drain
+    private Map<KeyType, MetricAccumulator> accumulators;
 
     public MetricAccumulatingQueue(int maxQueueSize) {
         queue = new LinkedBlockingQueue<>(maxQueueSize);
         map = new HashMap<>();
+        accumulators = new HashMap<>();
     }
 
     /**
@@ -60,7 +63,13 @@ public class MetricAccumulatingQueue<KeyType> {
     public synchronized List<MetricDatumWithKey<KeyType>> drain(int maxItems) {
         List<MetricDatumWithKey<KeyType>> drainedItems = new ArrayList<>(maxItems);
         queue.drainTo(drainedItems, maxItems);
-        drainedItems.forEach(datumWithKey -> map.remove(datumWithKey.key));
+        for (MetricDatumWithKey<KeyType> datumWithKey : drainedItems) {
+            map.remove(datumWithKey.key);
+            MetricAccumulator accumulator = accumulators.remove(datumWithKey.key);
+            if (accumulator != null) {
+                datumWithKey.datum(accumulator.toDatum());
+            }
+        }
         return drainedItems;
     }
 
@@ -98,20 +107,15 @@ public class MetricAccumulatingQueue<KeyType> {
     }
 
     private void accumulate(MetricDatumWithKey<KeyType> metricDatumWithKey, MetricDatum newDatum) {
-        MetricDatum oldDatum = metricDatumWithKey.datum;
-        if (!oldDatum.unit().equals(newDatum.unit())) {
-            throw new IllegalArgumentException("Unit mismatch for datum named " + oldDatum.metricName());
+        MetricAccumulator accumulator = accumulators.get(metricDatumWithKey.key);
+        if (accumulator == null) {
+            accumulator = MetricAccumulator.fromDatum(metricDatumWithKey.datum);
+            accumulators.put(metricDatumWithKey.key, accumulator);
+        }
+        if (!accumulator.unit().equals(newDatum.unit())) {
+            throw new IllegalArgumentException("Unit mismatch for datum named " + accumulator.name());
         }
 
-        StatisticSet oldStats = oldDatum.statisticValues();
-        StatisticSet newStats = newDatum.statisticValues();
-
-        StatisticSet statisticSet = oldStats.toBuilder().sum(oldStats.sum() + newStats.sum())
-                .minimum(Math.min(oldStats.minimum(), newStats.minimum()))
-                .maximum(Math.max(oldStats.maximum(), newStats.maximum()))
-                .sampleCount(oldStats.sampleCount() + newStats.sampleCount()).build();
-
-        MetricDatum datum = oldDatum.toBuilder().statisticValues(statisticSet).build();
-        metricDatumWithKey.datum(datum);
+        accumulator.add(newDatum);
     }
 }
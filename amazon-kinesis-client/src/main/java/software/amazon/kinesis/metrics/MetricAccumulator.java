@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.metrics;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.awssdk.services.cloudwatch.model.StatisticSet;
+
+/**
+ * Mutable accumulation cell for a single metric. Samples are folded into primitive min, max, sum and sample count
+ * fields, and optionally into a {@link LatencyHistogram}; a MetricDatum is only built when the cell is read.
+ *
+ * <p>
+ * A cell is not thread safe. Cells created by a metrics scope are confined to the thread using that scope, and cells
+ * held by a {@link MetricAccumulatingQueue} are guarded by the queue.
+ * </p>
+ */
+@Accessors(fluent = true)
+public class MetricAccumulator {
+    private final MetricDatum template;
+    @Getter
+    private final StandardUnit unit;
+    @Getter
+    private double minimum = Double.POSITIVE_INFINITY;
+    @Getter
+    private double maximum = Double.NEGATIVE_INFINITY;
+    @Getter
+    private double sum;
+    @Getter
+    private double sampleCount;
+    private LatencyHistogram histogram;
+
+    /**
+     * @param name metric name
+     * @param unit metric unit
+     * @param recordHistogram whether samples should also be recorded in a {@link LatencyHistogram}
+     */
+    public MetricAccumulator(String name, StandardUnit unit, boolean recordHistogram) {
+        this(MetricDatum.builder().metricName(name).unit(unit).build(), recordHistogram);
+    }
+
+    private MetricAccumulator(MetricDatum template, boolean recordHistogram) {
+        this.template = template;
+        this.unit = template.unit();
+        this.histogram = recordHistogram ? new LatencyHistogram() : null;
+    }
+
+    /**
+     * Creates a cell holding the data of an existing datum. The name, unit, dimensions and any other attributes of the
+     * datum are kept for the datums built by this cell.
+     *
+     * @param datum datum to start from
+     * @return a new cell
+     */
+    public static MetricAccumulator fromDatum(MetricDatum datum) {
+        final MetricAccumulator accumulator = new MetricAccumulator(datum, !datum.values().isEmpty());
+        accumulator.add(datum);
+        return accumulator;
+    }
+
+    public String name() {
+        return template.metricName();
+    }
+
+    /**
+     * Adds a single sample.
+     *
+     * @param value sample value
+     */
+    public void add(double value) {
+        minimum = Math.min(minimum, value);
+        maximum = Math.max(maximum, value);
+        sum += value;
+        sampleCount++;
+        if (histogram != null) {
+            histogram.record(value);
+        }
+    }
+
+    /**
+     * Adds the data held by a datum, which may carry statistic values, values and counts, or a single value. Statistic
+     * values merged into a cell with a histogram are recorded in the histogram at their mean.
+     *
+     * @param datum datum to add
+     */
+    public void add(MetricDatum datum) {
+        final StatisticSet statistics = datum.statisticValues();
+        if (statistics != null) {
+            addStatistics(statistics.minimum(), statistics.maximum(), statistics.sum(), statistics.sampleCount());
+            if (histogram != null) {
+                histogram.record(statistics.sum() / statistics.sampleCount(), Math.round(statistics.sampleCount()));
+            }
+        } else if (!datum.values().isEmpty()) {
+            if (histogram == null) {
+                histogram = new LatencyHistogram();
+                if (sampleCount > 0) {
+                    histogram.record(sum / sampleCount, Math.round(sampleCount));
+                }
+            }
+            final List<Double> values = datum.values();
+            final List<Double> counts = datum.counts();
+            for (int i = 0; i < values.size(); i++) {
+                final double value = values.get(i);
+                final double count = counts.isEmpty() ? 1 : counts.get(i);
+                addStatistics(value, value, value * count, count);
+                histogram.record(value, Math.round(count));
+            }
+        } else if (datum.value() != null) {
+            add(datum.value());
+        }
+    }
+
+    private void addStatistics(double minimum, double maximum, double sum, double sampleCount) {
+        this.minimum = Math.min(this.minimum, minimum);
+        this.maximum = Math.max(this.maximum, maximum);
+        this.sum += sum;
+        this.sampleCount += sampleCount;
+    }
+
+    /**
+     * @return a datum holding the accumulated data
+     */
+    public MetricDatum toDatum() {
+        return export(template.toBuilder());
+    }
+
+    private MetricDatum export(MetricDatum.Builder builder) {
+        builder.value((Double) null);
+        if (histogram != null && histogram.totalCount() > 0) {
+            return histogram.export(builder.statisticValues((StatisticSet) null)).build();
+        }
+        return builder.statisticValues(StatisticSet.builder().maximum(maximum).minimum(minimum)
+                .sampleCount(sampleCount).sum(sum).build()).build();
+    }
+}
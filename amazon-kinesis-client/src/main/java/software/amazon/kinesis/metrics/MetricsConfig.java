@@ -105,12 +105,23 @@ public class MetricsConfig {
      */
     private int publisherFlushBuffer = 200;
 
+    /**
+     * Publish millisecond metrics as latency histograms (CloudWatch values and counts) instead of statistic sets, so
+     * percentiles such as p99 can be graphed. Histogram buckets are accurate to within about 6% of the value.
+     *
+     * <p>
+     * Default value: false
+     * </p>
+     */
+    private boolean metricsLatencyHistograms = false;
+
     private MetricsFactory metricsFactory;
 
     public MetricsFactory metricsFactory() {
         if (metricsFactory == null) {
             metricsFactory = new CloudWatchMetricsFactory(cloudWatchClient(), namespace(), metricsBufferTimeMillis(),
-                    metricsMaxQueueSize(), metricsLevel(), metricsEnabledDimensions(), publisherFlushBuffer());
+                    metricsMaxQueueSize(), metricsLevel(), metricsEnabledDimensions(), publisherFlushBuffer(),
+                    metricsLatencyHistograms());
         }
         return metricsFactory;
     }
@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.processor;
 
+import java.util.concurrent.CompletableFuture;
+
 import software.amazon.kinesis.exceptions.KinesisClientLibException;
 import software.amazon.kinesis.checkpoint.Checkpoint;
 import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
@@ -37,6 +39,29 @@ public interface Checkpointer {
     void setCheckpoint(String shardId, ExtendedSequenceNumber checkpointValue, String concurrencyToken)
         throws KinesisClientLibException;
 
+    /**
+     * Record a checkpoint for a shard without waiting for it to be saved. Implementations may coalesce the checkpoints
+     * of several shards into fewer writes. By default the checkpoint is saved with
+     * {@link #setCheckpoint(String, ExtendedSequenceNumber, String)} before returning.
+     *
+     * @param shardId Checkpoint is specified for this shard.
+     * @param checkpointValue Value of the checkpoint (e.g. Kinesis sequence number and subsequence number)
+     * @param concurrencyToken Used with conditional writes to prevent stale updates
+     * @return a future that completes once the checkpoint, or a later checkpoint of the same shard, was saved, or
+     *         that completes exceptionally with the {@link KinesisClientLibException} that prevented it
+     */
+    default CompletableFuture<Void> setCheckpointAsync(String shardId, ExtendedSequenceNumber checkpointValue,
+            String concurrencyToken) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            setCheckpoint(shardId, checkpointValue, concurrencyToken);
+            future.complete(null);
+        } catch (KinesisClientLibException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Get the current checkpoint stored for the specified shard. Useful for checking that the parent shard
      * has been completely processed before we start processing the child shard.
@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.processor;
 
+import java.util.concurrent.CompletionStage;
+
 import software.amazon.kinesis.exceptions.InvalidStateException;
 import software.amazon.kinesis.exceptions.KinesisClientLibDependencyException;
 import software.amazon.kinesis.exceptions.ShutdownException;
@@ -52,4 +54,18 @@ public interface PreparedCheckpointer {
             throws KinesisClientLibDependencyException, InvalidStateException, ThrottlingException, ShutdownException,
             IllegalArgumentException;
 
-}
\ No newline at end of file
+    /**
+     * This method will record the pending checkpoint without waiting for it to be saved. This method is analogous to
+     * {@link #checkpoint()}, but lets the record processor keep processing records while the checkpoint is saved.
+     *
+     * <p>
+     * By default the checkpoint is saved before returning, like {@link #checkpoint()}.
+     * </p>
+     *
+     * @return a stage that completes once the checkpoint was saved, or that completes exceptionally with one of the
+     *         exceptions thrown by {@link #checkpoint()}
+     */
+    default CompletionStage<Void> checkpointAsync() {
+        return SynchronousCheckpoints.run(this::checkpoint);
+    }
+}
@@ -38,4 +38,23 @@ public class ProcessorConfig {
      */
     private boolean callProcessRecordsEvenForEmptyRecordList = false;
 
+    /**
+     * Deaggregate, filter and account for records while the record processor iterates
+     * {@link software.amazon.kinesis.lifecycle.events.ProcessRecordsInput#records()}, instead of materializing all the
+     * user records of a batch before processRecords() is called.
+     *
+     * <p>Record processors that only iterate the records once benefit from this. Calling size(), get() or iterating
+     * more than once still works, but materializes the whole list.</p>
+     *
+     * <p>The largest permitted checkpoint only advances as the record processor iterates the records: while
+     * processRecords() runs, checkpoint() checkpoints at the last user record of the Kinesis record the iteration
+     * reached, and checkpointing at a sequence number, or sub-sequence number, the iteration hasn't reached yet throws
+     * an IllegalArgumentException. The records that weren't iterated are accounted for once processRecords() returns.
+     * The RecordsProcessed metric still counts the deaggregated user records, but is only recorded after
+     * processRecords() returns.</p>
+     *
+     * <p>Default value: false</p>
+     */
+    private boolean deaggregateRecordsLazily = false;
+
 }
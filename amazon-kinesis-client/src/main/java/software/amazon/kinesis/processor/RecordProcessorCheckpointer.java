@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.processor;
 
+import java.util.concurrent.CompletionStage;
+
 import software.amazon.awssdk.services.kinesis.model.Record;
 import software.amazon.kinesis.exceptions.InvalidStateException;
 import software.amazon.kinesis.exceptions.KinesisClientLibDependencyException;
@@ -121,6 +123,68 @@ public interface RecordProcessorCheckpointer {
         throws KinesisClientLibDependencyException, InvalidStateException, ThrottlingException, ShutdownException,
         IllegalArgumentException;
 
+    /**
+     * This method will checkpoint the progress at the last data record that was delivered to the record processor,
+     * without waiting for the checkpoint to be saved. This method is analogous to {@link #checkpoint()}, but lets the
+     * record processor keep processing records while the checkpoint is saved. Checkpoints of a shard are saved in the
+     * order they're made, and a later checkpoint may be saved in place of an earlier one that wasn't saved yet.
+     *
+     * <p>
+     * By default the checkpoint is saved before returning, like {@link #checkpoint()}.
+     * </p>
+     *
+     * <p>
+     * When checkpointing at the end of a shard in {@link ShardRecordProcessor#shardEnded}, the returned stage must
+     * complete before shardEnded returns, since the shard is only considered finished once the checkpoint was saved.
+     * </p>
+     *
+     * @return a stage that completes once the checkpoint was saved, or that completes exceptionally with one of the
+     *         exceptions thrown by {@link #checkpoint()}
+     */
+    default CompletionStage<Void> checkpointAsync() {
+        return SynchronousCheckpoints.run(this::checkpoint);
+    }
+
+    /**
+     * This method will checkpoint the progress at the provided record, without waiting for the checkpoint to be saved.
+     * This method is analogous to {@link #checkpointAsync()} but provides the ability to specify the record at which
+     * to checkpoint.
+     *
+     * @param record A record at which to checkpoint in this shard.
+     * @return a stage that completes once the checkpoint was saved, or that completes exceptionally with one of the
+     *         exceptions thrown by {@link #checkpoint(Record)}
+     */
+    default CompletionStage<Void> checkpointAsync(Record record) {
+        return SynchronousCheckpoints.run(() -> checkpoint(record));
+    }
+
+    /**
+     * This method will checkpoint the progress at the provided sequenceNumber, without waiting for the checkpoint to be
+     * saved. This method is analogous to {@link #checkpointAsync()} but provides the ability to specify the sequence
+     * number at which to checkpoint.
+     *
+     * @param sequenceNumber A sequence number at which to checkpoint in this shard.
+     * @return a stage that completes once the checkpoint was saved, or that completes exceptionally with one of the
+     *         exceptions thrown by {@link #checkpoint(String)}
+     */
+    default CompletionStage<Void> checkpointAsync(String sequenceNumber) {
+        return SynchronousCheckpoints.run(() -> checkpoint(sequenceNumber));
+    }
+
+    /**
+     * This method will checkpoint the progress at the provided sequenceNumber and subSequenceNumber, without waiting
+     * for the checkpoint to be saved. This method is analogous to {@link #checkpointAsync()} but provides the ability
+     * to specify the sequence and subsequence numbers at which to checkpoint.
+     *
+     * @param sequenceNumber A sequence number at which to checkpoint in this shard.
+     * @param subSequenceNumber A subsequence number at which to checkpoint within this shard.
+     * @return a stage that completes once the checkpoint was saved, or that completes exceptionally with one of the
+     *         exceptions thrown by {@link #checkpoint(String, long)}
+     */
+    default CompletionStage<Void> checkpointAsync(String sequenceNumber, long subSequenceNumber) {
+        return SynchronousCheckpoints.run(() -> checkpoint(sequenceNumber, subSequenceNumber));
+    }
+
     /**
      * This method will record a pending checkpoint at the last data record that was delivered to the record processor.
      * If the application fails over between calling prepareCheckpoint() and checkpoint(), the init() method of the next
@@ -59,7 +59,9 @@ public interface ShardRecordProcessor {
      * further records will ever arrive on that shard.
      *
      * When this is called the record processor <b>must</b> call {@link RecordProcessorCheckpointer#checkpoint()},
-     * otherwise an exception will be thrown and the all child shards of this shard will not make progress.
+     * otherwise an exception will be thrown and the all child shards of this shard will not make progress. A record
+     * processor using {@link RecordProcessorCheckpointer#checkpointAsync()} must wait for the returned stage to
+     * complete before returning.
      * 
      * @param shardEndedInput
      *            provides access to a checkpointer method for completing processing of the shard.
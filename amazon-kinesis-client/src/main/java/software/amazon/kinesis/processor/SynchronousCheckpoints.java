@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.processor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import software.amazon.kinesis.exceptions.KinesisClientLibException;
+
+/**
+ * Adapts synchronous checkpoints to the asynchronous checkpointer API, for implementations that can only checkpoint
+ * synchronously.
+ */
+final class SynchronousCheckpoints {
+    private SynchronousCheckpoints() {
+    }
+
+    @FunctionalInterface
+    interface CheckpointAction {
+        void checkpoint() throws KinesisClientLibException;
+    }
+
+    /**
+     * Runs the checkpoint on the calling thread.
+     *
+     * @return a stage that is already completed, exceptionally if the checkpoint failed
+     */
+    static CompletionStage<Void> run(final CheckpointAction action) {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            action.checkpoint();
+            future.complete(null);
+        } catch (KinesisClientLibException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
@@ -18,6 +18,8 @@ package software.amazon.kinesis.retrieval;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -29,6 +31,7 @@ import org.apache.commons.lang3.StringUtils;
 import com.google.protobuf.InvalidProtocolBufferException;
 
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import software.amazon.kinesis.retrieval.kpl.Messages;
 
@@ -43,6 +46,64 @@ public class AggregatorUtil {
     // largest hash key = 2^128-1
     private static final BigInteger ENDING_HASH_KEY = new BigInteger(StringUtils.repeat("FF", 16), 16);
 
+    // MessageDigest instances are expensive to create and not thread safe, so each thread keeps its own.
+    private static final ThreadLocal<Md5Context> MD5_CONTEXT = ThreadLocal.withInitial(Md5Context::new);
+
+    private static final byte HASH_KEY_UNKNOWN = 0;
+    private static final byte HASH_KEY_IN_RANGE = 1;
+    private static final byte HASH_KEY_OUT_OF_RANGE = 2;
+
+    // Field numbers and wire types of the KPL protobuf messages, used when walking the wire format directly.
+    private static final int AGGREGATED_RECORD_PARTITION_KEY_TABLE_FIELD = 1;
+    private static final int AGGREGATED_RECORD_EXPLICIT_HASH_KEY_TABLE_FIELD = 2;
+    private static final int AGGREGATED_RECORD_RECORDS_FIELD = 3;
+    private static final int RECORD_PARTITION_KEY_INDEX_FIELD = 1;
+    private static final int RECORD_EXPLICIT_HASH_KEY_INDEX_FIELD = 2;
+    private static final int RECORD_DATA_FIELD = 3;
+    private static final int WIRETYPE_VARINT = 0;
+    private static final int WIRETYPE_FIXED64 = 1;
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+    private static final int WIRETYPE_FIXED32 = 5;
+
+    private final boolean zeroCopyDeaggregation;
+
+    public AggregatorUtil() {
+        this(false);
+    }
+
+    /**
+     * Creates an AggregatorUtil, optionally using zero-copy deaggregation.
+     *
+     * <p>
+     * When zero-copy deaggregation is enabled the protobuf wire format of aggregated records is walked directly over
+     * the source {@link ByteBuffer}, and the {@link KinesisClientRecord#data()} of each resulting user record is a
+     * read-only slice of that buffer instead of a copy. Record processors must not rely on
+     * {@link ByteBuffer#array()} being available for those records.
+     * </p>
+     *
+     * @param zeroCopyDeaggregation
+     *            whether aggregated records should be deaggregated without copying the record data
+     */
+    public AggregatorUtil(final boolean zeroCopyDeaggregation) {
+        this.zeroCopyDeaggregation = zeroCopyDeaggregation;
+    }
+
+    /**
+     * Whether this AggregatorUtil uses the default MD5 based {@link #effectiveHashKey(String, String)} and
+     * {@link #calculateTailCheck(byte[])}. If so, deaggregation compares hash keys as cached 128-bit values and hashes
+     * the record data in place instead of calling those methods.
+     *
+     * <p>
+     * Only returns true for {@link AggregatorUtil} itself. Subclasses that don't change how hash keys or tail checks
+     * are calculated can override this to return true, and keep the faster path.
+     * </p>
+     *
+     * @return true if the default hash key and tail check calculations are in use
+     */
+    protected boolean usesDefaultHashing() {
+        return getClass() == AggregatorUtil.class;
+    }
+
     /**
      * This method deaggregates the given list of Amazon Kinesis records into a
      * list of KPL user records. This method will then return the resulting list
@@ -90,10 +151,17 @@ public class AggregatorUtil {
      * partition keys fall within the range of the startingHashKey and
      * the endingHashKey.
      */
-    // CHECKSTYLE:OFF NPathComplexity
     public List<KinesisClientRecord> deaggregate(List<KinesisClientRecord> records,
                                                         BigInteger startingHashKey,
                                                         BigInteger endingHashKey) {
+        return deaggregate(records, new HashKeyRange(startingHashKey, endingHashKey));
+    }
+
+    // CHECKSTYLE:OFF NPathComplexity
+    private List<KinesisClientRecord> deaggregate(List<KinesisClientRecord> records, HashKeyRange hashKeyRange) {
+        if (zeroCopyDeaggregation) {
+            return deaggregateZeroCopy(records, hashKeyRange);
+        }
         List<KinesisClientRecord> result = new ArrayList<>();
         byte[] magic = new byte[AGGREGATED_RECORD_MAGIC.length];
         byte[] digest = new byte[DIGEST_SIZE];
@@ -129,21 +197,24 @@ public class AggregatorUtil {
                         Messages.AggregatedRecord ar = Messages.AggregatedRecord.parseFrom(messageData);
                         List<String> pks = ar.getPartitionKeyTableList();
                         List<String> ehks = ar.getExplicitHashKeyTableList();
+                        HashKeyRangeFilter hashKeyRangeFilter = new HashKeyRangeFilter(hashKeyRange, pks.size(),
+                                ehks.size());
                         long aat = r.approximateArrivalTimestamp() == null
                                 ? -1 : r.approximateArrivalTimestamp().toEpochMilli();
                         try {
                             int recordsInCurrRecord = 0;
                             for (Messages.Record mr : ar.getRecordsList()) {
                                 String explicitHashKey = null;
-                                String partitionKey = pks.get((int) mr.getPartitionKeyIndex());
+                                int partitionKeyIndex = (int) mr.getPartitionKeyIndex();
+                                int explicitHashKeyIndex = -1;
+                                String partitionKey = pks.get(partitionKeyIndex);
                                 if (mr.hasExplicitHashKeyIndex()) {
-                                    explicitHashKey = ehks.get((int) mr.getExplicitHashKeyIndex());
+                                    explicitHashKeyIndex = (int) mr.getExplicitHashKeyIndex();
+                                    explicitHashKey = ehks.get(explicitHashKeyIndex);
                                 }
 
-                                BigInteger effectiveHashKey = effectiveHashKey(partitionKey, explicitHashKey);
-
-                                if (effectiveHashKey.compareTo(startingHashKey) < 0
-                                        || effectiveHashKey.compareTo(endingHashKey) > 0) {
+                                if (!hashKeyRangeFilter.contains(partitionKeyIndex, partitionKey, explicitHashKeyIndex,
+                                        explicitHashKey)) {
                                     for (int toRemove = 0; toRemove < recordsInCurrRecord; ++toRemove) {
                                         result.remove(result.size() - 1);
                                     }
@@ -195,24 +266,446 @@ public class AggregatorUtil {
         return result;
     }
 
+    private List<KinesisClientRecord> deaggregateZeroCopy(List<KinesisClientRecord> records,
+                                                          HashKeyRange hashKeyRange) {
+        List<KinesisClientRecord> result = new ArrayList<>(records.size());
+        for (KinesisClientRecord r : records) {
+            ByteBuffer payload = aggregatedPayload(r.data());
+            boolean isAggregated = payload != null;
+            if (isAggregated) {
+                try {
+                    deaggregateWireFormat(r, payload, hashKeyRange, result);
+                } catch (InvalidProtocolBufferException e) {
+                    isAggregated = false;
+                }
+            }
+            if (!isAggregated) {
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the protobuf message of an aggregated record, without the magic header and the digest trailer, if the
+     * given data is an aggregated record whose digest matches. The position of the given buffer is not changed.
+     *
+     * @param data
+     *            the data of a record retrieved from Kinesis
+     * @return a buffer positioned at zero that shares content with the given buffer, or null if the data is not an
+     *         aggregated record
+     */
+    private ByteBuffer aggregatedPayload(final ByteBuffer data) {
+        final int start = data.position();
+        final int end = data.limit();
+        if (end - start <= AGGREGATED_RECORD_MAGIC.length + DIGEST_SIZE) {
+            return null;
+        }
+        for (int i = 0; i < AGGREGATED_RECORD_MAGIC.length; ++i) {
+            if (data.get(start + i) != AGGREGATED_RECORD_MAGIC[i]) {
+                return null;
+            }
+        }
+
+        ByteBuffer payload = data.duplicate();
+        payload.limit(end - DIGEST_SIZE);
+        payload.position(start + AGGREGATED_RECORD_MAGIC.length);
+        payload = payload.slice();
+
+        byte[] calculatedDigest = calculateTailCheck(payload.duplicate());
+        for (int i = 0; i < DIGEST_SIZE; ++i) {
+            if (calculatedDigest[i] != data.get(end - DIGEST_SIZE + i)) {
+                return null;
+            }
+        }
+        return payload;
+    }
+
+    /**
+     * Walks the protobuf wire format of an AggregatedRecord and adds the resulting user records to the result. The
+     * whole message is validated before any user record is added, so an {@link InvalidProtocolBufferException} leaves
+     * the result untouched.
+     */
+    private void deaggregateWireFormat(final KinesisClientRecord r, final ByteBuffer payload,
+                                       final HashKeyRange hashKeyRange, final List<KinesisClientRecord> result) throws InvalidProtocolBufferException {
+        List<String> pks = new ArrayList<>();
+        List<String> ehks = new ArrayList<>();
+        List<WireRecord> wireRecords = new ArrayList<>();
+
+        WireFormatReader reader = new WireFormatReader(payload, 0, payload.limit());
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            int fieldNumber = tag >>> 3;
+            int wireType = tag & 0x7;
+            if (wireType == WIRETYPE_LENGTH_DELIMITED && fieldNumber == AGGREGATED_RECORD_PARTITION_KEY_TABLE_FIELD) {
+                int length = reader.readLength();
+                pks.add(readUtf8(payload, reader.skip(length), length));
+            } else if (wireType == WIRETYPE_LENGTH_DELIMITED
+                    && fieldNumber == AGGREGATED_RECORD_EXPLICIT_HASH_KEY_TABLE_FIELD) {
+                int length = reader.readLength();
+                ehks.add(readUtf8(payload, reader.skip(length), length));
+            } else if (wireType == WIRETYPE_LENGTH_DELIMITED && fieldNumber == AGGREGATED_RECORD_RECORDS_FIELD) {
+                int length = reader.readLength();
+                wireRecords.add(readWireRecord(payload, reader.skip(length), length));
+            } else {
+                reader.skipField(wireType);
+            }
+        }
+
+        HashKeyRangeFilter hashKeyRangeFilter = new HashKeyRangeFilter(hashKeyRange, pks.size(), ehks.size());
+        int recordsInCurrRecord = 0;
+        long subSeqNum = 0;
+        try {
+            for (WireRecord wr : wireRecords) {
+                String explicitHashKey = null;
+                int partitionKeyIndex = (int) wr.partitionKeyIndex;
+                int explicitHashKeyIndex = -1;
+                String partitionKey = pks.get(partitionKeyIndex);
+                if (wr.explicitHashKeyIndex >= 0) {
+                    explicitHashKeyIndex = (int) wr.explicitHashKeyIndex;
+                    explicitHashKey = ehks.get(explicitHashKeyIndex);
+                }
+
+                if (!hashKeyRangeFilter.contains(partitionKeyIndex, partitionKey, explicitHashKeyIndex,
+                        explicitHashKey)) {
+                    for (int toRemove = 0; toRemove < recordsInCurrRecord; ++toRemove) {
+                        result.remove(result.size() - 1);
+                    }
+                    break;
+                }
+
+                ++recordsInCurrRecord;
+
+                ByteBuffer data = payload.duplicate();
+                data.limit(wr.dataOffset + wr.dataLength);
+                data.position(wr.dataOffset);
+
+                KinesisClientRecord record = r.toBuilder()
+                        .data(data.slice().asReadOnlyBuffer())
+                        .partitionKey(partitionKey)
+                        .explicitHashKey(explicitHashKey)
+                        .build();
+                result.add(convertRecordToKinesisClientRecord(record, true, subSeqNum++, explicitHashKey));
+            }
+        } catch (Exception e) {
+            log.error("Unexpected exception during deaggregation of record with sequence number {}, PKS: {}, "
+                    + "EHKS: {}, records: {}", r.sequenceNumber(), pks, ehks, wireRecords, e);
+        }
+    }
+
+    private WireRecord readWireRecord(final ByteBuffer payload, final int offset, final int length)
+            throws InvalidProtocolBufferException {
+        WireRecord wireRecord = new WireRecord();
+        boolean hasPartitionKeyIndex = false;
+        boolean hasData = false;
+
+        WireFormatReader reader = new WireFormatReader(payload, offset, offset + length);
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            int fieldNumber = tag >>> 3;
+            int wireType = tag & 0x7;
+            if (wireType == WIRETYPE_VARINT && fieldNumber == RECORD_PARTITION_KEY_INDEX_FIELD) {
+                wireRecord.partitionKeyIndex = reader.readVarint();
+                hasPartitionKeyIndex = true;
+            } else if (wireType == WIRETYPE_VARINT && fieldNumber == RECORD_EXPLICIT_HASH_KEY_INDEX_FIELD) {
+                wireRecord.explicitHashKeyIndex = reader.readVarint();
+            } else if (wireType == WIRETYPE_LENGTH_DELIMITED && fieldNumber == RECORD_DATA_FIELD) {
+                wireRecord.dataLength = reader.readLength();
+                wireRecord.dataOffset = reader.skip(wireRecord.dataLength);
+                hasData = true;
+            } else {
+                reader.skipField(wireType);
+            }
+        }
+
+        if (!hasPartitionKeyIndex || !hasData) {
+            throw new InvalidProtocolBufferException("Message missing required fields: partition_key_index, data");
+        }
+        return wireRecord;
+    }
+
+    private static String readUtf8(final ByteBuffer buffer, final int offset, final int length) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Location of a KPL user record inside the wire format of an aggregated record.
+     */
+    @ToString
+    private static class WireRecord {
+        private long partitionKeyIndex;
+        private long explicitHashKeyIndex = -1;
+        private int dataOffset;
+        private int dataLength;
+    }
+
+    /**
+     * Minimal protobuf wire format reader over a region of a {@link ByteBuffer}. It only uses absolute reads, so the
+     * position of the underlying buffer is never changed.
+     */
+    private static class WireFormatReader {
+        private final ByteBuffer buffer;
+        private final int limit;
+        private int position;
+
+        WireFormatReader(final ByteBuffer buffer, final int position, final int limit) {
+            this.buffer = buffer;
+            this.position = position;
+            this.limit = limit;
+        }
+
+        boolean hasRemaining() {
+            return position < limit;
+        }
+
+        int readTag() throws InvalidProtocolBufferException {
+            long tag = readVarint();
+            if (tag <= 0 || tag > Integer.MAX_VALUE) {
+                throw new InvalidProtocolBufferException("Protocol message contained an invalid tag.");
+            }
+            return (int) tag;
+        }
+
+        long readVarint() throws InvalidProtocolBufferException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= limit) {
+                    throw truncated();
+                }
+                byte b = buffer.get(position++);
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new InvalidProtocolBufferException("Protocol message contained a malformed varint.");
+        }
+
+        int readLength() throws InvalidProtocolBufferException {
+            long length = readVarint();
+            if (length < 0 || length > limit - position) {
+                throw truncated();
+            }
+            return (int) length;
+        }
+
+        /**
+         * Advances past the given number of bytes.
+         *
+         * @return the offset at which the skipped bytes start
+         */
+        int skip(final int length) throws InvalidProtocolBufferException {
+            if (length > limit - position) {
+                throw truncated();
+            }
+            int start = position;
+            position += length;
+            return start;
+        }
+
+        void skipField(final int wireType) throws InvalidProtocolBufferException {
+            switch (wireType) {
+            case WIRETYPE_VARINT:
+                readVarint();
+                break;
+            case WIRETYPE_FIXED64:
+                skip(8);
+                break;
+            case WIRETYPE_LENGTH_DELIMITED:
+                skip(readLength());
+                break;
+            case WIRETYPE_FIXED32:
+                skip(4);
+                break;
+            default:
+                throw new InvalidProtocolBufferException("Protocol message tag had invalid wire type.");
+            }
+        }
+
+        private static InvalidProtocolBufferException truncated() {
+            return new InvalidProtocolBufferException("While parsing a protocol message, the input ended "
+                    + "unexpectedly in the middle of a field.");
+        }
+    }
+
+    /**
+     * Decides whether user records of a single aggregated record belong to the shard's hash key range. Results are
+     * cached per partition key and explicit hash key table entry, since records of an aggregate usually share them.
+     */
+    private class HashKeyRangeFilter {
+        private final HashKeyRange hashKeyRange;
+        private final boolean defaultHashing;
+        private final byte[] partitionKeyResults;
+        private final byte[] explicitHashKeyResults;
+
+        HashKeyRangeFilter(final HashKeyRange hashKeyRange, final int partitionKeyCount,
+                           final int explicitHashKeyCount) {
+            this.hashKeyRange = hashKeyRange;
+            this.defaultHashing = usesDefaultHashing();
+            this.partitionKeyResults = new byte[partitionKeyCount];
+            this.explicitHashKeyResults = new byte[explicitHashKeyCount];
+        }
+
+        boolean contains(final int partitionKeyIndex, final String partitionKey, final int explicitHashKeyIndex,
+                         final String explicitHashKey) throws UnsupportedEncodingException {
+            if (!defaultHashing) {
+                return hashKeyRange.contains(effectiveHashKey(partitionKey, explicitHashKey));
+            }
+            final byte[] results = explicitHashKey == null ? partitionKeyResults : explicitHashKeyResults;
+            final int index = explicitHashKey == null ? partitionKeyIndex : explicitHashKeyIndex;
+            if (results[index] == HASH_KEY_UNKNOWN) {
+                boolean inRange;
+                if (explicitHashKey == null) {
+                    inRange = partitionKeyHashInRange(partitionKey, hashKeyRange);
+                } else {
+                    inRange = hashKeyRange.contains(new BigInteger(explicitHashKey));
+                }
+                results[index] = inRange ? HASH_KEY_IN_RANGE : HASH_KEY_OUT_OF_RANGE;
+            }
+            return results[index] == HASH_KEY_IN_RANGE;
+        }
+    }
+
+    /**
+     * Computes the MD5 hash key of the partition key into the thread's scratch buffers, and compares it against the
+     * range as two unsigned longs instead of building a {@link BigInteger}.
+     */
+    private static boolean partitionKeyHashInRange(final String partitionKey, final HashKeyRange hashKeyRange) {
+        final Md5Context context = MD5_CONTEXT.get();
+        final int length = partitionKey.length();
+        final byte[] input = context.input(length);
+        boolean ascii = true;
+        for (int i = 0; i < length; ++i) {
+            char c = partitionKey.charAt(i);
+            if (c >= 0x80) {
+                ascii = false;
+                break;
+            }
+            input[i] = (byte) c;
+        }
+        if (ascii) {
+            context.digest.update(input, 0, length);
+        } else {
+            context.digest.update(partitionKey.getBytes(StandardCharsets.UTF_8));
+        }
+        final byte[] output = context.output;
+        try {
+            context.digest.digest(output, 0, DIGEST_SIZE);
+        } catch (DigestException e) {
+            throw new RuntimeException(e);
+        }
+        return hashKeyRange.contains(readLong(output, 0), readLong(output, Long.BYTES));
+    }
+
+    private static long readLong(final byte[] bytes, final int offset) {
+        long result = 0;
+        for (int i = 0; i < Long.BYTES; ++i) {
+            result = (result << Byte.SIZE) | (bytes[offset + i] & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * Hash key range of a shard, kept both as {@link BigInteger}s and as high/low unsigned longs of the 128-bit
+     * values.
+     */
+    private static class HashKeyRange {
+        private final BigInteger startingHashKey;
+        private final BigInteger endingHashKey;
+        private final boolean empty;
+        private final long startingHigh;
+        private final long startingLow;
+        private final long endingHigh;
+        private final long endingLow;
+
+        HashKeyRange(final BigInteger startingHashKey, final BigInteger endingHashKey) {
+            this.startingHashKey = startingHashKey;
+            this.endingHashKey = endingHashKey;
+            // MD5 hash keys are always within [0, 2^128 - 1], so clamping the range doesn't change the outcome.
+            BigInteger start = startingHashKey.max(STARTING_HASH_KEY);
+            BigInteger end = endingHashKey.min(ENDING_HASH_KEY);
+            this.empty = start.compareTo(end) > 0;
+            this.startingHigh = start.shiftRight(Long.SIZE).longValue();
+            this.startingLow = start.longValue();
+            this.endingHigh = end.shiftRight(Long.SIZE).longValue();
+            this.endingLow = end.longValue();
+        }
+
+        boolean contains(final BigInteger hashKey) {
+            return hashKey.compareTo(startingHashKey) >= 0 && hashKey.compareTo(endingHashKey) <= 0;
+        }
+
+        boolean contains(final long high, final long low) {
+            return !empty && compareUnsigned128(high, low, startingHigh, startingLow) >= 0
+                    && compareUnsigned128(high, low, endingHigh, endingLow) <= 0;
+        }
+
+        private static int compareUnsigned128(final long highA, final long lowA, final long highB, final long lowB) {
+            int result = Long.compareUnsigned(highA, highB);
+            return result != 0 ? result : Long.compareUnsigned(lowA, lowB);
+        }
+    }
+
+    private static class Md5Context {
+        private final MessageDigest digest;
+        private final byte[] output = new byte[DIGEST_SIZE];
+        private byte[] input = new byte[256];
+
+        Md5Context() {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        byte[] input(final int length) {
+            if (input.length < length) {
+                input = new byte[length];
+            }
+            return input;
+        }
+    }
+
     protected byte[] calculateTailCheck(byte[] data) {
         return md5(data);
     }
 
+    /**
+     * Calculates the tail check of the remaining bytes of the buffer. Unless {@link #usesDefaultHashing()}, this
+     * calls {@link #calculateTailCheck(byte[])} with a copy of those bytes.
+     */
+    protected byte[] calculateTailCheck(ByteBuffer data) {
+        if (!usesDefaultHashing()) {
+            final byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            return calculateTailCheck(bytes);
+        }
+        return md5(data);
+    }
+
     protected BigInteger effectiveHashKey(String partitionKey, String explicitHashKey) throws UnsupportedEncodingException {
         if (explicitHashKey == null) {
-            return new BigInteger(1, md5(partitionKey.getBytes("UTF-8")));
+            return new BigInteger(1, md5(partitionKey.getBytes(StandardCharsets.UTF_8)));
         }
         return new BigInteger(explicitHashKey);
     }
 
     private byte[] md5(byte[] data) {
-        try {
-            MessageDigest d = MessageDigest.getInstance("MD5");
-            return d.digest(data);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        return MD5_CONTEXT.get().digest.digest(data);
+    }
+
+    private byte[] md5(ByteBuffer data) {
+        MessageDigest d = MD5_CONTEXT.get().digest;
+        d.update(data);
+        return d.digest();
     }
 
     public KinesisClientRecord convertRecordToKinesisClientRecord(@NonNull final KinesisClientRecord record,
@@ -14,7 +14,10 @@
  */
 package software.amazon.kinesis.retrieval;
 
+import org.slf4j.LoggerFactory;
+
 import software.amazon.kinesis.metrics.MetricsFactory;
+import software.amazon.kinesis.retrieval.polling.PrefetchByteBudget;
 
 /**
  * This factory is used to create the records fetcher to retrieve data from Kinesis for a given shard.
@@ -83,4 +86,39 @@ public interface RecordsFetcherFactory {
 
     long idleMillisBetweenCalls();
 
+    /**
+     * Sets whether the RecordsPublisher hands over the prefetched records through a lock-free single-producer,
+     * single-consumer ring instead of a LinkedBlockingQueue. Factories that don't support the ring ignore the setting.
+     *
+     * @param lockFreePrefetchQueue true to use the lock-free ring
+     */
+    default void lockFreePrefetchQueue(boolean lockFreePrefetchQueue) {
+        if (lockFreePrefetchQueue) {
+            LoggerFactory.getLogger(RecordsFetcherFactory.class).warn(
+                    "{} doesn't support a lock-free prefetch queue, ignoring the setting", getClass().getName());
+        }
+    }
+
+    default boolean lockFreePrefetchQueue() {
+        return false;
+    }
+
+    /**
+     * Sets a byte budget shared by the RecordsPublishers of all shards, which limits the byte size of the records they
+     * hold instead of {@link #maxByteSize(int)}. The same budget can be shared by the factories of several
+     * applications running in one process. Factories that don't support a shared budget ignore the setting.
+     *
+     * @param prefetchByteBudget The shared byte budget, or null to limit each RecordsPublisher by maxByteSize.
+     */
+    default void prefetchByteBudget(PrefetchByteBudget prefetchByteBudget) {
+        if (prefetchByteBudget != null) {
+            LoggerFactory.getLogger(RecordsFetcherFactory.class).warn(
+                    "{} doesn't support a prefetch byte budget, ignoring the setting", getClass().getName());
+        }
+    }
+
+    default PrefetchByteBudget prefetchByteBudget() {
+        return null;
+    }
+
 }
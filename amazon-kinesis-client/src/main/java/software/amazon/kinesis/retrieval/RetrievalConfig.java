@@ -15,18 +15,24 @@
 
 package software.amazon.kinesis.retrieval;
 
+import java.util.Collections;
+import java.util.List;
+
 import lombok.Data;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 import software.amazon.kinesis.common.InitialPositionInStream;
 import software.amazon.kinesis.common.InitialPositionInStreamExtended;
+import software.amazon.kinesis.common.StreamConfig;
 import software.amazon.kinesis.retrieval.fanout.FanOutConfig;
 
 /**
  * Used by the KCL to configure the retrieval of records from Kinesis.
  */
 @Data
+@RequiredArgsConstructor
 @Accessors(fluent = true)
 public class RetrievalConfig {
     /**
@@ -43,7 +49,7 @@ public class RetrievalConfig {
     private final KinesisAsyncClient kinesisClient;
 
     /**
-     * The name of the stream to process records from.
+     * The name of the stream to process records from. Not used when {@link #streamConfigs} are set.
      */
     @NonNull
     private final String streamName;
@@ -51,6 +57,18 @@ public class RetrievalConfig {
     @NonNull
     private final String applicationName;
 
+    /**
+     * The streams to process records from in a single Scheduler. When set, the Scheduler keeps the leases of all the
+     * streams in its lease table, keyed by stream and shard, and {@link #streamName} and
+     * {@link #initialPositionInStreamExtended} aren't used.
+     *
+     * <p>
+     * Default value: empty, which processes {@link #streamName} only
+     * </p>
+     */
+    @NonNull
+    private List<StreamConfig> streamConfigs = Collections.emptyList();
+
     /**
      * Backoff time between consecutive ListShards calls.
      *
@@ -84,12 +102,43 @@ public class RetrievalConfig {
 
     private RetrievalFactory retrievalFactory;
 
+    /**
+     * Creates the configuration of a Scheduler that processes records from several streams.
+     *
+     * @param kinesisClient
+     *            client used to make calls to Kinesis for records retrieval
+     * @param streamConfigs
+     *            the streams to process records from
+     * @param applicationName
+     *            the name of the application
+     */
+    public RetrievalConfig(@NonNull final KinesisAsyncClient kinesisClient,
+            @NonNull final List<StreamConfig> streamConfigs, @NonNull final String applicationName) {
+        if (streamConfigs.isEmpty()) {
+            throw new IllegalArgumentException("streamConfigs should not be empty");
+        }
+        this.kinesisClient = kinesisClient;
+        this.streamName = null;
+        this.applicationName = applicationName;
+        this.streamConfigs = streamConfigs;
+    }
+
+    /**
+     * @return whether records are processed from several streams
+     */
+    public boolean isMultiStream() {
+        return !streamConfigs.isEmpty();
+    }
+
     public RetrievalFactory retrievalFactory() {
 
         if (retrievalFactory == null) {
             if (retrievalSpecificConfig == null) {
-                retrievalSpecificConfig = new FanOutConfig(kinesisClient()).streamName(streamName())
-                        .applicationName(applicationName());
+                final FanOutConfig fanOutConfig = new FanOutConfig(kinesisClient()).applicationName(applicationName());
+                if (!isMultiStream()) {
+                    fanOutConfig.streamName(streamName());
+                }
+                retrievalSpecificConfig = fanOutConfig;
             }
             retrievalFactory = retrievalSpecificConfig.retrievalFactory();
         }
@@ -80,17 +80,30 @@ public class FanOutConfig implements RetrievalSpecificConfig {
      */
     private long retryBackoffMillis = 1000;
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The consumers of the streams of a multi-stream Scheduler are looked up, or created, when the first shard of each
+     * stream is processed, unless a {@link #consumerArn} is set, which is used for all the streams.
+     * </p>
+     */
     @Override
     public RetrievalFactory retrievalFactory() {
-        return new FanOutRetrievalFactory(kinesisClient, getOrCreateConsumerArn());
+        final String defaultConsumerArn = consumerArn == null && streamName == null ? null : getOrCreateConsumerArn();
+        return new FanOutRetrievalFactory(kinesisClient, defaultConsumerArn, this::getOrCreateConsumerArn);
     }
 
     private String getOrCreateConsumerArn() {
+        return getOrCreateConsumerArn(streamName());
+    }
+
+    private String getOrCreateConsumerArn(final String streamName) {
         if (consumerArn != null) {
             return consumerArn;
         }
 
-        FanOutConsumerRegistration registration = createConsumerRegistration();
+        FanOutConsumerRegistration registration = createConsumerRegistration(streamName);
         try {
             return registration.getOrCreateStreamConsumerArn();
         } catch (DependencyException e) {
@@ -98,10 +111,10 @@ public class FanOutConfig implements RetrievalSpecificConfig {
         }
     }
 
-    private FanOutConsumerRegistration createConsumerRegistration() {
+    private FanOutConsumerRegistration createConsumerRegistration(final String streamName) {
         String consumerToCreate = ObjectUtils.firstNonNull(consumerName(), applicationName());
         return createConsumerRegistration(kinesisClient(),
-                Preconditions.checkNotNull(streamName(), "streamName must be set for consumer creation"),
+                Preconditions.checkNotNull(streamName, "streamName must be set for consumer creation"),
                 Preconditions.checkNotNull(consumerToCreate,
                         "applicationName or consumerName must be set for consumer creation"));
 
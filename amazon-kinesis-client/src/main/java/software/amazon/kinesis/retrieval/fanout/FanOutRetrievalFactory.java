@@ -15,6 +15,10 @@
 
 package software.amazon.kinesis.retrieval.fanout;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
@@ -31,6 +35,13 @@ public class FanOutRetrievalFactory implements RetrievalFactory {
 
     private final KinesisAsyncClient kinesisClient;
     private final String consumerArn;
+    // Looks up the consumer of each of the streams of a multi-stream Scheduler, which is done once per stream
+    private final Function<String, String> streamConsumerArnProvider;
+    private final ConcurrentMap<String, String> streamConsumerArns = new ConcurrentHashMap<>();
+
+    public FanOutRetrievalFactory(final KinesisAsyncClient kinesisClient, final String consumerArn) {
+        this(kinesisClient, consumerArn, null);
+    }
 
     @Override
     public GetRecordsRetrievalStrategy createGetRecordsRetrievalStrategy(final ShardInfo shardInfo,
@@ -41,6 +52,16 @@ public class FanOutRetrievalFactory implements RetrievalFactory {
     @Override
     public RecordsPublisher createGetRecordsCache(@NonNull final ShardInfo shardInfo,
             final MetricsFactory metricsFactory) {
-        return new FanOutRecordsPublisher(kinesisClient, shardInfo.shardId(), consumerArn);
+        return new FanOutRecordsPublisher(kinesisClient, shardInfo.shardId(), consumerArn(shardInfo));
+    }
+
+    private String consumerArn(final ShardInfo shardInfo) {
+        if (shardInfo.streamName() == null) {
+            return consumerArn;
+        }
+        if (streamConsumerArnProvider == null) {
+            throw new IllegalStateException("No consumer for the shards of stream " + shardInfo.streamName());
+        }
+        return streamConsumerArns.computeIfAbsent(shardInfo.streamName(), streamConsumerArnProvider);
     }
 }
@@ -14,8 +14,6 @@
  */
 package software.amazon.kinesis.retrieval.kpl;
 
-import java.math.BigInteger;
-
 //import com.amazonaws.services.kinesis.clientlibrary.lib.worker.String;
 import software.amazon.kinesis.checkpoint.SentinelCheckpoint;
 
@@ -35,11 +33,9 @@ import software.amazon.kinesis.checkpoint.SentinelCheckpoint;
 public class ExtendedSequenceNumber implements Comparable<ExtendedSequenceNumber> {
     private final String sequenceNumber;
     private final long subSequenceNumber;
-
-    // Define TRIM_HORIZON, LATEST, and AT_TIMESTAMP to be less than all sequence numbers
-    private static final BigInteger TRIM_HORIZON_BIG_INTEGER_VALUE = BigInteger.valueOf(-2);
-    private static final BigInteger LATEST_BIG_INTEGER_VALUE = BigInteger.valueOf(-1);
-    private static final BigInteger AT_TIMESTAMP_BIG_INTEGER_VALUE = BigInteger.valueOf(-3);
+    // Parsed on the first comparison and reused afterwards. ParsedSequenceNumber is immutable, so racing threads at
+    // worst parse the same value twice.
+    private ParsedSequenceNumber parsedSequenceNumber;
 
     /**
      * Special value for LATEST.
@@ -102,27 +98,30 @@ public class ExtendedSequenceNumber implements Comparable<ExtendedSequenceNumber
      */
     @Override
     public int compareTo(ExtendedSequenceNumber extendedSequenceNumber) {
-        String secondSequenceNumber = extendedSequenceNumber.sequenceNumber();
+        ParsedSequenceNumber first = parsedSequenceNumber();
+        ParsedSequenceNumber second = extendedSequenceNumber.parsedSequenceNumber();
 
-        if (!isDigitsOrSentinelValue(sequenceNumber) || !isDigitsOrSentinelValue(secondSequenceNumber)) {
+        if (first == null || second == null) {
             throw new IllegalArgumentException("Expected a sequence number or a sentinel checkpoint value but "
-                    + "received: first=" + sequenceNumber + " and second=" + secondSequenceNumber);
-        }
-        
-        // SHARD_END is the greatest
-        if (SentinelCheckpoint.SHARD_END.toString().equals(sequenceNumber)
-                && SentinelCheckpoint.SHARD_END.toString().equals(secondSequenceNumber)) {
-            return 0;
-        } else if (SentinelCheckpoint.SHARD_END.toString().equals(secondSequenceNumber)) {
-            return -1;
-        } else if (SentinelCheckpoint.SHARD_END.toString().equals(sequenceNumber)) {
-            return 1;
+                    + "received: first=" + sequenceNumber + " and second=" + extendedSequenceNumber.sequenceNumber());
         }
 
-        // Compare other sentinel values and serial numbers after converting them to a big integer value
-        int result = bigIntegerValue(sequenceNumber).compareTo(bigIntegerValue(secondSequenceNumber));
+        int result = first.compareTo(second);
         return result == 0 ? Long.compare(subSequenceNumber, extendedSequenceNumber.subSequenceNumber) : result;
     }
+
+    /**
+     * @return the parsed sequence number, or null if the sequence number is neither a string of digits nor a sentinel
+     *         checkpoint value
+     */
+    private ParsedSequenceNumber parsedSequenceNumber() {
+        ParsedSequenceNumber parsed = parsedSequenceNumber;
+        if (parsed == null) {
+            parsed = ParsedSequenceNumber.tryParse(sequenceNumber);
+            parsedSequenceNumber = parsed;
+        }
+        return parsed;
+    }
     
     /**
      * 
@@ -186,71 +185,4 @@ public class ExtendedSequenceNumber implements Comparable<ExtendedSequenceNumber
         }
         return subSequenceNumber == other.subSequenceNumber();
     }
-
-    /**
-     * Sequence numbers are converted, sentinels are given a value of -1. Note this method is only used after special
-     * logic associated with SHARD_END and the case of comparing two sentinel values has already passed, so we map
-     * sentinel values LATEST, TRIM_HORIZON and AT_TIMESTAMP to negative numbers so that they are considered less than
-     * sequence numbers.
-     * 
-     * @param sequenceNumber The string to convert to big integer value
-     * @return a BigInteger value representation of the sequenceNumber
-     */
-    private static BigInteger bigIntegerValue(String sequenceNumber) {
-        if (isDigits(sequenceNumber)) {
-            return new BigInteger(sequenceNumber);
-        } else if (SentinelCheckpoint.LATEST.toString().equals(sequenceNumber)) {
-            return LATEST_BIG_INTEGER_VALUE;
-        } else if (SentinelCheckpoint.TRIM_HORIZON.toString().equals(sequenceNumber)) {
-            return TRIM_HORIZON_BIG_INTEGER_VALUE;
-        } else if (SentinelCheckpoint.AT_TIMESTAMP.toString().equals(sequenceNumber)) {
-            return AT_TIMESTAMP_BIG_INTEGER_VALUE;
-        } else {
-            throw new IllegalArgumentException("Expected a string of digits, TRIM_HORIZON, LATEST or AT_TIMESTAMP but "
-                    + "received " + sequenceNumber);
-        }
-    }
-
-    /**
-     * Checks if the string is all digits or one of the SentinelCheckpoint values.
-     * 
-     * @param string
-     * @return true if and only if the string is all digits or one of the SentinelCheckpoint values
-     */
-    private static boolean isDigitsOrSentinelValue(String string) {
-        return isDigits(string) || isSentinelValue(string);
-    }
-
-    /**
-     * Checks if the string is a SentinelCheckpoint value.
-     * 
-     * @param string
-     * @return true if and only if the string can be converted to a SentinelCheckpoint
-     */
-    private static boolean isSentinelValue(String string) {
-        try {
-            SentinelCheckpoint.valueOf(string);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    /**
-     * Checks if the string is composed of only digits.
-     * 
-     * @param string
-     * @return true for a string of all digits, false otherwise (including false for null and empty string)
-     */    
-    private static boolean isDigits(String string) {
-        if (string == null || string.length() == 0) {
-            return false;
-        }
-        for (int i = 0; i < string.length(); ++i) {
-            if (!Character.isDigit(string.charAt(i))) {
-                return false;
-            }
-        }
-        return true;
-    }
 }
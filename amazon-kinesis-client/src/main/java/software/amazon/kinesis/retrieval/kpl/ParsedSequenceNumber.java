@@ -0,0 +1,322 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval.kpl;
+
+import java.math.BigInteger;
+
+import software.amazon.kinesis.annotations.KinesisClientInternalApi;
+import software.amazon.kinesis.checkpoint.SentinelCheckpoint;
+
+/**
+ * A sequence number, or sentinel checkpoint value, parsed once into a form that can be compared without parsing or
+ * allocating.
+ *
+ * <p>
+ * Kinesis sequence numbers are decimal strings of up to 56 digits, so they are kept as a 192-bit unsigned value in three
+ * longs. Sentinel values are mapped to reserved ranks below (TRIM_HORIZON, LATEST and AT_TIMESTAMP) or above
+ * (SHARD_END) every sequence number. The rare sequence number that doesn't fit into 192 bits is kept as a
+ * {@link BigInteger}.
+ * </p>
+ */
+@KinesisClientInternalApi
+public final class ParsedSequenceNumber implements Comparable<ParsedSequenceNumber> {
+    // Ranks keep the ordering of the sentinel values used by ExtendedSequenceNumber: AT_TIMESTAMP < TRIM_HORIZON <
+    // LATEST < sequence numbers < SHARD_END
+    private static final int AT_TIMESTAMP_RANK = 0;
+    private static final int TRIM_HORIZON_RANK = 1;
+    private static final int LATEST_RANK = 2;
+    private static final int SEQUENCE_NUMBER_RANK = 3;
+    private static final int SHARD_END_RANK = 4;
+
+    private static final ParsedSequenceNumber AT_TIMESTAMP = new ParsedSequenceNumber(AT_TIMESTAMP_RANK);
+    private static final ParsedSequenceNumber TRIM_HORIZON = new ParsedSequenceNumber(TRIM_HORIZON_RANK);
+    private static final ParsedSequenceNumber LATEST = new ParsedSequenceNumber(LATEST_RANK);
+    private static final ParsedSequenceNumber SHARD_END = new ParsedSequenceNumber(SHARD_END_RANK);
+
+    // 10^57 - 1 < 2^192, so any number of up to 57 significant digits fits into three longs
+    private static final int MAX_FIXED_WIDTH_DIGITS = 57;
+    // 10^18 < 2^63, so chunks of 18 digits can be accumulated in a long
+    private static final int DIGITS_PER_CHUNK = 18;
+    private static final long[] POWERS_OF_TEN = new long[DIGITS_PER_CHUNK + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final int rank;
+    private final long high;
+    private final long middle;
+    private final long low;
+    private final BigInteger overflow;
+
+    private ParsedSequenceNumber(final int rank) {
+        this(rank, 0, 0, 0, null);
+    }
+
+    private ParsedSequenceNumber(final int rank, final long high, final long middle, final long low,
+            final BigInteger overflow) {
+        this.rank = rank;
+        this.high = high;
+        this.middle = middle;
+        this.low = low;
+        this.overflow = overflow;
+    }
+
+    /**
+     * Parses a sequence number or sentinel checkpoint value.
+     *
+     * @param sequenceNumber
+     *            the string of digits or sentinel checkpoint value to parse
+     * @return the parsed sequence number
+     * @throws IllegalArgumentException
+     *             if the value is neither a string of digits nor a sentinel checkpoint value
+     */
+    public static ParsedSequenceNumber parse(final String sequenceNumber) {
+        ParsedSequenceNumber result = tryParse(sequenceNumber);
+        if (result == null) {
+            throw new IllegalArgumentException("Expected a string of digits or a sentinel checkpoint value but "
+                    + "received " + sequenceNumber);
+        }
+        return result;
+    }
+
+    /**
+     * Parses a sequence number or sentinel checkpoint value.
+     *
+     * @param sequenceNumber
+     *            the string of digits or sentinel checkpoint value to parse
+     * @return the parsed sequence number, or null if the value is neither a string of digits nor a sentinel checkpoint
+     *         value
+     */
+    public static ParsedSequenceNumber tryParse(final String sequenceNumber) {
+        if (sequenceNumber == null || sequenceNumber.isEmpty()) {
+            return null;
+        }
+        if (Character.digit(sequenceNumber.charAt(0), 10) < 0) {
+            return sentinel(sequenceNumber);
+        }
+
+        int start = 0;
+        final int length = sequenceNumber.length();
+        while (start < length - 1 && Character.digit(sequenceNumber.charAt(start), 10) == 0) {
+            start++;
+        }
+        if (length - start > MAX_FIXED_WIDTH_DIGITS) {
+            for (int i = start; i < length; ++i) {
+                if (Character.digit(sequenceNumber.charAt(i), 10) < 0) {
+                    return null;
+                }
+            }
+            return new ParsedSequenceNumber(SEQUENCE_NUMBER_RANK, 0, 0, 0,
+                    new BigInteger(sequenceNumber.substring(start)));
+        }
+
+        long high = 0;
+        long middle = 0;
+        long low = 0;
+        int position = start;
+        while (position < length) {
+            final int chunkStart = position;
+            final int chunkEnd = Math.min(position + DIGITS_PER_CHUNK, length);
+            long chunk = 0;
+            for (; position < chunkEnd; ++position) {
+                int digit = Character.digit(sequenceNumber.charAt(position), 10);
+                if (digit < 0) {
+                    return null;
+                }
+                chunk = chunk * 10 + digit;
+            }
+            final long factor = POWERS_OF_TEN[chunkEnd - chunkStart];
+            // value = value * 10^chunkLength + chunk, carried through the three limbs
+            final long lowProduct = low * factor;
+            long newLow = lowProduct + chunk;
+            long carry = unsignedMultiplyHigh(low, factor) + (Long.compareUnsigned(newLow, lowProduct) < 0 ? 1 : 0);
+            final long middleProduct = middle * factor;
+            long newMiddle = middleProduct + carry;
+            carry = unsignedMultiplyHigh(middle, factor)
+                    + (Long.compareUnsigned(newMiddle, middleProduct) < 0 ? 1 : 0);
+            high = high * factor + carry;
+            middle = newMiddle;
+            low = newLow;
+        }
+        return new ParsedSequenceNumber(SEQUENCE_NUMBER_RANK, high, middle, low, null);
+    }
+
+    private static ParsedSequenceNumber sentinel(final String value) {
+        if (SentinelCheckpoint.TRIM_HORIZON.name().equals(value)) {
+            return TRIM_HORIZON;
+        } else if (SentinelCheckpoint.LATEST.name().equals(value)) {
+            return LATEST;
+        } else if (SentinelCheckpoint.AT_TIMESTAMP.name().equals(value)) {
+            return AT_TIMESTAMP;
+        } else if (SentinelCheckpoint.SHARD_END.name().equals(value)) {
+            return SHARD_END;
+        }
+        return null;
+    }
+
+    /**
+     * @return true if this is a sequence number, false if it's a sentinel checkpoint value
+     */
+    public boolean isSequenceNumber() {
+        return rank == SEQUENCE_NUMBER_RANK;
+    }
+
+    /**
+     * The number of bits in the minimal two's-complement representation of the sequence number, as returned by
+     * {@link BigInteger#bitLength()}.
+     *
+     * @return the bit length of the sequence number
+     */
+    public int bitLength() {
+        requireSequenceNumber();
+        if (overflow != null) {
+            return overflow.bitLength();
+        } else if (high != 0) {
+            return 3 * Long.SIZE - Long.numberOfLeadingZeros(high);
+        } else if (middle != 0) {
+            return 2 * Long.SIZE - Long.numberOfLeadingZeros(middle);
+        }
+        return Long.SIZE - Long.numberOfLeadingZeros(low);
+    }
+
+    /**
+     * Reads bits of the sequence number, equivalent to {@code value.shiftRight(offset).longValue() & mask}.
+     *
+     * @param offset
+     *            the number of least significant bits to skip
+     * @param mask
+     *            the mask applied to the shifted value
+     * @return the masked bits
+     */
+    public long bits(final int offset, final long mask) {
+        requireSequenceNumber();
+        if (overflow != null) {
+            return overflow.shiftRight(offset).longValue() & mask;
+        }
+        final int limbIndex = offset / Long.SIZE;
+        final int shift = offset % Long.SIZE;
+        long value = limb(limbIndex) >>> shift;
+        if (shift != 0) {
+            value |= limb(limbIndex + 1) << (Long.SIZE - shift);
+        }
+        return value & mask;
+    }
+
+    private long limb(final int index) {
+        switch (index) {
+        case 0:
+            return low;
+        case 1:
+            return middle;
+        case 2:
+            return high;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * @return the sequence number as a {@link BigInteger}
+     */
+    public BigInteger bigIntegerValue() {
+        requireSequenceNumber();
+        if (overflow != null) {
+            return overflow;
+        }
+        byte[] magnitude = new byte[3 * Long.BYTES];
+        for (int i = 0; i < Long.BYTES; ++i) {
+            int shift = Long.SIZE - Byte.SIZE * (i + 1);
+            magnitude[i] = (byte) (high >>> shift);
+            magnitude[i + Long.BYTES] = (byte) (middle >>> shift);
+            magnitude[i + 2 * Long.BYTES] = (byte) (low >>> shift);
+        }
+        return new BigInteger(1, magnitude);
+    }
+
+    private void requireSequenceNumber() {
+        if (!isSequenceNumber()) {
+            throw new IllegalStateException("A sentinel checkpoint value has no numeric value");
+        }
+    }
+
+    @Override
+    public int compareTo(final ParsedSequenceNumber other) {
+        int result = Integer.compare(rank, other.rank);
+        if (result != 0 || rank != SEQUENCE_NUMBER_RANK) {
+            return result;
+        }
+        if (overflow != null || other.overflow != null) {
+            return bigIntegerValue().compareTo(other.bigIntegerValue());
+        }
+        result = Long.compareUnsigned(high, other.high);
+        if (result == 0) {
+            result = Long.compareUnsigned(middle, other.middle);
+        }
+        if (result == 0) {
+            result = Long.compareUnsigned(low, other.low);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return obj instanceof ParsedSequenceNumber && compareTo((ParsedSequenceNumber) obj) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        if (overflow != null) {
+            return overflow.hashCode();
+        }
+        return 31 * (31 * (31 * rank + Long.hashCode(high)) + Long.hashCode(middle)) + Long.hashCode(low);
+    }
+
+    @Override
+    public String toString() {
+        return isSequenceNumber() ? bigIntegerValue().toString() : sentinelName();
+    }
+
+    private String sentinelName() {
+        switch (rank) {
+        case AT_TIMESTAMP_RANK:
+            return SentinelCheckpoint.AT_TIMESTAMP.name();
+        case TRIM_HORIZON_RANK:
+            return SentinelCheckpoint.TRIM_HORIZON.name();
+        case LATEST_RANK:
+            return SentinelCheckpoint.LATEST.name();
+        default:
+            return SentinelCheckpoint.SHARD_END.name();
+        }
+    }
+
+    /**
+     * The high 64 bits of the unsigned 128-bit product of two unsigned longs.
+     */
+    private static long unsignedMultiplyHigh(final long a, final long b) {
+        final long aLow = a & 0xFFFFFFFFL;
+        final long aHigh = a >>> 32;
+        final long bLow = b & 0xFFFFFFFFL;
+        final long bHigh = b >>> 32;
+        final long lowLow = aLow * bLow;
+        final long highLow = aHigh * bLow;
+        final long lowHigh = aLow * bHigh;
+        final long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + lowHigh;
+        return aHigh * bHigh + (highLow >>> 32) + (cross >>> 32);
+    }
+}
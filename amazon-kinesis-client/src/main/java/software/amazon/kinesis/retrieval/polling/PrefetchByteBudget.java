@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval.polling;
+
+import org.apache.commons.lang3.Validate;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * A byte budget shared by the prefetch caches of many shards, bounding the memory used by prefetched records across
+ * all of them instead of per shard.
+ *
+ * <p>
+ * A {@link PrefetchRecordsPublisher} using a budget keeps fetching while the budget has capacity left, so shards with
+ * a lot of data can prefetch up to their maximum number of pending batches while idle shards, whose batches are
+ * empty, hold on to no memory. Once the budget is used up, a prefetch cache only fetches if it has nothing queued,
+ * which guarantees that every shard makes progress. Otherwise it waits until a consumer of any shard releases bytes.
+ * </p>
+ *
+ * <p>
+ * The budget is a soft limit: the size of a batch is only known after it was fetched, so the reserved bytes can exceed
+ * the budget by up to one batch per shard.
+ * </p>
+ */
+@Accessors(fluent = true)
+public class PrefetchByteBudget {
+    /**
+     * The number of bytes of prefetched records that all the prefetch caches sharing this budget may hold.
+     */
+    @Getter
+    private final long maxByteSize;
+
+    private long reservedBytes = 0;
+    private long releaseCount = 0;
+
+    /**
+     * @param maxByteSize
+     *            the number of bytes of prefetched records that all the prefetch caches sharing this budget may hold
+     */
+    public PrefetchByteBudget(final long maxByteSize) {
+        Validate.isTrue(maxByteSize > 0, "The byte budget must be positive");
+        this.maxByteSize = maxByteSize;
+    }
+
+    /**
+     * @return the number of bytes currently held by the prefetch caches
+     */
+    public synchronized long reservedBytes() {
+        return reservedBytes;
+    }
+
+    synchronized boolean hasCapacity() {
+        return reservedBytes < maxByteSize;
+    }
+
+    synchronized void reserve(final long bytes) {
+        reservedBytes += bytes;
+    }
+
+    synchronized void release(final long bytes) {
+        reservedBytes -= bytes;
+        releaseCount++;
+        this.notifyAll();
+    }
+
+    /**
+     * @return the number of releases so far, to be passed to {@link #awaitRelease(long, long)}
+     */
+    synchronized long releaseCount() {
+        return releaseCount;
+    }
+
+    /**
+     * Waits until bytes are released after the given number of releases, or the timeout elapses.
+     *
+     * @param seenReleaseCount
+     *            the release count read before deciding to wait, so that releases in between aren't missed
+     * @param timeoutMillis
+     *            the maximum time to wait, 0 to wait without a timeout
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    synchronized void awaitRelease(final long seenReleaseCount, final long timeoutMillis)
+            throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (releaseCount == seenReleaseCount) {
+            if (timeoutMillis == 0) {
+                this.wait();
+            } else {
+                final long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return;
+                }
+                this.wait(remaining);
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -69,21 +70,30 @@ import static software.amazon.kinesis.common.DiagnosticUtils.takeDelayedDelivery
  * be present in the cache across multiple GetRecordsResult object. If no data is available in the cache, the call from
  * the record processor is blocked till records are retrieved from Kinesis.
  *
+ * Instead of the maxByteSize of each cache, the byte size of the cached records can be limited by a
+ * {@link PrefetchByteBudget} shared by the caches of many shards. The cache then keeps fetching while the shared
+ * budget has capacity left, and waits for a consumer of any of the shards to release bytes once it's used up.
+ *
  * There are three threads namely publisher, demand-notifier and ack-notifier which will contend to drain the events
  * to the Subscriber (ShardConsumer in KCL). The publisher/demand-notifier thread gains the control to drain only when
  * there is no pending event in the prefetch queue waiting for the ack. Otherwise, it will be the ack-notifier thread
  * which will drain an event on the receipt of an ack.
  *
+ * The prefetch queue is either a LinkedBlockingQueue, or a lock-free single-producer/single-consumer ring
+ * ({@link SpscArrayBlockingQueue}). The ring relies on the cache daemon being the only producer, and on every consumer
+ * side access (peek, poll and clear) being made while holding the monitor of this publisher.
+ *
  */
 @Slf4j
 @KinesisClientInternalApi
 public class PrefetchRecordsPublisher implements RecordsPublisher {
     private static final String EXPIRED_ITERATOR_METRIC = "ExpiredIterator";
     @VisibleForTesting
-    LinkedBlockingQueue<PrefetchRecordsRetrieved> getRecordsResultQueue;
+    BlockingQueue<PrefetchRecordsRetrieved> getRecordsResultQueue;
     private int maxPendingProcessRecordsInput;
     private int maxByteSize;
     private int maxRecordsCount;
+    private final PrefetchByteBudget prefetchByteBudget;
     private final int maxRecordsPerCall;
     private final GetRecordsRetrievalStrategy getRecordsRetrievalStrategy;
     private final ExecutorService executorService;
@@ -135,12 +145,49 @@ public class PrefetchRecordsPublisher implements RecordsPublisher {
                                     @NonNull final MetricsFactory metricsFactory,
                                     @NonNull final String operation,
                                     @NonNull final String shardId) {
+        this(maxPendingProcessRecordsInput, maxByteSize, maxRecordsCount, maxRecordsPerCall,
+                getRecordsRetrievalStrategy, executorService, idleMillisBetweenCalls, metricsFactory, operation,
+                shardId, false, null);
+    }
+
+    /**
+     * Constructor for the PrefetchRecordsPublisher that allows choosing the queue used to hand over the prefetched
+     * records, and sharing a byte budget with the caches of other shards.
+     *
+     * @see PrefetchRecordsPublisher
+     *
+     * @param maxPendingProcessRecordsInput Max number of ProcessRecordsInput that can be held in the cache before
+     *                                     blocking
+     * @param maxByteSize Max byte size of the queue before blocking next get records call
+     * @param maxRecordsCount Max number of records in the queue across all ProcessRecordInput objects
+     * @param maxRecordsPerCall Max records to be returned per call
+     * @param getRecordsRetrievalStrategy Retrieval strategy for the get records call
+     * @param executorService Executor service for the cache
+     * @param idleMillisBetweenCalls maximum time to wait before dispatching the next get records call
+     * @param lockFreePrefetchQueue true to hand over the records through a lock-free ring instead of a
+     *                              LinkedBlockingQueue
+     * @param prefetchByteBudget Byte budget shared with the caches of other shards, which replaces maxByteSize, or
+     *                           null to only limit the byte size of this cache by maxByteSize
+     */
+    public PrefetchRecordsPublisher(final int maxPendingProcessRecordsInput, final int maxByteSize, final int maxRecordsCount,
+                                    final int maxRecordsPerCall,
+                                    @NonNull final GetRecordsRetrievalStrategy getRecordsRetrievalStrategy,
+                                    @NonNull final ExecutorService executorService,
+                                    final long idleMillisBetweenCalls,
+                                    @NonNull final MetricsFactory metricsFactory,
+                                    @NonNull final String operation,
+                                    @NonNull final String shardId,
+                                    final boolean lockFreePrefetchQueue,
+                                    final PrefetchByteBudget prefetchByteBudget) {
         this.getRecordsRetrievalStrategy = getRecordsRetrievalStrategy;
         this.maxRecordsPerCall = maxRecordsPerCall;
         this.maxPendingProcessRecordsInput = maxPendingProcessRecordsInput;
         this.maxByteSize = maxByteSize;
         this.maxRecordsCount = maxRecordsCount;
-        this.getRecordsResultQueue = new LinkedBlockingQueue<>(this.maxPendingProcessRecordsInput);
+        this.prefetchByteBudget = prefetchByteBudget;
+        this.getRecordsResultQueue = lockFreePrefetchQueue
+                ? new SpscArrayBlockingQueue<>(this.maxPendingProcessRecordsInput)
+                : new LinkedBlockingQueue<>(this.maxPendingProcessRecordsInput);
         this.prefetchCounters = new PrefetchCounters();
         this.executorService = executorService;
         this.metricsFactory = new ThreadSafeMetricsDelegatingFactory(metricsFactory);
@@ -205,6 +252,8 @@ public class PrefetchRecordsPublisher implements RecordsPublisher {
         defaultGetRecordsCacheDaemon.isShutdown = true;
         executorService.shutdownNow();
         started = false;
+        // The cached records won't be delivered anymore, so give their bytes back to the other shards.
+        prefetchCounters.close();
     }
 
     @Override
@@ -216,7 +265,10 @@ public class PrefetchRecordsPublisher implements RecordsPublisher {
         PrefetchRecordsRetrieved prefetchRecordsRetrieved = (PrefetchRecordsRetrieved) recordsRetrieved;
         resetLock.writeLock().lock();
         try {
-            getRecordsResultQueue.clear();
+            // Clearing is a consumer side access, so it has to be ordered with notify() and the draining.
+            synchronized (this) {
+                getRecordsResultQueue.clear();
+            }
 
             // Give the drain control to publisher/demand-notifier thread.
             log.debug("{} : Publisher thread takes over the draining control. Queue Size : {}, Demand : {}", shardId,
@@ -482,15 +534,24 @@ public class PrefetchRecordsPublisher implements RecordsPublisher {
     private class PrefetchCounters {
         private long size = 0;
         private long byteSize = 0;
+        private boolean closed = false;
 
         public synchronized void added(final ProcessRecordsInput result) {
+            final long resultByteSize = getByteSize(result);
             size += getSize(result);
-            byteSize += getByteSize(result);
+            byteSize += resultByteSize;
+            if (prefetchByteBudget != null && !closed) {
+                prefetchByteBudget.reserve(resultByteSize);
+            }
         }
 
         public synchronized void removed(final ProcessRecordsInput result) {
+            final long resultByteSize = getByteSize(result);
             size -= getSize(result);
-            byteSize -= getByteSize(result);
+            byteSize -= resultByteSize;
+            if (prefetchByteBudget != null && !closed) {
+                prefetchByteBudget.release(resultByteSize);
+            }
             this.notifyAll();
         }
 
@@ -502,10 +563,24 @@ public class PrefetchRecordsPublisher implements RecordsPublisher {
             return result.records().stream().mapToLong(record -> record.data().limit()).sum();
         }
 
-        public synchronized void waitForConsumer() throws InterruptedException {
-            if (!shouldGetNewRecords()) {
-                log.debug("{} : Queue is full waiting for consumer for {} ms", shardId, idleMillisBetweenCalls);
-                this.wait(idleMillisBetweenCalls);
+        public void waitForConsumer() throws InterruptedException {
+            if (prefetchByteBudget == null) {
+                synchronized (this) {
+                    if (!shouldGetNewRecords()) {
+                        log.debug("{} : Queue is full waiting for consumer for {} ms", shardId,
+                                idleMillisBetweenCalls);
+                        this.wait(idleMillisBetweenCalls);
+                    }
+                }
+            } else {
+                // Bytes released by the consumer of any shard may allow fetching again, so wait on the budget. This
+                // must not hold the monitor of the counters, or the consumer of this shard couldn't release anything.
+                final long releaseCount = prefetchByteBudget.releaseCount();
+                if (!shouldGetNewRecords()) {
+                    log.debug("{} : Queue is full or byte budget is used up, waiting for consumers for {} ms",
+                            shardId, idleMillisBetweenCalls);
+                    prefetchByteBudget.awaitRelease(releaseCount, idleMillisBetweenCalls);
+                }
             }
         }
 
@@ -513,14 +588,29 @@ public class PrefetchRecordsPublisher implements RecordsPublisher {
             if (log.isDebugEnabled()) {
                 log.debug("{} : Current Prefetch Counter States: {}", shardId, this.toString());
             }
-            return size < maxRecordsCount && byteSize < maxByteSize;
+            if (size >= maxRecordsCount) {
+                return false;
+            }
+            if (prefetchByteBudget == null) {
+                return byteSize < maxByteSize;
+            }
+            // A cache with nothing queued may always fetch, so every shard makes progress when the budget is used up.
+            return size == 0 || prefetchByteBudget.hasCapacity();
         }
 
-        void reset() {
+        synchronized void reset() {
+            if (prefetchByteBudget != null && !closed) {
+                prefetchByteBudget.release(byteSize);
+            }
             size = 0;
             byteSize = 0;
         }
 
+        synchronized void close() {
+            reset();
+            closed = true;
+        }
+
         @Override
         public String toString() {
             return String.format("{ Requests: %d, Records: %d, Bytes: %d }", getRecordsResultQueue.size(), size,
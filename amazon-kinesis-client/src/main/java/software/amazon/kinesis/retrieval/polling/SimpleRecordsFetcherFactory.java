@@ -34,6 +34,8 @@ public class SimpleRecordsFetcherFactory implements RecordsFetcherFactory {
     private int maxRecordsCount = 30000;
     private long idleMillisBetweenCalls = 1500L;
     private DataFetchingStrategy dataFetchingStrategy = DataFetchingStrategy.DEFAULT;
+    private boolean lockFreePrefetchQueue = false;
+    private PrefetchByteBudget prefetchByteBudget = null;
 
     @Override
     public RecordsPublisher createRecordsFetcher(GetRecordsRetrievalStrategy getRecordsRetrievalStrategy, String shardId,
@@ -45,7 +47,8 @@ public class SimpleRecordsFetcherFactory implements RecordsFetcherFactory {
                         .newFixedThreadPool(1,
                                 new ThreadFactoryBuilder().setDaemon(true)
                                         .setNameFormat("prefetch-cache-" + shardId + "-%04d").build()),
-                idleMillisBetweenCalls, metricsFactory, "ProcessTask", shardId);
+                idleMillisBetweenCalls, metricsFactory, "ProcessTask", shardId, lockFreePrefetchQueue,
+                prefetchByteBudget);
 
     }
 
@@ -74,6 +77,16 @@ public class SimpleRecordsFetcherFactory implements RecordsFetcherFactory {
         this.idleMillisBetweenCalls = idleMillisBetweenCalls;
     }
 
+    @Override
+    public void lockFreePrefetchQueue(final boolean lockFreePrefetchQueue) {
+        this.lockFreePrefetchQueue = lockFreePrefetchQueue;
+    }
+
+    @Override
+    public void prefetchByteBudget(final PrefetchByteBudget prefetchByteBudget) {
+        this.prefetchByteBudget = prefetchByteBudget;
+    }
+
     @Override
     public int maxPendingProcessRecordsInput() {
         return maxPendingProcessRecordsInput;
@@ -98,4 +111,14 @@ public class SimpleRecordsFetcherFactory implements RecordsFetcherFactory {
     public long idleMillisBetweenCalls() {
         return idleMillisBetweenCalls;
     }
+
+    @Override
+    public boolean lockFreePrefetchQueue() {
+        return lockFreePrefetchQueue;
+    }
+
+    @Override
+    public PrefetchByteBudget prefetchByteBudget() {
+        return prefetchByteBudget;
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval.polling;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * A bounded, array backed, lock-free queue for handing elements from a single producer thread to a single consumer.
+ *
+ * <p>
+ * The producer and the consumer each own one index into a ring of slots, so neither side ever takes a lock or
+ * allocates. A side that has to wait, because the ring is full or empty, parks its thread and is unparked by the
+ * other side once it has made progress.
+ * </p>
+ *
+ * <p>
+ * The producer methods ({@link #offer(Object)}, {@link #offer(Object, long, TimeUnit)} and {@link #put(Object)}) must
+ * only be called by one thread at a time, and so must the consumer methods ({@link #peek()}, the poll, take and drain
+ * methods and {@link #clear()}). The calls of one side may come from different threads as long as the calls are
+ * ordered, e.g. by holding the same lock. {@link #size()}, {@link #isEmpty()} and {@link #remainingCapacity()} may
+ * be called from any thread, but are only estimates while the queue is being modified.
+ * </p>
+ *
+ * @param <E>
+ *            the type of the elements
+ */
+class SpscArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+
+    // Index of the next slot to read, only written by the consumer
+    private volatile long head = 0;
+    // Index of the next slot to write, only written by the producer
+    private volatile long tail = 0;
+
+    private volatile Thread waitingProducer;
+    private volatile Thread waitingConsumer;
+
+    /**
+     * @param capacity
+     *            the maximum number of elements in the queue
+     */
+    SpscArrayBlockingQueue(final int capacity) {
+        Validate.isTrue(capacity > 0, "Capacity must be positive");
+        Validate.isTrue(capacity <= 1 << 30, "Capacity must be at most 2^30");
+        this.capacity = capacity;
+        final int slotCount = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = slotCount - 1;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+    }
+
+    @Override
+    public boolean offer(final E e) {
+        Validate.notNull(e);
+        final long currentTail = tail;
+        if (currentTail - head >= capacity) {
+            return false;
+        }
+        slots.lazySet(index(currentTail), e);
+        // The volatile write publishes the element to the consumer
+        tail = currentTail + 1;
+        unpark(waitingConsumer);
+        return true;
+    }
+
+    @Override
+    public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException {
+        Validate.notNull(e);
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e)) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            awaitSpace(remaining);
+        }
+        return true;
+    }
+
+    @Override
+    public void put(final E e) throws InterruptedException {
+        Validate.notNull(e);
+        while (!offer(e)) {
+            awaitSpace(Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public E poll() {
+        final long currentHead = head;
+        if (currentHead >= tail) {
+            return null;
+        }
+        final int index = index(currentHead);
+        final E e = slots.get(index);
+        slots.lazySet(index, null);
+        // The volatile write hands the slot back to the producer
+        head = currentHead + 1;
+        unpark(waitingProducer);
+        return e;
+    }
+
+    @Override
+    public E poll(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+        while ((e = poll()) == null) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            awaitElement(remaining);
+        }
+        return e;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null) {
+            awaitElement(Long.MAX_VALUE);
+        }
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        final long currentHead = head;
+        if (currentHead >= tail) {
+            return null;
+        }
+        return slots.get(index(currentHead));
+    }
+
+    @Override
+    public void clear() {
+        while (poll() != null) {
+            // Polling releases the slots and wakes up a waiting producer
+        }
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c, final int maxElements) {
+        Validate.notNull(c);
+        Validate.isTrue(c != this, "Can't drain a queue into itself");
+        int drained = 0;
+        E e;
+        while (drained < maxElements && (e = poll()) != null) {
+            c.add(e);
+            drained++;
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        // Reading head first makes sure that the difference isn't negative
+        final long currentHead = head;
+        return (int) Math.min(tail - currentHead, capacity);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head >= tail;
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements. It's only accurate when called by the consumer.
+     *
+     * @return an iterator that doesn't support removal
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final long currentHead = head;
+        final long currentTail = tail;
+        final List<E> snapshot = new ArrayList<>((int) (currentTail - currentHead));
+        for (long i = currentHead; i < currentTail; ++i) {
+            final E e = slots.get(index(i));
+            if (e != null) {
+                snapshot.add(e);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    private int index(final long position) {
+        return (int) position & mask;
+    }
+
+    private void awaitSpace(final long nanos) throws InterruptedException {
+        waitingProducer = Thread.currentThread();
+        try {
+            // Checking again after registering closes the race with a consumer that polled before the registration
+            if (tail - head >= capacity) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        } finally {
+            waitingProducer = null;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private void awaitElement(final long nanos) throws InterruptedException {
+        waitingConsumer = Thread.currentThread();
+        try {
+            if (head >= tail) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private static void unpark(final Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
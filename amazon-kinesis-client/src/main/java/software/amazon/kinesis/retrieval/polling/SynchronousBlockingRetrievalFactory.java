@@ -63,7 +63,8 @@ public class SynchronousBlockingRetrievalFactory implements RetrievalFactory {
     public GetRecordsRetrievalStrategy createGetRecordsRetrievalStrategy(@NonNull final ShardInfo shardInfo,
             @NonNull final MetricsFactory metricsFactory) {
         return new SynchronousGetRecordsRetrievalStrategy(
-                new KinesisDataFetcher(kinesisClient, streamName, shardInfo.shardId(), maxRecords, metricsFactory, kinesisRequestTimeout));
+                new KinesisDataFetcher(kinesisClient, streamName(shardInfo), shardInfo.shardId(), maxRecords, metricsFactory,
+                        kinesisRequestTimeout));
     }
 
     @Override
@@ -72,4 +73,8 @@ public class SynchronousBlockingRetrievalFactory implements RetrievalFactory {
         return recordsFetcherFactory.createRecordsFetcher(createGetRecordsRetrievalStrategy(shardInfo, metricsFactory),
                 shardInfo.shardId(), metricsFactory, maxRecords);
     }
+
+    private String streamName(final ShardInfo shardInfo) {
+        return shardInfo.streamName() == null ? streamName : shardInfo.streamName();
+    }
 }
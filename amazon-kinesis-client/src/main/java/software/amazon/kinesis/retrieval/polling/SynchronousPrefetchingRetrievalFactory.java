@@ -68,7 +68,7 @@ public class SynchronousPrefetchingRetrievalFactory implements RetrievalFactory
     @Override
     public GetRecordsRetrievalStrategy createGetRecordsRetrievalStrategy(@NonNull final ShardInfo shardInfo,
             @NonNull final MetricsFactory metricsFactory) {
-        return new SynchronousGetRecordsRetrievalStrategy(new KinesisDataFetcher(kinesisClient, streamName,
+        return new SynchronousGetRecordsRetrievalStrategy(new KinesisDataFetcher(kinesisClient, streamName(shardInfo),
                 shardInfo.shardId(), maxRecords, metricsFactory, maxFutureWait));
     }
 
@@ -78,6 +78,12 @@ public class SynchronousPrefetchingRetrievalFactory implements RetrievalFactory
         return new PrefetchRecordsPublisher(recordsFetcherFactory.maxPendingProcessRecordsInput(),
                 recordsFetcherFactory.maxByteSize(), recordsFetcherFactory.maxRecordsCount(), maxRecords,
                 createGetRecordsRetrievalStrategy(shardInfo, metricsFactory), executorService, idleMillisBetweenCalls,
-                metricsFactory, "Prefetching", shardInfo.shardId());
+                metricsFactory, "Prefetching", shardInfo.shardId(), recordsFetcherFactory.lockFreePrefetchQueue(),
+                recordsFetcherFactory.prefetchByteBudget());
+    }
+
+    // The shards of a multi-stream Scheduler are read from their own stream
+    private String streamName(final ShardInfo shardInfo) {
+        return shardInfo.streamName() == null ? streamName : shardInfo.streamName();
     }
 }
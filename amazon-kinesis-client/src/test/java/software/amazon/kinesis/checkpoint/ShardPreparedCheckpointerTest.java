@@ -14,6 +14,8 @@
  */
 package software.amazon.kinesis.checkpoint;
 
+import java.util.concurrent.CompletableFuture;
+
 import software.amazon.kinesis.processor.PreparedCheckpointer;
 import software.amazon.kinesis.processor.RecordProcessorCheckpointer;
 import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
@@ -47,6 +49,24 @@ public class ShardPreparedCheckpointerTest {
         Mockito.verify(mockRecordProcessorCheckpointer).checkpoint(sn.sequenceNumber(), sn.subSequenceNumber());
     }
 
+    /**
+     * This test makes sure the PreparedCheckpointer checkpoints asynchronously through the RecordProcessorCheckpointer.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCheckpointAsync() throws Exception {
+        ExtendedSequenceNumber sn = new ExtendedSequenceNumber("sn");
+        RecordProcessorCheckpointer mockRecordProcessorCheckpointer = Mockito.mock(RecordProcessorCheckpointer.class);
+        CompletableFuture<Void> saved = CompletableFuture.completedFuture(null);
+        Mockito.when(mockRecordProcessorCheckpointer.checkpointAsync(sn.sequenceNumber(), sn.subSequenceNumber()))
+                .thenReturn(saved);
+        PreparedCheckpointer checkpointer = new ShardPreparedCheckpointer(sn, mockRecordProcessorCheckpointer);
+        Assert.assertSame(saved, checkpointer.checkpointAsync());
+        Mockito.verify(mockRecordProcessorCheckpointer, Mockito.never()).checkpoint(sn.sequenceNumber(),
+                sn.subSequenceNumber());
+    }
+
     /**
      * This test makes sure the PreparedCheckpointer calls the RecordProcessorCheckpointer properly.
      *
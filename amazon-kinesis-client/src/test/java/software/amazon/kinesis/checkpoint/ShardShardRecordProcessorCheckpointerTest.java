@@ -15,14 +15,23 @@
 package software.amazon.kinesis.checkpoint;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +39,7 @@ import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import software.amazon.awssdk.services.kinesis.model.Record;
+import software.amazon.kinesis.exceptions.ShutdownException;
 import software.amazon.kinesis.leases.ShardInfo;
 import software.amazon.kinesis.processor.Checkpointer;
 import software.amazon.kinesis.processor.PreparedCheckpointer;
@@ -81,6 +91,113 @@ public class ShardShardRecordProcessorCheckpointerTest {
         assertThat(checkpoint.getCheckpoint(shardId), equalTo(sequenceNumber));
     }
 
+    /**
+     * Test method for
+     * {@link ShardRecordProcessorCheckpointer#checkpointAsync(String, long)}.
+     */
+    @Test
+    public final void testCheckpointAsync() throws Exception {
+        ShardRecordProcessorCheckpointer processingCheckpointer =
+                new ShardRecordProcessorCheckpointer(shardInfo, checkpoint);
+        processingCheckpointer.setInitialCheckpointValue(startingExtendedSequenceNumber);
+        ExtendedSequenceNumber extendedSequenceNumber = new ExtendedSequenceNumber("5040", 3L);
+        processingCheckpointer.largestPermittedCheckpointValue(extendedSequenceNumber);
+
+        processingCheckpointer.checkpointAsync("5040", 3L).toCompletableFuture().get();
+        assertThat(checkpoint.getCheckpoint(shardId), equalTo(extendedSequenceNumber));
+        assertThat(processingCheckpointer.lastCheckpointValue(), equalTo(extendedSequenceNumber));
+    }
+
+    /**
+     * Test method for
+     * {@link ShardRecordProcessorCheckpointer#checkpointAsync(String)}.
+     */
+    @Test
+    public final void testCheckpointAsyncDoesNotWaitForCheckpointToBeSaved() throws Exception {
+        Checkpointer asyncCheckpointer = mock(Checkpointer.class);
+        CompletableFuture<Void> saved = new CompletableFuture<>();
+        ExtendedSequenceNumber extendedSequenceNumber = new ExtendedSequenceNumber("5045");
+        when(asyncCheckpointer.setCheckpointAsync(shardId, extendedSequenceNumber, testConcurrencyToken))
+                .thenReturn(saved);
+        ShardRecordProcessorCheckpointer processingCheckpointer =
+                new ShardRecordProcessorCheckpointer(shardInfo, asyncCheckpointer);
+        processingCheckpointer.setInitialCheckpointValue(startingExtendedSequenceNumber);
+        processingCheckpointer.largestPermittedCheckpointValue(extendedSequenceNumber);
+
+        CompletableFuture<Void> checkpointed = processingCheckpointer.checkpointAsync("5045").toCompletableFuture();
+        assertThat(checkpointed.isDone(), equalTo(false));
+        assertThat(processingCheckpointer.lastCheckpointValue(), equalTo(startingExtendedSequenceNumber));
+
+        // The checkpoint that is being saved is the lower bound of later checkpoints
+        CompletableFuture<Void> rejected = processingCheckpointer.checkpointAsync("5044").toCompletableFuture();
+        try {
+            rejected.get();
+            fail("Expected a checkpoint before the last one to be rejected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        }
+
+        saved.complete(null);
+        checkpointed.get();
+        assertThat(processingCheckpointer.lastCheckpointValue(), equalTo(extendedSequenceNumber));
+        verify(asyncCheckpointer, never()).setCheckpoint(anyString(), any(ExtendedSequenceNumber.class), anyString());
+    }
+
+    /**
+     * Test method for
+     * {@link ShardRecordProcessorCheckpointer#checkpointAsync()}.
+     */
+    @Test
+    public final void testFailedCheckpointAsyncKeepsLastCheckpoint() throws Exception {
+        Checkpointer asyncCheckpointer = mock(Checkpointer.class);
+        CompletableFuture<Void> saved = new CompletableFuture<>();
+        when(asyncCheckpointer.setCheckpointAsync(anyString(), any(ExtendedSequenceNumber.class), anyString()))
+                .thenReturn(saved);
+        ShardRecordProcessorCheckpointer processingCheckpointer =
+                new ShardRecordProcessorCheckpointer(shardInfo, asyncCheckpointer);
+        processingCheckpointer.setInitialCheckpointValue(startingExtendedSequenceNumber);
+        processingCheckpointer.largestPermittedCheckpointValue(new ExtendedSequenceNumber("5050"));
+
+        CompletableFuture<Void> checkpointed = processingCheckpointer.checkpointAsync().toCompletableFuture();
+        saved.completeExceptionally(new ShutdownException("Lease lost"));
+        try {
+            checkpointed.get();
+            fail("Expected the checkpoint to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(ShutdownException.class));
+        }
+        assertThat(processingCheckpointer.lastCheckpointValue(), equalTo(startingExtendedSequenceNumber));
+    }
+
+    /**
+     * Test method for
+     * {@link ShardRecordProcessorCheckpointer#awaitUnsavedCheckpoint()}.
+     */
+    @Test
+    public final void testAwaitUnsavedCheckpoint() throws Exception {
+        Checkpointer asyncCheckpointer = mock(Checkpointer.class);
+        CompletableFuture<Void> saved = new CompletableFuture<>();
+        when(asyncCheckpointer.setCheckpointAsync(anyString(), any(ExtendedSequenceNumber.class), anyString()))
+                .thenReturn(saved);
+        ShardRecordProcessorCheckpointer processingCheckpointer =
+                new ShardRecordProcessorCheckpointer(shardInfo, asyncCheckpointer);
+        processingCheckpointer.setInitialCheckpointValue(startingExtendedSequenceNumber);
+        processingCheckpointer.largestPermittedCheckpointValue(ExtendedSequenceNumber.SHARD_END);
+
+        processingCheckpointer.checkpointAsync();
+        new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            saved.complete(null);
+        }).start();
+
+        processingCheckpointer.awaitUnsavedCheckpoint();
+        assertThat(processingCheckpointer.lastCheckpointValue(), equalTo(ExtendedSequenceNumber.SHARD_END));
+    }
+
     private Record makeRecord(String seqNum) {
         return Record.builder().sequenceNumber(seqNum).build();
     }
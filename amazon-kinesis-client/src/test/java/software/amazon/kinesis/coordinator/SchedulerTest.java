@@ -26,6 +26,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
@@ -33,9 +34,13 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -43,6 +48,7 @@ import io.reactivex.plugins.RxJavaPlugins;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -52,7 +58,11 @@ import software.amazon.awssdk.services.kinesis.KinesisAsyncClient;
 import software.amazon.kinesis.checkpoint.Checkpoint;
 import software.amazon.kinesis.checkpoint.CheckpointConfig;
 import software.amazon.kinesis.checkpoint.CheckpointFactory;
+import software.amazon.kinesis.common.InitialPositionInStream;
+import software.amazon.kinesis.common.InitialPositionInStreamExtended;
+import software.amazon.kinesis.common.StreamConfig;
 import software.amazon.kinesis.exceptions.KinesisClientLibNonRetryableException;
+import software.amazon.kinesis.leases.Lease;
 import software.amazon.kinesis.leases.LeaseCoordinator;
 import software.amazon.kinesis.leases.LeaseManagementConfig;
 import software.amazon.kinesis.leases.LeaseManagementFactory;
@@ -99,6 +109,7 @@ public class SchedulerTest {
     private MetricsConfig metricsConfig;
     private ProcessorConfig processorConfig;
     private RetrievalConfig retrievalConfig;
+    private final Map<String, ShardSyncTaskManager> streamShardSyncTaskManagers = new HashMap<>();
 
     @Mock
     private KinesisAsyncClient kinesisClient;
@@ -239,6 +250,105 @@ public class SchedulerTest {
         assertFalse(shardConsumer1.isShutdownRequested());
     }
 
+    @Test(timeout = 10000L)
+    public final void testEventDrivenDispatchOnlyExecutesSignalledShardConsumers() {
+        final String concurrencyToken = "concurrencyToken";
+        final ShardInfo shardInfo0 = new ShardInfo("shardId-000000000000", concurrencyToken, null,
+                ExtendedSequenceNumber.TRIM_HORIZON);
+        final ShardInfo shardInfo1 = new ShardInfo("shardId-000000000001", concurrencyToken, null,
+                ExtendedSequenceNumber.TRIM_HORIZON);
+        final ShardInfo shardInfo2 = new ShardInfo("shardId-000000000002", concurrencyToken, null,
+                ExtendedSequenceNumber.TRIM_HORIZON);
+        final ShardConsumer shardConsumer0 = mock(ShardConsumer.class);
+        final ShardConsumer shardConsumer1 = mock(ShardConsumer.class);
+        final ShardConsumer shardConsumer2 = mock(ShardConsumer.class);
+
+        // Long enough that only the first loop dispatches all the shard consumers
+        coordinatorConfig.eventDrivenShardConsumerDispatch(true).shardConsumerDispatchPollIntervalMillis(60000L);
+        scheduler = new Scheduler(checkpointConfig, coordinatorConfig, leaseManagementConfig, lifecycleConfig,
+                metricsConfig, processorConfig, retrievalConfig);
+        final ArgumentCaptor<Runnable> assignmentChangeListener = ArgumentCaptor.forClass(Runnable.class);
+        verify(leaseCoordinator).addLeaseAssignmentChangeListener(assignmentChangeListener.capture());
+
+        final Scheduler schedulerSpy = spy(scheduler);
+        doReturn(shardConsumer0).when(schedulerSpy).buildConsumer(same(shardInfo0), eq(shardRecordProcessorFactory));
+        doReturn(shardConsumer1).when(schedulerSpy).buildConsumer(same(shardInfo1), eq(shardRecordProcessorFactory));
+        doReturn(shardConsumer2).when(schedulerSpy).buildConsumer(same(shardInfo2), eq(shardRecordProcessorFactory));
+        when(leaseCoordinator.getCurrentAssignments()).thenReturn(Arrays.asList(shardInfo0, shardInfo1));
+
+        schedulerSpy.runProcessLoop();
+        verify(shardConsumer0).executeLifecycle();
+        verify(shardConsumer1).executeLifecycle();
+
+        final ArgumentCaptor<Runnable> lifecycleEventListener = ArgumentCaptor.forClass(Runnable.class);
+        verify(shardConsumer1).lifecycleEventListener(lifecycleEventListener.capture());
+        lifecycleEventListener.getValue().run();
+        schedulerSpy.runProcessLoop();
+        verify(shardConsumer0).executeLifecycle();
+        verify(shardConsumer1, times(2)).executeLifecycle();
+
+        when(leaseCoordinator.getCurrentAssignments()).thenReturn(Arrays.asList(shardInfo0, shardInfo1, shardInfo2));
+        assignmentChangeListener.getValue().run();
+        schedulerSpy.runProcessLoop();
+        verify(shardConsumer0).executeLifecycle();
+        verify(shardConsumer1, times(2)).executeLifecycle();
+        verify(shardConsumer2).executeLifecycle();
+    }
+
+    @Test
+    public final void testMultiStreamShardConsumers() throws Exception {
+        final InitialPositionInStreamExtended initialPosition = InitialPositionInStreamExtended
+                .newInitialPosition(InitialPositionInStream.TRIM_HORIZON);
+        retrievalConfig = new RetrievalConfig(kinesisClient, Arrays.asList(new StreamConfig("streamA", initialPosition),
+                new StreamConfig("streamB", initialPosition)), applicationName).retrievalFactory(retrievalFactory);
+        coordinatorConfig.shardConsumerDispatchPollIntervalMillis(10L);
+        scheduler = new Scheduler(checkpointConfig, coordinatorConfig, leaseManagementConfig, lifecycleConfig,
+                metricsConfig, processorConfig, retrievalConfig);
+        assertEquals(new HashSet<>(Arrays.asList("streamA", "streamB")), streamShardSyncTaskManagers.keySet());
+
+        final String shardId = "shardId-000000000000";
+        final String concurrencyToken = "concurrencyToken";
+        final ShardInfo shardInfoA = new ShardInfo("streamA", shardId, concurrencyToken, null,
+                ExtendedSequenceNumber.TRIM_HORIZON);
+        final ShardInfo shardInfoB = new ShardInfo("streamB", shardId, concurrencyToken, null,
+                ExtendedSequenceNumber.TRIM_HORIZON);
+        final ShardInfo shardInfoC = new ShardInfo("streamC", shardId, concurrencyToken, null,
+                ExtendedSequenceNumber.TRIM_HORIZON);
+
+        final ShardConsumer shardConsumerA = scheduler.createOrGetShardConsumer(shardInfoA,
+                shardRecordProcessorFactory);
+        final ShardConsumer shardConsumerB = scheduler.createOrGetShardConsumer(shardInfoB,
+                shardRecordProcessorFactory);
+        assertNotSame(shardConsumerA, shardConsumerB);
+        verify(streamShardSyncTaskManagers.get("streamA")).leaseRefresher();
+        verify(streamShardSyncTaskManagers.get("streamB")).leaseRefresher();
+        verify(retrievalFactory).createGetRecordsCache(same(shardInfoA), any(MetricsFactory.class));
+        verify(retrievalFactory).createGetRecordsCache(same(shardInfoB), any(MetricsFactory.class));
+
+        // The leases of streams that aren't configured are dropped instead of being processed
+        final Scheduler schedulerSpy = spy(scheduler);
+        final Lease leaseC = mock(Lease.class);
+        when(leaseCoordinator.getCurrentAssignments()).thenReturn(Arrays.asList(shardInfoA, shardInfoB, shardInfoC));
+        when(leaseCoordinator.getCurrentlyHeldLease(shardInfoC.leaseKey())).thenReturn(leaseC);
+        schedulerSpy.runProcessLoop();
+        verify(schedulerSpy, never()).buildConsumer(same(shardInfoC), any(ShardRecordProcessorFactory.class));
+        verify(leaseCoordinator).dropLease(same(leaseC));
+        assertEquals(new HashSet<>(Arrays.asList(shardInfoA, shardInfoB)),
+                schedulerSpy.shardInfoShardConsumerMap().keySet());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public final void testMultiStreamRequiresLeaseManagementFactorySupport() {
+        final InitialPositionInStreamExtended initialPosition = InitialPositionInStreamExtended
+                .newInitialPosition(InitialPositionInStream.TRIM_HORIZON);
+        retrievalConfig = new RetrievalConfig(kinesisClient, Arrays.asList(new StreamConfig("streamA", initialPosition),
+                new StreamConfig("streamB", initialPosition)), applicationName).retrievalFactory(retrievalFactory);
+        leaseManagementConfig.leaseManagementFactory(mock(LeaseManagementFactory.class));
+
+        new Scheduler(checkpointConfig, coordinatorConfig, leaseManagementConfig, lifecycleConfig, metricsConfig,
+                processorConfig, retrievalConfig);
+    }
+
     @Test
     public final void testInitializationFailureWithRetries() throws Exception {
         doNothing().when(leaseCoordinator).initialize();
@@ -506,11 +616,34 @@ public class SchedulerTest {
             return leaseCoordinator;
         }
 
+        @Override
+        public boolean supportsMultiStream() {
+            return true;
+        }
+
+        @Override
+        public LeaseCoordinator createLeaseCoordinator(MetricsFactory metricsFactory,
+                Collection<StreamConfig> streamConfigs) {
+            return leaseCoordinator;
+        }
+
         @Override
         public ShardSyncTaskManager createShardSyncTaskManager(MetricsFactory metricsFactory) {
             return shardSyncTaskManager;
         }
 
+        @Override
+        public ShardSyncTaskManager createShardSyncTaskManager(MetricsFactory metricsFactory,
+                StreamConfig streamConfig) {
+            final ShardSyncTaskManager streamShardSyncTaskManager = mock(ShardSyncTaskManager.class);
+            when(streamShardSyncTaskManager.shardDetector()).thenReturn(shardDetector);
+            when(streamShardSyncTaskManager.leaseRefresher()).thenReturn(dynamoDBLeaseRefresher);
+            when(streamShardSyncTaskManager.initialPositionInStream())
+                    .thenReturn(streamConfig.initialPositionInStreamExtended());
+            streamShardSyncTaskManagers.put(streamConfig.streamName(), streamShardSyncTaskManager);
+            return streamShardSyncTaskManager;
+        }
+
         @Override
         public DynamoDBLeaseRefresher createLeaseRefresher() {
             return dynamoDBLeaseRefresher;
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.coordinator;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
+import software.amazon.kinesis.leases.LeaseCoordinator;
+import software.amazon.kinesis.metrics.MetricsFactory;
+import software.amazon.kinesis.metrics.MetricsLevel;
+import software.amazon.kinesis.metrics.MetricsScope;
+import software.amazon.kinesis.metrics.MetricsUtil;
+
+public class VirtualThreadExecutorServiceTest {
+    private final ThreadFactory threadFactory = runnable -> new Thread(runnable, "VirtualThreadExecutorServiceTest");
+    private final VirtualThreadExecutorService executorService = new VirtualThreadExecutorService(threadFactory);
+
+    @After
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    @Test(timeout = 10000L)
+    public void testTasksRunConcurrently() throws Exception {
+        final int taskCount = 10;
+        CountDownLatch started = new CountDownLatch(taskCount);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < taskCount; ++i) {
+            executorService.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        started.await();
+        assertThat(executorService.runningTaskCount(), equalTo(taskCount));
+        assertThat(executorService.pendingTaskCount(), equalTo(0));
+        release.countDown();
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(executorService.isTerminated());
+        assertThat(executorService.runningTaskCount(), equalTo(0));
+        assertThat(executorService.largestRunningTaskCount(), equalTo(taskCount));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testTasksAreRejectedAfterShutdown() {
+        executorService.shutdown();
+        executorService.execute(() -> { });
+    }
+
+    @Test(timeout = 10000L)
+    public void testShutdownNowInterruptsTasks() throws Exception {
+        Future<?> future = executorService.submit(() -> {
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return null;
+        });
+        while (executorService.runningTaskCount() == 0) {
+            Thread.sleep(10);
+        }
+
+        assertThat(executorService.shutdownNow(), equalTo(Collections.emptyList()));
+        assertTrue(executorService.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(future.isDone());
+    }
+
+    @Test(timeout = 10000L)
+    public void testBlockedTasksAreCounted() throws Exception {
+        final Object monitor = new Object();
+        CountDownLatch started = new CountDownLatch(1);
+        synchronized (monitor) {
+            executorService.execute(() -> {
+                started.countDown();
+                synchronized (monitor) {
+                    monitor.notifyAll();
+                }
+            });
+            started.await();
+            while (executorService.blockedTaskCount() == 0) {
+                Thread.sleep(10);
+            }
+            assertThat(executorService.blockedTaskCount(), equalTo(1));
+        }
+    }
+
+    @Test(timeout = 10000L)
+    public void testStateEventReportsExecutorState() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executorService.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        while (executorService.runningTaskCount() == 0) {
+            Thread.sleep(10);
+        }
+        LeaseCoordinator leaseCoordinator = mock(LeaseCoordinator.class);
+        when(leaseCoordinator.getAssignments()).thenReturn(Collections.emptyList());
+
+        ExecutorStateEvent event = new DiagnosticEventFactory().executorStateEvent(executorService, leaseCoordinator);
+        release.countDown();
+
+        assertThat(event, instanceOf(VirtualThreadExecutorStateEvent.class));
+        VirtualThreadExecutorStateEvent virtualThreadEvent = (VirtualThreadExecutorStateEvent) event;
+        assertThat(virtualThreadEvent.getRunningTasks(), equalTo(1));
+        assertThat(virtualThreadEvent.getPendingTasks(), equalTo(0));
+        assertThat(virtualThreadEvent.getLargestRunningTasks(), equalTo(1));
+        assertThat(virtualThreadEvent.getLeasesOwned(), equalTo(0));
+    }
+
+    @Test
+    public void testStateEventEmitsMetrics() {
+        LeaseCoordinator leaseCoordinator = mock(LeaseCoordinator.class);
+        when(leaseCoordinator.getAssignments()).thenReturn(Collections.emptyList());
+        MetricsFactory metricsFactory = mock(MetricsFactory.class);
+        MetricsScope scope = mock(MetricsScope.class);
+        when(metricsFactory.createMetrics()).thenReturn(scope);
+
+        new VirtualThreadExecutorStateEvent(executorService, leaseCoordinator).emitMetrics(metricsFactory);
+
+        verify(scope).addDimension(MetricsUtil.OPERATION_DIMENSION_NAME, VirtualThreadExecutorStateEvent.OPERATION);
+        verify(scope).addData(eq(VirtualThreadExecutorStateEvent.MAX_TASK_START_DELAY_METRIC), anyDouble(),
+                eq(StandardUnit.MILLISECONDS), eq(MetricsLevel.DETAILED));
+        verify(scope).addData(VirtualThreadExecutorStateEvent.BLOCKED_TASKS_METRIC, 0, StandardUnit.COUNT,
+                MetricsLevel.DETAILED);
+        verify(scope).addData(VirtualThreadExecutorStateEvent.PENDING_TASKS_METRIC, 0, StandardUnit.COUNT,
+                MetricsLevel.DETAILED);
+        verify(scope).end();
+    }
+
+    @Test
+    public void testFactoryFallsBackToPlatformThreadsWhenUnsupported() {
+        boolean virtualThreadsSupported;
+        try {
+            Class.forName("java.lang.Thread$Builder");
+            virtualThreadsSupported = true;
+        } catch (ClassNotFoundException e) {
+            virtualThreadsSupported = false;
+        }
+
+        ExecutorService created = new VirtualThreadCoordinatorFactory().createExecutorService();
+        try {
+            if (virtualThreadsSupported) {
+                assertThat(created, instanceOf(VirtualThreadExecutorService.class));
+            } else {
+                assertThat(created, instanceOf(SchedulerCoordinatorFactory.SchedulerThreadPoolExecutor.class));
+            }
+            assertFalse(created.isShutdown());
+        } finally {
+            created.shutdownNow();
+        }
+    }
+}
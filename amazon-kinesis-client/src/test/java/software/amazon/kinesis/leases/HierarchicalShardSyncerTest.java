@@ -23,6 +23,7 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -39,6 +40,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -205,6 +210,159 @@ public class HierarchicalShardSyncerTest {
 
     }
 
+    @Test
+    public void testCheckAndCreateLeasesUsesShardGraphOfShardDetector() throws Exception {
+        final List<Shard> shards = constructShardListForGraphA();
+        final ArgumentCaptor<Lease> leaseCaptor = ArgumentCaptor.forClass(Lease.class);
+
+        when(shardDetector.shardGraph()).thenReturn(ShardGraph.of(shards));
+        when(dynamoDBLeaseRefresher.listLeases()).thenReturn(Collections.emptyList());
+        when(dynamoDBLeaseRefresher.createLeaseIfNotExists(leaseCaptor.capture())).thenReturn(true);
+
+        hierarchicalShardSyncer.checkAndCreateLeaseForNewShards(shardDetector, dynamoDBLeaseRefresher,
+                INITIAL_POSITION_LATEST, cleanupLeasesOfCompletedShards, false, SCOPE);
+
+        assertThat(leaseCaptor.getAllValues().stream().map(Lease::leaseKey).collect(Collectors.toSet()),
+                equalTo(new HashSet<>(Arrays.asList("shardId-4", "shardId-8", "shardId-9", "shardId-10"))));
+        verify(shardDetector, never()).listShards();
+    }
+
+    @Test
+    public void testCheckAndCreateLeasesConcurrentlyCreatesParentsFirst() throws Exception {
+        final List<Shard> shards = constructShardListForGraphA();
+        final List<String> createdLeaseKeys = Collections.synchronizedList(new ArrayList<>());
+        final Map<String, Set<String>> parentShardIds = new ConcurrentHashMap<>();
+
+        when(shardDetector.listShards()).thenReturn(shards);
+        when(dynamoDBLeaseRefresher.listLeases()).thenReturn(Collections.emptyList());
+        when(dynamoDBLeaseRefresher.createLeaseIfNotExists(any(Lease.class))).thenAnswer(invocation -> {
+            final Lease lease = (Lease) invocation.getArguments()[0];
+            parentShardIds.put(lease.leaseKey(), lease.parentShardIds());
+            createdLeaseKeys.add(lease.leaseKey());
+            return true;
+        });
+
+        new HierarchicalShardSyncer(4).checkAndCreateLeaseForNewShards(shardDetector, dynamoDBLeaseRefresher,
+                INITIAL_POSITION_TRIM_HORIZON, cleanupLeasesOfCompletedShards, false, SCOPE);
+
+        assertThat(new HashSet<>(createdLeaseKeys),
+                equalTo(shards.stream().map(Shard::shardId).collect(Collectors.toSet())));
+        createdLeaseKeys.forEach(leaseKey -> parentShardIds.get(leaseKey).forEach(parentShardId -> {
+            final int parentIndex = createdLeaseKeys.indexOf(parentShardId);
+            final int index = createdLeaseKeys.indexOf(leaseKey);
+            assertThat(parentIndex >= 0 && index >= 0, equalTo(true));
+            assertThat(parentIndex < index, equalTo(true));
+        }));
+    }
+
+    @Test(timeout = 10000L)
+    public void testCheckAndCreateLeasesOfDifferentStreamsConcurrently() throws Exception {
+        final DynamoDBLeaseRefresher otherLeaseRefresher = mock(DynamoDBLeaseRefresher.class);
+        final CountDownLatch otherSyncStarted = new CountDownLatch(1);
+        final AtomicBoolean otherSyncOverlapped = new AtomicBoolean(false);
+
+        when(shardDetector.listShards()).thenReturn(constructShardListForGraphA());
+        // The first sync only completes once the sync of the other stream has started alongside it
+        when(dynamoDBLeaseRefresher.listLeases()).thenAnswer(invocation -> {
+            otherSyncOverlapped.set(otherSyncStarted.await(5, TimeUnit.SECONDS));
+            return Collections.emptyList();
+        });
+        when(otherLeaseRefresher.listLeases()).thenAnswer(invocation -> {
+            otherSyncStarted.countDown();
+            return Collections.emptyList();
+        });
+
+        final Thread sync = new Thread(() -> {
+            try {
+                hierarchicalShardSyncer.checkAndCreateLeaseForNewShards(shardDetector,
+                        new StreamLeaseRefresher(dynamoDBLeaseRefresher, "stream-1"), INITIAL_POSITION_LATEST,
+                        cleanupLeasesOfCompletedShards, false, SCOPE);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        sync.start();
+        hierarchicalShardSyncer.checkAndCreateLeaseForNewShards(shardDetector,
+                new StreamLeaseRefresher(otherLeaseRefresher, "stream-2"), INITIAL_POSITION_LATEST,
+                cleanupLeasesOfCompletedShards, false, SCOPE);
+        sync.join();
+
+        assertThat(otherSyncOverlapped.get(), equalTo(true));
+    }
+
+    /**
+     * Syncs of one lease table through different refresher objects, as the shard sync task manager and the shutdown
+     * of a shard consumer do, run one at a time.
+     */
+    @Test
+    public void testCheckAndCreateLeasesOfOneLeaseTableThroughDifferentLeaseRefreshersOneAtATime() throws Exception {
+        final DynamoDBLeaseRefresher otherLeaseRefresher = mock(DynamoDBLeaseRefresher.class);
+        final CountDownLatch syncStarted = new CountDownLatch(1);
+        final CountDownLatch otherSyncStarted = new CountDownLatch(1);
+        final AtomicBoolean otherSyncOverlapped = new AtomicBoolean(false);
+
+        when(shardDetector.listShards()).thenReturn(constructShardListForGraphA());
+        // The first sync waits a while for the other sync to start alongside it, which it must not
+        when(dynamoDBLeaseRefresher.listLeases()).thenAnswer(invocation -> {
+            syncStarted.countDown();
+            otherSyncOverlapped.set(otherSyncStarted.await(1, TimeUnit.SECONDS));
+            return Collections.emptyList();
+        });
+        when(otherLeaseRefresher.listLeases()).thenAnswer(invocation -> {
+            otherSyncStarted.countDown();
+            return Collections.emptyList();
+        });
+
+        final Thread sync = new Thread(() -> {
+            try {
+                hierarchicalShardSyncer.checkAndCreateLeaseForNewShards(shardDetector, dynamoDBLeaseRefresher,
+                        INITIAL_POSITION_LATEST, cleanupLeasesOfCompletedShards, false, SCOPE);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        sync.start();
+        assertThat(syncStarted.await(5, TimeUnit.SECONDS), equalTo(true));
+        hierarchicalShardSyncer.checkAndCreateLeaseForNewShards(shardDetector, otherLeaseRefresher,
+                INITIAL_POSITION_LATEST, cleanupLeasesOfCompletedShards, false, SCOPE);
+        sync.join();
+
+        assertThat(otherSyncOverlapped.get(), equalTo(false));
+        verify(otherLeaseRefresher).listLeases();
+    }
+
+    @Test(expected = DependencyException.class)
+    public void testCheckAndCreateLeasesConcurrentlyRethrowsCreateLeaseException() throws Exception {
+        when(shardDetector.listShards()).thenReturn(constructShardListForGraphA());
+        when(dynamoDBLeaseRefresher.listLeases()).thenReturn(Collections.emptyList());
+        when(dynamoDBLeaseRefresher.createLeaseIfNotExists(any(Lease.class)))
+                .thenThrow(new DependencyException(new Throwable("Throw for CreateLease")));
+
+        try {
+            new HierarchicalShardSyncer(4).checkAndCreateLeaseForNewShards(shardDetector, dynamoDBLeaseRefresher,
+                    INITIAL_POSITION_TRIM_HORIZON, cleanupLeasesOfCompletedShards, false, SCOPE);
+        } finally {
+            verify(dynamoDBLeaseRefresher, never()).deleteLease(any(Lease.class));
+        }
+    }
+
+    @Test
+    public void testSplitIntoGenerations() {
+        final List<Lease> leases = createLeasesFromShards(constructShardListForGraphA(),
+                ExtendedSequenceNumber.TRIM_HORIZON, LEASE_OWNER);
+
+        final List<List<Lease>> generations = HierarchicalShardSyncer.splitIntoGenerations(leases);
+
+        final List<Set<String>> generationLeaseKeys = generations.stream()
+                .map(generation -> generation.stream().map(Lease::leaseKey).collect(Collectors.toSet()))
+                .collect(Collectors.toList());
+        assertThat(generationLeaseKeys, equalTo(Arrays.asList(
+                new HashSet<>(Arrays.asList("shardId-0", "shardId-1", "shardId-2", "shardId-3", "shardId-4",
+                        "shardId-5")),
+                new HashSet<>(Arrays.asList("shardId-6", "shardId-7", "shardId-9", "shardId-10")),
+                Collections.singleton("shardId-8"))));
+    }
+
     @Test
     public void testCheckAndCreateLeasesForNewShardsAtTrimHorizon() throws Exception {
         testCheckAndCreateLeaseForShardsIfMissing(constructShardListForGraphA(), INITIAL_POSITION_TRIM_HORIZON);
@@ -684,6 +842,82 @@ public class HierarchicalShardSyncerTest {
         verify(dynamoDBLeaseRefresher, never()).createLeaseIfNotExists(any(Lease.class));
     }
 
+    @Test
+    public void testCheckAndCreateLeasesForChildShards() throws Exception {
+        final String parentShardId = "shardId-0";
+        final String existingChildShardId = "shardId-1";
+        final String newChildShardId = "shardId-2";
+        final SequenceNumberRange sequenceRange = ShardObjectHelper.newSequenceNumberRange("342980", null);
+        final Shard existingChildShard = ShardObjectHelper.newShard(existingChildShardId, parentShardId, null,
+                sequenceRange);
+        final Shard newChildShard = ShardObjectHelper.newShard(newChildShardId, null, parentShardId, sequenceRange);
+        final Lease parentLease = createLeaseFromShard(
+                ShardObjectHelper.newShard(parentShardId, null, null, sequenceRange), ExtendedSequenceNumber.SHARD_END,
+                LEASE_OWNER);
+        final Lease existingChildLease = createLeaseFromShard(existingChildShard, new ExtendedSequenceNumber("342981"),
+                LEASE_OWNER);
+
+        final ArgumentCaptor<Lease> leaseCaptor = ArgumentCaptor.forClass(Lease.class);
+
+        when(shardDetector.childShards(parentShardId)).thenReturn(Arrays.asList(existingChildShard, newChildShard));
+        when(dynamoDBLeaseRefresher.getLease(parentShardId)).thenReturn(parentLease);
+        when(dynamoDBLeaseRefresher.getLease(existingChildShardId)).thenReturn(existingChildLease);
+        when(dynamoDBLeaseRefresher.createLeaseIfNotExists(leaseCaptor.capture())).thenReturn(true);
+
+        hierarchicalShardSyncer.checkAndCreateLeasesForChildShards(shardDetector, dynamoDBLeaseRefresher,
+                Collections.singleton(parentShardId), INITIAL_POSITION_LATEST, cleanupLeasesOfCompletedShards,
+                ignoreUnexpectedChildShards, SCOPE);
+
+        assertThat(leaseCaptor.getAllValues().size(), equalTo(1));
+        assertThat(leaseCaptor.getValue().leaseKey(), equalTo(newChildShardId));
+        assertThat(leaseCaptor.getValue().checkpoint(), equalTo(ExtendedSequenceNumber.TRIM_HORIZON));
+        assertThat(leaseCaptor.getValue().parentShardIds(), equalTo(Collections.singleton(parentShardId)));
+
+        // The new child lease is still at TRIM_HORIZON, so the lease of the parent is kept
+        verify(dynamoDBLeaseRefresher, never()).deleteLease(any(Lease.class));
+        verify(dynamoDBLeaseRefresher, never()).listLeases();
+        verify(shardDetector, never()).listShards();
+    }
+
+    @Test
+    public void testCheckAndCreateLeasesForChildShardsDeletesCompletedShardLease() throws Exception {
+        final String parentShardId = "shardId-0";
+        final String childShardId = "shardId-1";
+        final SequenceNumberRange sequenceRange = ShardObjectHelper.newSequenceNumberRange("342980", null);
+        final Shard childShard = ShardObjectHelper.newShard(childShardId, parentShardId, null, sequenceRange);
+        final Lease parentLease = createLeaseFromShard(
+                ShardObjectHelper.newShard(parentShardId, null, null, sequenceRange), ExtendedSequenceNumber.SHARD_END,
+                LEASE_OWNER);
+
+        when(shardDetector.childShards(parentShardId)).thenReturn(Collections.singletonList(childShard));
+        when(dynamoDBLeaseRefresher.getLease(parentShardId)).thenReturn(parentLease);
+        when(dynamoDBLeaseRefresher.getLease(childShardId))
+                .thenReturn(createLeaseFromShard(childShard, new ExtendedSequenceNumber("342981"), LEASE_OWNER));
+
+        hierarchicalShardSyncer.checkAndCreateLeasesForChildShards(shardDetector, dynamoDBLeaseRefresher,
+                Collections.singleton(parentShardId), INITIAL_POSITION_LATEST, cleanupLeasesOfCompletedShards,
+                ignoreUnexpectedChildShards, SCOPE);
+
+        verify(dynamoDBLeaseRefresher).deleteLease(parentLease);
+        verify(dynamoDBLeaseRefresher, never()).createLeaseIfNotExists(any(Lease.class));
+        verify(dynamoDBLeaseRefresher, never()).listLeases();
+    }
+
+    @Test
+    public void testCheckAndCreateLeasesForChildShardsWithoutChildShardsSyncsAllShards() throws Exception {
+        final String completedShardId = "shardId-0";
+
+        when(shardDetector.childShards(completedShardId)).thenReturn(Collections.emptyList());
+        when(shardDetector.listShards()).thenReturn(Collections.emptyList());
+
+        hierarchicalShardSyncer.checkAndCreateLeasesForChildShards(shardDetector, dynamoDBLeaseRefresher,
+                Collections.singleton(completedShardId), INITIAL_POSITION_LATEST, cleanupLeasesOfCompletedShards,
+                ignoreUnexpectedChildShards, SCOPE);
+
+        verify(shardDetector).listShards();
+        verify(dynamoDBLeaseRefresher, never()).getLease(any(String.class));
+    }
+
     private void testCheckAndCreateLeasesForShardsIfMissing(InitialPositionInStreamExtended initialPosition)
             throws Exception {
         final String shardId0 = "shardId-0";
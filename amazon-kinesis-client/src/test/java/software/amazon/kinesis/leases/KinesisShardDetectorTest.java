@@ -18,6 +18,7 @@ package software.amazon.kinesis.leases;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.isA;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
@@ -29,6 +30,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
@@ -252,6 +254,62 @@ public class KinesisShardDetectorTest {
         verify(client).listShards(eq(ListShardsRequest.builder().streamName(STREAM_NAME).build()));
     }
 
+    @Test
+    public void testChildShardsFromCache() {
+        final String parentShardId = String.format(SHARD_ID, 1);
+        final Shard childShard = Shard.builder().shardId(String.format(SHARD_ID, 5)).parentShardId(parentShardId)
+                .build();
+        final List<Shard> shards = new ArrayList<>(createShardList());
+        shards.add(childShard);
+
+        shardDetector.cachedShardMap(shards);
+
+        assertThat(shardDetector.childShards(parentShardId), equalTo(Collections.singletonList(childShard)));
+        verify(client, never()).listShards(any(ListShardsRequest.class));
+    }
+
+    @Test
+    public void testChildShardsForceRefresh() {
+        final String parentShardId = String.format(SHARD_ID, 1);
+        final Shard childShard = Shard.builder().shardId(String.format(SHARD_ID, 5))
+                .adjacentParentShardId(parentShardId).build();
+        final List<Shard> shards = new ArrayList<>(createShardList());
+        shards.add(childShard);
+        final CompletableFuture<ListShardsResponse> future = CompletableFuture
+                .completedFuture(ListShardsResponse.builder().shards(shards).build());
+
+        shardDetector.cachedShardMap(createShardList());
+
+        when(client.listShards(any(ListShardsRequest.class))).thenReturn(future);
+
+        assertThat(shardDetector.childShards(parentShardId), equalTo(Collections.singletonList(childShard)));
+        assertThat(shardDetector.childShards(parentShardId), equalTo(Collections.singletonList(childShard)));
+        verify(client).listShards(eq(ListShardsRequest.builder().streamName(STREAM_NAME).build()));
+    }
+
+    @Test
+    public void testShardGraphIsReusedWhileShardsDontChange() {
+        final List<Shard> shards = new ArrayList<>(createShardList());
+        final CompletableFuture<ListShardsResponse> future = CompletableFuture
+                .completedFuture(ListShardsResponse.builder().shards(shards).build());
+        shards.add(Shard.builder().shardId(String.format(SHARD_ID, 5)).parentShardId(String.format(SHARD_ID, 1))
+                .build());
+        final CompletableFuture<ListShardsResponse> reshardedFuture = CompletableFuture
+                .completedFuture(ListShardsResponse.builder().shards(shards).build());
+
+        when(client.listShards(any(ListShardsRequest.class))).thenReturn(future).thenReturn(future)
+                .thenReturn(reshardedFuture);
+
+        final ShardGraph shardGraph = shardDetector.shardGraph();
+        assertThat(shardDetector.shardGraph(), sameInstance(shardGraph));
+
+        final ShardGraph reshardedShardGraph = shardDetector.shardGraph();
+        assertThat(reshardedShardGraph.shards(), equalTo(shards));
+        assertThat(reshardedShardGraph.childShardIds(String.format(SHARD_ID, 1)),
+                equalTo(Collections.singleton(String.format(SHARD_ID, 5))));
+        verify(client, times(3)).listShards(any(ListShardsRequest.class));
+    }
+
     private List<Shard> createShardList() {
         return Arrays.asList(Shard.builder().shardId(String.format(SHARD_ID, 0)).build(),
                 Shard.builder().shardId(String.format(SHARD_ID, 1)).build(),
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LeaseThroughputTrackerTest {
+    private static final String LEASE_KEY = "shardId-000000000000";
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final LeaseThroughputTracker tracker = new LeaseThroughputTracker(TimeUnit.SECONDS.toMillis(10));
+
+    @Test
+    public void testThroughputIsNullUntilRecordsAreRecorded() {
+        assertThat(tracker.throughput(LEASE_KEY, SECOND_NANOS), nullValue());
+    }
+
+    @Test
+    public void testFirstSampleIsTheRateSinceTheFirstRecords() {
+        tracker.recordProcessed(LEASE_KEY, 100, 10000, 5000L, 0L);
+        tracker.recordProcessed(LEASE_KEY, 100, 10000, null, SECOND_NANOS);
+
+        assertThat(tracker.throughput(LEASE_KEY, 2 * SECOND_NANOS), equalTo(new LeaseThroughput(10000, 100, 5000)));
+    }
+
+    @Test
+    public void testLaterSamplesAreSmoothed() {
+        tracker.recordProcessed(LEASE_KEY, 1000, 100000, 0L, 0L);
+        tracker.throughput(LEASE_KEY, 10 * SECOND_NANOS);
+
+        // An idle interval of one time constant only takes the rate 1 - 1/e of the way down
+        LeaseThroughput throughput = tracker.throughput(LEASE_KEY, 20 * SECOND_NANOS);
+        assertThat(throughput.recordsPerSecond(), equalTo(Math.round(100 * Math.exp(-1))));
+        assertThat(throughput.bytesPerSecond(), equalTo(Math.round(10000 * Math.exp(-1))));
+    }
+
+    @Test
+    public void testRemovedLeasesAreNotTracked() {
+        tracker.recordProcessed(LEASE_KEY, 100, 10000, 0L, 0L);
+        tracker.remove(LEASE_KEY);
+
+        assertThat(tracker.throughput(LEASE_KEY, SECOND_NANOS), nullValue());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.services.kinesis.model.SequenceNumberRange;
+import software.amazon.awssdk.services.kinesis.model.Shard;
+
+public class ShardGraphTest {
+    /*
+     * Shard structure (each level depicts a stream segment):
+     * 0 1 2 3 4   5   - shards till epoch 102
+     * \ / \ / |   |
+     *  6   7  4   5   - shards from epoch 103 - 205
+     *   \ /   |  / \
+     *    8    4 9  10 - shards from epoch 206 (open - no ending sequenceNumber)
+     */
+    private static final List<Shard> SHARDS = constructShardList();
+
+    private final ShardGraph shardGraph = ShardGraph.of(SHARDS);
+
+    @Test
+    public void testParentAndChildShardIds() {
+        assertThat(shardGraph.parentShardIds("shardId-8"), equalTo(new HashSet<>(Arrays.asList("shardId-6",
+                "shardId-7"))));
+        assertThat(shardGraph.parentShardIds("shardId-0"), equalTo(Collections.emptySet()));
+        assertThat(shardGraph.childShardIds("shardId-5"), equalTo(new HashSet<>(Arrays.asList("shardId-9",
+                "shardId-10"))));
+        assertThat(shardGraph.childShardIds("shardId-4"), equalTo(Collections.emptySet()));
+        assertThat(shardGraph.childShardIds("shardId-unknown"), equalTo(Collections.emptySet()));
+    }
+
+    @Test
+    public void testAncestorAndDescendantShardIds() {
+        assertThat(shardGraph.ancestorShardIds("shardId-8"), equalTo(new HashSet<>(Arrays.asList("shardId-0",
+                "shardId-1", "shardId-2", "shardId-3", "shardId-6", "shardId-7"))));
+        assertThat(new ArrayList<>(shardGraph.descendantShardIds("shardId-0")),
+                equalTo(Arrays.asList("shardId-6", "shardId-8")));
+        assertThat(shardGraph.descendantShardIds("shardId-8"), equalTo(Collections.emptySet()));
+    }
+
+    @Test
+    public void testOpenShards() {
+        assertThat(shardGraph.openShards().stream().map(Shard::shardId).collect(Collectors.toList()),
+                equalTo(Arrays.asList("shardId-4", "shardId-8", "shardId-9", "shardId-10")));
+        assertThat(shardGraph.isOpen("shardId-9"), equalTo(true));
+        assertThat(shardGraph.isOpen("shardId-6"), equalTo(false));
+        assertThat(shardGraph.isOpen("shardId-unknown"), equalTo(false));
+        assertThat(shardGraph.shard("shardId-unknown"), nullValue());
+    }
+
+    @Test
+    public void testInconsistentShardIds() {
+        final SequenceNumberRange openRange = ShardObjectHelper.newSequenceNumberRange("11", null);
+        final ShardGraph inconsistentShardGraph = ShardGraph.of(Arrays.asList(
+                ShardObjectHelper.newShard("shardId-0", null, null, openRange),
+                ShardObjectHelper.newShard("shardId-1", "shardId-0", null, openRange)));
+
+        assertThat(inconsistentShardGraph.inconsistentShardIds(), equalTo(Collections.singleton("shardId-1")));
+        assertThat(shardGraph.inconsistentShardIds(), equalTo(Collections.emptySet()));
+    }
+
+    @Test
+    public void testWithShardsOnlyRebuildsChangedShards() {
+        assertThat(shardGraph.withShards(new ArrayList<>(SHARDS)), sameInstance(shardGraph));
+
+        final List<Shard> shards = new ArrayList<>(SHARDS);
+        shards.add(ShardObjectHelper.newShard("shardId-11", "shardId-4", null,
+                ShardObjectHelper.newSequenceNumberRange("306", null)));
+        final ShardGraph updatedShardGraph = shardGraph.withShards(shards);
+
+        assertThat(updatedShardGraph.childShardIds("shardId-4"), equalTo(Collections.singleton("shardId-11")));
+        assertThat(updatedShardGraph.inconsistentShardIds(), equalTo(Collections.singleton("shardId-11")));
+        assertThat(shardGraph.childShardIds("shardId-4"), equalTo(Collections.emptySet()));
+    }
+
+    @Test
+    public void testWithShardsAppliesClosedAndTrimmedShards() {
+        // Shard 10 is closed and split into 11 and 12, shards 0 and 1 are trimmed
+        final List<Shard> shards = new ArrayList<>(SHARDS.subList(2, SHARDS.size() - 1));
+        shards.add(ShardObjectHelper.newShard("shardId-11", "shardId-10", null,
+                ShardObjectHelper.newSequenceNumberRange("306", null)));
+        shards.add(ShardObjectHelper.newShard("shardId-12", "shardId-10", null,
+                ShardObjectHelper.newSequenceNumberRange("306", null)));
+        shards.add(ShardObjectHelper.newShard("shardId-10", null, "shardId-5",
+                ShardObjectHelper.newSequenceNumberRange("206", "305")));
+        final ShardGraph updatedShardGraph = shardGraph.withShards(shards);
+        final ShardGraph rebuiltShardGraph = ShardGraph.of(shards);
+
+        assertThat(updatedShardGraph.shardMap(), equalTo(rebuiltShardGraph.shardMap()));
+        assertThat(updatedShardGraph.childShardIdsMap(), equalTo(rebuiltShardGraph.childShardIdsMap()));
+        assertThat(updatedShardGraph.childShardIds("shardId-10"),
+                equalTo(new HashSet<>(Arrays.asList("shardId-11", "shardId-12"))));
+        assertThat(updatedShardGraph.parentShardIds("shardId-6"), equalTo(Collections.emptySet()));
+        assertThat(updatedShardGraph.isOpen("shardId-10"), equalTo(false));
+        assertThat(shardGraph.childShardIds("shardId-0"), equalTo(Collections.singleton("shardId-6")));
+
+        // Listing the trimmed parents again, e.g. after an inconsistent listing, indexes their children again
+        assertThat(updatedShardGraph.withShards(SHARDS).childShardIdsMap(), equalTo(shardGraph.childShardIdsMap()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testChildShardIdsAreUnmodifiable() {
+        shardGraph.childShardIds("shardId-5").add("shardId-11");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testChildShardIdsMapIsUnmodifiable() {
+        shardGraph.childShardIdsMap().get("shardId-5").clear();
+    }
+
+    private static List<Shard> constructShardList() {
+        final SequenceNumberRange range0 = ShardObjectHelper.newSequenceNumberRange("11", "102");
+        final SequenceNumberRange range1 = ShardObjectHelper.newSequenceNumberRange("11", null);
+        final SequenceNumberRange range2 = ShardObjectHelper.newSequenceNumberRange("11", "205");
+        final SequenceNumberRange range3 = ShardObjectHelper.newSequenceNumberRange("103", "205");
+        final SequenceNumberRange range4 = ShardObjectHelper.newSequenceNumberRange("206", null);
+
+        return Arrays.asList(ShardObjectHelper.newShard("shardId-0", null, null, range0),
+                ShardObjectHelper.newShard("shardId-1", null, null, range0),
+                ShardObjectHelper.newShard("shardId-2", null, null, range0),
+                ShardObjectHelper.newShard("shardId-3", null, null, range0),
+                ShardObjectHelper.newShard("shardId-4", null, null, range1),
+                ShardObjectHelper.newShard("shardId-5", null, null, range2),
+                ShardObjectHelper.newShard("shardId-6", "shardId-0", "shardId-1", range3),
+                ShardObjectHelper.newShard("shardId-7", "shardId-2", "shardId-3", range3),
+                ShardObjectHelper.newShard("shardId-8", "shardId-6", "shardId-7", range4),
+                ShardObjectHelper.newShard("shardId-9", "shardId-5", null, range4),
+                ShardObjectHelper.newShard("shardId-10", null, "shardId-5", range4));
+    }
+}
@@ -68,6 +68,27 @@ public class ShardInfoTest {
         assertFalse("Equal should return false for null concurrency token", diffShardInfo.equals(testShardInfo));
     }
 
+    @Test
+    public void testShardInfoEqualsForStreamName() {
+        ShardInfo streamShardInfo = new ShardInfo("stream", SHARD_ID, CONCURRENCY_TOKEN, parentShardIds,
+                ExtendedSequenceNumber.LATEST);
+        assertFalse("Equal should return false with different stream name", streamShardInfo.equals(testShardInfo));
+        assertTrue("Equal should return true with the same stream name", streamShardInfo.equals(new ShardInfo(
+                "stream", SHARD_ID, CONCURRENCY_TOKEN, parentShardIds, ExtendedSequenceNumber.LATEST)));
+    }
+
+    @Test
+    public void testLeaseKey() {
+        assertThat(testShardInfo.leaseKey(), equalTo(SHARD_ID));
+        ShardInfo streamShardInfo = new ShardInfo("stream", SHARD_ID, CONCURRENCY_TOKEN, parentShardIds,
+                ExtendedSequenceNumber.LATEST);
+        assertThat(streamShardInfo.leaseKey(), equalTo("stream:" + SHARD_ID));
+        assertThat(StreamLeaseKey.streamName(streamShardInfo.leaseKey()), equalTo("stream"));
+        assertThat(StreamLeaseKey.shardId(streamShardInfo.leaseKey()), equalTo(SHARD_ID));
+        assertThat(StreamLeaseKey.streamName(SHARD_ID), equalTo(null));
+        assertThat(StreamLeaseKey.shardId(SHARD_ID), equalTo(SHARD_ID));
+    }
+
     @Test
     public void testPacboyShardInfoEqualsForDifferentlyOrderedParentIds() {
         List<String> differentlyOrderedParentShardIds = new ArrayList<>();
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StreamLeaseRefresherTest {
+    private static final String STREAM_NAME = "stream";
+    private static final String SHARD_ID = "shardId-000000000001";
+    private static final String PARENT_SHARD_ID = "shardId-000000000000";
+
+    @Mock
+    private LeaseRefresher leaseRefresher;
+
+    private StreamLeaseRefresher streamLeaseRefresher;
+
+    @Before
+    public void setup() {
+        streamLeaseRefresher = new StreamLeaseRefresher(leaseRefresher, STREAM_NAME);
+    }
+
+    @Test
+    public void testListLeasesOfTheStreamOnly() throws Exception {
+        when(leaseRefresher.listLeases()).thenReturn(Arrays.asList(
+                newLease(StreamLeaseKey.leaseKey(STREAM_NAME, SHARD_ID),
+                        StreamLeaseKey.leaseKey(STREAM_NAME, PARENT_SHARD_ID)),
+                newLease(StreamLeaseKey.leaseKey("otherStream", SHARD_ID)),
+                newLease(SHARD_ID)));
+
+        List<Lease> leases = streamLeaseRefresher.listLeases();
+
+        assertThat(leases.size(), equalTo(1));
+        assertThat(leases.get(0).leaseKey(), equalTo(SHARD_ID));
+        assertThat(leases.get(0).parentShardIds(), equalTo(Collections.singleton(PARENT_SHARD_ID)));
+    }
+
+    @Test
+    public void testCreateLeaseQualifiesKeys() throws Exception {
+        when(leaseRefresher.createLeaseIfNotExists(any(Lease.class))).thenReturn(true);
+
+        assertTrue(streamLeaseRefresher.createLeaseIfNotExists(newLease(SHARD_ID, PARENT_SHARD_ID)));
+
+        ArgumentCaptor<Lease> lease = ArgumentCaptor.forClass(Lease.class);
+        verify(leaseRefresher).createLeaseIfNotExists(lease.capture());
+        assertThat(lease.getValue().leaseKey(), equalTo(StreamLeaseKey.leaseKey(STREAM_NAME, SHARD_ID)));
+        assertThat(lease.getValue().parentShardIds(),
+                equalTo(Collections.singleton(StreamLeaseKey.leaseKey(STREAM_NAME, PARENT_SHARD_ID))));
+    }
+
+    @Test
+    public void testGetLeaseByShardId() throws Exception {
+        when(leaseRefresher.getLease(StreamLeaseKey.leaseKey(STREAM_NAME, SHARD_ID)))
+                .thenReturn(newLease(StreamLeaseKey.leaseKey(STREAM_NAME, SHARD_ID)));
+
+        assertThat(streamLeaseRefresher.getLease(SHARD_ID).leaseKey(), equalTo(SHARD_ID));
+        assertThat(streamLeaseRefresher.getLease(PARENT_SHARD_ID), nullValue());
+    }
+
+    @Test
+    public void testTakeLeaseUpdatesThePassedInLease() throws Exception {
+        when(leaseRefresher.takeLease(any(Lease.class), eq("owner"))).thenAnswer(invocation -> {
+            Lease lease = (Lease) invocation.getArguments()[0];
+            lease.leaseCounter(lease.leaseCounter() + 1);
+            lease.leaseOwner("owner");
+            return true;
+        });
+        Lease lease = newLease(SHARD_ID);
+
+        assertTrue(streamLeaseRefresher.takeLease(lease, "owner"));
+
+        assertThat(lease.leaseKey(), equalTo(SHARD_ID));
+        assertThat(lease.leaseOwner(), equalTo("owner"));
+        assertThat(lease.leaseCounter(), equalTo(1L));
+    }
+
+    @Test
+    public void testIsLeaseTableEmptyForTheStream() throws Exception {
+        when(leaseRefresher.listLeases()).thenReturn(
+                Collections.singletonList(newLease(StreamLeaseKey.leaseKey("otherStream", SHARD_ID))));
+
+        assertTrue(streamLeaseRefresher.isLeaseTableEmpty());
+    }
+
+    @Test
+    public void testStreamsListTheirLeasesFromASharedScan() throws Exception {
+        SharedLeaseTableScan leaseTableScan = new SharedLeaseTableScan(TimeUnit.MINUTES.toMillis(1));
+        StreamLeaseRefresher streamView = new StreamLeaseRefresher(leaseRefresher, STREAM_NAME, leaseTableScan);
+        StreamLeaseRefresher otherStreamView = new StreamLeaseRefresher(leaseRefresher, "otherStream",
+                leaseTableScan);
+        when(leaseRefresher.listLeases()).thenReturn(Arrays.asList(newLease(StreamLeaseKey.leaseKey(STREAM_NAME,
+                SHARD_ID)), newLease(StreamLeaseKey.leaseKey("otherStream", SHARD_ID))));
+
+        assertThat(streamView.listLeases().size(), equalTo(1));
+        assertThat(otherStreamView.listLeases().size(), equalTo(1));
+        assertFalse(otherStreamView.isLeaseTableEmpty());
+
+        verify(leaseRefresher, times(1)).listLeases();
+    }
+
+    @Test
+    public void testStreamRescansAfterWritingLeases() throws Exception {
+        SharedLeaseTableScan leaseTableScan = new SharedLeaseTableScan(TimeUnit.MINUTES.toMillis(1));
+        StreamLeaseRefresher streamView = new StreamLeaseRefresher(leaseRefresher, STREAM_NAME, leaseTableScan);
+        StreamLeaseRefresher otherStreamView = new StreamLeaseRefresher(leaseRefresher, "otherStream",
+                leaseTableScan);
+        when(leaseRefresher.listLeases()).thenReturn(Collections.emptyList()).thenReturn(
+                Collections.singletonList(newLease(StreamLeaseKey.leaseKey(STREAM_NAME, SHARD_ID))));
+
+        assertTrue(streamView.isLeaseTableEmpty());
+        streamView.createLeaseIfNotExists(newLease(SHARD_ID));
+        // The other stream didn't write, so it keeps listing from the last scan
+        assertTrue(otherStreamView.isLeaseTableEmpty());
+        assertThat(streamView.listLeases().size(), equalTo(1));
+
+        verify(leaseRefresher, times(2)).listLeases();
+    }
+
+    private static Lease newLease(final String leaseKey, final String... parentLeaseKeys) {
+        return new LeaseBuilder().leaseKey(leaseKey).checkpoint(ExtendedSequenceNumber.TRIM_HORIZON)
+                .parentShardIds(new HashSet<>(Arrays.asList(parentLeaseKeys))).build();
+    }
+}
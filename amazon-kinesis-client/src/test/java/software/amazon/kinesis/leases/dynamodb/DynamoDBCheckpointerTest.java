@@ -14,15 +14,31 @@
  */
 package software.amazon.kinesis.leases.dynamodb;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -43,6 +59,8 @@ public class DynamoDBCheckpointerTest {
     private static final ExtendedSequenceNumber TEST_CHKPT = new ExtendedSequenceNumber("string-test");
     private static final UUID TEST_UUID = UUID.randomUUID();
     private static final String OPERATION = "TestOperation";
+    private static final String OTHER_SHARD_ID = "shardId-other";
+    private static final long BATCH_WINDOW_MILLIS = 50L;
 
     @Mock
     private LeaseRefresher leaseRefresher;
@@ -71,6 +89,90 @@ public class DynamoDBCheckpointerTest {
         }
     }
 
+    @Test
+    public void testAsyncCheckpointIsSavedInTheBackground() throws Exception {
+        final Lease lease = newLease(SHARD_ID);
+        when(leaseCoordinator.getCurrentlyHeldLease(eq(SHARD_ID))).thenReturn(lease);
+        when(leaseCoordinator.updateLease(eq(lease), eq(TEST_UUID), eq(OPERATION), eq(SHARD_ID))).thenReturn(true);
+
+        dynamoDBCheckpointer.setCheckpointAsync(SHARD_ID, TEST_CHKPT, TEST_UUID.toString()).get(1, TimeUnit.SECONDS);
+
+        assertThat(lease.checkpoint(), equalTo(TEST_CHKPT));
+        verify(leaseCoordinator).updateLease(eq(lease), eq(TEST_UUID), eq(OPERATION), eq(SHARD_ID));
+    }
+
+    @Test
+    public void testBatchedCheckpointsAreCoalescedIntoOneTransaction() throws Exception {
+        final DynamoDBCheckpointer batchingCheckpointer = new DynamoDBCheckpointer(leaseCoordinator, leaseRefresher,
+                BATCH_WINDOW_MILLIS);
+        batchingCheckpointer.operation(OPERATION);
+        when(leaseCoordinator.getCurrentlyHeldLease(anyString())).thenAnswer(
+                invocation -> newLease((String) invocation.getArguments()[0]));
+        when(leaseCoordinator.updateLeases(anyCollectionOf(Lease.class), eq(OPERATION))).thenReturn(true);
+
+        final CompletableFuture<Void> superseded = batchingCheckpointer.setCheckpointAsync(SHARD_ID,
+                new ExtendedSequenceNumber("1"), TEST_UUID.toString());
+        final CompletableFuture<Void> latest = batchingCheckpointer.setCheckpointAsync(SHARD_ID,
+                new ExtendedSequenceNumber("2"), TEST_UUID.toString());
+        batchingCheckpointer.setCheckpoint(OTHER_SHARD_ID, TEST_CHKPT, TEST_UUID.toString());
+
+        assertTrue(superseded.isDone() && latest.isDone());
+        assertFalse(superseded.isCompletedExceptionally() || latest.isCompletedExceptionally());
+        final ArgumentCaptor<Collection> leasesCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(leaseCoordinator).updateLeases(leasesCaptor.capture(), eq(OPERATION));
+        final Map<String, ExtendedSequenceNumber> checkpoints = new HashMap<>();
+        for (Object lease : leasesCaptor.getValue()) {
+            checkpoints.put(((Lease) lease).leaseKey(), ((Lease) lease).checkpoint());
+            assertThat(((Lease) lease).concurrencyToken(), equalTo(TEST_UUID));
+        }
+        assertThat(checkpoints.size(), equalTo(2));
+        assertThat(checkpoints.get(SHARD_ID), equalTo(new ExtendedSequenceNumber("2")));
+        assertThat(checkpoints.get(OTHER_SHARD_ID), equalTo(TEST_CHKPT));
+        verify(leaseCoordinator, never()).updateLease(any(Lease.class), any(UUID.class), anyString(), anyString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBatchedCheckpointsAreRejectedWithoutTransactionalUpdates() {
+        final DynamoDBLeaseRefresher dynamoDBLeaseRefresher = mock(DynamoDBLeaseRefresher.class);
+        when(dynamoDBLeaseRefresher.supportsTransactionalUpdates()).thenReturn(false);
+
+        new DynamoDBCheckpointer(leaseCoordinator, dynamoDBLeaseRefresher, BATCH_WINDOW_MILLIS);
+    }
+
+    @Test
+    public void testBatchedCheckpointsAreSavedOneByOneWhenTransactionFails() throws Exception {
+        final DynamoDBCheckpointer batchingCheckpointer = new DynamoDBCheckpointer(leaseCoordinator, leaseRefresher,
+                BATCH_WINDOW_MILLIS);
+        batchingCheckpointer.operation(OPERATION);
+        when(leaseCoordinator.getCurrentlyHeldLease(anyString())).thenAnswer(
+                invocation -> newLease((String) invocation.getArguments()[0]));
+        when(leaseCoordinator.updateLeases(anyCollectionOf(Lease.class), eq(OPERATION))).thenReturn(false);
+        when(leaseCoordinator.updateLease(any(Lease.class), eq(TEST_UUID), eq(OPERATION), eq(SHARD_ID)))
+                .thenReturn(true);
+        when(leaseCoordinator.updateLease(any(Lease.class), eq(TEST_UUID), eq(OPERATION), eq(OTHER_SHARD_ID)))
+                .thenReturn(false);
+
+        final CompletableFuture<Void> saved = batchingCheckpointer.setCheckpointAsync(SHARD_ID, TEST_CHKPT,
+                TEST_UUID.toString());
+        try {
+            batchingCheckpointer.setCheckpoint(OTHER_SHARD_ID, TEST_CHKPT, TEST_UUID.toString());
+            fail("Expected the checkpoint of a lost lease to fail");
+        } catch (ShutdownException e) {
+            // Expected
+        }
+
+        saved.get(1, TimeUnit.SECONDS);
+        verify(leaseCoordinator).updateLeases(anyCollectionOf(Lease.class), eq(OPERATION));
+        verify(leaseCoordinator).updateLease(any(Lease.class), eq(TEST_UUID), eq(OPERATION), eq(SHARD_ID));
+        verify(leaseCoordinator).updateLease(any(Lease.class), eq(TEST_UUID), eq(OPERATION), eq(OTHER_SHARD_ID));
+    }
+
+    private static Lease newLease(final String leaseKey) {
+        final Lease lease = new Lease();
+        lease.leaseKey(leaseKey);
+        return lease;
+    }
+
 //    @Test(expected = DependencyException.class)
 //    public void testWaitLeaseTableTimeout()
 //        throws DependencyException, ProvisionedThroughputException, IllegalStateException {
@@ -15,18 +15,24 @@
 package software.amazon.kinesis.leases.dynamodb;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -54,11 +60,16 @@ import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
 import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 import software.amazon.kinesis.leases.Lease;
 import software.amazon.kinesis.leases.LeaseSerializer;
 import software.amazon.kinesis.leases.exceptions.DependencyException;
+import software.amazon.kinesis.metrics.NullMetricsFactory;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DynamoDBLeaseRefresherTest {
@@ -87,6 +98,8 @@ public class DynamoDBLeaseRefresherTest {
     @Mock
     private CompletableFuture<CreateTableResponse> mockCreateTableFuture;
     @Mock
+    private CompletableFuture<TransactWriteItemsResponse> mockTransactWriteItemsFuture;
+    @Mock
     private Lease lease;
 
     @Rule
@@ -101,6 +114,7 @@ public class DynamoDBLeaseRefresherTest {
         leaseRefresher = new DynamoDBLeaseRefresher(TABLE_NAME, dynamoDbClient, leaseSerializer, CONSISTENT_READS,
                 tableCreatorCallback);
         serializedLease = new HashMap<>();
+        when(leaseSerializer.supportsTransactionalUpdates()).thenReturn(true);
 
     }
 
@@ -134,6 +148,52 @@ public class DynamoDBLeaseRefresherTest {
 
     }
 
+    @Test
+    public void testListLeasesScansSegmentsInParallel() throws Exception {
+        leaseRefresher = new DynamoDBLeaseRefresher(TABLE_NAME, dynamoDbClient, leaseSerializer, CONSISTENT_READS,
+                tableCreatorCallback, Duration.ofSeconds(10), 2, new NullMetricsFactory());
+
+        Map<String, AttributeValue> lastEvaluatedKey = new HashMap<>();
+        lastEvaluatedKey.put("Test", AttributeValue.builder().s("test").build());
+        ScanRequest firstSegment = ScanRequest.builder().tableName(TABLE_NAME).segment(0).totalSegments(2).build();
+        ScanRequest secondSegment = ScanRequest.builder().tableName(TABLE_NAME).segment(1).totalSegments(2).build();
+        when(dynamoDbClient.scan(firstSegment)).thenReturn(CompletableFuture.completedFuture(
+                ScanResponse.builder().items(serializedLease).lastEvaluatedKey(lastEvaluatedKey).build()));
+        when(dynamoDbClient.scan(firstSegment.toBuilder().exclusiveStartKey(lastEvaluatedKey).build()))
+                .thenReturn(CompletableFuture.completedFuture(ScanResponse.builder().items(serializedLease).build()));
+        when(dynamoDbClient.scan(secondSegment))
+                .thenReturn(CompletableFuture.completedFuture(ScanResponse.builder().items(serializedLease).build()));
+        when(leaseSerializer.fromDynamoRecord(any())).thenReturn(lease);
+
+        assertThat(leaseRefresher.listLeases().size(), equalTo(3));
+        verify(dynamoDbClient, times(3)).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    public void testListLeasesDoesNotWaitForSlowSegment() throws Exception {
+        leaseRefresher = new DynamoDBLeaseRefresher(TABLE_NAME, dynamoDbClient, leaseSerializer, CONSISTENT_READS,
+                tableCreatorCallback, Duration.ofSeconds(10), 2, new NullMetricsFactory());
+
+        Map<String, AttributeValue> lastEvaluatedKey = new HashMap<>();
+        lastEvaluatedKey.put("Test", AttributeValue.builder().s("test").build());
+        ScanRequest firstSegment = ScanRequest.builder().tableName(TABLE_NAME).segment(0).totalSegments(2).build();
+        ScanRequest secondSegment = ScanRequest.builder().tableName(TABLE_NAME).segment(1).totalSegments(2).build();
+        // The first segment only answers once the second one has scanned its last page
+        CompletableFuture<ScanResponse> slowSegmentFuture = new CompletableFuture<>();
+        when(dynamoDbClient.scan(firstSegment)).thenReturn(slowSegmentFuture);
+        when(dynamoDbClient.scan(secondSegment)).thenReturn(CompletableFuture.completedFuture(
+                ScanResponse.builder().items(serializedLease).lastEvaluatedKey(lastEvaluatedKey).build()));
+        when(dynamoDbClient.scan(secondSegment.toBuilder().exclusiveStartKey(lastEvaluatedKey).build()))
+                .thenAnswer(invocation -> {
+                    slowSegmentFuture.complete(ScanResponse.builder().items(serializedLease).build());
+                    return CompletableFuture.completedFuture(ScanResponse.builder().items(serializedLease).build());
+                });
+        when(leaseSerializer.fromDynamoRecord(any())).thenReturn(lease);
+
+        assertThat(leaseRefresher.listLeases().size(), equalTo(3));
+        verify(dynamoDbClient, times(3)).scan(any(ScanRequest.class));
+    }
+
     @Test
     public void testCreateLeaseIfNotExistsTimesOut() throws Exception {
         TimeoutException te = setRuleForDependencyTimeout();
@@ -165,6 +225,51 @@ public class DynamoDBLeaseRefresherTest {
         verifyCancel(mockUpdateFuture, () ->leaseRefresher.renewLease(lease));
     }
 
+    @Test
+    public void testRenewLeasesTimesOut() throws Exception {
+        setupTransactWriteItemsTest();
+        when(mockTransactWriteItemsFuture.get(anyLong(), any())).thenThrow(setRuleForDependencyTimeout());
+
+        verifyCancel(mockTransactWriteItemsFuture, () -> leaseRefresher.renewLeases(Arrays.asList(lease, lease)));
+    }
+
+    @Test
+    public void testRenewLeasesReturnsFalseWhenTransactionIsCanceled() throws Exception {
+        setupTransactWriteItemsTest();
+        when(mockTransactWriteItemsFuture.get(anyLong(), any())).thenThrow(new ExecutionException(
+                TransactionCanceledException.builder().message("Transaction cancelled").build()));
+
+        assertFalse(leaseRefresher.renewLeases(Arrays.asList(lease, lease)));
+        verify(lease, never()).leaseCounter(anyLong());
+    }
+
+    @Test
+    public void testRenewLeasesReturnsFalseWithoutTransactionalUpdates() throws Exception {
+        when(leaseSerializer.supportsTransactionalUpdates()).thenReturn(false);
+
+        assertFalse(leaseRefresher.renewLeases(Arrays.asList(lease, lease)));
+        verify(dynamoDbClient, never()).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    @Test
+    public void testUpdateLeasesReturnsFalseWhenTransactionIsCanceled() throws Exception {
+        setupTransactWriteItemsTest();
+        when(mockTransactWriteItemsFuture.get(anyLong(), any())).thenThrow(new ExecutionException(
+                TransactionCanceledException.builder().message("Transaction cancelled").build()));
+
+        assertFalse(leaseRefresher.updateLeases(Arrays.asList(lease, lease)));
+        verify(leaseSerializer, times(2)).getDynamoUpdateLeaseTransactionUpdate(lease);
+        verify(lease, never()).leaseCounter(anyLong());
+    }
+
+    @Test
+    public void testUpdateLeasesReturnsFalseWithoutTransactionalUpdates() throws Exception {
+        when(leaseSerializer.supportsTransactionalUpdates()).thenReturn(false);
+
+        assertFalse(leaseRefresher.updateLeases(Arrays.asList(lease, lease)));
+        verify(dynamoDbClient, never()).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
     @Test
     public void testTakeLeaseTimesOut() throws Exception {
         setupUpdateItemTest();
@@ -257,6 +362,15 @@ public class DynamoDBLeaseRefresherTest {
         when(mockUpdateFuture.get(anyLong(), any())).thenThrow(te);
     }
 
+    private void setupTransactWriteItemsTest() {
+        when(leaseSerializer.getDynamoLeaseCounterTransactionUpdate(any(Lease.class)))
+                .thenReturn(Update.builder().key(Collections.emptyMap()).build());
+        when(leaseSerializer.getDynamoUpdateLeaseTransactionUpdate(any(Lease.class)))
+                .thenReturn(Update.builder().key(Collections.emptyMap()).build());
+        when(dynamoDbClient.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenReturn(mockTransactWriteItemsFuture);
+    }
+
     private TimeoutException setRuleForDependencyTimeout() {
         TimeoutException te = new TimeoutException("Timeout");
         expectedException.expect(DependencyException.class);
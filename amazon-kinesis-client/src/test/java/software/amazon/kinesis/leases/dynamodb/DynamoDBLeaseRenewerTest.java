@@ -18,8 +18,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -43,6 +48,7 @@ import software.amazon.kinesis.leases.exceptions.DependencyException;
 import software.amazon.kinesis.leases.exceptions.InvalidStateException;
 import software.amazon.kinesis.leases.exceptions.ProvisionedThroughputException;
 import software.amazon.kinesis.metrics.NullMetricsFactory;
+import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DynamoDBLeaseRenewerTest {
@@ -54,6 +60,12 @@ public class DynamoDBLeaseRenewerTest {
     @Mock
     private LeaseRefresher leaseRefresher;
 
+    /**
+     * A refresher that doesn't override the transactional methods of LeaseRefresher.
+     */
+    private abstract static class NonTransactionalLeaseRefresher implements LeaseRefresher {
+    }
+
     private static Lease newLease(String leaseKey) {
         return new Lease(leaseKey, "LeaseOwner", 0L, UUID.randomUUID(), System.nanoTime(), null, null, null, new HashSet<>());
     }
@@ -117,4 +129,124 @@ public class DynamoDBLeaseRenewerTest {
         // Clear the list to avoid triggering expectation mismatch in after().
         leasesToRenew.clear();
     }
+
+    @Test
+    public void testLeaseRenewerRenewsBatchInTransaction()
+        throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        renewer = new DynamoDBLeaseRenewer(leaseRefresher, workerIdentifier, leaseDurationMillis,
+                Executors.newCachedThreadPool(), new NullMetricsFactory(), 2, null);
+        Lease lease1 = newLease("1");
+        Lease lease2 = newLease("2");
+        renewer.addLeasesToRenew(Arrays.asList(lease1, lease2));
+
+        doReturn(true).when(leaseRefresher).renewLeases(anyCollectionOf(Lease.class));
+
+        renewer.renewLeases();
+
+        assertEquals(2, renewer.getCurrentlyHeldLeases().size());
+        verify(leaseRefresher, times(1)).renewLeases(anyCollectionOf(Lease.class));
+        verify(leaseRefresher, never()).renewLease(any(Lease.class));
+    }
+
+    @Test
+    public void testLeaseRenewerRenewsLeasesOneByOneWhenTransactionFails()
+        throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        renewer = new DynamoDBLeaseRenewer(leaseRefresher, workerIdentifier, leaseDurationMillis,
+                Executors.newCachedThreadPool(), new NullMetricsFactory(), 2, null);
+        Lease lease1 = newLease("1");
+        Lease lease2 = newLease("2");
+        leasesToRenew = Arrays.asList(lease1, lease2);
+        renewer.addLeasesToRenew(leasesToRenew);
+
+        doReturn(false).when(leaseRefresher).renewLeases(anyCollectionOf(Lease.class));
+        doReturn(true).when(leaseRefresher).renewLease(lease1);
+        doReturn(false).when(leaseRefresher).renewLease(lease2);
+
+        renewer.renewLeases();
+
+        assertEquals(1, renewer.getCurrentlyHeldLeases().size());
+        assertNull(renewer.getCurrentlyHeldLease("2"));
+    }
+
+    @Test
+    public void testLeaseRenewerRenewsLeasesOneByOneWithoutTransactionSupport()
+        throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        leaseRefresher = mock(NonTransactionalLeaseRefresher.class);
+        renewer = new DynamoDBLeaseRenewer(leaseRefresher, workerIdentifier, leaseDurationMillis,
+                Executors.newCachedThreadPool(), new NullMetricsFactory(), 2, null);
+        Lease lease1 = newLease("1");
+        Lease lease2 = newLease("2");
+        leasesToRenew = Arrays.asList(lease1, lease2);
+        renewer.addLeasesToRenew(leasesToRenew);
+
+        doCallRealMethod().when(leaseRefresher).renewLeases(anyCollectionOf(Lease.class));
+        doReturn(true).when(leaseRefresher).renewLease(lease1);
+        doReturn(true).when(leaseRefresher).renewLease(lease2);
+
+        renewer.renewLeases();
+
+        assertEquals(2, renewer.getCurrentlyHeldLeases().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLeaseRenewerRejectsBatchesWithoutTransactionalUpdates() {
+        DynamoDBLeaseRefresher dynamoDBLeaseRefresher = mock(DynamoDBLeaseRefresher.class);
+        doReturn(false).when(dynamoDBLeaseRefresher).supportsTransactionalUpdates();
+
+        new DynamoDBLeaseRenewer(dynamoDBLeaseRefresher, workerIdentifier, leaseDurationMillis,
+                Executors.newCachedThreadPool(), new NullMetricsFactory(), 2, null);
+    }
+
+    @Test
+    public void testUpdateLeasesInTransaction()
+        throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        renewer.addLeasesToRenew(Arrays.asList(newLease("1"), newLease("2")));
+        Lease update1 = renewer.getCurrentlyHeldLease("1");
+        Lease update2 = renewer.getCurrentlyHeldLease("2");
+        update1.checkpoint(new ExtendedSequenceNumber("123"));
+        update1.ownerSwitchesSinceCheckpoint(0L);
+        update2.checkpoint(new ExtendedSequenceNumber("456"));
+        update2.ownerSwitchesSinceCheckpoint(0L);
+
+        doReturn(true).when(leaseRefresher).updateLeases(anyCollectionOf(Lease.class));
+
+        assertTrue(renewer.updateLeases(Arrays.asList(update1, update2), "TestOperation"));
+        assertEquals(new ExtendedSequenceNumber("123"), renewer.getCurrentlyHeldLease("1").checkpoint());
+        assertEquals(new ExtendedSequenceNumber("456"), renewer.getCurrentlyHeldLease("2").checkpoint());
+        verify(leaseRefresher, times(1)).updateLeases(anyCollectionOf(Lease.class));
+        verify(leaseRefresher, never()).updateLease(any(Lease.class));
+    }
+
+    @Test
+    public void testUpdateLeasesFailsWithoutTransactionSupport()
+        throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        leaseRefresher = mock(NonTransactionalLeaseRefresher.class);
+        renewer = new DynamoDBLeaseRenewer(leaseRefresher, workerIdentifier, leaseDurationMillis,
+                Executors.newCachedThreadPool(), new NullMetricsFactory());
+        renewer.addLeasesToRenew(Arrays.asList(newLease("1"), newLease("2")));
+        Lease update1 = renewer.getCurrentlyHeldLease("1");
+        Lease update2 = renewer.getCurrentlyHeldLease("2");
+        update1.checkpoint(new ExtendedSequenceNumber("123"));
+        update1.ownerSwitchesSinceCheckpoint(0L);
+        update2.checkpoint(new ExtendedSequenceNumber("456"));
+        update2.ownerSwitchesSinceCheckpoint(0L);
+
+        doCallRealMethod().when(leaseRefresher).updateLeases(anyCollectionOf(Lease.class));
+
+        // The caller saves the leases one by one instead
+        assertFalse(renewer.updateLeases(Arrays.asList(update1, update2), "TestOperation"));
+        assertEquals(2, renewer.getCurrentlyHeldLeases().size());
+    }
+
+    @Test
+    public void testUpdateLeasesFailsWhenConcurrencyTokenDoesNotMatch()
+        throws DependencyException, InvalidStateException, ProvisionedThroughputException {
+        renewer.addLeasesToRenew(Arrays.asList(newLease("1"), newLease("2")));
+        Lease update1 = renewer.getCurrentlyHeldLease("1");
+        Lease update2 = renewer.getCurrentlyHeldLease("2");
+        update2.concurrencyToken(UUID.randomUUID());
+
+        assertFalse(renewer.updateLeases(Arrays.asList(update1, update2), "TestOperation"));
+        verify(leaseRefresher, never()).updateLeases(anyCollectionOf(Lease.class));
+    }
 }
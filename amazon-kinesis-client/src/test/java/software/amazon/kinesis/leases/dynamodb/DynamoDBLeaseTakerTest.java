@@ -14,8 +14,27 @@
  */
 package software.amazon.kinesis.leases.dynamodb;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import junit.framework.Assert;
 
@@ -24,7 +43,16 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import software.amazon.kinesis.leases.Lease;
+import software.amazon.kinesis.leases.LeaseChange;
+import software.amazon.kinesis.leases.LeaseChangeSource;
+import software.amazon.kinesis.leases.LeaseRefresher;
+import software.amazon.kinesis.leases.LeaseThroughput;
+import software.amazon.kinesis.leases.StreamLeaseKey;
+import software.amazon.kinesis.leases.ThroughputLeaseWeigher;
 import software.amazon.kinesis.leases.dynamodb.DynamoDBLeaseTaker;
+import software.amazon.kinesis.leases.exceptions.DependencyException;
+import software.amazon.kinesis.metrics.NullMetricsFactory;
 
 /**
  *
@@ -73,4 +101,177 @@ public class DynamoDBLeaseTakerTest {
         Assert.assertEquals("foo, bar", DynamoDBLeaseTaker.stringJoin(strings, ", "));
     }
 
+    @Test
+    public final void testTakeLeasesAppliesChangesInsteadOfScanning() throws Exception {
+        LeaseRefresher leaseRefresher = mock(LeaseRefresher.class);
+        LeaseChangeSource leaseChangeSource = mock(LeaseChangeSource.class);
+        DynamoDBLeaseTaker leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, "worker", 10000L,
+                new NullMetricsFactory()).withLeaseChangeSource(leaseChangeSource);
+
+        when(leaseRefresher.listLeases()).thenReturn(Arrays.asList(newLease("1", 1L), newLease("2", 1L)));
+        when(leaseChangeSource.getChanges())
+                .thenReturn(Arrays.asList(LeaseChange.updated(newLease("1", 2L)), LeaseChange.deleted("2"),
+                        LeaseChange.updated(newLease("3", 1L))));
+
+        leaseTaker.takeLeases(() -> 1L);
+        leaseTaker.takeLeases(() -> 2L);
+
+        verify(leaseChangeSource, times(1)).start();
+        verify(leaseRefresher, times(1)).listLeases();
+        Map<String, Lease> allLeases = leaseTaker.allLeases().stream()
+                .collect(Collectors.toMap(Lease::leaseKey, Function.identity()));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("1", "3")), allLeases.keySet());
+        Assert.assertEquals(Long.valueOf(2L), allLeases.get("1").leaseCounter());
+        Assert.assertEquals(Long.valueOf(2L), allLeases.get("1").lastCounterIncrementNanos());
+    }
+
+    @Test
+    public final void testTakeLeasesScansWhenChangeSourceFails() throws Exception {
+        LeaseRefresher leaseRefresher = mock(LeaseRefresher.class);
+        LeaseChangeSource leaseChangeSource = mock(LeaseChangeSource.class);
+        DynamoDBLeaseTaker leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, "worker", 10000L,
+                new NullMetricsFactory()).withLeaseChangeSource(leaseChangeSource);
+
+        when(leaseRefresher.listLeases()).thenReturn(Collections.singletonList(newLease("1", 1L)))
+                .thenReturn(Collections.emptyList());
+        when(leaseChangeSource.getChanges()).thenThrow(new DependencyException("Changes were missed", null));
+
+        leaseTaker.takeLeases(() -> 1L);
+        leaseTaker.takeLeases(() -> 2L);
+
+        verify(leaseChangeSource, times(2)).start();
+        verify(leaseRefresher, times(2)).listLeases();
+        Assert.assertTrue(leaseTaker.allLeases().isEmpty());
+    }
+
+    @Test
+    public final void testTakeLeasesScansWhenFullScanIsDue() throws Exception {
+        LeaseRefresher leaseRefresher = mock(LeaseRefresher.class);
+        LeaseChangeSource leaseChangeSource = mock(LeaseChangeSource.class);
+        DynamoDBLeaseTaker leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, "worker", 10000L,
+                new NullMetricsFactory()).withLeaseChangeSource(leaseChangeSource)
+                .withFullLeaseTableScanIntervalMillis(1L);
+
+        when(leaseRefresher.listLeases()).thenReturn(Collections.emptyList());
+
+        leaseTaker.takeLeases(() -> 0L);
+        leaseTaker.takeLeases(() -> 1000000L);
+
+        verify(leaseRefresher, times(2)).listLeases();
+    }
+
+    @Test(timeout = 10000L)
+    public final void testTakeLeasesConcurrently() throws Exception {
+        LeaseRefresher leaseRefresher = mock(LeaseRefresher.class);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        DynamoDBLeaseTaker leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, "worker", 10000L,
+                new NullMetricsFactory()).withConcurrentLeaseTakes(executorService, 4);
+        List<Lease> leases = Arrays.asList(newUnownedLease("1", 1L), newUnownedLease("2", 1L), newUnownedLease("3", 1L),
+                newUnownedLease("4", 1L));
+        when(leaseRefresher.listLeases()).thenReturn(leases);
+
+        // Every take waits for the others, so the leases are only taken if all of them are in flight at once
+        CyclicBarrier barrier = new CyclicBarrier(leases.size());
+        when(leaseRefresher.takeLease(any(Lease.class), eq("worker"))).thenAnswer(invocation -> {
+            barrier.await(5, TimeUnit.SECONDS);
+            return !"4".equals(((Lease) invocation.getArguments()[0]).leaseKey());
+        });
+
+        try {
+            Map<String, Lease> takenLeases = leaseTaker.takeLeases(() -> TimeUnit.MINUTES.toNanos(1));
+
+            Assert.assertEquals(new HashSet<>(Arrays.asList("1", "2", "3")), takenLeases.keySet());
+            verify(leaseRefresher, times(4)).takeLease(any(Lease.class), eq("worker"));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000L)
+    public final void testTakeLeasesConcurrentlyStopsOnFailure() throws Exception {
+        LeaseRefresher leaseRefresher = mock(LeaseRefresher.class);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        DynamoDBLeaseTaker leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, "worker", 10000L,
+                new NullMetricsFactory()).withConcurrentLeaseTakes(executorService, 2);
+        when(leaseRefresher.listLeases()).thenReturn(Arrays.asList(newUnownedLease("1", 1L), newUnownedLease("2", 1L),
+                newUnownedLease("3", 1L), newUnownedLease("4", 1L)));
+        when(leaseRefresher.takeLease(any(Lease.class), eq("worker")))
+                .thenThrow(new DependencyException("Lease table is unavailable", null));
+
+        try {
+            leaseTaker.takeLeases(() -> TimeUnit.MINUTES.toNanos(1));
+            Assert.fail("Expected the failure of taking a lease to be thrown");
+        } catch (DependencyException e) {
+            // Only the leases in flight when the first take failed were tried
+            verify(leaseRefresher, atMost(2)).takeLease(any(Lease.class), eq("worker"));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public final void testStealLeasesByWeight() throws Exception {
+        LeaseRefresher leaseRefresher = mock(LeaseRefresher.class);
+        DynamoDBLeaseTaker leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, "worker", 10000L,
+                new NullMetricsFactory()).withLeaseWeigher(new ThroughputLeaseWeigher())
+                .withMaxLeasesToStealAtOneTime(5);
+        // The hot lease weighs 1, the cold ones 0.01, so the target of each worker is 0.52
+        when(leaseRefresher.listLeases()).thenReturn(Arrays.asList(newLease("hot", "busyWorker", 1024L * 1024L),
+                newLease("cold1", "busyWorker", 0L), newLease("cold2", "busyWorker", 0L),
+                newLease("cold3", "busyWorker", 0L), newLease("cold4", "busyWorker", 0L)));
+        when(leaseRefresher.takeLease(any(Lease.class), eq("worker"))).thenReturn(true);
+
+        Map<String, Lease> takenLeases = leaseTaker.takeLeases(() -> 1L);
+
+        // Taking the hot lease would only move the imbalance to this worker, so the cold ones are stolen instead
+        Assert.assertEquals(new HashSet<>(Arrays.asList("cold1", "cold2", "cold3", "cold4")), takenLeases.keySet());
+    }
+
+    @Test
+    public final void testTakeExpiredLeasesByWeight() throws Exception {
+        LeaseRefresher leaseRefresher = mock(LeaseRefresher.class);
+        DynamoDBLeaseTaker leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, "worker", 10000L,
+                new NullMetricsFactory()).withLeaseWeigher(new ThroughputLeaseWeigher());
+        when(leaseRefresher.listLeases()).thenReturn(Arrays.asList(newLease("busy", "otherWorker", 1024L * 1024L),
+                newLease("hot", null, 1024L * 1024L), newLease("cold1", null, 0L), newLease("cold2", null, 0L)));
+        when(leaseRefresher.takeLease(any(Lease.class), eq("worker"))).thenReturn(true);
+
+        Map<String, Lease> takenLeases = leaseTaker.takeLeases(() -> TimeUnit.MINUTES.toNanos(1));
+
+        // The target is half of 2.02, which this worker can't reach without the hot lease
+        Assert.assertTrue(takenLeases.containsKey("hot"));
+        Assert.assertFalse(takenLeases.containsKey("busy"));
+    }
+
+    @Test
+    public final void testTakeLeasesOfTheGivenStreamsOnly() throws Exception {
+        LeaseRefresher leaseRefresher = mock(LeaseRefresher.class);
+        DynamoDBLeaseTaker leaseTaker = new DynamoDBLeaseTaker(leaseRefresher, "worker", 10000L,
+                new NullMetricsFactory()).withStreamNames(Collections.singleton("stream"));
+        when(leaseRefresher.listLeases()).thenReturn(Arrays.asList(
+                newUnownedLease(StreamLeaseKey.leaseKey("stream", "1"), 1L),
+                newUnownedLease(StreamLeaseKey.leaseKey("otherStream", "1"), 1L), newUnownedLease("1", 1L)));
+        when(leaseRefresher.takeLease(any(Lease.class), eq("worker"))).thenReturn(true);
+
+        Map<String, Lease> takenLeases = leaseTaker.takeLeases(() -> TimeUnit.MINUTES.toNanos(1));
+
+        Assert.assertEquals(Collections.singleton(StreamLeaseKey.leaseKey("stream", "1")), takenLeases.keySet());
+        Assert.assertEquals(1, leaseTaker.allLeases().size());
+    }
+
+    private static Lease newLease(String leaseKey, String leaseOwner, long bytesPerSecond) {
+        Lease lease = new Lease(leaseKey, leaseOwner, 1L, UUID.randomUUID(), null, null, null, null,
+                new HashSet<>());
+        lease.throughput(new LeaseThroughput(bytesPerSecond, 0L, 0L));
+        return lease;
+    }
+
+    private static Lease newLease(String leaseKey, long leaseCounter) {
+        return new Lease(leaseKey, "otherWorker", leaseCounter, UUID.randomUUID(), null, null, null, null,
+                new HashSet<>());
+    }
+
+    private static Lease newUnownedLease(String leaseKey, long leaseCounter) {
+        return new Lease(leaseKey, null, leaseCounter, UUID.randomUUID(), null, null, null, null, new HashSet<>());
+    }
 }
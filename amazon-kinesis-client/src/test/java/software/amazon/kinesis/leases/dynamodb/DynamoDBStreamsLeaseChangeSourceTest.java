@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.leases.dynamodb;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.ExpiredIteratorException;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorResponse;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.SequenceNumberRange;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamDescription;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+import software.amazon.awssdk.services.dynamodb.model.StreamSpecification;
+import software.amazon.awssdk.services.dynamodb.model.StreamViewType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsAsyncClient;
+import software.amazon.kinesis.leases.Lease;
+import software.amazon.kinesis.leases.LeaseChange;
+import software.amazon.kinesis.leases.exceptions.DependencyException;
+import software.amazon.kinesis.leases.exceptions.InvalidStateException;
+import software.amazon.kinesis.retrieval.kpl.ExtendedSequenceNumber;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DynamoDBStreamsLeaseChangeSourceTest {
+    private static final String TABLE_NAME = "test";
+    private static final String STREAM_ARN = "streamArn";
+
+    private final DynamoDBLeaseSerializer serializer = new DynamoDBLeaseSerializer();
+
+    @Mock
+    private DynamoDbAsyncClient dynamoDbClient;
+    @Mock
+    private DynamoDbStreamsAsyncClient dynamoDbStreamsClient;
+
+    private DynamoDBStreamsLeaseChangeSource leaseChangeSource;
+
+    @Before
+    public void setup() {
+        leaseChangeSource = new DynamoDBStreamsLeaseChangeSource(TABLE_NAME, dynamoDbClient, dynamoDbStreamsClient,
+                serializer, Duration.ofSeconds(10));
+        mockTable(StreamSpecification.builder().streamEnabled(true).streamViewType(StreamViewType.NEW_IMAGE).build());
+    }
+
+    @Test
+    public void testChangesAreReadFromOpenShards() throws Exception {
+        mockShards(openShard("shard-0", null));
+        mockShardIterator("shard-0", ShardIteratorType.LATEST, "iterator-0");
+        mockRecords("iterator-0", "iterator-1", modify(newLease("1", 2L)), remove("2"));
+        mockRecords("iterator-1", "iterator-2");
+
+        leaseChangeSource.start();
+        List<LeaseChange> changes = leaseChangeSource.getChanges();
+
+        assertThat(changes.size(), equalTo(2));
+        assertThat(changes.get(0).leaseKey(), equalTo("1"));
+        assertThat(changes.get(0).lease().leaseCounter(), equalTo(2L));
+        assertThat(changes.get(1), equalTo(LeaseChange.deleted("2")));
+        assertThat(changes.get(1).lease(), nullValue());
+    }
+
+    @Test
+    public void testChildShardIsReadAfterItsParent() throws Exception {
+        mockShards(openShard("shard-0", null));
+        mockShardIterator("shard-0", ShardIteratorType.LATEST, "iterator-0");
+        leaseChangeSource.start();
+
+        mockShards(closedShard("shard-0"), openShard("shard-1", "shard-0"));
+        mockShardIterator("shard-1", ShardIteratorType.TRIM_HORIZON, "child-iterator-0");
+        mockRecords("iterator-0", null, modify(newLease("1", 2L)));
+        mockRecords("child-iterator-0", "child-iterator-1", modify(newLease("1", 3L)));
+        mockRecords("child-iterator-1", "child-iterator-2");
+
+        List<LeaseChange> changes = leaseChangeSource.getChanges();
+
+        assertThat(changes.size(), equalTo(2));
+        assertThat(changes.get(0).lease().leaseCounter(), equalTo(2L));
+        assertThat(changes.get(1).lease().leaseCounter(), equalTo(3L));
+    }
+
+    @Test
+    public void testExpiredIteratorRequiresRestart() throws Exception {
+        mockShards(openShard("shard-0", null));
+        mockShardIterator("shard-0", ShardIteratorType.LATEST, "iterator-0");
+        when(dynamoDbStreamsClient.getRecords(any(GetRecordsRequest.class))).thenReturn(
+                failedFuture(ExpiredIteratorException.builder().message("Iterator expired").build()));
+        leaseChangeSource.start();
+
+        try {
+            leaseChangeSource.getChanges();
+            fail("Expected a DependencyException");
+        } catch (DependencyException e) {
+            // Expected
+        }
+        try {
+            leaseChangeSource.getChanges();
+            fail("Expected an InvalidStateException");
+        } catch (InvalidStateException e) {
+            // Expected
+        }
+    }
+
+    @Test(expected = InvalidStateException.class)
+    public void testStartFailsWithoutNewImages() throws Exception {
+        mockTable(StreamSpecification.builder().streamEnabled(true).streamViewType(StreamViewType.KEYS_ONLY).build());
+
+        leaseChangeSource.start();
+    }
+
+    private void mockTable(final StreamSpecification streamSpecification) {
+        when(dynamoDbClient.describeTable(any(DescribeTableRequest.class))).thenReturn(CompletableFuture
+                .completedFuture(DescribeTableResponse.builder().table(TableDescription.builder().tableName(TABLE_NAME)
+                        .streamSpecification(streamSpecification).latestStreamArn(STREAM_ARN).build()).build()));
+    }
+
+    private void mockShards(final Shard... shards) {
+        when(dynamoDbStreamsClient.describeStream(any(DescribeStreamRequest.class))).thenReturn(
+                CompletableFuture.completedFuture(DescribeStreamResponse.builder().streamDescription(
+                        StreamDescription.builder().streamArn(STREAM_ARN).shards(shards).build()).build()));
+    }
+
+    private void mockShardIterator(final String shardId, final ShardIteratorType type, final String shardIterator) {
+        when(dynamoDbStreamsClient.getShardIterator(GetShardIteratorRequest.builder().streamArn(STREAM_ARN)
+                .shardId(shardId).shardIteratorType(type).build())).thenReturn(CompletableFuture
+                        .completedFuture(GetShardIteratorResponse.builder().shardIterator(shardIterator).build()));
+    }
+
+    private void mockRecords(final String shardIterator, final String nextShardIterator, final Record... records) {
+        when(dynamoDbStreamsClient.getRecords(GetRecordsRequest.builder().shardIterator(shardIterator).build()))
+                .thenReturn(CompletableFuture.completedFuture(GetRecordsResponse.builder()
+                        .records(Arrays.asList(records)).nextShardIterator(nextShardIterator).build()));
+    }
+
+    private static Shard openShard(final String shardId, final String parentShardId) {
+        return Shard.builder().shardId(shardId).parentShardId(parentShardId)
+                .sequenceNumberRange(SequenceNumberRange.builder().startingSequenceNumber("1").build()).build();
+    }
+
+    private static Shard closedShard(final String shardId) {
+        return Shard.builder().shardId(shardId).sequenceNumberRange(
+                SequenceNumberRange.builder().startingSequenceNumber("1").endingSequenceNumber("2").build()).build();
+    }
+
+    private Record modify(final Lease lease) {
+        return Record.builder().eventName(OperationType.MODIFY)
+                .dynamodb(StreamRecord.builder().keys(serializer.getDynamoHashKey(lease))
+                        .newImage(serializer.toDynamoRecord(lease)).build())
+                .build();
+    }
+
+    private Record remove(final String leaseKey) {
+        return Record.builder().eventName(OperationType.REMOVE)
+                .dynamodb(StreamRecord.builder().keys(serializer.getDynamoHashKey(leaseKey)).build()).build();
+    }
+
+    private static Lease newLease(final String leaseKey, final long leaseCounter) {
+        return new Lease(leaseKey, "owner", leaseCounter, UUID.randomUUID(), null, ExtendedSequenceNumber.TRIM_HORIZON,
+                null, 0L, new HashSet<>());
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(final Throwable t) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(t);
+        return future;
+    }
+}
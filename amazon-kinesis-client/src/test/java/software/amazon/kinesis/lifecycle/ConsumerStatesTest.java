@@ -17,6 +17,7 @@ package software.amazon.kinesis.lifecycle;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -25,6 +26,8 @@ import static org.mockito.Mockito.when;
 import static software.amazon.kinesis.lifecycle.ConsumerStates.ShardConsumerState;
 
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
@@ -44,6 +47,7 @@ import software.amazon.kinesis.checkpoint.ShardRecordProcessorCheckpointer;
 import software.amazon.kinesis.common.InitialPositionInStream;
 import software.amazon.kinesis.common.InitialPositionInStreamExtended;
 import software.amazon.kinesis.leases.LeaseRefresher;
+import software.amazon.kinesis.leases.LeaseThroughputTracker;
 import software.amazon.kinesis.leases.ShardDetector;
 import software.amazon.kinesis.leases.ShardInfo;
 import software.amazon.kinesis.leases.HierarchicalShardSyncer;
@@ -53,6 +57,7 @@ import software.amazon.kinesis.processor.Checkpointer;
 import software.amazon.kinesis.processor.RecordProcessorCheckpointer;
 import software.amazon.kinesis.processor.ShardRecordProcessor;
 import software.amazon.kinesis.retrieval.AggregatorUtil;
+import software.amazon.kinesis.retrieval.KinesisClientRecord;
 import software.amazon.kinesis.retrieval.RecordsPublisher;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -103,6 +108,7 @@ public class ConsumerStatesTest {
     private long listShardsBackoffTimeInMillis = 50L;
     private int maxListShardsRetryAttempts = 10;
     private boolean shouldCallProcessRecordsEvenForEmptyRecordList = true;
+    private boolean deaggregateRecordsLazily = false;
     private boolean ignoreUnexpectedChildShards = false;
     private long idleTimeInMillis = 1000L;
     private Optional<Long> logWarningForTaskAfterMillis = Optional.empty();
@@ -112,9 +118,10 @@ public class ConsumerStatesTest {
         argument = new ShardConsumerArgument(shardInfo, STREAM_NAME, leaseRefresher, executorService, recordsPublisher,
                 shardRecordProcessor, checkpointer, recordProcessorCheckpointer, parentShardPollIntervalMillis,
                 taskBackoffTimeMillis, skipShardSyncAtWorkerInitializationIfLeasesExist, listShardsBackoffTimeInMillis,
-                maxListShardsRetryAttempts, shouldCallProcessRecordsEvenForEmptyRecordList, idleTimeInMillis,
-                INITIAL_POSITION_IN_STREAM, cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards, shardDetector,
-                new AggregatorUtil(), hierarchicalShardSyncer, metricsFactory);
+                maxListShardsRetryAttempts, shouldCallProcessRecordsEvenForEmptyRecordList, deaggregateRecordsLazily,
+                idleTimeInMillis,
+                INITIAL_POSITION_IN_STREAM, cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards, false,
+                shardDetector, new AggregatorUtil(), hierarchicalShardSyncer, null, metricsFactory);
         consumer = spy(new ShardConsumer(recordsPublisher, executorService, shardInfo, logWarningForTaskAfterMillis,
                 argument, taskExecutionListener, 0));
 
@@ -224,6 +231,48 @@ public class ConsumerStatesTest {
 
     }
 
+    @Test
+    public void processingStateRecordsThroughputTest() {
+        LeaseThroughputTracker leaseThroughputTracker = new LeaseThroughputTracker();
+        argument = new ShardConsumerArgument(shardInfo, STREAM_NAME, leaseRefresher, executorService, recordsPublisher,
+                shardRecordProcessor, checkpointer, recordProcessorCheckpointer, parentShardPollIntervalMillis,
+                taskBackoffTimeMillis, skipShardSyncAtWorkerInitializationIfLeasesExist, listShardsBackoffTimeInMillis,
+                maxListShardsRetryAttempts, shouldCallProcessRecordsEvenForEmptyRecordList, deaggregateRecordsLazily,
+                idleTimeInMillis,
+                INITIAL_POSITION_IN_STREAM, cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards, false,
+                shardDetector, new AggregatorUtil(), hierarchicalShardSyncer, leaseThroughputTracker, metricsFactory);
+        when(shardInfo.leaseKey()).thenReturn("shardId-000000000000");
+        when(processRecordsInput.records()).thenReturn(Collections.singletonList(
+                KinesisClientRecord.builder().data(ByteBuffer.wrap(new byte[10])).build()));
+        when(processRecordsInput.millisBehindLatest()).thenReturn(5000L);
+
+        ConsumerState state = ShardConsumerState.PROCESSING.consumerState();
+        state.createTask(argument, consumer, processRecordsInput);
+
+        assertThat(leaseThroughputTracker.throughput("shardId-000000000000").millisBehindLatest(), equalTo(5000L));
+    }
+
+    @Test
+    public void processingStateRecordsRemainingBytesOfRecordsTest() {
+        LeaseThroughputTracker leaseThroughputTracker = mock(LeaseThroughputTracker.class);
+        argument = new ShardConsumerArgument(shardInfo, STREAM_NAME, leaseRefresher, executorService, recordsPublisher,
+                shardRecordProcessor, checkpointer, recordProcessorCheckpointer, parentShardPollIntervalMillis,
+                taskBackoffTimeMillis, skipShardSyncAtWorkerInitializationIfLeasesExist, listShardsBackoffTimeInMillis,
+                maxListShardsRetryAttempts, shouldCallProcessRecordsEvenForEmptyRecordList, deaggregateRecordsLazily,
+                idleTimeInMillis,
+                INITIAL_POSITION_IN_STREAM, cleanupLeasesOfCompletedShards, ignoreUnexpectedChildShards, false,
+                shardDetector, new AggregatorUtil(), hierarchicalShardSyncer, leaseThroughputTracker, metricsFactory);
+        when(shardInfo.leaseKey()).thenReturn("shardId-000000000000");
+        when(processRecordsInput.records()).thenReturn(Collections.singletonList(
+                KinesisClientRecord.builder().data(ByteBuffer.wrap(new byte[10], 4, 6)).build()));
+        when(processRecordsInput.millisBehindLatest()).thenReturn(5000L);
+
+        ConsumerState state = ShardConsumerState.PROCESSING.consumerState();
+        state.createTask(argument, consumer, processRecordsInput);
+
+        verify(leaseThroughputTracker).recordProcessed("shardId-000000000000", 1, 6, 5000L);
+    }
+
     @Test
     public void processingStateRecordsFetcher() {
 
@@ -24,8 +24,11 @@ import static org.hamcrest.beans.HasPropertyWithValue.hasProperty;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,6 +39,7 @@ import java.security.MessageDigest;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -60,12 +64,16 @@ import com.google.protobuf.ByteString;
 
 import lombok.Data;
 import lombok.Getter;
+import software.amazon.awssdk.services.cloudwatch.model.StandardUnit;
 import software.amazon.awssdk.services.kinesis.model.HashKeyRange;
 import software.amazon.awssdk.services.kinesis.model.Shard;
 import software.amazon.kinesis.checkpoint.ShardRecordProcessorCheckpointer;
 import software.amazon.kinesis.leases.ShardDetector;
 import software.amazon.kinesis.leases.ShardInfo;
 import software.amazon.kinesis.lifecycle.events.ProcessRecordsInput;
+import software.amazon.kinesis.metrics.MetricsFactory;
+import software.amazon.kinesis.metrics.MetricsLevel;
+import software.amazon.kinesis.metrics.MetricsScope;
 import software.amazon.kinesis.metrics.NullMetricsFactory;
 import software.amazon.kinesis.processor.Checkpointer;
 import software.amazon.kinesis.processor.ShardRecordProcessor;
@@ -82,6 +90,7 @@ public class ProcessTaskTest {
 
     private boolean shouldCallProcessRecordsEvenForEmptyRecordList = true;
     private boolean skipShardSyncAtWorkerInitializationIfLeasesExist = true;
+    private boolean deaggregateRecordsLazily = false;
     private ShardInfo shardInfo;
 
     @Mock
@@ -102,6 +111,7 @@ public class ProcessTaskTest {
     @Mock
     private ThrottlingReporter throttlingReporter;
 
+    private MetricsFactory metricsFactory = new NullMetricsFactory();
     private ProcessTask processTask;
 
 
@@ -121,8 +131,9 @@ public class ProcessTaskTest {
             boolean skipShardSync) {
         return new ProcessTask(shardInfo, shardRecordProcessor, checkpointer, taskBackoffTimeMillis,
                 skipShardSync, shardDetector, throttlingReporter,
-                processRecordsInput, shouldCallProcessRecordsEvenForEmptyRecordList, IDLE_TIME_IN_MILLISECONDS,
-                aggregatorUtil, new NullMetricsFactory());
+                processRecordsInput, shouldCallProcessRecordsEvenForEmptyRecordList, deaggregateRecordsLazily,
+                IDLE_TIME_IN_MILLISECONDS,
+                aggregatorUtil, metricsFactory);
     }
 
     @Test
@@ -294,14 +305,117 @@ public class ProcessTaskTest {
         assertEquals(expectedLargestPermittedEsqn, outcome.getCheckpointCall());
     }
 
+    @Test
+    public void testDeaggregatesRecordWithZeroCopy() {
+        final String sqn = new BigInteger(128, new Random()).toString();
+        final String pk = UUID.randomUUID().toString();
+        final Instant ts = Instant.now().minus(4, ChronoUnit.HOURS);
+        final ByteBuffer aggregatedData = generateAggregatedRecord(pk);
+        KinesisClientRecord record = KinesisClientRecord.builder().partitionKey("-").data(aggregatedData)
+                .sequenceNumber(sqn).approximateArrivalTimestamp(ts).build();
+
+        ShardRecordProcessorOutcome outcome = testWithRecords(Collections.singletonList(record),
+                ExtendedSequenceNumber.TRIM_HORIZON, ExtendedSequenceNumber.TRIM_HORIZON, new AggregatorUtil(true));
+
+        List<KinesisClientRecord> actualRecords = outcome.getProcessRecordsCall().records();
+
+        assertEquals(3, actualRecords.size());
+        for (KinesisClientRecord pr : actualRecords) {
+            assertEquals(pk, pr.partitionKey());
+            assertEquals(ts, pr.approximateArrivalTimestamp());
+            assertThat(pr.aggregated(), equalTo(true));
+            assertThat(pr.data().isReadOnly(), equalTo(true));
+
+            byte[] actualData = new byte[pr.data().remaining()];
+            pr.data().get(actualData);
+            assertThat(actualData, equalTo(TEST_DATA));
+        }
+        assertThat(aggregatedData.position(), equalTo(0));
+
+        assertEquals(sqn, outcome.getCheckpointCall().sequenceNumber());
+        assertEquals(actualRecords.size() - 1, outcome.getCheckpointCall().subSequenceNumber());
+    }
+
+    @Test
+    public void testZeroCopyPassesThroughCorruptedAggregatedRecord() {
+        final String sqn = new BigInteger(128, new Random()).toString();
+        final ByteBuffer aggregatedData = generateAggregatedRecord(UUID.randomUUID().toString());
+        aggregatedData.put(AggregatorUtil.AGGREGATED_RECORD_MAGIC.length + 1, (byte) 0x7F);
+        KinesisClientRecord record = KinesisClientRecord.builder().partitionKey("-").data(aggregatedData)
+                .sequenceNumber(sqn).build();
+
+        ShardRecordProcessorOutcome outcome = testWithRecords(Collections.singletonList(record),
+                ExtendedSequenceNumber.TRIM_HORIZON, ExtendedSequenceNumber.TRIM_HORIZON, new AggregatorUtil(true));
+
+        assertThat(outcome.getProcessRecordsCall().records(), equalTo(Collections.singletonList(record)));
+    }
+
+    @Test
+    public void testZeroCopyUsesOverriddenByteArrayTailCheck() {
+        final String sqn = new BigInteger(128, new Random()).toString();
+        final ByteBuffer aggregatedData = generateAggregatedRecord(UUID.randomUUID().toString());
+        KinesisClientRecord record = KinesisClientRecord.builder().partitionKey("-").data(aggregatedData)
+                .sequenceNumber(sqn).build();
+        AggregatorUtil aggregatorUtil = new AggregatorUtil(true) {
+            @Override
+            protected byte[] calculateTailCheck(byte[] data) {
+                return new byte[16];
+            }
+        };
+
+        ShardRecordProcessorOutcome outcome = testWithRecords(Collections.singletonList(record),
+                ExtendedSequenceNumber.TRIM_HORIZON, ExtendedSequenceNumber.TRIM_HORIZON, aggregatorUtil);
+
+        assertThat(outcome.getProcessRecordsCall().records(), equalTo(Collections.singletonList(record)));
+    }
+
+    @Test
+    public void testSubclassUsingDefaultHashingSkipsHashingHooks() {
+        final String sqn = new BigInteger(128, new Random()).toString();
+        final ByteBuffer aggregatedData = generateAggregatedRecord(UUID.randomUUID().toString());
+        KinesisClientRecord record = KinesisClientRecord.builder().partitionKey("-").data(aggregatedData)
+                .sequenceNumber(sqn).build();
+        AggregatorUtil aggregatorUtil = new AggregatorUtil(true) {
+            @Override
+            protected boolean usesDefaultHashing() {
+                return true;
+            }
+
+            @Override
+            protected byte[] calculateTailCheck(byte[] data) {
+                throw new AssertionError("The byte array tail check shouldn't be used");
+            }
+
+            @Override
+            protected BigInteger effectiveHashKey(String partitionKey, String explicitHashKey) {
+                throw new AssertionError("The BigInteger hash key shouldn't be used");
+            }
+        };
+
+        ShardRecordProcessorOutcome outcome = testWithRecords(Collections.singletonList(record),
+                ExtendedSequenceNumber.TRIM_HORIZON, ExtendedSequenceNumber.TRIM_HORIZON, aggregatorUtil);
+
+        assertEquals(3, outcome.getProcessRecordsCall().records().size());
+    }
+
     @Test
     public void testDiscardReshardedKplData() throws Exception {
+        discardReshardedKplData(false);
+    }
+
+    @Test
+    public void testDiscardReshardedKplDataWithZeroCopy() throws Exception {
+        discardReshardedKplData(true);
+    }
+
+    private void discardReshardedKplData(boolean zeroCopy) throws Exception {
         BigInteger sequenceNumber = new BigInteger(120, ThreadLocalRandom.current());
 
         String lowHashKey = BigInteger.ONE.shiftLeft(60).toString();
         String highHashKey = BigInteger.ONE.shiftLeft(68).toString();
 
-        ControlledHashAggregatorUtil aggregatorUtil = new ControlledHashAggregatorUtil(lowHashKey, highHashKey);
+        ControlledHashAggregatorUtil aggregatorUtil = new ControlledHashAggregatorUtil(lowHashKey, highHashKey,
+                zeroCopy);
         AggregatedRecord.Builder aggregatedRecord = AggregatedRecord.newBuilder();
         Instant approximateArrivalTime = Instant.now();
         int recordIndex = 0;
@@ -356,12 +470,22 @@ public class ProcessTaskTest {
 
     @Test
     public void testAllInShardKplData() throws Exception {
+        allInShardKplData(false);
+    }
+
+    @Test
+    public void testAllInShardKplDataWithZeroCopy() throws Exception {
+        allInShardKplData(true);
+    }
+
+    private void allInShardKplData(boolean zeroCopy) throws Exception {
         BigInteger sequenceNumber = new BigInteger(120, ThreadLocalRandom.current());
 
         String lowHashKey = BigInteger.ONE.shiftLeft(60).toString();
         String highHashKey = BigInteger.ONE.shiftLeft(68).toString();
 
-        ControlledHashAggregatorUtil aggregatorUtil = new ControlledHashAggregatorUtil(lowHashKey, highHashKey);
+        ControlledHashAggregatorUtil aggregatorUtil = new ControlledHashAggregatorUtil(lowHashKey, highHashKey,
+                zeroCopy);
 
         List<KinesisClientRecord> expectedRecords = new ArrayList<>();
         List<KinesisClientRecord> rawRecords = new ArrayList<>();
@@ -404,6 +528,179 @@ public class ProcessTaskTest {
         assertThat(outcome.processRecordsCall.records(), equalTo(expectedRecords));
     }
 
+    @Test
+    public void testFiltersKplDataByHashKeyRange() throws Exception {
+        filtersKplDataByHashKeyRange(false);
+    }
+
+    @Test
+    public void testFiltersKplDataByHashKeyRangeWithZeroCopy() throws Exception {
+        filtersKplDataByHashKeyRange(true);
+    }
+
+    private void filtersKplDataByHashKeyRange(boolean zeroCopy) throws Exception {
+        // The shard owns the lower half of the hash key space.
+        final BigInteger highHashKey = BigInteger.ONE.shiftLeft(127).subtract(BigInteger.ONE);
+        final BigInteger sequenceNumber = new BigInteger(120, ThreadLocalRandom.current());
+        final Instant approximateArrivalTime = Instant.now();
+
+        final List<KinesisClientRecord> rawRecords = new ArrayList<>();
+        final List<KinesisClientRecord> expectedRecords = new ArrayList<>();
+        for (int i = 0; i < 20; ++i) {
+            final String sqn = sequenceNumber.add(BigInteger.valueOf(i)).toString();
+            final String partitionKey = "pk-\u00e9-" + i;
+            final String explicitHashKey = i % 5 == 0 ? highHashKey.add(BigInteger.valueOf(i - 5)).toString() : null;
+            final BigInteger effectiveHashKey = explicitHashKey == null
+                    ? new BigInteger(1, md5(partitionKey.getBytes("UTF-8"))) : new BigInteger(explicitHashKey);
+
+            AggregatedRecord.Builder aggregatedRecord = AggregatedRecord.newBuilder().addPartitionKeyTable(partitionKey);
+            if (explicitHashKey != null) {
+                aggregatedRecord.addExplicitHashKeyTable(explicitHashKey);
+            }
+            for (int j = 0; j < 3; ++j) {
+                Messages.Record.Builder kplRecord = Messages.Record.newBuilder()
+                        .setData(ByteString.copyFrom(TEST_DATA)).setPartitionKeyIndex(0);
+                if (explicitHashKey != null) {
+                    kplRecord.setExplicitHashKeyIndex(0);
+                }
+                aggregatedRecord.addRecords(kplRecord);
+                if (effectiveHashKey.compareTo(highHashKey) <= 0) {
+                    expectedRecords.add(KinesisClientRecord.builder().partitionKey(partitionKey).sequenceNumber(sqn)
+                            .approximateArrivalTimestamp(approximateArrivalTime).data(ByteBuffer.wrap(TEST_DATA))
+                            .subSequenceNumber(j).explicitHashKey(explicitHashKey).aggregated(true).build());
+                }
+            }
+
+            byte[] payload = aggregatedRecord.build().toByteArray();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            bos.write(AggregatorUtil.AGGREGATED_RECORD_MAGIC);
+            bos.write(payload);
+            bos.write(md5(payload));
+            rawRecords.add(KinesisClientRecord.builder().data(ByteBuffer.wrap(bos.toByteArray()))
+                    .approximateArrivalTimestamp(approximateArrivalTime).partitionKey("pa-" + i).sequenceNumber(sqn)
+                    .build());
+        }
+
+        when(shardDetector.shard(any())).thenReturn(Shard.builder().shardId("Shard-01")
+                .hashKeyRange(HashKeyRange.builder().startingHashKey("0").endingHashKey(highHashKey.toString())
+                        .build())
+                .build());
+
+        when(processRecordsInput.records()).thenReturn(rawRecords);
+        ProcessTask processTask = makeProcessTask(processRecordsInput, new AggregatorUtil(zeroCopy), false);
+        ShardRecordProcessorOutcome outcome = testWithRecords(processTask, ExtendedSequenceNumber.TRIM_HORIZON,
+                ExtendedSequenceNumber.TRIM_HORIZON);
+
+        assertThat(outcome.processRecordsCall.records(), equalTo(expectedRecords));
+    }
+
+    @Test
+    public void testLazyDeaggregationStreamsRecordsToProcessor() {
+        final String sqn = new BigInteger(128, new Random()).toString();
+        final String pk = UUID.randomUUID().toString();
+        final KinesisClientRecord aggregated = KinesisClientRecord.builder().partitionKey("-")
+                .data(generateAggregatedRecord(pk)).sequenceNumber(sqn).build();
+        final KinesisClientRecord plain = makeKinesisClientRecord(pk,
+                new BigInteger(sqn).add(BigInteger.ONE).toString(), Instant.now());
+
+        deaggregateRecordsLazily = true;
+        when(processRecordsInput.records()).thenReturn(Arrays.asList(aggregated, plain));
+        when(checkpointer.lastCheckpointValue()).thenReturn(ExtendedSequenceNumber.TRIM_HORIZON);
+        when(checkpointer.largestPermittedCheckpointValue()).thenReturn(ExtendedSequenceNumber.TRIM_HORIZON);
+
+        final List<KinesisClientRecord> iterated = new ArrayList<>();
+        final List<ExtendedSequenceNumber> permittedWhenIterated = new ArrayList<>();
+        final ArgumentCaptor<ExtendedSequenceNumber> esnCaptor = ArgumentCaptor.forClass(ExtendedSequenceNumber.class);
+        doAnswer(invocation -> {
+            ProcessRecordsInput input = (ProcessRecordsInput) invocation.getArguments()[0];
+            for (KinesisClientRecord record : input.records()) {
+                iterated.add(record);
+                verify(checkpointer, atLeastOnce()).largestPermittedCheckpointValue(esnCaptor.capture());
+                permittedWhenIterated.add(esnCaptor.getValue());
+            }
+            return null;
+        }).when(shardRecordProcessor).processRecords(any(ProcessRecordsInput.class));
+
+        makeProcessTask(processRecordsInput).call();
+
+        assertThat(iterated.size(), equalTo(4));
+        for (int i = 0; i < 3; ++i) {
+            assertThat(iterated.get(i).subSequenceNumber(), equalTo((long) i));
+            assertThat(permittedWhenIterated.get(i), equalTo(new ExtendedSequenceNumber(sqn, 2L)));
+        }
+        assertThat(iterated.get(3), equalTo(plain));
+        assertThat(permittedWhenIterated.get(3), equalTo(new ExtendedSequenceNumber(plain.sequenceNumber(), 0L)));
+    }
+
+    @Test
+    public void testLazyDeaggregationFiltersBasedOnLastCheckpointValue() {
+        BigInteger previousCheckpointSqn = new BigInteger(128, new Random());
+        String startingSqn = previousCheckpointSqn.toString();
+        String pk = UUID.randomUUID().toString();
+        KinesisClientRecord record = KinesisClientRecord.builder().partitionKey("-").data(generateAggregatedRecord(pk))
+                .sequenceNumber(startingSqn).build();
+
+        deaggregateRecordsLazily = true;
+        ShardRecordProcessorOutcome outcome = testWithRecords(Collections.singletonList(record),
+                new ExtendedSequenceNumber(startingSqn, 1L), new ExtendedSequenceNumber(startingSqn, 1L));
+
+        List<KinesisClientRecord> actualRecords = outcome.getProcessRecordsCall().records();
+        assertThat(actualRecords.size(), equalTo(1));
+        assertThat(actualRecords.get(0).subSequenceNumber(), equalTo(2L));
+        assertEquals(new ExtendedSequenceNumber(startingSqn, 2L), outcome.getCheckpointCall());
+    }
+
+    @Test
+    public void testLazyDeaggregationCountsDeaggregatedRecordsAsProcessed() {
+        final String startingSqn = new BigInteger(128, new Random()).toString();
+        final KinesisClientRecord record = KinesisClientRecord.builder().partitionKey("-")
+                .data(generateAggregatedRecord(UUID.randomUUID().toString())).sequenceNumber(startingSqn).build();
+        final MetricsScope scope = mock(MetricsScope.class);
+        metricsFactory = mock(MetricsFactory.class);
+        when(metricsFactory.createMetrics()).thenReturn(scope);
+
+        deaggregateRecordsLazily = true;
+        testWithRecords(Collections.singletonList(record), new ExtendedSequenceNumber(startingSqn, 1L),
+                new ExtendedSequenceNumber(startingSqn, 1L));
+
+        verify(scope).addData("RecordsProcessed", 3, StandardUnit.COUNT, MetricsLevel.SUMMARY);
+    }
+
+    @Test
+    public void testLazyDeaggregationAdvancesCheckpointForRecordsNotIterated() {
+        final BigInteger previousCheckpointSqn = new BigInteger(128, new Random());
+        final BigInteger startingSqn = previousCheckpointSqn.add(BigInteger.valueOf(10));
+        final List<KinesisClientRecord> records = generateConsecutiveRecords(10, "-", ByteBuffer.wrap(TEST_DATA),
+                new Date(), startingSqn);
+
+        deaggregateRecordsLazily = true;
+        ShardRecordProcessorOutcome outcome = testWithRecords(records,
+                new ExtendedSequenceNumber(previousCheckpointSqn.toString()),
+                new ExtendedSequenceNumber(previousCheckpointSqn.toString()));
+
+        assertEquals(new ExtendedSequenceNumber(startingSqn.add(BigInteger.valueOf(9)).toString()),
+                outcome.getCheckpointCall());
+        assertThat(outcome.getProcessRecordsCall().records(), equalTo(records));
+    }
+
+    @Test
+    public void testLazyDeaggregationSkipsProcessorWhenAllRecordsAreFiltered() {
+        final BigInteger sqn = new BigInteger(128, new Random());
+        final List<KinesisClientRecord> records = generateConsecutiveRecords(3, "-", ByteBuffer.wrap(TEST_DATA),
+                new Date(), sqn);
+        final ExtendedSequenceNumber checkpoint = new ExtendedSequenceNumber(sqn.add(BigInteger.TEN).toString());
+
+        shouldCallProcessRecordsEvenForEmptyRecordList = false;
+        deaggregateRecordsLazily = true;
+        when(processRecordsInput.records()).thenReturn(records);
+        when(checkpointer.lastCheckpointValue()).thenReturn(checkpoint);
+        when(checkpointer.largestPermittedCheckpointValue()).thenReturn(checkpoint);
+
+        makeProcessTask(processRecordsInput).call();
+
+        verify(shardRecordProcessor, never()).processRecords(any(ProcessRecordsInput.class));
+    }
+
     private KinesisClientRecord createAndRegisterAggregatedRecord(BigInteger sequenceNumber,
             AggregatedRecord.Builder aggregatedRecord, int i, Instant approximateArrivalTime) {
         byte[] dataArray = new byte[1024];
@@ -433,7 +730,8 @@ public class ProcessTaskTest {
         private final long width;
         private final Map<String, RecordRangeState> recordRanges = new HashMap<>();
 
-        ControlledHashAggregatorUtil(String lowHashKey, String highHashKey) {
+        ControlledHashAggregatorUtil(String lowHashKey, String highHashKey, boolean zeroCopy) {
+            super(zeroCopy);
             this.lowHashKey = new BigInteger(lowHashKey);
             this.highHashKey = new BigInteger(highHashKey);
             this.width = this.highHashKey.subtract(this.lowHashKey).mod(BigInteger.valueOf(Long.MAX_VALUE)).longValue()
@@ -504,7 +802,8 @@ public class ProcessTaskTest {
         verify(shardRecordProcessor).processRecords(recordsCaptor.capture());
 
         ArgumentCaptor<ExtendedSequenceNumber> esnCaptor = ArgumentCaptor.forClass(ExtendedSequenceNumber.class);
-        verify(checkpointer).largestPermittedCheckpointValue(esnCaptor.capture());
+        verify(checkpointer, deaggregateRecordsLazily ? atLeastOnce() : times(1))
+                .largestPermittedCheckpointValue(esnCaptor.capture());
 
         return new ShardRecordProcessorOutcome(recordsCaptor.getValue(), esnCaptor.getValue());
 
@@ -491,6 +491,38 @@ public class ShardConsumerTest {
         verify(directExecutorService, times(2)).execute(any());
     }
 
+    /**
+     * Test method to verify the lifecycle event listener is notified of every completed state transition, and of
+     * shutdown requests.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public final void testLifecycleEventListenerNotifiedOfStateChanges() {
+        ExecutorService directExecutorService = spy(executorService);
+
+        doAnswer(invocation -> directlyExecuteRunnable(invocation))
+                .when(directExecutorService).execute(any());
+
+        ShardConsumer consumer = new ShardConsumer(recordsPublisher, directExecutorService, shardInfo,
+                logWarningForTaskAfterMillis, shardConsumerArgument, blockedOnParentsState,
+                t -> t, 1, taskExecutionListener, 0);
+        Runnable lifecycleEventListener = mock(Runnable.class);
+        consumer.lifecycleEventListener(lifecycleEventListener);
+
+        mockSuccessfulUnblockOnParents();
+        mockSuccessfulInitializeWithFailureTransition();
+        mockSuccessfulProcessing(null);
+
+        for (int i = 0; i < 3; ++i) {
+            consumer.executeLifecycle();
+        }
+        assertEquals(ShardConsumerState.PROCESSING.consumerState().state(), consumer.currentState().state());
+        verify(lifecycleEventListener, times(3)).run();
+
+        consumer.leaseLost();
+        verify(lifecycleEventListener, times(4)).run();
+    }
+
     /**
      * Test method to verify consumer does not transition to PROCESSING from WAITING_ON_PARENT_SHARDS when
      * INITIALIZING tasks gets rejected.
@@ -16,9 +16,15 @@ package software.amazon.kinesis.lifecycle;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -27,6 +33,7 @@ import java.util.Collections;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
@@ -39,6 +46,7 @@ import software.amazon.kinesis.leases.LeaseRefresher;
 import software.amazon.kinesis.leases.ShardDetector;
 import software.amazon.kinesis.leases.ShardInfo;
 import software.amazon.kinesis.metrics.MetricsFactory;
+import software.amazon.kinesis.metrics.MetricsScope;
 import software.amazon.kinesis.metrics.NullMetricsFactory;
 import software.amazon.kinesis.processor.Checkpointer;
 import software.amazon.kinesis.processor.ShardRecordProcessor;
@@ -89,7 +97,7 @@ public class ShutdownTaskTest {
 
         task = new ShutdownTask(shardInfo, shardDetector, shardRecordProcessor, recordProcessorCheckpointer,
                 TERMINATE_SHUTDOWN_REASON, INITIAL_POSITION_TRIM_HORIZON, cleanupLeasesOfCompletedShards,
-                ignoreUnexpectedChildShards, leaseRefresher, TASK_BACKOFF_TIME_MILLIS, recordsPublisher,
+                ignoreUnexpectedChildShards, false, leaseRefresher, TASK_BACKOFF_TIME_MILLIS, recordsPublisher,
                 hierarchicalShardSyncer, NULL_METRICS_FACTORY);
     }
 
@@ -104,6 +112,21 @@ public class ShutdownTaskTest {
         assertTrue(result.getException() instanceof IllegalArgumentException);
     }
 
+    /**
+     * Test method for {@link ShutdownTask#call()}.
+     */
+    @Test
+    public final void testCallWaitsForUnsavedCheckpointBeforeCheckingShardEnd() {
+        when(recordProcessorCheckpointer.lastCheckpointValue()).thenReturn(ExtendedSequenceNumber.SHARD_END);
+        when(shardDetector.listShards()).thenReturn(Collections.emptyList());
+
+        task.call();
+
+        InOrder inOrder = inOrder(recordProcessorCheckpointer);
+        inOrder.verify(recordProcessorCheckpointer).awaitUnsavedCheckpoint();
+        inOrder.verify(recordProcessorCheckpointer).lastCheckpointValue();
+    }
+
     /**
      * Test method for {@link ShutdownTask#call()}.
      */
@@ -124,6 +147,27 @@ public class ShutdownTaskTest {
         verify(recordsPublisher).shutdown();
     }
 
+    /**
+     * Test method for {@link ShutdownTask#call()} with incremental shard sync.
+     */
+    @Test
+    public final void testCallCreatesLeasesForChildShardsOnlyWithIncrementalShardSync() throws Exception {
+        when(recordProcessorCheckpointer.lastCheckpointValue()).thenReturn(ExtendedSequenceNumber.SHARD_END);
+        task = new ShutdownTask(shardInfo, shardDetector, shardRecordProcessor, recordProcessorCheckpointer,
+                TERMINATE_SHUTDOWN_REASON, INITIAL_POSITION_TRIM_HORIZON, cleanupLeasesOfCompletedShards,
+                ignoreUnexpectedChildShards, true, leaseRefresher, TASK_BACKOFF_TIME_MILLIS, recordsPublisher,
+                hierarchicalShardSyncer, NULL_METRICS_FACTORY);
+
+        TaskResult result = task.call();
+        assertNull(result.getException());
+        verify(hierarchicalShardSyncer).checkAndCreateLeasesForChildShards(eq(shardDetector), eq(leaseRefresher),
+                eq(Collections.singleton(shardId)), eq(INITIAL_POSITION_TRIM_HORIZON),
+                eq(cleanupLeasesOfCompletedShards), eq(ignoreUnexpectedChildShards), any(MetricsScope.class));
+        verify(hierarchicalShardSyncer, never()).checkAndCreateLeaseForNewShards(any(ShardDetector.class),
+                any(LeaseRefresher.class), any(InitialPositionInStreamExtended.class), anyBoolean(), anyBoolean(),
+                any(MetricsScope.class));
+    }
+
     /**
      * Test method for {@link ShutdownTask#taskType()}.
      */
@@ -34,6 +34,13 @@ public class AccumulatingMetricsScopeTest {
         }
     }
 
+    private static class HistogramScope extends TestScope {
+        @Override
+        protected boolean recordLatencyHistogram(String name, StandardUnit unit) {
+            return unit == StandardUnit.MILLISECONDS;
+        }
+    }
+
     @Test
     public void testSingleAdd() {
         TestScope scope = new TestScope();
@@ -58,4 +65,22 @@ public class AccumulatingMetricsScopeTest {
         scope.addData("name", 2.0, StandardUnit.COUNT);
         scope.addData("name", 3.0, StandardUnit.MEGABITS);
     }
+
+    /*
+     * Latency samples are exported as histogram buckets: 5 is kept exactly, 100 falls in the [100, 104) bucket.
+     */
+    @Test
+    public void testAccumulateLatencyHistogram() {
+        TestScope scope = new HistogramScope();
+
+        scope.addData("latency", 5.0, StandardUnit.MILLISECONDS);
+        scope.addData("latency", 5.0, StandardUnit.MILLISECONDS);
+        scope.addData("latency", 100.0, StandardUnit.MILLISECONDS);
+        scope.addData("count", 3.0, StandardUnit.COUNT);
+
+        scope.assertMetrics(
+                MetricDatum.builder().metricName("latency").unit(StandardUnit.MILLISECONDS).values(5.0, 102.0)
+                        .counts(2.0, 1.0).build(),
+                TestHelper.constructDatum("count", StandardUnit.COUNT, 3.0, 3.0, 3.0, 1));
+    }
 }
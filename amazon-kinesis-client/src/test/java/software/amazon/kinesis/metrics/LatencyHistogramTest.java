@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.metrics;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.junit.Test;
+
+import software.amazon.awssdk.services.cloudwatch.model.MetricDatum;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsAreContiguousAndBounded() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertThat(index - previous, lessThanOrEqualTo(1));
+            previous = index;
+
+            double representative = LatencyHistogram.bucketValue(index);
+            assertThat(LatencyHistogram.bucketIndex(representative), equalTo(index));
+            assertThat(representative, closeTo(value, value / (double) LatencyHistogram.SUB_BUCKET_COUNT));
+        }
+    }
+
+    @Test
+    public void testRecordWithCount() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5, 3);
+        histogram.record(100);
+        histogram.record(7, 0);
+
+        MetricDatum datum = histogram.export(MetricDatum.builder().metricName("latency")).build();
+
+        assertThat(histogram.totalCount(), equalTo(4L));
+        assertThat(datum.values(), contains(5.0, 102.0));
+        assertThat(datum.counts(), contains(3.0, 1.0));
+    }
+
+    @Test
+    public void testExportIsCappedAtMaxValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 1000; i++) {
+            histogram.record(i);
+        }
+
+        MetricDatum datum = histogram.export(MetricDatum.builder().metricName("latency")).build();
+
+        assertThat(datum.values().size(), lessThanOrEqualTo(LatencyHistogram.MAX_VALUES));
+        assertThat(datum.counts().size(), equalTo(datum.values().size()));
+        assertThat(datum.counts().stream().mapToDouble(Double::doubleValue).sum(), equalTo(1000.0));
+    }
+}
@@ -98,4 +98,26 @@ public class MetricAccumulatingQueueTest {
         Assert.assertFalse(queue.offer(new CloudWatchMetricKey(datum), datum));
         Assert.assertEquals(MAX_QUEUE_SIZE, queue.size());
     }
+
+    /*
+     * Test that datums carrying values and counts are merged bucket by bucket, and that statistic sets merged into a
+     * histogram are recorded at their mean. Values are reported as the midpoint of their bucket.
+     */
+    @Test
+    public void testAccumulateHistograms() {
+        MetricDatum datum1 = MetricDatum.builder().metricName("latency").unit(StandardUnit.MILLISECONDS)
+                .values(5.0, 100.0).counts(2.0, 1.0).build();
+        MetricDatum datum2 = MetricDatum.builder().metricName("latency").unit(StandardUnit.MILLISECONDS)
+                .values(5.0, 1000.0).counts(1.0, 1.0).build();
+        MetricDatum datum3 = TestHelper.constructDatum("latency", StandardUnit.MILLISECONDS, 7, 3, 10, 2);
+        queue.offer(new CloudWatchMetricKey(datum1), datum1);
+        queue.offer(new CloudWatchMetricKey(datum2), datum2);
+        queue.offer(new CloudWatchMetricKey(datum3), datum3);
+
+        List<MetricDatumWithKey<CloudWatchMetricKey>> items = queue.drain(MAX_QUEUE_SIZE);
+
+        Assert.assertEquals(1, items.size());
+        Assert.assertEquals(MetricDatum.builder().metricName("latency").unit(StandardUnit.MILLISECONDS)
+                .values(5.0, 102.0, 1008.0).counts(5.0, 1.0, 1.0).build(), items.get(0).datum);
+    }
 }
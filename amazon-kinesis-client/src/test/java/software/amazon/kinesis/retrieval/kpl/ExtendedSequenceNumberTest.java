@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval.kpl;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ExtendedSequenceNumberTest {
+
+    private final Random random = new Random();
+
+    @Test
+    public void testSentinelOrdering() {
+        List<ExtendedSequenceNumber> ordered = Arrays.asList(ExtendedSequenceNumber.AT_TIMESTAMP,
+                ExtendedSequenceNumber.TRIM_HORIZON, ExtendedSequenceNumber.LATEST, new ExtendedSequenceNumber("0"),
+                new ExtendedSequenceNumber("0", 1L), new ExtendedSequenceNumber("49587497311274533994574834252742"),
+                new ExtendedSequenceNumber(BigInteger.ONE.shiftLeft(300).toString()), ExtendedSequenceNumber.SHARD_END);
+
+        for (int i = 0; i < ordered.size(); ++i) {
+            for (int j = 0; j < ordered.size(); ++j) {
+                assertThat(ordered.get(i) + " vs " + ordered.get(j),
+                        Integer.signum(ordered.get(i).compareTo(ordered.get(j))), equalTo(Integer.compare(i, j)));
+            }
+        }
+    }
+
+    @Test
+    public void testCompareMatchesBigIntegerOrdering() {
+        for (int i = 0; i < 10000; ++i) {
+            BigInteger first = randomSequenceNumber();
+            BigInteger second = random.nextInt(10) == 0 ? first : randomSequenceNumber();
+            long firstSubSequenceNumber = random.nextInt(3);
+            long secondSubSequenceNumber = random.nextInt(3);
+
+            int expected = first.compareTo(second);
+            if (expected == 0) {
+                expected = Long.compare(firstSubSequenceNumber, secondSubSequenceNumber);
+            }
+            ExtendedSequenceNumber firstEsn = new ExtendedSequenceNumber(first.toString(), firstSubSequenceNumber);
+            ExtendedSequenceNumber secondEsn = new ExtendedSequenceNumber(second.toString(), secondSubSequenceNumber);
+
+            assertThat(first + " vs " + second, Integer.signum(firstEsn.compareTo(secondEsn)),
+                    equalTo(Integer.signum(expected)));
+            // The second comparison uses the cached parsed values
+            assertThat(Integer.signum(secondEsn.compareTo(firstEsn)), equalTo(-Integer.signum(expected)));
+        }
+    }
+
+    @Test
+    public void testLeadingZerosAreIgnored() {
+        assertThat(new ExtendedSequenceNumber("000123").compareTo(new ExtendedSequenceNumber("123")), equalTo(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompareInvalidSequenceNumber() {
+        new ExtendedSequenceNumber("12a4").compareTo(ExtendedSequenceNumber.TRIM_HORIZON);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompareToInvalidSequenceNumber() {
+        ExtendedSequenceNumber.LATEST.compareTo(new ExtendedSequenceNumber("NOT_A_SENTINEL"));
+    }
+
+    @Test
+    public void testParsedSequenceNumberBits() {
+        for (int i = 0; i < 1000; ++i) {
+            BigInteger value = randomSequenceNumber();
+            ParsedSequenceNumber parsed = ParsedSequenceNumber.parse(value.toString());
+
+            assertThat(parsed.bigIntegerValue(), equalTo(value));
+            assertThat(parsed.toString(), equalTo(value.toString()));
+            assertThat(parsed.bitLength(), equalTo(value.bitLength()));
+            int offset = random.nextInt(200);
+            long mask = random.nextLong();
+            assertThat(parsed.bits(offset, mask), equalTo(value.shiftRight(offset).longValue() & mask));
+        }
+    }
+
+    private BigInteger randomSequenceNumber() {
+        switch (random.nextInt(4)) {
+        case 0:
+            return BigInteger.valueOf(random.nextInt(1000));
+        case 1:
+            return new BigInteger(random.nextInt(192) + 1, random);
+        case 2:
+            // Same length as Kinesis sequence numbers, so only the low bits differ
+            return BigInteger.ONE.shiftLeft(185).add(new BigInteger(64, random));
+        default:
+            return new BigInteger(random.nextInt(100) + 192, random);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package software.amazon.kinesis.retrieval.polling;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
@@ -42,9 +43,9 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -109,7 +110,7 @@ public class PrefetchRecordsPublisherTest {
 
     private List<Record> records;
     private ExecutorService executorService;
-    private LinkedBlockingQueue<PrefetchRecordsPublisher.PrefetchRecordsRetrieved> spyQueue;
+    private BlockingQueue<PrefetchRecordsPublisher.PrefetchRecordsRetrieved> spyQueue;
     private PrefetchRecordsPublisher getRecordsCache;
     private String operation = "ProcessTask";
     private GetRecordsResponse getRecordsResponse;
@@ -440,6 +441,62 @@ public class PrefetchRecordsPublisherTest {
 
     @Test
     public void testResetClearsRemainingData() {
+        verifyResetClearsRemainingData();
+    }
+
+    @Test
+    public void testResetClearsRemainingDataWithLockFreeQueue() {
+        getRecordsCache = new PrefetchRecordsPublisher(MAX_SIZE, 3 * SIZE_1_MB, MAX_RECORDS_COUNT,
+                MAX_RECORDS_PER_CALL, getRecordsRetrievalStrategy, executorService, IDLE_MILLIS_BETWEEN_CALLS,
+                new NullMetricsFactory(), operation, "shardId", true, null);
+        assertThat(getRecordsCache.getRecordsResultQueue, instanceOf(SpscArrayBlockingQueue.class));
+
+        verifyResetClearsRemainingData();
+    }
+
+    @Test(timeout = 10000L)
+    public void testByteBudgetSharedWithOtherShards() {
+        PrefetchByteBudget budget = new PrefetchByteBudget(SIZE_1_MB);
+        ExecutorService budgetExecutorService = Executors.newFixedThreadPool(1);
+        PrefetchRecordsPublisher budgetedCache = new PrefetchRecordsPublisher(MAX_SIZE, 3 * SIZE_1_MB,
+                MAX_RECORDS_COUNT, MAX_RECORDS_PER_CALL, getRecordsRetrievalStrategy, budgetExecutorService,
+                IDLE_MILLIS_BETWEEN_CALLS, new NullMetricsFactory(), operation, "shardId", false, budget);
+        GetRecordsResponse response = GetRecordsResponse.builder().records(Record.builder()
+                .data(createByteBufferWithSize(SIZE_512_KB)).sequenceNumber("123").build()).build();
+        when(getRecordsRetrievalStrategy.getRecords(anyInt())).thenReturn(response);
+
+        // Another shard holds the whole budget, so only a single batch may be prefetched.
+        budget.reserve(SIZE_1_MB);
+        budgetedCache.start(sequenceNumber, initialPosition);
+        while (budgetedCache.getRecordsResultQueue.size() < 1) {
+            Thread.yield();
+        }
+        sleep(200);
+        assertThat(budgetedCache.getRecordsResultQueue.size(), equalTo(1));
+        assertThat(budget.reservedBytes(), equalTo((long) SIZE_1_MB + SIZE_512_KB));
+
+        // Once the other shard releases its bytes, the cache prefetches until the budget is used up.
+        budget.release(SIZE_1_MB);
+        while (budgetedCache.getRecordsResultQueue.size() < 2) {
+            Thread.yield();
+        }
+        sleep(200);
+        assertThat(budgetedCache.getRecordsResultQueue.size(), equalTo(2));
+        assertThat(budget.reservedBytes(), equalTo((long) SIZE_1_MB));
+
+        // Consuming a batch releases its bytes, which the cache fetches again.
+        budgetedCache.pollNextResultAndUpdatePrefetchCounters();
+        while (budgetedCache.getRecordsResultQueue.size() < 2) {
+            Thread.yield();
+        }
+        sleep(200);
+        assertThat(budget.reservedBytes(), equalTo((long) SIZE_1_MB));
+
+        budgetedCache.shutdown();
+        assertThat(budget.reservedBytes(), equalTo(0L));
+    }
+
+    private void verifyResetClearsRemainingData() {
         List<GetRecordsResponse> responses = Stream.iterate(0, i -> i + 1).limit(10).map(i -> {
             Record record = Record.builder().partitionKey("record-" + i).sequenceNumber("seq-" + i)
                     .data(SdkBytes.fromByteArray(new byte[] { 1, 2, 3 })).approximateArrivalTimestamp(Instant.now())
@@ -14,8 +14,14 @@
  */
 package software.amazon.kinesis.retrieval.polling;
 
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
 
 import org.junit.Before;
 import org.junit.Ignore;
@@ -30,6 +36,12 @@ import software.amazon.kinesis.retrieval.RecordsFetcherFactory;
 import software.amazon.kinesis.retrieval.RecordsPublisher;
 
 public class RecordsFetcherFactoryTest {
+    /**
+     * A factory that doesn't override the optional settings of RecordsFetcherFactory.
+     */
+    private abstract static class CustomRecordsFetcherFactory implements RecordsFetcherFactory {
+    }
+
     private String shardId = "TestShard";
     private RecordsFetcherFactory recordsFetcherFactory;
 
@@ -61,4 +73,36 @@ public class RecordsFetcherFactoryTest {
         assertThat(recordsCache, instanceOf(PrefetchRecordsPublisher.class));
     }
 
+    @Test
+    public void customFactoryIgnoresLockFreePrefetchQueueTest() {
+        RecordsFetcherFactory customFactory = mock(CustomRecordsFetcherFactory.class);
+        doCallRealMethod().when(customFactory).lockFreePrefetchQueue(anyBoolean());
+        doCallRealMethod().when(customFactory).lockFreePrefetchQueue();
+
+        customFactory.lockFreePrefetchQueue(true);
+
+        assertThat(customFactory.lockFreePrefetchQueue(), equalTo(false));
+    }
+
+    @Test
+    public void customFactoryIgnoresPrefetchByteBudgetTest() {
+        RecordsFetcherFactory customFactory = mock(CustomRecordsFetcherFactory.class);
+        doCallRealMethod().when(customFactory).prefetchByteBudget(any(PrefetchByteBudget.class));
+        doCallRealMethod().when(customFactory).prefetchByteBudget();
+
+        customFactory.prefetchByteBudget(new PrefetchByteBudget(1024));
+
+        assertThat(customFactory.prefetchByteBudget(), nullValue());
+    }
+
+    @Test
+    public void createLockFreePrefetchRecordsFetcherTest() {
+        recordsFetcherFactory.lockFreePrefetchQueue(true);
+        RecordsPublisher recordsCache = recordsFetcherFactory.createRecordsFetcher(getRecordsRetrievalStrategy, shardId,
+                metricsFactory, 1);
+        assertThat(recordsCache, instanceOf(PrefetchRecordsPublisher.class));
+        assertThat(((PrefetchRecordsPublisher) recordsCache).getRecordsResultQueue,
+                instanceOf(SpscArrayBlockingQueue.class));
+    }
+
 }
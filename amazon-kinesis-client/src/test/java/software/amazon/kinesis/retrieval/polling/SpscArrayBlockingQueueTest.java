@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Amazon.com, Inc. or its affiliates.
+ * Licensed under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package software.amazon.kinesis.retrieval.polling;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SpscArrayBlockingQueueTest {
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    @After
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testCapacityIsNotRoundedUp() {
+        SpscArrayBlockingQueue<Integer> queue = new SpscArrayBlockingQueue<>(3);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertThat(queue.size(), equalTo(3));
+        assertThat(queue.remainingCapacity(), equalTo(0));
+    }
+
+    @Test
+    public void testFifoOrderAcrossWraparound() {
+        SpscArrayBlockingQueue<Integer> queue = new SpscArrayBlockingQueue<>(3);
+        for (int i = 0; i < 100; ++i) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(i + 1000));
+            assertThat(queue.peek(), equalTo(i));
+            assertThat(queue.poll(), equalTo(i));
+            assertThat(queue.poll(), equalTo(i + 1000));
+        }
+        assertThat(queue.poll(), nullValue());
+        assertThat(queue.peek(), nullValue());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testClearReleasesCapacity() {
+        SpscArrayBlockingQueue<Integer> queue = new SpscArrayBlockingQueue<>(2);
+        queue.offer(1);
+        queue.offer(2);
+        queue.clear();
+
+        assertTrue(queue.isEmpty());
+        assertThat(queue.remainingCapacity(), equalTo(2));
+        assertTrue(queue.offer(3));
+        List<Integer> drained = new ArrayList<>();
+        assertThat(queue.drainTo(drained), equalTo(1));
+        assertThat(drained, equalTo(Arrays.asList(3)));
+    }
+
+    @Test
+    public void testTimedOfferTimesOutWhenFull() throws Exception {
+        SpscArrayBlockingQueue<Integer> queue = new SpscArrayBlockingQueue<>(1);
+        queue.offer(1);
+        assertFalse(queue.offer(2, 10, TimeUnit.MILLISECONDS));
+        assertFalse(queue.offer(2, 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 10000L)
+    public void testBlockedProducerIsWokenUpByConsumer() throws Exception {
+        SpscArrayBlockingQueue<Integer> queue = new SpscArrayBlockingQueue<>(1);
+        queue.offer(1);
+        Future<Boolean> offered = executorService.submit(() -> queue.offer(2, 10, TimeUnit.SECONDS));
+
+        Thread.sleep(50);
+        assertThat(queue.poll(), equalTo(1));
+        assertTrue(offered.get());
+        assertThat(queue.poll(), equalTo(2));
+    }
+
+    @Test(timeout = 10000L)
+    public void testBlockedConsumerIsWokenUpByProducer() throws Exception {
+        SpscArrayBlockingQueue<Integer> queue = new SpscArrayBlockingQueue<>(1);
+        Future<Integer> taken = executorService.submit(queue::take);
+
+        Thread.sleep(50);
+        queue.put(1);
+        assertThat(taken.get(), equalTo(1));
+    }
+
+    @Test(timeout = 30000L)
+    public void testConcurrentTransferKeepsOrder() throws Exception {
+        final int count = 1000000;
+        SpscArrayBlockingQueue<Integer> queue = new SpscArrayBlockingQueue<>(5);
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            try {
+                for (int i = 0; i < count; ++i) {
+                    while (!queue.offer(i, 1, TimeUnit.MILLISECONDS)) {
+                        // Keep trying, the consumer will make space
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }, executorService);
+
+        for (int i = 0; i < count; ++i) {
+            assertThat(queue.poll(10, TimeUnit.SECONDS), equalTo(i));
+        }
+        producer.get();
+        assertTrue(queue.isEmpty());
+    }
+}